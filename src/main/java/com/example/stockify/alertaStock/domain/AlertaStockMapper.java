@@ -0,0 +1,35 @@
+package com.example.stockify.alertaStock.domain;
+
+import com.example.stockify.alertaStock.dto.AlertaStockNewDTO;
+import com.example.stockify.alertaStock.dto.AlertaStockRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito de alertas de stock.
+ */
+@Component
+public class AlertaStockMapper {
+
+    public AlertaStockRequestDTO aDTO(AlertaStock alerta) {
+        AlertaStockRequestDTO dto = new AlertaStockRequestDTO();
+        dto.setId(alerta.getId());
+        dto.setMensaje(alerta.getMensaje());
+        dto.setFechaAlerta(alerta.getFechaAlerta());
+        dto.setAtendido(alerta.getAtendido());
+        dto.setPrioridad(alerta.getPrioridad());
+        if (alerta.getProducto() != null) {
+            dto.setProductoId(alerta.getProducto().getId());
+            dto.setProductoNombre(alerta.getProducto().getNombre());
+        }
+        return dto;
+    }
+
+    public AlertaStock aEntidad(AlertaStockNewDTO dto) {
+        AlertaStock alerta = new AlertaStock();
+        alerta.setMensaje(dto.getMensaje());
+        alerta.setFechaAlerta(dto.getFechaAlerta());
+        alerta.setAtendido(dto.getAtendido());
+        alerta.setPrioridad(dto.getPrioridad());
+        return alerta;
+    }
+}
@@ -7,7 +7,6 @@ import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.producto.domain.Producto;
 import com.example.stockify.producto.infrastructure.ProductoRepository;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.context.ApplicationEventPublisher;
 
@@ -19,14 +18,14 @@ import java.util.stream.Collectors;
 public class AlertaStockService {
     private final AlertaStockRepository alertaStockRepository;
     private final ProductoRepository productoRepository;
-    private final ModelMapper modelMapper;
+    private final AlertaStockMapper alertaStockMapper;
     private final ApplicationEventPublisher applicationEventPublisher;
 
-    public AlertaStockService(ModelMapper modelMapper,
+    public AlertaStockService(AlertaStockMapper alertaStockMapper,
                               AlertaStockRepository alertaStockRepository,
                               ProductoRepository productoRepository,
                               ApplicationEventPublisher applicationEventPublisher) {
-        this.modelMapper = modelMapper;
+        this.alertaStockMapper = alertaStockMapper;
         this.alertaStockRepository = alertaStockRepository;
         this.productoRepository = productoRepository;
         this.applicationEventPublisher = applicationEventPublisher;
@@ -35,23 +34,20 @@ public class AlertaStockService {
     public List<AlertaStockRequestDTO> findAll() {
         return alertaStockRepository.findAll()
                 .stream()
-                .map(this::mapToDTO)
+                .map(alertaStockMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public List<AlertaStockRequestDTO> findPendientes() {
         return alertaStockRepository.findByAtendidoFalse()
                 .stream()
-                .map(this::mapToDTO)
+                .map(alertaStockMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     @Transactional
     public AlertaStockRequestDTO crear(AlertaStockNewDTO dto) {
-        AlertaStock alerta = modelMapper.map(dto, AlertaStock.class);
-
-        // 🔑 Asegúrate de limpiar el ID antes de guardar
-        alerta.setId(null);
+        AlertaStock alerta = alertaStockMapper.aEntidad(dto);
 
         Producto producto = productoRepository.findById(dto.getProductoId())
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId()));
@@ -64,26 +60,26 @@ public class AlertaStockService {
 
         applicationEventPublisher.publishEvent(new AlertaStockCreadaEvent(alerta));
 
-        return mapToDTO(alerta);
+        return alertaStockMapper.aDTO(alerta);
     }
 
     public AlertaStockRequestDTO findById(Long id) {
         AlertaStock alerta = alertaStockRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Alerta no encontrada con ID: " + id));
-        return mapToDTO(alerta);
+        return alertaStockMapper.aDTO(alerta);
     }
 
     public List<AlertaStockRequestDTO> findAtendidas() {
         return alertaStockRepository.findByAtendidoTrue()
                 .stream()
-                .map(this::mapToDTO)
+                .map(alertaStockMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public List<AlertaStockRequestDTO> findByPrioridad(String prioridad) {
         return alertaStockRepository.findByPrioridad(Prioridad.valueOf(prioridad))
                 .stream()
-                .map(this::mapToDTO)
+                .map(alertaStockMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
@@ -105,7 +101,7 @@ public class AlertaStockService {
         applicationEventPublisher.publishEvent(new AlertaStockCreadaEvent(alerta));
 
 
-        return mapToDTO(alerta);
+        return alertaStockMapper.aDTO(alerta);
     }
 
     @Transactional
@@ -127,15 +123,6 @@ public class AlertaStockService {
                 .orElseThrow(() -> new ResourceNotFoundException("Alerta no encontrada con ID: " + id));
         alerta.setAtendido(true);
         alertaStockRepository.save(alerta);
-        return mapToDTO(alerta);
-    }
-
-    private AlertaStockRequestDTO mapToDTO(AlertaStock alerta) {
-        AlertaStockRequestDTO dto = modelMapper.map(alerta, AlertaStockRequestDTO.class);
-        if (alerta.getProducto() != null) {
-            dto.setProductoId(alerta.getProducto().getId());
-            dto.setProductoNombre(alerta.getProducto().getNombre());
-        }
-        return dto;
+        return alertaStockMapper.aDTO(alerta);
     }
 }
@@ -0,0 +1,35 @@
+package com.example.stockify.almacen.domain;
+
+import com.example.stockify.almacen.dto.AlmacenNewDTO;
+import com.example.stockify.almacen.dto.AlmacenRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito entre Almacen y sus DTO, sin tocar lotes ni movimientos.
+ */
+@Component
+public class AlmacenMapper {
+
+    public AlmacenRequestDTO aDTO(Almacen almacen) {
+        AlmacenRequestDTO dto = new AlmacenRequestDTO();
+        dto.setId(almacen.getId());
+        dto.setNombre(almacen.getNombre());
+        dto.setUbicacion(almacen.getUbicacion());
+        dto.setResponsable(almacen.getResponsable());
+        dto.setCapacidadMaxima(almacen.getCapacidadMaxima());
+        dto.setActivo(almacen.getActivo());
+        dto.setFechaCreacion(almacen.getFechaCreacion());
+        dto.setUltimoActualizado(almacen.getUltimoActualizado());
+        return dto;
+    }
+
+    public Almacen aEntidad(AlmacenNewDTO dto) {
+        Almacen almacen = new Almacen();
+        almacen.setNombre(dto.getNombre());
+        almacen.setUbicacion(dto.getUbicacion());
+        almacen.setResponsable(dto.getResponsable());
+        almacen.setCapacidadMaxima(dto.getCapacidadMaxima());
+        almacen.setActivo(dto.getActivo());
+        return almacen;
+    }
+}
@@ -6,7 +6,6 @@ import com.example.stockify.almacen.dto.AlmacenNewDTO;
 import com.example.stockify.excepciones.BadRequestException;
 import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.excepciones.ValidacionException;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,17 +14,17 @@ import java.util.List;
 public class AlmacenService {
 
     private final AlmacenRepository almacenRepository;
-    private final ModelMapper modelMapper;
+    private final AlmacenMapper almacenMapper;
 
-    public AlmacenService(ModelMapper modelMapper, AlmacenRepository almacenRepository) {
-        this.modelMapper = modelMapper;
+    public AlmacenService(AlmacenMapper almacenMapper, AlmacenRepository almacenRepository) {
+        this.almacenMapper = almacenMapper;
         this.almacenRepository = almacenRepository;
     }
 
     public AlmacenRequestDTO findById(Long id) {
         Almacen e = almacenRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Almacén no encontrado con ID: " + id));
-        return modelMapper.map(e, AlmacenRequestDTO.class);
+        return almacenMapper.aDTO(e);
     }
 
     public AlmacenRequestDTO create(AlmacenNewDTO dto) {
@@ -33,14 +32,14 @@ public class AlmacenService {
             throw new ValidacionException("El nombre del almacén es obligatorio.");
         }
 
-        Almacen e = modelMapper.map(dto, Almacen.class);
+        Almacen e = almacenMapper.aEntidad(dto);
 
         if (e.getActivo() == null) {
             e.setActivo(true);
         }
 
         e = almacenRepository.save(e);
-        return modelMapper.map(e, AlmacenRequestDTO.class);
+        return almacenMapper.aDTO(e);
     }
 
 
@@ -66,13 +65,13 @@ public class AlmacenService {
         if (dto.getActivo() != null) existing.setActivo(dto.getActivo());
 
         existing = almacenRepository.save(existing);
-        return modelMapper.map(existing, AlmacenRequestDTO.class);
+        return almacenMapper.aDTO(existing);
     }
 
     public List<AlmacenRequestDTO> findAll() {
         return almacenRepository.findAll()
                 .stream()
-                .map(a -> modelMapper.map(a, AlmacenRequestDTO.class))
+                .map(almacenMapper::aDTO)
                 .toList();
     }
     public List<AlmacenRequestDTO> listarActivos() {
@@ -81,7 +80,7 @@ public class AlmacenService {
             throw new ResourceNotFoundException("No hay almacenes activos actualmente.");
         }
         return activos.stream()
-                .map(a -> modelMapper.map(a, AlmacenRequestDTO.class))
+                .map(almacenMapper::aDTO)
                 .toList();
     }
 
@@ -96,7 +95,7 @@ public class AlmacenService {
         }
 
         return resultado.stream()
-                .map(a -> modelMapper.map(a, AlmacenRequestDTO.class))
+                .map(almacenMapper::aDTO)
                 .toList();
     }
 
@@ -111,6 +110,6 @@ public class AlmacenService {
         almacen.setActivo(nuevoEstado);
         almacen = almacenRepository.save(almacen);
 
-        return modelMapper.map(almacen, AlmacenRequestDTO.class);
+        return almacenMapper.aDTO(almacen);
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.stockify.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuración para habilitar tareas programadas (checkpoints del libro de stock)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
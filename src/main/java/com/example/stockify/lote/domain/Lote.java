@@ -22,11 +22,14 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "lotes")
+@Table(name = "lotes", indexes = {
+        @Index(name = "idx_lotes_producto_fifo", columnList = "producto_id, fecha_compra, id")
+})
 public class Lote {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lotes_seq")
+    @SequenceGenerator(name = "lotes_seq", sequenceName = "lotes_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "codigo_lote", nullable = false, unique = true)
@@ -64,6 +67,9 @@ public class Lote {
     @Column(nullable = false)
     private Estado estado = Estado.ACTIVO;
 
+    @Version
+    private Long version;
+
     @JsonIgnore
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "producto_id", nullable = false)
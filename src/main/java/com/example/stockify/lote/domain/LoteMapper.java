@@ -0,0 +1,30 @@
+package com.example.stockify.lote.domain;
+
+import com.example.stockify.lote.dto.LoteRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito entre Lote y sus DTO. No recorre producto ni almacén.
+ */
+@Component
+public class LoteMapper {
+
+    public LoteRequestDTO aDTO(Lote lote) {
+        LoteRequestDTO dto = new LoteRequestDTO();
+        dto.setCodigoLote(lote.getCodigoLote());
+        dto.setCostoUnitario(lote.getCostoUnitario());
+        dto.setCostoTotal(lote.getCostoTotal());
+        dto.setCantidadInicial(lote.getCantidadInicial());
+        dto.setCantidadDisponible(lote.getCantidadDisponible());
+        dto.setFechaCompra(lote.getFechaCompra());
+        dto.setFechaVencimiento(lote.getFechaVencimiento());
+        return dto;
+    }
+
+    /** Copia los datos descriptivos. Cantidades y costos solo cambian mediante movimientos, por eso no se copian. */
+    public void copiar(LoteRequestDTO dto, Lote lote) {
+        lote.setCodigoLote(dto.getCodigoLote());
+        lote.setFechaCompra(dto.getFechaCompra());
+        lote.setFechaVencimiento(dto.getFechaVencimiento());
+    }
+}
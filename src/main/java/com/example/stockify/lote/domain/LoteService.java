@@ -5,63 +5,70 @@ import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.lote.infrastructure.LoteRepository;
 import com.example.stockify.lote.dto.LoteRequestDTO;
 import com.example.stockify.lote.dto.LoteNewDTO;
-import org.modelmapper.ModelMapper;
+import com.example.stockify.movimiento.domain.MovimientoCoordinador;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Consulta y edición de lotes. Las cantidades y costos de un lote solo cambian mediante
+ * movimientos: el alta pasa por una entrada y la edición se limita a los datos descriptivos.
+ */
 @Service
 public class LoteService {
     private final LoteRepository loteRepository;
-    private final ModelMapper modelMapper;
+    private final LoteMapper loteMapper;
+    private final MovimientoCoordinador movimientoCoordinador;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public LoteService(ModelMapper modelMapper, LoteRepository loteRepository) {
-        this.modelMapper = modelMapper;
+    public LoteService(LoteMapper loteMapper, LoteRepository loteRepository,
+                       MovimientoCoordinador movimientoCoordinador, ApplicationEventPublisher eventPublisher) {
+        this.loteMapper = loteMapper;
         this.loteRepository = loteRepository;
+        this.movimientoCoordinador = movimientoCoordinador;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<LoteRequestDTO> findAll() {
         return loteRepository.findAll()
                 .stream()
-                .map(l -> modelMapper.map(l, LoteRequestDTO.class))
+                .map(loteMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public LoteRequestDTO findByIdPlain(Long id) {
         Lote lote = loteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lote con ID " + id + " no encontrado"));
-        return modelMapper.map(lote, LoteRequestDTO.class);
+        return loteMapper.aDTO(lote);
     }
 
+    /** Registra el lote como una entrada: actualiza stock, saldos por almacén y contadores de valorización. */
     public LoteRequestDTO create(LoteNewDTO dto) {
-        Lote lote = modelMapper.map(dto, Lote.class);
-
-        if (lote.getAlmacen() == null || lote.getAlmacen().getId() == null) {
+        if (dto.getAlmacen() == null || dto.getAlmacen().getId() == null) {
             throw new BadRequestException("Debe especificar un almacén válido para el lote.");
         }
 
-        if (lote.getProducto() == null || lote.getProducto().getId() == null) {
+        if (dto.getProducto() == null || dto.getProducto().getId() == null) {
             throw new BadRequestException("Debe especificar un producto válido para el lote.");
         }
 
-        lote = loteRepository.save(lote);
-        return modelMapper.map(lote, LoteRequestDTO.class);
+        return loteMapper.aDTO(movimientoCoordinador.registrarLote(dto));
     }
 
+    /** Cantidades y costos no se copian: se corrigen con salidas o anulando la entrada. */
     public LoteRequestDTO update(Long id, LoteRequestDTO dto) {
         Lote existing = loteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lote con ID " + id + " no encontrado"));
 
-        if (dto.getCantidadDisponible() != null && dto.getCantidadDisponible() < 0) {
-            throw new BadRequestException("La cantidad disponible no puede ser negativa");
-        }
-
-        modelMapper.map(dto, existing);
+        loteMapper.copiar(dto, existing);
         existing = loteRepository.save(existing);
+        eventPublisher.publishEvent(new LotesModificadosEvent(Set.of(existing.getProducto().getId())));
 
-        return modelMapper.map(existing, LoteRequestDTO.class);
+        return loteMapper.aDTO(existing);
     }
 
     public List<LoteRequestDTO> obtenerLotesDisponiblesFIFO(Long productoId) {
@@ -72,7 +79,7 @@ public class LoteService {
         }
 
         return lotes.stream()
-                .map(l -> modelMapper.map(l, LoteRequestDTO.class))
+                .map(loteMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
@@ -84,7 +91,7 @@ public class LoteService {
         }
 
         return lotes.stream()
-                .map(l -> modelMapper.map(l, LoteRequestDTO.class))
+                .map(loteMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
@@ -98,23 +105,22 @@ public class LoteService {
         }
 
         return lotes.stream()
-                .map(l -> modelMapper.map(l, LoteRequestDTO.class))
+                .map(loteMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
+    /** Igual que update, pero solo con los campos informados. */
     public LoteRequestDTO patchUpdate(Long id, LoteRequestDTO dto) {
         Lote existing = loteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Lote con ID " + id + " no encontrado"));
 
-        if (dto.getCantidadDisponible() != null) {
-            if (dto.getCantidadDisponible() < 0) {
-                throw new BadRequestException("La cantidad disponible no puede ser negativa");
-            }
-            existing.setCantidadDisponible(dto.getCantidadDisponible());
-        }
+        if (dto.getCodigoLote() != null) existing.setCodigoLote(dto.getCodigoLote());
+        if (dto.getFechaCompra() != null) existing.setFechaCompra(dto.getFechaCompra());
+        if (dto.getFechaVencimiento() != null) existing.setFechaVencimiento(dto.getFechaVencimiento());
 
         existing = loteRepository.save(existing);
-        return modelMapper.map(existing, LoteRequestDTO.class);
+        eventPublisher.publishEvent(new LotesModificadosEvent(Set.of(existing.getProducto().getId())));
+        return loteMapper.aDTO(existing);
     }
 
 }
@@ -0,0 +1,15 @@
+package com.example.stockify.lote.domain;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/* Evento que se publica cuando se crea o edita un lote fuera de los movimientos de stock. */
+@Getter
+public class LotesModificadosEvent {
+    private final Set<Long> productoIds;
+
+    public LotesModificadosEvent(Set<Long> productoIds) {
+        this.productoIds = productoIds;
+    }
+}
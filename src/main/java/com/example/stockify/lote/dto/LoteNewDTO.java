@@ -5,7 +5,6 @@ import com.example.stockify.producto.domain.Producto;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
-import jakarta.validation.constraints.PositiveOrZero;
 import lombok.*;
 import jakarta.validation.constraints.NotBlank;
 
@@ -24,16 +23,14 @@ public class LoteNewDTO {
     @Positive(message = "El costo unitario debe ser mayor que 0")
     private Double costoUnitario;
 
-    @NotNull(message = "El costo total no puede ser nulo")
-    @PositiveOrZero(message = "El costo total no puede ser negativo")
+    // Se ignora: es cantidadInicial * costoUnitario
     private Double costoTotal;
 
     @NotNull(message = "La cantidad inicial no puede ser nula")
     @Positive(message = "La cantidad inicial debe ser mayor que 0")
     private Double cantidadInicial;
 
-    @NotNull(message = "La cantidad disponible no puede ser nula")
-    @PositiveOrZero(message = "La cantidad disponible no puede ser negativa")
+    // Se ignora: un lote nuevo entra completo
     private Double cantidadDisponible;
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
@@ -1,12 +1,53 @@
 package com.example.stockify.lote.infrastructure;
 
 import com.example.stockify.lote.domain.Lote;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface LoteRepository extends JpaRepository<Lote, Long> {
     List<Lote> findByProductoIdOrderByFechaCompraAsc(Long productoId);
     List<Lote> findByFechaVencimientoBetween(LocalDateTime inicio, LocalDateTime fin);
-}
\ No newline at end of file
+
+    // Lotes con saldo en orden FIFO, bloqueados con FOR UPDATE SKIP LOCKED (timeout -2)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT l FROM Lote l WHERE l.producto.id = :productoId AND l.cantidadDisponible > 0 " +
+           "ORDER BY l.fechaCompra ASC, l.id ASC")
+    List<Lote> bloquearDisponiblesFIFO(@Param("productoId") Long productoId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT l FROM Lote l WHERE l.producto.id = :productoId AND l.cantidadDisponible > 0 " +
+           "AND (l.fechaCompra > :fechaCompra OR (l.fechaCompra = :fechaCompra AND l.id > :loteId)) " +
+           "ORDER BY l.fechaCompra ASC, l.id ASC")
+    List<Lote> bloquearDisponiblesFIFODespuesDe(@Param("productoId") Long productoId,
+                                                @Param("fechaCompra") LocalDateTime fechaCompra,
+                                                @Param("loteId") Long loteId,
+                                                Pageable pageable);
+
+    // Lotes con saldo de varios productos en una sola consulta, FIFO por producto y con SKIP LOCKED
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT l FROM Lote l WHERE l.producto.id IN :productoIds AND l.cantidadDisponible > 0 " +
+           "ORDER BY l.producto.id ASC, l.fechaCompra ASC, l.id ASC")
+    List<Lote> bloquearDisponiblesFIFODeProductos(@Param("productoIds") Collection<Long> productoIds);
+
+    // Capas de costo vigentes de varios productos, sin bloquear, en orden FIFO por producto
+    @Query("SELECT l FROM Lote l WHERE l.producto.id IN :productoIds AND l.cantidadDisponible > 0 " +
+           "ORDER BY l.producto.id ASC, l.fechaCompra ASC, l.id ASC")
+    List<Lote> findDisponiblesFIFODeProductos(@Param("productoIds") Collection<Long> productoIds);
+
+    @Query("SELECT COALESCE(SUM(l.cantidadDisponible), 0) FROM Lote l " +
+           "WHERE l.producto.id = :productoId AND l.cantidadDisponible > 0")
+    Double sumarDisponible(@Param("productoId") Long productoId);
+}
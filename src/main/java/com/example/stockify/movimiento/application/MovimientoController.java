@@ -1,11 +1,23 @@
 package com.example.stockify.movimiento.application;
 
+import com.example.stockify.movimiento.domain.ContencionStockRegistro;
+import com.example.stockify.movimiento.domain.MovimientoCoordinador;
 import com.example.stockify.movimiento.domain.MovimientoService;
+import com.example.stockify.movimiento.domain.PlanificadorSalidas;
+import com.example.stockify.movimiento.dto.AsignacionSalidaDTO;
+import com.example.stockify.movimiento.dto.ComandaDTO;
+import com.example.stockify.movimiento.dto.ContencionProductoDTO;
+import com.example.stockify.movimiento.dto.EntradaMasivaDTO;
 import com.example.stockify.movimiento.dto.MovimientoNewDTO;
 import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
+import com.example.stockify.movimiento.dto.PaginaMovimientosDTO;
+import com.example.stockify.movimiento.dto.PlanSalidaDTO;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -13,34 +25,80 @@ import java.util.List;
 @RequestMapping("/movimientos")
 @CrossOrigin(origins = "*")
 public class MovimientoController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
 
     private final MovimientoService movimientoService;
+    private final MovimientoCoordinador movimientoCoordinador;
+    private final ContencionStockRegistro contencionStockRegistro;
+    private final PlanificadorSalidas planificadorSalidas;
 
-    public MovimientoController(MovimientoService movimientoService) {
+    public MovimientoController(MovimientoService movimientoService,
+                                MovimientoCoordinador movimientoCoordinador,
+                                ContencionStockRegistro contencionStockRegistro,
+                                PlanificadorSalidas planificadorSalidas) {
         this.movimientoService = movimientoService;
+        this.movimientoCoordinador = movimientoCoordinador;
+        this.contencionStockRegistro = contencionStockRegistro;
+        this.planificadorSalidas = planificadorSalidas;
     }
 
     @PreAuthorize("hasRole('SUPERVISOR')")
     @PostMapping("/entrada")
-    public ResponseEntity<MovimientoRequestDTO> registrarEntrada(@RequestBody MovimientoNewDTO dto) {
-        MovimientoRequestDTO movimiento = movimientoService.registrarEntrada(dto);
+    public ResponseEntity<MovimientoRequestDTO> registrarEntrada(
+            @RequestBody MovimientoNewDTO dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String claveIdempotencia) {
+        MovimientoRequestDTO movimiento = movimientoCoordinador.registrarEntrada(dto, claveIdempotencia);
         return ResponseEntity.ok(movimiento);
     }
 
+    @PreAuthorize("hasRole('SUPERVISOR')")
+    @PostMapping("/entrada-masiva")
+    public ResponseEntity<List<MovimientoRequestDTO>> registrarEntradaMasiva(@Valid @RequestBody EntradaMasivaDTO dto) {
+        List<MovimientoRequestDTO> movimientos = movimientoCoordinador.registrarEntradaMasiva(dto.getLineas());
+        return ResponseEntity.ok(movimientos);
+    }
+
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'COCINERO')")
     @PostMapping("/salida-manual")
-    public ResponseEntity<MovimientoRequestDTO> registrarSalidaManual(@RequestBody MovimientoNewDTO dto) {
-        MovimientoRequestDTO movimiento = movimientoService.registrarSalidaManual(dto);
-        return ResponseEntity.ok(movimiento);
+    public ResponseEntity<AsignacionSalidaDTO> registrarSalidaManual(
+            @RequestBody MovimientoNewDTO dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String claveIdempotencia) {
+        AsignacionSalidaDTO asignacion = movimientoCoordinador.registrarSalidaManual(dto, claveIdempotencia);
+        return ResponseEntity.ok(asignacion);
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'COCINERO')")
+    @PostMapping("/salida-manual/plan")
+    public ResponseEntity<PlanSalidaDTO> planificarSalidaManual(@RequestBody MovimientoNewDTO dto) {
+        return ResponseEntity.ok(planificadorSalidas.planificarSalidaManual(dto));
     }
 
     @PreAuthorize("hasRole('COCINERO')")
     @PostMapping("/salida-receta/{recetaBaseId}")
     public ResponseEntity<List<MovimientoRequestDTO>> registrarSalidaPorReceta(
+            @PathVariable Long recetaBaseId,
+            @RequestParam int porciones,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String claveIdempotencia) {
+
+        List<MovimientoRequestDTO> movimientos = movimientoCoordinador.registrarSalidaPorReceta(recetaBaseId, porciones, claveIdempotencia);
+        return ResponseEntity.ok(movimientos);
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'COCINERO')")
+    @GetMapping("/salida-receta/{recetaBaseId}/plan")
+    public ResponseEntity<PlanSalidaDTO> planificarSalidaPorReceta(
             @PathVariable Long recetaBaseId,
             @RequestParam int porciones) {
+        return ResponseEntity.ok(planificadorSalidas.planificarSalidaPorReceta(recetaBaseId, porciones));
+    }
 
-        List<MovimientoRequestDTO> movimientos = movimientoService.registrarSalidaPorReceta(recetaBaseId, porciones);
+    @PreAuthorize("hasRole('COCINERO')")
+    @PostMapping("/salida-comanda")
+    public ResponseEntity<List<MovimientoRequestDTO>> registrarSalidaPorComanda(
+            @Valid @RequestBody ComandaDTO comanda,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String claveIdempotencia) {
+        List<MovimientoRequestDTO> movimientos = movimientoCoordinador.registrarSalidaPorComanda(comanda, claveIdempotencia);
         return ResponseEntity.ok(movimientos);
     }
 
@@ -52,13 +110,30 @@ public class MovimientoController {
 
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
     @GetMapping("/filtrar")
-    public ResponseEntity<List<MovimientoRequestDTO>> filtrarMovimientos(
+    public ResponseEntity<PaginaMovimientosDTO> filtrarMovimientos(
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) Long productoId,
+            @RequestParam(required = false) Long almacenId,
+            @RequestParam(required = false) String desde,
+            @RequestParam(required = false) String hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(movimientoService.filtrarPagina(tipo, productoId, almacenId, desde, hasta, cursor, limite));
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping(value = "/exportar", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportarMovimientos(
             @RequestParam(required = false) String tipo,
             @RequestParam(required = false) Long productoId,
             @RequestParam(required = false) Long almacenId,
             @RequestParam(required = false) String desde,
             @RequestParam(required = false) String hasta) {
-        return ResponseEntity.ok(movimientoService.filtrarMovimientos(tipo, productoId, almacenId, desde, hasta));
+        StreamingResponseBody cuerpo = salida ->
+                movimientoService.exportarNdjson(tipo, productoId, almacenId, desde, hasta, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(cuerpo);
     }
 
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
@@ -70,14 +145,28 @@ public class MovimientoController {
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
     @PutMapping("/anular/{id}")
     public ResponseEntity<MovimientoRequestDTO> anularMovimiento(@PathVariable Long id) {
-        MovimientoRequestDTO movimiento = movimientoService.anularMovimiento(id);
+        MovimientoRequestDTO movimiento = movimientoCoordinador.anularMovimiento(id);
         return ResponseEntity.ok(movimiento);
     }
 
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/contencion")
+    public ResponseEntity<List<ContencionProductoDTO>> listarContencion() {
+        return ResponseEntity.ok(contencionStockRegistro.listarPorProducto());
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/contencion/total")
+    public ResponseEntity<ContencionProductoDTO> obtenerContencionTotal() {
+        return ResponseEntity.ok(contencionStockRegistro.obtenerTotal());
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping
-    public ResponseEntity<List<MovimientoRequestDTO>> listarTodos() {
-        return ResponseEntity.ok(movimientoService.findAll());
+    public ResponseEntity<PaginaMovimientosDTO> listarTodos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(movimientoService.listarPagina(cursor, limite));
     }
 
 }
\ No newline at end of file
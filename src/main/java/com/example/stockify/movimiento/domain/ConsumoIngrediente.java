@@ -0,0 +1,14 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.producto.domain.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Cantidad total de un producto que requiere una receta (o un conjunto de recetas). */
+@Getter
+@AllArgsConstructor
+public class ConsumoIngrediente {
+    private final Producto producto;
+    private final double cantidad;
+    private final String unidadMedida;
+}
@@ -0,0 +1,51 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.movimiento.dto.ContencionProductoDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores en memoria de conflictos de concurrencia sobre el stock, por producto.
+ */
+@Component
+public class ContencionStockRegistro {
+    private final Map<Long, Contadores> porProducto = new ConcurrentHashMap<>();
+    private final Contadores total = new Contadores();
+
+    /** Cuenta un conflicto en el total y en cada producto involucrado en la operación. */
+    public void registrarConflicto(Collection<Long> productoIds) {
+        total.conflictos.increment();
+        productoIds.forEach(productoId -> contadores(productoId).conflictos.increment());
+    }
+
+    public void registrarReintentosAgotados(Collection<Long> productoIds) {
+        total.agotados.increment();
+        productoIds.forEach(productoId -> contadores(productoId).agotados.increment());
+    }
+
+    public ContencionProductoDTO obtenerTotal() {
+        return new ContencionProductoDTO(null, total.conflictos.sum(), total.agotados.sum());
+    }
+
+    public List<ContencionProductoDTO> listarPorProducto() {
+        return porProducto.entrySet().stream()
+                .map(e -> new ContencionProductoDTO(e.getKey(), e.getValue().conflictos.sum(), e.getValue().agotados.sum()))
+                .sorted(Comparator.comparing(ContencionProductoDTO::getConflictos).reversed())
+                .toList();
+    }
+
+    private Contadores contadores(Long productoId) {
+        return porProducto.computeIfAbsent(productoId, id -> new Contadores());
+    }
+
+    private static final class Contadores {
+        private final LongAdder conflictos = new LongAdder();
+        private final LongAdder agotados = new LongAdder();
+    }
+}
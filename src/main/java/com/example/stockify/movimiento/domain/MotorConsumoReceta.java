@@ -0,0 +1,127 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.excepciones.StockInsuficienteException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.producto.domain.Producto;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de consumo de recetas: bloquea en una sola consulta los lotes con saldo de todos
+ * los ingredientes, verifica que la receta completa sea factible antes de escribir y
+ * asigna FIFO en memoria. Lotes y movimientos se envían en lote (JDBC batch) al confirmar.
+ * Debe invocarse dentro de una transacción.
+ */
+@Component
+public class MotorConsumoReceta {
+    private static final double TOLERANCIA = 1e-9;
+
+    private final LoteRepository loteRepository;
+    private final MovimientoRepository movimientoRepository;
+
+    public MotorConsumoReceta(LoteRepository loteRepository, MovimientoRepository movimientoRepository) {
+        this.loteRepository = loteRepository;
+        this.movimientoRepository = movimientoRepository;
+    }
+
+    /**
+     * Consume cada ingrediente (un producto por elemento) y devuelve sus movimientos en el
+     * mismo orden. Si falta stock de algún ingrediente no se escribe nada.
+     */
+    public List<List<Movimiento>> consumir(List<ConsumoIngrediente> consumos, String observacion, String origen) {
+        if (consumos.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<Lote>> lotesPorProducto = loteRepository.bloquearDisponiblesFIFODeProductos(
+                        consumos.stream().map(c -> c.getProducto().getId()).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.groupingBy(l -> l.getProducto().getId()));
+
+        verificarFactibilidad(consumos, lotesPorProducto);
+
+        LocalDateTime fechaMovimiento = LocalDateTime.now();
+        List<Lote> lotesUsados = new ArrayList<>();
+        List<Movimiento> todos = new ArrayList<>();
+        List<List<Movimiento>> resultado = new ArrayList<>(consumos.size());
+
+        for (ConsumoIngrediente consumo : consumos) {
+            Producto producto = consumo.getProducto();
+            List<Movimiento> movimientos = new ArrayList<>();
+            double cantidadRestante = consumo.getCantidad();
+
+            for (Lote lote : lotesPorProducto.getOrDefault(producto.getId(), List.of())) {
+                if (cantidadRestante <= TOLERANCIA) {
+                    break;
+                }
+                double cantidadUsada = Math.min(cantidadRestante, lote.getCantidadDisponible());
+                lote.reducirCantidadDisponible(cantidadUsada);
+                lotesUsados.add(lote);
+
+                Movimiento movimiento = new Movimiento();
+                movimiento.setTipoMovimiento(TipoMovimiento.SALIDA);
+                movimiento.setCantidad(cantidadUsada);
+                movimiento.setCostoUnitario(lote.getCostoUnitario());
+                movimiento.setCostoTotal(cantidadUsada * lote.getCostoUnitario());
+                movimiento.setFechaMovimiento(fechaMovimiento);
+                movimiento.setObservacion(observacion);
+                movimiento.setOrigen(origen);
+                movimiento.setProducto(producto);
+                movimiento.setLote(lote);
+                movimiento.setAlmacen(lote.getAlmacen());
+                movimiento.setAnulado(false);
+                movimientos.add(movimiento);
+
+                cantidadRestante -= cantidadUsada;
+            }
+
+            todos.addAll(movimientos);
+            resultado.add(movimientos);
+        }
+
+        loteRepository.saveAll(lotesUsados);
+        movimientoRepository.saveAll(todos);
+        return resultado;
+    }
+
+    private void verificarFactibilidad(List<ConsumoIngrediente> consumos, Map<Long, List<Lote>> lotesPorProducto) {
+        List<String> faltantes = new ArrayList<>();
+        boolean hayLotesBloqueados = false;
+
+        for (ConsumoIngrediente consumo : consumos) {
+            Producto producto = consumo.getProducto();
+            double disponible = 0.0;
+            for (Lote lote : lotesPorProducto.getOrDefault(producto.getId(), List.of())) {
+                disponible += lote.getCantidadDisponible();
+            }
+            double stockActual = producto.getStockActual() != null ? producto.getStockActual() : 0.0;
+            if (stockActual + TOLERANCIA >= consumo.getCantidad() && disponible + TOLERANCIA >= consumo.getCantidad()) {
+                continue;
+            }
+
+            // Lo que falta puede estar en lotes bloqueados por otra salida en curso: se reintenta
+            Double disponibleSinBloquear = loteRepository.sumarDisponible(producto.getId());
+            if (stockActual + TOLERANCIA >= consumo.getCantidad()
+                    && disponibleSinBloquear != null && disponibleSinBloquear + TOLERANCIA >= consumo.getCantidad()) {
+                hayLotesBloqueados = true;
+            } else {
+                faltantes.add(producto.getNombre() + " (se requiere " + consumo.getCantidad()
+                        + " " + consumo.getUnidadMedida() + ", hay " + Math.min(stockActual, disponible) + ")");
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            throw new StockInsuficienteException("Stock insuficiente para: " + String.join(", ", faltantes) + ".");
+        }
+        if (hayLotesBloqueados) {
+            throw new CannotAcquireLockException("Lotes de la receta bloqueados por otra salida en curso");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.excepciones.StockInsuficienteException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.producto.domain.Producto;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Motor de salidas FIFO: solo lee lotes con saldo, bloquea por bloques
+ * únicamente los lotes que necesita y escribe lotes y movimientos en lote (JDBC batch).
+ * Debe invocarse dentro de una transacción. Si el faltante está en lotes bloqueados
+ * por otra transacción lanza CannotAcquireLockException para que se reintente.
+ */
+@Component
+public class MotorSalidaFifo {
+    static final int TAMANO_BLOQUE = 16;
+
+    private final LoteRepository loteRepository;
+    private final MovimientoRepository movimientoRepository;
+
+    public MotorSalidaFifo(LoteRepository loteRepository, MovimientoRepository movimientoRepository) {
+        this.loteRepository = loteRepository;
+        this.movimientoRepository = movimientoRepository;
+    }
+
+    public List<Movimiento> consumir(Producto producto, double cantidad, String observacion, String origen) {
+        return consumirAgrupado(producto, List.of(new SolicitudSalida(cantidad, observacion, origen))).get(0);
+    }
+
+    /**
+     * Atiende varias solicitudes del mismo producto en una sola pasada por sus lotes,
+     * en el orden recibido. Devuelve los movimientos generados para cada solicitud.
+     */
+    public List<List<Movimiento>> consumirAgrupado(Producto producto, List<SolicitudSalida> solicitudes) {
+        CursorFifo cursor = new CursorFifo(producto.getId());
+        List<Lote> lotesUsados = new ArrayList<>();
+        List<Movimiento> todos = new ArrayList<>();
+        List<List<Movimiento>> resultado = new ArrayList<>(solicitudes.size());
+        LocalDateTime fechaMovimiento = LocalDateTime.now();
+
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudSalida solicitud = solicitudes.get(i);
+            List<Movimiento> movimientos = new ArrayList<>();
+            double cantidadRestante = solicitud.getCantidad();
+
+            while (cantidadRestante > 0) {
+                Lote lote = cursor.actual();
+                if (lote == null) {
+                    double faltante = cantidadRestante;
+                    for (int j = i + 1; j < solicitudes.size(); j++) {
+                        faltante += solicitudes.get(j).getCantidad();
+                    }
+                    throw faltante(producto, faltante);
+                }
+
+                double cantidadUsada = Math.min(cantidadRestante, lote.getCantidadDisponible());
+                lote.reducirCantidadDisponible(cantidadUsada);
+                if (lotesUsados.isEmpty() || lotesUsados.get(lotesUsados.size() - 1) != lote) {
+                    lotesUsados.add(lote);
+                }
+
+                Movimiento movimiento = new Movimiento();
+                movimiento.setTipoMovimiento(TipoMovimiento.SALIDA);
+                movimiento.setCantidad(cantidadUsada);
+                movimiento.setCostoUnitario(lote.getCostoUnitario());
+                movimiento.setCostoTotal(cantidadUsada * lote.getCostoUnitario());
+                movimiento.setFechaMovimiento(fechaMovimiento);
+                movimiento.setObservacion(solicitud.getObservacion());
+                movimiento.setOrigen(solicitud.getOrigen());
+                movimiento.setProducto(producto);
+                movimiento.setLote(lote);
+                movimiento.setAlmacen(lote.getAlmacen());
+                movimiento.setAnulado(false);
+                movimientos.add(movimiento);
+
+                cantidadRestante -= cantidadUsada;
+                if (lote.getCantidadDisponible() <= 0) {
+                    cursor.avanzar();
+                }
+            }
+
+            todos.addAll(movimientos);
+            resultado.add(movimientos);
+        }
+
+        loteRepository.saveAll(lotesUsados);
+        movimientoRepository.saveAll(todos);
+        return resultado;
+    }
+
+    private RuntimeException faltante(Producto producto, double cantidadFaltante) {
+        // Lo que falta puede estar en lotes bloqueados por otra salida en curso: se reintenta
+        Double disponibleSinBloquear = loteRepository.sumarDisponible(producto.getId());
+        if (disponibleSinBloquear != null && disponibleSinBloquear >= cantidadFaltante) {
+            return new CannotAcquireLockException("Lotes del producto " + producto.getId()
+                    + " bloqueados por otra salida en curso");
+        }
+        return new StockInsuficienteException("No se pudo completar la salida, stock insuficiente en los lotes del producto: "
+                + producto.getNombre());
+    }
+
+    /* Recorre los lotes con saldo en orden FIFO, bloqueando un bloque a la vez. */
+    private class CursorFifo {
+        private final Long productoId;
+        private final Pageable bloque = PageRequest.of(0, TAMANO_BLOQUE);
+        private List<Lote> lotes;
+        private int posicion;
+
+        CursorFifo(Long productoId) {
+            this.productoId = productoId;
+        }
+
+        Lote actual() {
+            if (lotes == null) {
+                lotes = loteRepository.bloquearDisponiblesFIFO(productoId, bloque);
+                posicion = 0;
+            } else if (posicion >= lotes.size()) {
+                if (lotes.size() < TAMANO_BLOQUE) {
+                    return null;
+                }
+                Lote ultimo = lotes.get(lotes.size() - 1);
+                lotes = loteRepository.bloquearDisponiblesFIFODespuesDe(
+                        productoId, ultimo.getFechaCompra(), ultimo.getId(), bloque);
+                posicion = 0;
+            }
+            return posicion < lotes.size() ? lotes.get(posicion) : null;
+        }
+
+        void avanzar() {
+            posicion++;
+        }
+    }
+}
@@ -17,10 +17,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "movimientos")
+@Table(name = "movimientos", indexes = {
+        @Index(name = "idx_movimientos_fecha_id", columnList = "fecha_movimiento, id"),
+        @Index(name = "idx_movimientos_producto_fecha_id", columnList = "producto_id, fecha_movimiento, id")
+})
 public class Movimiento {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimientos_seq")
+    @SequenceGenerator(name = "movimientos_seq", sequenceName = "movimientos_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -61,6 +65,31 @@ public class Movimiento {
     @JoinColumn(name = "almacen_id", nullable = false)
     private Almacen almacen;
 
+    /**
+     * Marca heredada de antes del libro append-only; ya no se escribe en true. V8 generó la
+     * ANULACION de cada fila marcada, así que un movimiento está anulado si otro lo referencia
+     * en movimientoAnulado.
+     */
     @Column(nullable = false)
     private Boolean anulado = false;
+
+    /** Efecto con signo sobre el stock: + en entradas, - en salidas, el opuesto del original en anulaciones. */
+    @Column(nullable = false)
+    private Double variacion;
+
+    /** Movimiento que esta anulación revierte; la restricción única impide anular dos veces. */
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "movimiento_anulado_id", unique = true)
+    private Movimiento movimientoAnulado;
+
+    @PrePersist
+    public void prePersist() {
+        if (variacion == null && cantidad != null) {
+            if (tipoMovimiento == TipoMovimiento.ENTRADA) {
+                variacion = cantidad;
+            } else if (tipoMovimiento == TipoMovimiento.SALIDA) {
+                variacion = -cantidad;
+            }
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.dto.LoteNewDTO;
+import com.example.stockify.movimiento.dto.AsignacionSalidaDTO;
+import com.example.stockify.movimiento.dto.ComandaDTO;
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
+import com.example.stockify.movimiento.dto.PlatoComandaDTO;
+import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Punto de entrada de las operaciones que mutan stock. Cada llamada al
+ * MovimientoService abre una transacción nueva, por lo que los conflictos
+ * de concurrencia se pueden reintentar desde aquí. Con el secuenciador habilitado
+ * las salidas manuales se agrupan por producto (ver SecuenciadorStock). Las solicitudes
+ * con clave de idempotencia se deduplican antes de abrir la transacción.
+ */
+@Service
+public class MovimientoCoordinador {
+    private final MovimientoService movimientoService;
+    private final ReintentoConcurrencia reintentoConcurrencia;
+    private final SecuenciadorStock secuenciadorStock;
+    private final RegistroIdempotencia registroIdempotencia;
+    private final ExplosionRecetas explosionRecetas;
+    private final MovimientoRepository movimientoRepository;
+
+    public MovimientoCoordinador(MovimientoService movimientoService, ReintentoConcurrencia reintentoConcurrencia,
+                                 SecuenciadorStock secuenciadorStock, RegistroIdempotencia registroIdempotencia,
+                                 ExplosionRecetas explosionRecetas, MovimientoRepository movimientoRepository) {
+        this.movimientoService = movimientoService;
+        this.reintentoConcurrencia = reintentoConcurrencia;
+        this.secuenciadorStock = secuenciadorStock;
+        this.registroIdempotencia = registroIdempotencia;
+        this.explosionRecetas = explosionRecetas;
+        this.movimientoRepository = movimientoRepository;
+    }
+
+    public MovimientoRequestDTO registrarEntrada(MovimientoNewDTO dto, String claveIdempotencia) {
+        return registroIdempotencia.ejecutar("entrada", claveIdempotencia, huella(dto),
+                () -> reintentoConcurrencia.ejecutar(dto.getProductoId(), () -> movimientoService.registrarEntrada(dto)));
+    }
+
+    public Lote registrarLote(LoteNewDTO dto) {
+        return reintentoConcurrencia.ejecutar(dto.getProducto().getId(), () -> movimientoService.registrarLote(dto));
+    }
+
+    public List<MovimientoRequestDTO> registrarEntradaMasiva(List<MovimientoNewDTO> lineas) {
+        return reintentoConcurrencia.ejecutar(
+                () -> lineas.stream().map(MovimientoNewDTO::getProductoId).filter(Objects::nonNull).collect(Collectors.toSet()),
+                () -> movimientoService.registrarEntradaMasiva(lineas));
+    }
+
+    public AsignacionSalidaDTO registrarSalidaManual(MovimientoNewDTO dto, String claveIdempotencia) {
+        return registroIdempotencia.ejecutar("salida-manual", claveIdempotencia, huella(dto), () -> {
+            if (secuenciadorStock.isHabilitado()) {
+                return esperar(secuenciadorStock.encolarSalida(dto));
+            }
+            return reintentoConcurrencia.ejecutar(dto.getProductoId(), () -> movimientoService.registrarSalidaManual(dto));
+        });
+    }
+
+    public List<MovimientoRequestDTO> registrarSalidaPorReceta(Long recetaBaseId, int porciones, String claveIdempotencia) {
+        return registroIdempotencia.ejecutar("salida-receta", claveIdempotencia, recetaBaseId + "x" + porciones,
+                () -> reintentoConcurrencia.ejecutar(() -> ingredientes(List.of(recetaBaseId)),
+                        () -> movimientoService.registrarSalidaPorReceta(recetaBaseId, porciones)));
+    }
+
+    public List<MovimientoRequestDTO> registrarSalidaPorComanda(ComandaDTO comanda, String claveIdempotencia) {
+        return registroIdempotencia.ejecutar("comanda", claveIdempotencia, huella(comanda),
+                () -> reintentoConcurrencia.ejecutar(
+                        () -> ingredientes(comanda.getPlatos().stream().map(PlatoComandaDTO::getRecetaBaseId).toList()),
+                        () -> movimientoService.registrarSalidaPorComanda(comanda)));
+    }
+
+    public MovimientoRequestDTO anularMovimiento(Long id) {
+        return reintentoConcurrencia.ejecutar(
+                () -> movimientoRepository.buscarProductoId(id).map(Set::of).orElse(Set.of()),
+                () -> movimientoService.anularMovimiento(id));
+    }
+
+    /** Productos consumidos por las recetas indicadas, para atribuir los conflictos de concurrencia. */
+    private Set<Long> ingredientes(Collection<Long> recetaBaseIds) {
+        ExplosionRecetas.IndiceRecetas indice = explosionRecetas.indice();
+        return recetaBaseIds.stream()
+                .map(indice.recetas()::get)
+                .filter(Objects::nonNull)
+                .flatMap(receta -> receta.cantidadPorProducto().keySet().stream())
+                .collect(Collectors.toSet());
+    }
+
+    private static String huella(MovimientoNewDTO dto) {
+        return String.join("|", String.valueOf(dto.getTipoMovimiento()), String.valueOf(dto.getProductoId()),
+                String.valueOf(dto.getAlmacenId()), String.valueOf(dto.getCantidad()),
+                String.valueOf(dto.getCostoUnitario()), dto.getOrigen(), dto.getObservacion());
+    }
+
+    private static String huella(ComandaDTO comanda) {
+        return comanda.getReferencia() + "|" + comanda.getPlatos().stream()
+                .map(p -> p.getRecetaBaseId() + "x" + p.getPorciones())
+                .collect(Collectors.joining(","));
+    }
+
+    private <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito de movimientos. Solo copia columnas del propio movimiento,
+ * por lo que no inicializa producto, lote, almacén ni usuario.
+ */
+@Component
+public class MovimientoMapper {
+
+    public MovimientoRequestDTO aDTO(Movimiento movimiento) {
+        return new MovimientoRequestDTO(
+                movimiento.getId(),
+                movimiento.getTipoMovimiento(),
+                movimiento.getCantidad(),
+                movimiento.getCostoUnitario(),
+                movimiento.getCostoTotal(),
+                movimiento.getFechaMovimiento(),
+                movimiento.getObservacion(),
+                movimiento.getOrigen());
+    }
+
+    public Movimiento aEntidad(MovimientoNewDTO dto) {
+        Movimiento movimiento = new Movimiento();
+        movimiento.setTipoMovimiento(dto.getTipoMovimiento());
+        movimiento.setCantidad(dto.getCantidad());
+        movimiento.setCostoUnitario(dto.getCostoUnitario());
+        movimiento.setObservacion(dto.getObservacion());
+        movimiento.setOrigen(dto.getOrigen());
+        return movimiento;
+    }
+}
@@ -1,83 +1,152 @@
 package com.example.stockify.movimiento.domain;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 import com.example.stockify.alertaStock.domain.AlertaStock;
 import com.example.stockify.alertaStock.domain.Prioridad;
 import com.example.stockify.alertaStock.infrastructure.AlertaStockRepository;
 import com.example.stockify.almacen.domain.Almacen;
 import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.excepciones.BadRequestException;
 import com.example.stockify.excepciones.OperacionNoPermitidaException;
 import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.excepciones.StockInsuficienteException;
 import com.example.stockify.lote.domain.Lote;
 import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.dto.LoteNewDTO;
 import com.example.stockify.lote.infrastructure.LoteRepository;
 import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.movimiento.dto.AsignacionSalidaDTO;
+import com.example.stockify.movimiento.dto.ComandaDTO;
 import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
 import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.movimiento.dto.PaginaMovimientosDTO;
+import com.example.stockify.movimiento.dto.PlatoComandaDTO;
 import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.StockModificadoEvent;
 import com.example.stockify.producto.infrastructure.ProductoRepository;
-import com.example.stockify.recetaBase.domain.RecetaBase;
-import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
-import com.example.stockify.recetaDetalle.domain.RecetaDetalle;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import com.example.stockify.stock.domain.SaldoAlmacenService;
+import com.example.stockify.valorizacionPeriodo.domain.ContadoresValorizacionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class MovimientoService {
+    private static final int LIMITE_POR_DEFECTO = 100;
+    private static final int LIMITE_MAXIMO = 1000;
+
     private final ProductoRepository productoRepository;
     private final LoteRepository loteRepository;
     private final AlmacenRepository almacenRepository;
     private final MovimientoRepository movimientoRepository;
-    private final RecetaBaseRepository recetaBaseRepository;
+    private final ExplosionRecetas explosionRecetas;
     private final AlertaStockRepository alertaStockRepository;
-    private final ModelMapper modelMapper;
-
-    public MovimientoService(ModelMapper modelMapper, MovimientoRepository movimientoRepository,
+    private final MotorSalidaFifo motorSalidaFifo;
+    private final MotorConsumoReceta motorConsumoReceta;
+    private final MovimientoMapper movimientoMapper;
+    private final ObjectMapper objectMapper;
+    private final SaldoAlmacenService saldoAlmacenService;
+    private final ContadoresValorizacionService contadoresValorizacionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate lectura;
+
+    public MovimientoService(MovimientoMapper movimientoMapper, MovimientoRepository movimientoRepository,
                              ProductoRepository productoRepository, LoteRepository loteRepository,
-                             AlmacenRepository almacenRepository,RecetaBaseRepository recetaBaseRepository,
-                             AlertaStockRepository alertaStockRepository) {
-        this.modelMapper = modelMapper;
+                             AlmacenRepository almacenRepository, ExplosionRecetas explosionRecetas,
+                             AlertaStockRepository alertaStockRepository, MotorSalidaFifo motorSalidaFifo,
+                             MotorConsumoReceta motorConsumoReceta,
+                             ObjectMapper objectMapper, SaldoAlmacenService saldoAlmacenService,
+                             ContadoresValorizacionService contadoresValorizacionService,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager) {
+        this.movimientoMapper = movimientoMapper;
         this.movimientoRepository = movimientoRepository;
         this.productoRepository = productoRepository;
         this.loteRepository = loteRepository;
         this.almacenRepository = almacenRepository;
-        this.recetaBaseRepository = recetaBaseRepository;
+        this.explosionRecetas = explosionRecetas;
         this.alertaStockRepository = alertaStockRepository;
+        this.motorSalidaFifo = motorSalidaFifo;
+        this.motorConsumoReceta = motorConsumoReceta;
+        this.objectMapper = objectMapper;
+        this.saldoAlmacenService = saldoAlmacenService;
+        this.contadoresValorizacionService = contadoresValorizacionService;
+        this.eventPublisher = eventPublisher;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
     }
 
-    public List<MovimientoRequestDTO> findAll() {
-        return movimientoRepository.findAll()
-                .stream()
-                .map(e -> modelMapper.map(e, MovimientoRequestDTO.class))
-                .collect(Collectors.toList());
+    public PaginaMovimientosDTO listarPagina(String cursor, Integer limite) {
+        return filtrarPagina(null, null, null, null, null, cursor, limite);
     }
 
     public MovimientoRequestDTO findById(Long id) {
         Movimiento e = movimientoRepository.findById(id).orElseThrow();
-        return modelMapper.map(e, MovimientoRequestDTO.class);
+        return movimientoMapper.aDTO(e);
     }
 
-    public MovimientoRequestDTO create(MovimientoNewDTO dto) {
-        Movimiento e = modelMapper.map(dto, Movimiento.class);
-        e = movimientoRepository.save(e);
-        return modelMapper.map(e, MovimientoRequestDTO.class);
+    @Transactional
+    public MovimientoRequestDTO registrarEntrada(MovimientoNewDTO dto) {
+        Lote lote = Lote.builder()
+                .codigoLote(generarCodigoLote())
+                .estado(Estado.ACTIVO)
+                .build();
+        return movimientoMapper.aDTO(entrar(dto, lote));
     }
 
-
-    public void deleteById(Long id) {
-        movimientoRepository.deleteById(id);
+    /**
+     * Alta de un lote con su código, vencimiento y estado: entra al stock como cualquier compra,
+     * con su movimiento de entrada. La cantidad disponible y el costo total se derivan de la
+     * cantidad inicial y el costo unitario; la fecha de compra es la del movimiento.
+     */
+    @Transactional
+    public Lote registrarLote(LoteNewDTO dto) {
+        MovimientoNewDTO entrada = MovimientoNewDTO.builder()
+                .tipoMovimiento(TipoMovimiento.ENTRADA)
+                .cantidad(dto.getCantidadInicial())
+                .costoUnitario(dto.getCostoUnitario())
+                .origen("ALTA_LOTE")
+                .observacion("Alta del lote " + dto.getCodigoLote())
+                .productoId(dto.getProducto().getId())
+                .almacenId(dto.getAlmacen().getId())
+                .build();
+        Lote lote = Lote.builder()
+                .codigoLote(dto.getCodigoLote())
+                .fechaVencimiento(dto.getFechaVencimiento())
+                .estado(dto.getEstado() != null ? dto.getEstado() : Estado.ACTIVO)
+                .build();
+        entrar(entrada, lote);
+        return lote;
     }
 
-    @Transactional
-    public MovimientoRequestDTO registrarEntrada(MovimientoNewDTO dto) {
+    /* Completa el lote con la cantidad y el costo de la entrada y la registra en stock, saldos y contadores. */
+    private Movimiento entrar(MovimientoNewDTO dto, Lote lote) {
         Producto producto = productoRepository.findById(dto.getProductoId())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Producto no encontrado con ID: " + dto.getProductoId()
@@ -88,17 +157,14 @@ public class MovimientoService {
                         "Almacén no encontrado con ID: " + dto.getAlmacenId()
                 ));
 
-        Lote lote = Lote.builder()
-                .codigoLote(generarCodigoLote())
-                .producto(producto)
-                .almacen(almacen)
-                .cantidadInicial(dto.getCantidad())
-                .cantidadDisponible(dto.getCantidad())
-                .costoUnitario(dto.getCostoUnitario())
-                .costoTotal(dto.getCantidad() * dto.getCostoUnitario())
-                .estado(Estado.ACTIVO)
-                .fechaCompra(LocalDateTime.now())
-                .build();
+        LocalDateTime ahora = LocalDateTime.now();
+        lote.setProducto(producto);
+        lote.setAlmacen(almacen);
+        lote.setCantidadInicial(dto.getCantidad());
+        lote.setCantidadDisponible(dto.getCantidad());
+        lote.setCostoUnitario(dto.getCostoUnitario());
+        lote.setCostoTotal(dto.getCantidad() * dto.getCostoUnitario());
+        lote.setFechaCompra(ahora);
 
         loteRepository.save(lote);
 
@@ -118,127 +184,252 @@ public class MovimientoService {
                 .producto(producto)
                 .almacen(almacen)
                 .lote(lote)
-                .fechaMovimiento(LocalDateTime.now())
+                .fechaMovimiento(ahora)
                 .build();
 
         movimiento.setAnulado(false);
         movimiento = movimientoRepository.save(movimiento);
+        saldoAlmacenService.registrar(List.of(movimiento));
+        contadoresValorizacionService.registrar(List.of(movimiento));
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.of(producto.getId())));
 
-        return modelMapper.map(movimiento, MovimientoRequestDTO.class);
+        return movimiento;
     }
 
+    /**
+     * Registra una entrega completa: resuelve productos y almacenes con una consulta IN cada uno,
+     * inserta lotes y movimientos en lote y actualiza el stock con un UPDATE por producto.
+     */
     @Transactional
-    public MovimientoRequestDTO registrarSalidaManual(MovimientoNewDTO dto) {
-        Producto producto = productoRepository.findById(dto.getProductoId())
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId()));
+    public List<MovimientoRequestDTO> registrarEntradaMasiva(List<MovimientoNewDTO> lineas) {
+        Map<Long, Producto> productos = productoRepository.findAllById(
+                        lineas.stream().map(MovimientoNewDTO::getProductoId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        Map<Long, Almacen> almacenes = almacenRepository.findAllById(
+                        lineas.stream().map(MovimientoNewDTO::getAlmacenId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Almacen::getId, Function.identity()));
+
+        LocalDateTime ahora = LocalDateTime.now();
+        String prefijoLote = generarCodigoLote();
+        List<Lote> lotes = new ArrayList<>(lineas.size());
+        List<Movimiento> movimientos = new ArrayList<>(lineas.size());
+        Map<Long, Double> incrementoPorProducto = new LinkedHashMap<>();
+
+        for (int i = 0; i < lineas.size(); i++) {
+            MovimientoNewDTO dto = lineas.get(i);
+            Producto producto = productos.get(dto.getProductoId());
+            if (producto == null) {
+                throw new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId());
+            }
+            Almacen almacen = almacenes.get(dto.getAlmacenId());
+            if (almacen == null) {
+                throw new ResourceNotFoundException("Almacén no encontrado con ID: " + dto.getAlmacenId());
+            }
 
-        if (producto.getStockActual() < dto.getCantidad()) {
-            throw new StockInsuficienteException("Stock insuficiente para el producto: " + producto.getNombre());
+            Lote lote = Lote.builder()
+                    .codigoLote(prefijoLote + "-" + (i + 1))
+                    .producto(producto)
+                    .almacen(almacen)
+                    .cantidadInicial(dto.getCantidad())
+                    .cantidadDisponible(dto.getCantidad())
+                    .costoUnitario(dto.getCostoUnitario())
+                    .costoTotal(dto.getCantidad() * dto.getCostoUnitario())
+                    .estado(Estado.ACTIVO)
+                    .fechaCompra(ahora)
+                    .build();
+            lotes.add(lote);
+
+            Movimiento movimiento = Movimiento.builder()
+                    .tipoMovimiento(TipoMovimiento.ENTRADA)
+                    .cantidad(dto.getCantidad())
+                    .costoUnitario(dto.getCostoUnitario())
+                    .costoTotal(dto.getCantidad() * dto.getCostoUnitario())
+                    .origen(dto.getOrigen())
+                    .observacion(dto.getObservacion())
+                    .producto(producto)
+                    .almacen(almacen)
+                    .lote(lote)
+                    .fechaMovimiento(ahora)
+                    .anulado(false)
+                    .build();
+            movimientos.add(movimiento);
+
+            incrementoPorProducto.merge(producto.getId(), dto.getCantidad(), Double::sum);
         }
 
-        List<Lote> lotes = loteRepository.findByProductoIdOrderByFechaCompraAsc(producto.getId());
-        double cantidadRestante = dto.getCantidad();
+        loteRepository.saveAll(lotes);
+        movimientoRepository.saveAll(movimientos);
+        saldoAlmacenService.registrar(movimientos);
+        contadoresValorizacionService.registrar(movimientos);
+        incrementoPorProducto.forEach((productoId, cantidad) ->
+                productoRepository.incrementarStock(productoId, cantidad, ahora));
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.copyOf(incrementoPorProducto.keySet())));
 
-        for (Lote lote : lotes) {
-            if (cantidadRestante <= 0) break;
-
-            double disponible = lote.getCantidadDisponible();
-            double cantidadUsada = Math.min(cantidadRestante, disponible);
+        return movimientos.stream()
+                .map(movimientoMapper::aDTO)
+                .collect(Collectors.toList());
+    }
 
-            lote.reducirCantidadDisponible(cantidadUsada);
-            loteRepository.save(lote);
+    @Transactional
+    public AsignacionSalidaDTO registrarSalidaManual(MovimientoNewDTO dto) {
+        Producto producto = productoRepository.findById(dto.getProductoId())
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId()));
 
-            Movimiento movimiento = new Movimiento();
-            movimiento.setTipoMovimiento(TipoMovimiento.SALIDA);
-            movimiento.setCantidad(cantidadUsada);
-            movimiento.setCostoUnitario(lote.getCostoUnitario());
-            movimiento.setCostoTotal(cantidadUsada * lote.getCostoUnitario());
-            movimiento.setFechaMovimiento(LocalDateTime.now());
-            movimiento.setObservacion(dto.getObservacion());
-            movimiento.setOrigen(dto.getOrigen());
-            movimiento.setProducto(producto);
-            movimiento.setLote(lote);
-            movimiento.setAnulado(false);
-            movimiento.setAlmacen(lote.getAlmacen());
-            movimientoRepository.save(movimiento);
-
-            cantidadRestante -= cantidadUsada;
+        if (producto.getStockActual() < dto.getCantidad()) {
+            throw new StockInsuficienteException("Stock insuficiente para el producto: " + producto.getNombre());
         }
 
-        if (cantidadRestante > 0) {
-            throw new RuntimeException("No se pudo completar la salida, stock insuficiente en los lotes.");
-        }
+        List<Movimiento> movimientos = motorSalidaFifo.consumir(producto, dto.getCantidad(), dto.getObservacion(), dto.getOrigen());
+        saldoAlmacenService.registrar(movimientos);
+        contadoresValorizacionService.registrar(movimientos);
 
         producto.setStockActual(producto.getStockActual() - dto.getCantidad());
         productoRepository.save(producto);
         verificarYGenerarAlerta(producto);
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.of(producto.getId())));
 
-        Movimiento ultimoMovimiento = movimientoRepository.findAll().getLast();
-        return modelMapper.map(ultimoMovimiento, MovimientoRequestDTO.class);
+        return construirAsignacion(producto, movimientos);
     }
 
+    /**
+     * Atiende en una sola transacción y una sola pasada FIFO varias salidas manuales
+     * del mismo producto. Las que exceden el stock se rechazan individualmente.
+     */
     @Transactional
-    public List<MovimientoRequestDTO> registrarSalidaPorReceta(Long recetaBaseId, int porciones) {
-        List<MovimientoRequestDTO> movimientosGenerados = new ArrayList<>();
+    public List<ResultadoSalida> registrarSalidasAgrupadas(Long productoId, List<MovimientoNewDTO> solicitudes) {
+        Producto producto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + productoId));
+
+        List<ResultadoSalida> resultados = new ArrayList<>(Collections.nCopies(solicitudes.size(), (ResultadoSalida) null));
+        List<Integer> aceptadas = new ArrayList<>();
+        List<SolicitudSalida> porAtender = new ArrayList<>();
+        double stockDisponible = producto.getStockActual();
+
+        for (int i = 0; i < solicitudes.size(); i++) {
+            MovimientoNewDTO dto = solicitudes.get(i);
+            if (stockDisponible < dto.getCantidad()) {
+                resultados.set(i, ResultadoSalida.fallido(
+                        new StockInsuficienteException("Stock insuficiente para el producto: " + producto.getNombre())));
+                continue;
+            }
+            stockDisponible -= dto.getCantidad();
+            aceptadas.add(i);
+            porAtender.add(new SolicitudSalida(dto.getCantidad(), dto.getObservacion(), dto.getOrigen()));
+        }
 
-        RecetaBase recetaBase = recetaBaseRepository.findById(recetaBaseId)
-                .orElseThrow(() -> new ResourceNotFoundException("Receta base no encontrada con ID: " + recetaBaseId));
+        if (!porAtender.isEmpty()) {
+            List<List<Movimiento>> asignaciones = motorSalidaFifo.consumirAgrupado(producto, porAtender);
+            List<Movimiento> movimientos = asignaciones.stream().flatMap(List::stream).toList();
+            saldoAlmacenService.registrar(movimientos);
+            contadoresValorizacionService.registrar(movimientos);
+            for (int k = 0; k < aceptadas.size(); k++) {
+                resultados.set(aceptadas.get(k), ResultadoSalida.exitoso(construirAsignacion(producto, asignaciones.get(k))));
+            }
 
-        List<RecetaDetalle> detalles = new ArrayList<>(recetaBase.getDetalles());
+            producto.setStockActual(stockDisponible);
+            productoRepository.save(producto);
+            verificarYGenerarAlerta(producto);
+            eventPublisher.publishEvent(new StockModificadoEvent(Set.of(producto.getId())));
+        }
 
-        for (RecetaDetalle detalle : detalles) {
-            Producto producto = detalle.getProducto();
-            double cantidadTotalNecesaria = detalle.getCantidadNecesaria() * porciones;
+        return resultados;
+    }
 
-            if (producto.getStockActual() < cantidadTotalNecesaria) {
-                throw new IllegalArgumentException("Stock insuficiente para el producto: "
-                        + producto.getNombre() + ". Se requiere " + cantidadTotalNecesaria
-                        + " " + detalle.getUnidadMedida() + ".");
-            }
+    private AsignacionSalidaDTO construirAsignacion(Producto producto, List<Movimiento> movimientos) {
+        double cantidadTotal = 0.0;
+        double costoTotal = 0.0;
+        List<MovimientoRequestDTO> detalle = new ArrayList<>(movimientos.size());
+        for (Movimiento movimiento : movimientos) {
+            cantidadTotal += movimiento.getCantidad();
+            costoTotal += movimiento.getCostoTotal();
+            detalle.add(movimientoMapper.aDTO(movimiento));
+        }
 
-            List<Lote> lotes = loteRepository.findByProductoIdOrderByFechaCompraAsc(producto.getId());
-            double cantidadRestante = cantidadTotalNecesaria;
+        return AsignacionSalidaDTO.builder()
+                .productoId(producto.getId())
+                .cantidadTotal(cantidadTotal)
+                .costoTotal(costoTotal)
+                .costoUnitarioPromedio(cantidadTotal > 0 ? costoTotal / cantidadTotal : 0.0)
+                .movimientos(detalle)
+                .build();
+    }
 
-            for (Lote lote : lotes) {
-                if (cantidadRestante <= 0) break;
+    /**
+     * Consume los ingredientes de la receta ya explotada (sub-recetas incluidas): una consulta
+     * para los productos, una para los lotes de todos los ingredientes y escrituras en lote al confirmar.
+     */
+    @Transactional
+    public List<MovimientoRequestDTO> registrarSalidaPorReceta(Long recetaBaseId, int porciones) {
+        RecetaExplotada receta = explosionRecetas.obtener(recetaBaseId);
 
-                double disponible = lote.getCantidadDisponible();
-                double cantidadUsada = Math.min(cantidadRestante, disponible);
+        Map<Long, Double> requerimientos = new LinkedHashMap<>();
+        receta.cantidadPorProducto().forEach((productoId, cantidad) -> requerimientos.put(productoId, cantidad * porciones));
 
-                lote.setCantidadDisponible(disponible - cantidadUsada);
-                loteRepository.save(lote);
+        return consumirIngredientes(aConsumos(requerimientos),
+                "Salida por receta base: " + receta.nombrePlato(),
+                "RecetaBase - " + receta.nombrePlato());
+    }
 
-                Movimiento movimiento = new Movimiento();
-                movimiento.setTipoMovimiento(TipoMovimiento.SALIDA);
-                movimiento.setCantidad(cantidadUsada);
-                movimiento.setCostoUnitario(lote.getCostoUnitario());
-                movimiento.setCostoTotal(cantidadUsada * lote.getCostoUnitario());
-                movimiento.setFechaMovimiento(LocalDateTime.now());
-                movimiento.setObservacion("Salida por receta base: " + recetaBase.getNombrePlato());
-                movimiento.setOrigen("RecetaBase - " + recetaBase.getNombrePlato());
-                movimiento.setProducto(producto);
-                movimiento.setLote(lote);
-                movimiento.setAlmacen(lote.getAlmacen());
-                movimiento.setAnulado(false);
-                movimientoRepository.save(movimiento);
+    /**
+     * Consume una comanda completa de forma atómica: suma los ingredientes de todos los platos
+     * y asigna los lotes de cada producto una sola vez, sin importar cuántos platos lo usen.
+     */
+    @Transactional
+    public List<MovimientoRequestDTO> registrarSalidaPorComanda(ComandaDTO comanda) {
+        Map<Long, Double> requerimientos = new LinkedHashMap<>();
+        for (PlatoComandaDTO plato : comanda.getPlatos()) {
+            RecetaExplotada receta = explosionRecetas.obtener(plato.getRecetaBaseId());
+            receta.cantidadPorProducto().forEach((productoId, cantidad) ->
+                    requerimientos.merge(productoId, cantidad * plato.getPorciones(), Double::sum));
+        }
 
-                movimientosGenerados.add(modelMapper.map(movimiento, MovimientoRequestDTO.class));
+        String referencia = comanda.getReferencia() != null && !comanda.getReferencia().isBlank()
+                ? comanda.getReferencia() : comanda.getPlatos().size() + " platos";
+        return consumirIngredientes(aConsumos(requerimientos),
+                "Salida por comanda: " + referencia, "Comanda - " + referencia);
+    }
 
-                cantidadRestante -= cantidadUsada;
-            }
+    /* Resuelve los productos de los requerimientos con una sola consulta IN. */
+    private List<ConsumoIngrediente> aConsumos(Map<Long, Double> cantidadPorProducto) {
+        Map<Long, Producto> productos = productoRepository.findAllById(cantidadPorProducto.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
 
-            if (cantidadRestante > 0) {
-                throw new RuntimeException("No se pudo completar la salida por receta. " +
-                        "Stock insuficiente del producto: " + producto.getNombre());
+        List<ConsumoIngrediente> consumos = new ArrayList<>(cantidadPorProducto.size());
+        cantidadPorProducto.forEach((productoId, cantidad) -> {
+            Producto producto = productos.get(productoId);
+            if (producto == null) {
+                throw new ResourceNotFoundException("Producto no encontrado con ID: " + productoId);
             }
+            consumos.add(new ConsumoIngrediente(producto, cantidad, producto.getUnidadMedida()));
+        });
+        return consumos;
+    }
 
-            producto.setStockActual(producto.getStockActual() - cantidadTotalNecesaria);
-            productoRepository.save(producto);
-
-            verificarYGenerarAlerta(producto);
+    private List<MovimientoRequestDTO> consumirIngredientes(List<ConsumoIngrediente> consumos,
+                                                            String observacion, String origen) {
+        List<List<Movimiento>> asignaciones = motorConsumoReceta.consumir(consumos, observacion, origen);
+
+        List<Movimiento> movimientos = new ArrayList<>();
+        List<Producto> productos = new ArrayList<>(consumos.size());
+        for (int i = 0; i < consumos.size(); i++) {
+            ConsumoIngrediente consumo = consumos.get(i);
+            Producto producto = consumo.getProducto();
+            producto.setStockActual(producto.getStockActual() - consumo.getCantidad());
+            productos.add(producto);
+            movimientos.addAll(asignaciones.get(i));
         }
+        productoRepository.saveAll(productos);
+        saldoAlmacenService.registrar(movimientos);
+        contadoresValorizacionService.registrar(movimientos);
+        productos.forEach(this::verificarYGenerarAlerta);
+        eventPublisher.publishEvent(new StockModificadoEvent(
+                productos.stream().map(Producto::getId).collect(Collectors.toSet())));
 
-        return movimientosGenerados;
+        return movimientos.stream()
+                .map(movimientoMapper::aDTO)
+                .collect(Collectors.toList());
     }
 
     private void verificarYGenerarAlerta(Producto producto) {
@@ -263,44 +454,125 @@ public class MovimientoService {
         return "L" + System.currentTimeMillis();
     }
 
+    /**
+     * El libro de movimientos es de solo inserción: anular agrega un movimiento ANULACION
+     * con la variación opuesta y el original queda intacto.
+     */
     @Transactional
     public MovimientoRequestDTO anularMovimiento(Long id) {
-        Movimiento movimiento = movimientoRepository.findById(id)
+        Movimiento original = movimientoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Movimiento no encontrado con ID: " + id));
 
-        if (movimiento.getAnulado() != null && movimiento.getAnulado()) {
+        if (original.getTipoMovimiento() == TipoMovimiento.ANULACION) {
+            throw new OperacionNoPermitidaException("Una anulación no puede anularse.");
+        }
+        if (movimientoRepository.existsByMovimientoAnuladoId(id)) {
             throw new OperacionNoPermitidaException("El movimiento ya fue anulado.");
         }
 
-        Producto producto = movimiento.getProducto();
-        Lote lote = movimiento.getLote();
-
-        if (movimiento.getTipoMovimiento() == TipoMovimiento.ENTRADA) {
-            // Revertir entrada → reducir stock y eliminar cantidad del lote
-            producto.setStockActual(producto.getStockActual() - movimiento.getCantidad());
-            lote.setCantidadDisponible(lote.getCantidadDisponible() - movimiento.getCantidad());
-        } else if (movimiento.getTipoMovimiento() == TipoMovimiento.SALIDA) {
-            // Revertir salida → aumentar stock y reponer lote
-            producto.setStockActual(producto.getStockActual() + movimiento.getCantidad());
-            lote.setCantidadDisponible(lote.getCantidadDisponible() + movimiento.getCantidad());
+        Producto producto = original.getProducto();
+        Lote lote = original.getLote();
+        double variacion = -original.getVariacion();
+
+        if (lote != null && lote.getCantidadDisponible() + variacion < 0) {
+            throw new OperacionNoPermitidaException("No se puede anular la entrada: el lote ya fue consumido.");
         }
 
-        movimiento.setAnulado(true);
-        movimiento.setObservacion((movimiento.getObservacion() != null ? movimiento.getObservacion() + " | " : "") + "Movimiento anulado.");
-        movimientoRepository.save(movimiento);
+        Movimiento anulacion = Movimiento.builder()
+                .tipoMovimiento(TipoMovimiento.ANULACION)
+                .cantidad(original.getCantidad())
+                .costoUnitario(original.getCostoUnitario())
+                .costoTotal(original.getCostoTotal())
+                .fechaMovimiento(LocalDateTime.now())
+                .observacion("Anulación del movimiento " + id)
+                .origen(original.getOrigen())
+                .producto(producto)
+                .lote(lote)
+                .almacen(original.getAlmacen())
+                .usuario(original.getUsuario())
+                .anulado(false)
+                .variacion(variacion)
+                .movimientoAnulado(original)
+                .build();
+
+        producto.setStockActual(producto.getStockActual() + variacion);
+        if (lote != null) {
+            lote.setCantidadDisponible(lote.getCantidadDisponible() + variacion);
+            loteRepository.save(lote);
+        }
         productoRepository.save(producto);
-        loteRepository.save(lote);
+        anulacion = movimientoRepository.save(anulacion);
+        saldoAlmacenService.registrar(List.of(anulacion));
+        contadoresValorizacionService.registrar(List.of(anulacion));
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.of(producto.getId())));
 
-        return modelMapper.map(movimiento, MovimientoRequestDTO.class);
+        return movimientoMapper.aDTO(anulacion);
     }
 
 
-    public List<MovimientoRequestDTO> filtrarMovimientos(String tipo, Long productoId, Long almacenId, String desde, String hasta) {
+    /**
+     * Paginación por cursor sobre (fechaMovimiento, id), de lo más reciente a lo más antiguo.
+     * El costo de cada página no depende de cuántas páginas se hayan recorrido antes.
+     */
+    public PaginaMovimientosDTO filtrarPagina(String tipo, Long productoId, Long almacenId, String desde, String hasta,
+                                              String cursor, Integer limite) {
+        int tamano = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        LocalDateTime fechaCursor = null;
+        Long idCursor = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_");
+                fechaCursor = LocalDateTime.parse(partes[0]);
+                idCursor = Long.parseLong(partes[1]);
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor de paginación inválido");
+            }
+        }
+
+        List<MovimientoRequestDTO> filas = movimientoRepository.buscarPagina(
+                construirFiltro(tipo, productoId, almacenId, desde, hasta), fechaCursor, idCursor, tamano + 1);
+        if (filas.size() <= tamano) {
+            return new PaginaMovimientosDTO(filas, null);
+        }
+        List<MovimientoRequestDTO> contenido = new ArrayList<>(filas.subList(0, tamano));
+        MovimientoRequestDTO ultimo = contenido.get(contenido.size() - 1);
+        String siguiente = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                (ultimo.getFechaMovimiento() + "_" + ultimo.getId()).getBytes(StandardCharsets.UTF_8));
+        return new PaginaMovimientosDTO(contenido, siguiente);
+    }
+
+    /**
+     * Escribe los movimientos filtrados como NDJSON (un objeto por línea) a medida que se leen
+     * de la base, sin acumularlos en memoria.
+     */
+    public void exportarNdjson(String tipo, Long productoId, Long almacenId, String desde, String hasta,
+                               OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        try {
+            lectura.executeWithoutResult(estado -> {
+                try (Stream<MovimientoRequestDTO> filas = movimientoRepository.transmitir(
+                        construirFiltro(tipo, productoId, almacenId, desde, hasta))) {
+                    Iterator<MovimientoRequestDTO> iterador = filas.iterator();
+                    while (iterador.hasNext()) {
+                        writer.write(objectMapper.writeValueAsString(iterador.next()));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private Specification<Movimiento> construirFiltro(String tipo, Long productoId, Long almacenId, String desde, String hasta) {
         TipoMovimiento tipoEnum = (tipo != null && !tipo.isBlank()) ? TipoMovimiento.valueOf(tipo.toUpperCase()) : null;
         LocalDateTime fechaDesde = (desde != null && !desde.isBlank()) ? LocalDateTime.parse(desde) : null;
         LocalDateTime fechaHasta = (hasta != null && !hasta.isBlank()) ? LocalDateTime.parse(hasta) : null;
 
-        Specification<Movimiento> spec = (root, query, criteriaBuilder) -> {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             if (tipoEnum != null) {
@@ -321,11 +593,6 @@ public class MovimientoService {
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-
-        List<Movimiento> movimientos = movimientoRepository.findAll(spec);
-        return movimientos.stream()
-                .map(m -> modelMapper.map(m, MovimientoRequestDTO.class))
-                .collect(Collectors.toList());
     }
 
 
@@ -335,7 +602,7 @@ public class MovimientoService {
             throw new ResourceNotFoundException("No se encontraron movimientos para el lote con ID: " + loteId);
         }
         return movimientos.stream()
-                .map(m -> modelMapper.map(m, MovimientoRequestDTO.class))
+                .map(movimientoMapper::aDTO)
                 .collect(Collectors.toList());
     }
 }
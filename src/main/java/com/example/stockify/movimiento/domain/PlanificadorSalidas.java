@@ -0,0 +1,146 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.movimiento.dto.PlanLoteDTO;
+import com.example.stockify.movimiento.dto.PlanProductoDTO;
+import com.example.stockify.movimiento.dto.PlanSalidaDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Simula una salida sin escribir nada: asigna los lotes en el mismo orden FIFO que
+ * {@link MotorSalidaFifo} y {@link MotorConsumoReceta}, pero leyéndolos sin bloqueo dentro de
+ * una transacción de solo lectura, así planificar nunca compite con las salidas en curso.
+ * Las cantidades se descuentan en variables locales; los lotes leídos no se modifican.
+ */
+@Component
+public class PlanificadorSalidas {
+    private static final double TOLERANCIA = 1e-9;
+
+    private final ProductoRepository productoRepository;
+    private final LoteRepository loteRepository;
+    private final ExplosionRecetas explosionRecetas;
+
+    public PlanificadorSalidas(ProductoRepository productoRepository, LoteRepository loteRepository,
+                               ExplosionRecetas explosionRecetas) {
+        this.productoRepository = productoRepository;
+        this.loteRepository = loteRepository;
+        this.explosionRecetas = explosionRecetas;
+    }
+
+    @Transactional(readOnly = true)
+    public PlanSalidaDTO planificarSalidaManual(MovimientoNewDTO dto) {
+        if (dto.getProductoId() == null) {
+            throw new BadRequestException("El productoId es obligatorio");
+        }
+        if (dto.getCantidad() == null || dto.getCantidad() <= 0) {
+            throw new BadRequestException("La cantidad debe ser mayor que 0");
+        }
+        Producto producto = productoRepository.findById(dto.getProductoId())
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId()));
+
+        String origen = dto.getOrigen() != null && !dto.getOrigen().isBlank() ? dto.getOrigen() : "Salida manual";
+        return planificar(Map.of(producto.getId(), dto.getCantidad()), Map.of(producto.getId(), producto), origen);
+    }
+
+    @Transactional(readOnly = true)
+    public PlanSalidaDTO planificarSalidaPorReceta(Long recetaBaseId, int porciones) {
+        if (porciones <= 0) {
+            throw new BadRequestException("Las porciones deben ser mayores que 0");
+        }
+        RecetaExplotada receta = explosionRecetas.obtener(recetaBaseId);
+
+        Map<Long, Double> requerimientos = new LinkedHashMap<>();
+        receta.cantidadPorProducto().forEach((productoId, cantidad) -> requerimientos.put(productoId, cantidad * porciones));
+
+        Map<Long, Producto> productos = productoRepository.findAllById(requerimientos.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        for (Long productoId : requerimientos.keySet()) {
+            if (!productos.containsKey(productoId)) {
+                throw new ResourceNotFoundException("Producto no encontrado con ID: " + productoId);
+            }
+        }
+        return planificar(requerimientos, productos, "RecetaBase - " + receta.nombrePlato());
+    }
+
+    private PlanSalidaDTO planificar(Map<Long, Double> requerimientos, Map<Long, Producto> productos, String origen) {
+        Map<Long, List<Lote>> lotesPorProducto = loteRepository.findDisponiblesFIFODeProductos(requerimientos.keySet())
+                .stream()
+                .collect(Collectors.groupingBy(l -> l.getProducto().getId()));
+
+        List<PlanProductoDTO> planes = new ArrayList<>(requerimientos.size());
+        boolean suficiente = true;
+        double costoTotal = 0.0;
+        for (Map.Entry<Long, Double> requerimiento : requerimientos.entrySet()) {
+            PlanProductoDTO plan = planificarProducto(productos.get(requerimiento.getKey()), requerimiento.getValue(),
+                    lotesPorProducto.getOrDefault(requerimiento.getKey(), List.of()));
+            suficiente &= plan.getFaltante() == 0.0;
+            costoTotal += plan.getCostoTotal();
+            planes.add(plan);
+        }
+
+        return PlanSalidaDTO.builder()
+                .origen(origen)
+                .suficiente(suficiente)
+                .costoTotal(costoTotal)
+                .productos(planes)
+                .build();
+    }
+
+    private PlanProductoDTO planificarProducto(Producto producto, double cantidadRequerida, List<Lote> lotes) {
+        List<PlanLoteDTO> asignados = new ArrayList<>();
+        double cantidadRestante = cantidadRequerida;
+        double costoTotal = 0.0;
+        double disponibleEnLotes = 0.0;
+
+        for (Lote lote : lotes) {
+            disponibleEnLotes += lote.getCantidadDisponible();
+            if (cantidadRestante <= TOLERANCIA) {
+                continue;
+            }
+            double cantidadUsada = Math.min(cantidadRestante, lote.getCantidadDisponible());
+            double costo = cantidadUsada * lote.getCostoUnitario();
+            asignados.add(PlanLoteDTO.builder()
+                    .loteId(lote.getId())
+                    .codigoLote(lote.getCodigoLote())
+                    .almacenId(lote.getAlmacen() != null ? lote.getAlmacen().getId() : null)
+                    .fechaCompra(lote.getFechaCompra())
+                    .cantidad(cantidadUsada)
+                    .costoUnitario(lote.getCostoUnitario())
+                    .costoTotal(costo)
+                    .build());
+            costoTotal += costo;
+            cantidadRestante -= cantidadUsada;
+        }
+
+        // La salida real exige que alcancen tanto el stock del producto como los lotes
+        double stockActual = producto.getStockActual() != null ? producto.getStockActual() : 0.0;
+        double faltante = cantidadRequerida - Math.min(stockActual, disponibleEnLotes);
+
+        return PlanProductoDTO.builder()
+                .productoId(producto.getId())
+                .nombreProducto(producto.getNombre())
+                .unidadMedida(producto.getUnidadMedida())
+                .cantidadRequerida(cantidadRequerida)
+                .cantidadAsignada(cantidadRequerida - Math.max(cantidadRestante, 0.0))
+                .faltante(faltante > TOLERANCIA ? faltante : 0.0)
+                .costoTotal(costoTotal)
+                .lotes(asignados)
+                .build();
+    }
+}
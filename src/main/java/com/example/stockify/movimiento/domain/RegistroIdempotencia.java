@@ -0,0 +1,124 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.excepciones.ConflictException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicación en memoria de solicitudes con Idempotency-Key. Se consulta antes de abrir
+ * la transacción: una clave repetida devuelve la respuesta guardada (o espera a la que está
+ * en curso) sin volver a ejecutar la operación. Las claves vencen tras la vigencia configurada
+ * y se descartan las más antiguas al superar la capacidad. Las operaciones fallidas no se
+ * guardan, así el cliente puede reintentarlas con la misma clave. Las claves son propias de
+ * cada usuario autenticado: dos usuarios pueden usar la misma sin verse entre sí.
+ */
+@Component
+public class RegistroIdempotencia {
+    private final int capacidad;
+    private final long vigenciaNanos;
+    private final Map<String, Entrada> entradas = new LinkedHashMap<>();
+
+    public RegistroIdempotencia(@Value("${stockify.movimientos.idempotencia.capacidad:10000}") int capacidad,
+                                @Value("${stockify.movimientos.idempotencia.vigencia-minutos:60}") long vigenciaMinutos) {
+        this.capacidad = capacidad;
+        this.vigenciaNanos = Duration.ofMinutes(vigenciaMinutos).toNanos();
+    }
+
+    /**
+     * Ejecuta la acción una sola vez por (operación, clave). La huella resume el cuerpo de la
+     * solicitud: reutilizar una clave con otra solicitud es un error del cliente.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T ejecutar(String operacion, String clave, String huella, Supplier<T> accion) {
+        if (clave == null || clave.isBlank()) {
+            return accion.get();
+        }
+
+        String llave = usuarioActual() + ":" + operacion + ":" + clave;
+        Entrada entrada;
+        boolean propietario = false;
+        synchronized (entradas) {
+            long ahora = System.nanoTime();
+            purgarVencidas(ahora);
+            entrada = entradas.get(llave);
+            if (entrada == null) {
+                entrada = new Entrada(huella, ahora + vigenciaNanos, new CompletableFuture<>());
+                entradas.put(llave, entrada);
+                propietario = true;
+                if (entradas.size() > capacidad) {
+                    Iterator<Entrada> masAntigua = entradas.values().iterator();
+                    masAntigua.next();
+                    masAntigua.remove();
+                }
+            } else if (!entrada.huella().equals(huella)) {
+                throw new ConflictException("La clave de idempotencia '" + clave + "' ya se usó con otra solicitud.");
+            }
+        }
+
+        if (!propietario) {
+            return (T) esperar(entrada.respuesta());
+        }
+        try {
+            T resultado = accion.get();
+            entrada.respuesta().complete(resultado);
+            return resultado;
+        } catch (Throwable e) {
+            // También ante un Error: una respuesta sin completar bloquearía para siempre a los reintentos
+            synchronized (entradas) {
+                entradas.remove(llave, entrada);
+            }
+            entrada.respuesta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static String usuarioActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacion != null ? autenticacion.getName() : "";
+    }
+
+    public int tamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    /* Las entradas se insertan en orden de vencimiento, basta con recorrer desde la más antigua. */
+    private void purgarVencidas(long ahora) {
+        Iterator<Entrada> iterador = entradas.values().iterator();
+        while (iterador.hasNext()) {
+            Entrada entrada = iterador.next();
+            if (entrada.venceEn() - ahora > 0) {
+                return;
+            }
+            iterador.remove();
+        }
+    }
+
+    private Object esperar(CompletableFuture<Object> respuesta) {
+        try {
+            return respuesta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Entrada(String huella, long venceEn, CompletableFuture<Object> respuesta) {
+    }
+}
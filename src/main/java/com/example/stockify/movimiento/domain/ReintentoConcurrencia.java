@@ -0,0 +1,83 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.excepciones.ConflictException;
+import com.example.stockify.producto.domain.Producto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reintenta una operación transaccional de stock ante conflictos de concurrencia
+ * (versión optimista o lotes bloqueados), con espera exponencial acotada y jitter completo.
+ * La operación debe abrir su propia transacción para que cada intento relea el estado.
+ */
+@Component
+@Slf4j
+public class ReintentoConcurrencia {
+    private final ContencionStockRegistro contencionStockRegistro;
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+
+    public ReintentoConcurrencia(ContencionStockRegistro contencionStockRegistro,
+                                 @Value("${stockify.movimientos.reintentos.max-intentos:10}") int maxIntentos,
+                                 @Value("${stockify.movimientos.reintentos.espera-base-ms:5}") long esperaBaseMs,
+                                 @Value("${stockify.movimientos.reintentos.espera-maxima-ms:200}") long esperaMaximaMs) {
+        this.contencionStockRegistro = contencionStockRegistro;
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    public <T> T ejecutar(Long productoId, Supplier<T> operacion) {
+        return ejecutar(() -> productoId != null ? List.of(productoId) : List.of(), operacion);
+    }
+
+    /**
+     * Variante para operaciones que tocan varios productos. Los productos se resuelven solo
+     * ante un conflicto; si la excepción no identifica al Producto, se atribuye a todos ellos.
+     */
+    public <T> T ejecutar(Supplier<? extends Collection<Long>> productoIds, Supplier<T> operacion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.get();
+            } catch (ConcurrencyFailureException e) {
+                Collection<Long> afectados = resolverProductos(e, productoIds);
+                contencionStockRegistro.registrarConflicto(afectados);
+
+                if (intento >= maxIntentos) {
+                    contencionStockRegistro.registrarReintentosAgotados(afectados);
+                    log.warn("Reintentos agotados por concurrencia - productos: {}, intentos: {}", afectados, intento);
+                    throw new ConflictException("No se pudo registrar el movimiento por alta concurrencia sobre el stock. Intente nuevamente.");
+                }
+                esperar(intento);
+            }
+        }
+    }
+
+    private Collection<Long> resolverProductos(ConcurrencyFailureException e, Supplier<? extends Collection<Long>> productoIds) {
+        if (e instanceof ObjectOptimisticLockingFailureException optimista
+                && Producto.class.getName().equals(optimista.getPersistentClassName())
+                && optimista.getIdentifier() instanceof Long id) {
+            return List.of(id);
+        }
+        return productoIds.get();
+    }
+
+    private void esperar(int intento) {
+        long tope = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(intento - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(tope + 1));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Operación interrumpida mientras se reintentaba el movimiento.");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.movimiento.dto.AsignacionSalidaDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Resultado individual de una salida atendida dentro de un grupo: asignación o error. */
+@Getter
+@AllArgsConstructor
+public class ResultadoSalida {
+    private final AsignacionSalidaDTO asignacion;
+    private final RuntimeException error;
+
+    public static ResultadoSalida exitoso(AsignacionSalidaDTO asignacion) {
+        return new ResultadoSalida(asignacion, null);
+    }
+
+    public static ResultadoSalida fallido(RuntimeException error) {
+        return new ResultadoSalida(null, error);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.movimiento.dto.AsignacionSalidaDTO;
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Escritor único por producto: las salidas manuales se encolan por producto y un solo
+ * hilo a la vez las drena en micro-lotes, cada uno en una transacción y una pasada FIFO
+ * (group commit). Mientras un lote se confirma, las nuevas salidas se acumulan para el siguiente.
+ */
+@Component
+@Slf4j
+public class SecuenciadorStock {
+    private final MovimientoService movimientoService;
+    private final ReintentoConcurrencia reintentoConcurrencia;
+    private final Map<Long, ColaProducto> colas = new ConcurrentHashMap<>();
+    private final ExecutorService escritores;
+    private final boolean habilitado;
+    private final int maxLote;
+
+    public SecuenciadorStock(MovimientoService movimientoService,
+                             ReintentoConcurrencia reintentoConcurrencia,
+                             @Value("${stockify.movimientos.secuenciador.habilitado:false}") boolean habilitado,
+                             @Value("${stockify.movimientos.secuenciador.max-lote:50}") int maxLote,
+                             @Value("${stockify.movimientos.secuenciador.hilos:4}") int hilos) {
+        this.movimientoService = movimientoService;
+        this.reintentoConcurrencia = reintentoConcurrencia;
+        this.habilitado = habilitado;
+        this.maxLote = maxLote;
+        this.escritores = Executors.newFixedThreadPool(hilos);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public CompletableFuture<AsignacionSalidaDTO> encolarSalida(MovimientoNewDTO dto) {
+        SalidaPendiente pendiente = new SalidaPendiente(dto, new CompletableFuture<>());
+        ColaProducto cola = colas.computeIfAbsent(dto.getProductoId(), ColaProducto::new);
+        cola.pendientes.add(pendiente);
+        programar(cola);
+        return pendiente.futuro();
+    }
+
+    private void programar(ColaProducto cola) {
+        if (!cola.pendientes.isEmpty() && cola.enEjecucion.compareAndSet(false, true)) {
+            escritores.execute(() -> drenar(cola));
+        }
+    }
+
+    private void drenar(ColaProducto cola) {
+        try {
+            List<SalidaPendiente> lote = new ArrayList<>(maxLote);
+            SalidaPendiente pendiente;
+            while ((pendiente = cola.pendientes.poll()) != null) {
+                lote.add(pendiente);
+                if (lote.size() == maxLote) {
+                    procesar(cola.productoId, lote);
+                    lote = new ArrayList<>(maxLote);
+                }
+            }
+            if (!lote.isEmpty()) {
+                procesar(cola.productoId, lote);
+            }
+        } finally {
+            cola.enEjecucion.set(false);
+            // Una salida pudo encolarse justo después del último poll
+            programar(cola);
+        }
+    }
+
+    private void procesar(Long productoId, List<SalidaPendiente> lote) {
+        List<MovimientoNewDTO> solicitudes = lote.stream().map(SalidaPendiente::dto).toList();
+        try {
+            List<ResultadoSalida> resultados = reintentoConcurrencia.ejecutar(productoId,
+                    () -> movimientoService.registrarSalidasAgrupadas(productoId, solicitudes));
+            for (int i = 0; i < lote.size(); i++) {
+                ResultadoSalida resultado = resultados.get(i);
+                if (resultado.getError() != null) {
+                    lote.get(i).futuro().completeExceptionally(resultado.getError());
+                } else {
+                    lote.get(i).futuro().complete(resultado.getAsignacion());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falló el lote de {} salidas del producto {}: {}", lote.size(), productoId, e.getMessage());
+            lote.forEach(p -> p.futuro().completeExceptionally(e));
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        escritores.shutdown();
+    }
+
+    private static final class ColaProducto {
+        private final Long productoId;
+        private final Queue<SalidaPendiente> pendientes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean enEjecucion = new AtomicBoolean(false);
+
+        private ColaProducto(Long productoId) {
+            this.productoId = productoId;
+        }
+    }
+
+    private record SalidaPendiente(MovimientoNewDTO dto, CompletableFuture<AsignacionSalidaDTO> futuro) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.stockify.movimiento.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Cantidad a retirar de un producto con el texto que llevarán sus movimientos. */
+@Getter
+@AllArgsConstructor
+public class SolicitudSalida {
+    private final double cantidad;
+    private final String observacion;
+    private final String origen;
+}
@@ -1,5 +1,5 @@
 package com.example.stockify.movimiento.domain;
 
 public enum TipoMovimiento {
-    ENTRADA, SALIDA;
+    ENTRADA, SALIDA, ANULACION;
 }
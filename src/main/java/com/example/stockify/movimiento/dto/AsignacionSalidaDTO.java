@@ -0,0 +1,18 @@
+package com.example.stockify.movimiento.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AsignacionSalidaDTO {
+    private Long productoId;
+    private Double cantidadTotal;
+    private Double costoTotal;
+    private Double costoUnitarioPromedio;
+    private List<MovimientoRequestDTO> movimientos;
+}
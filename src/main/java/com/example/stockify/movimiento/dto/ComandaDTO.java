@@ -0,0 +1,22 @@
+package com.example.stockify.movimiento.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ComandaDTO {
+    @Size(max = 50, message = "La referencia de la comanda no debe superar los 50 caracteres")
+    private String referencia;
+
+    @NotEmpty(message = "La comanda debe tener al menos un plato")
+    @Valid
+    private List<PlatoComandaDTO> platos;
+}
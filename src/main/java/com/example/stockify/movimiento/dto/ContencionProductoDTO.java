@@ -0,0 +1,14 @@
+package com.example.stockify.movimiento.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContencionProductoDTO {
+    private Long productoId;
+    private Long conflictos;
+    private Long reintentosAgotados;
+}
@@ -0,0 +1,18 @@
+package com.example.stockify.movimiento.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EntradaMasivaDTO {
+    @NotEmpty(message = "La lista de líneas de la entrega no puede estar vacía")
+    @Valid
+    private List<MovimientoNewDTO> lineas;
+}
@@ -0,0 +1,23 @@
+package com.example.stockify.movimiento.dto;
+
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/* Lo mínimo de un movimiento para recalcular costos: sin entidades ni relaciones cargadas. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovimientoCostoDTO {
+    private Long almacenId;
+    private TipoMovimiento tipoMovimiento;
+    private Double cantidad;
+    private Double costoUnitario;
+    private Double variacion;
+    private LocalDateTime fechaMovimiento;
+    // Entrada que abre o cierra una capa: el propio movimiento o, en una anulación, el anulado
+    private Long movimientoOrigenId;
+}
@@ -0,0 +1,16 @@
+package com.example.stockify.movimiento.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaMovimientosDTO {
+    private List<MovimientoRequestDTO> contenido;
+    /** Cursor opaco para pedir la página siguiente; null cuando no hay más resultados. */
+    private String siguienteCursor;
+}
@@ -0,0 +1,24 @@
+package com.example.stockify.movimiento.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanLoteDTO {
+    private Long loteId;
+    private String codigoLote;
+    private Long almacenId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fechaCompra;
+
+    private Double cantidad;
+    private Double costoUnitario;
+    private Double costoTotal;
+}
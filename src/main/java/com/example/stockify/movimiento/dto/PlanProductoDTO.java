@@ -0,0 +1,22 @@
+package com.example.stockify.movimiento.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanProductoDTO {
+    private Long productoId;
+    private String nombreProducto;
+    private String unidadMedida;
+    private Double cantidadRequerida;
+    private Double cantidadAsignada;
+    // Lo que no alcanza a cubrir el stock del producto o sus lotes con saldo
+    private Double faltante;
+    private Double costoTotal;
+    private List<PlanLoteDTO> lotes;
+}
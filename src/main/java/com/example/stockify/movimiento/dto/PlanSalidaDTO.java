@@ -0,0 +1,18 @@
+package com.example.stockify.movimiento.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanSalidaDTO {
+    private String origen;
+    // false si algún producto tiene faltante: la salida real sería rechazada
+    private Boolean suficiente;
+    private Double costoTotal;
+    private List<PlanProductoDTO> productos;
+}
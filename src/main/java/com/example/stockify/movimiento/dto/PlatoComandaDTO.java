@@ -0,0 +1,19 @@
+package com.example.stockify.movimiento.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlatoComandaDTO {
+    @NotNull(message = "El recetaBaseId es obligatorio")
+    private Long recetaBaseId;
+
+    @NotNull(message = "Las porciones son obligatorias")
+    @Positive(message = "Las porciones deben ser mayores que 0")
+    private Integer porciones;
+}
@@ -3,11 +3,20 @@ package com.example.stockify.movimiento.infrastructure;
 import com.example.stockify.movimiento.domain.Movimiento;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, JpaSpecificationExecutor<Movimiento> {
+public interface MovimientoRepository extends JpaRepository<Movimiento, Long>, JpaSpecificationExecutor<Movimiento>,
+        MovimientoRepositoryCustom {
     List<Movimiento> findByLoteId(Long loteId);
+
+    boolean existsByMovimientoAnuladoId(Long movimientoId);
+
+    @Query("SELECT m.producto.id FROM Movimiento m WHERE m.id = :id")
+    Optional<Long> buscarProductoId(@Param("id") Long id);
 }
@@ -0,0 +1,36 @@
+package com.example.stockify.movimiento.infrastructure;
+
+import com.example.stockify.movimiento.domain.Movimiento;
+import com.example.stockify.movimiento.dto.MovimientoCostoDTO;
+import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface MovimientoRepositoryCustom {
+
+    /**
+     * Página de movimientos ordenada por (fechaMovimiento, id) descendente que empieza
+     * después del cursor indicado. Sin cursor devuelve la primera página.
+     */
+    List<MovimientoRequestDTO> buscarPagina(Specification<Movimiento> filtro, LocalDateTime fechaCursor,
+                                            Long idCursor, int limite);
+
+    /**
+     * Recorre los movimientos filtrados con un cursor del servidor. Debe consumirse
+     * dentro de una transacción y cerrarse al terminar.
+     */
+    Stream<MovimientoRequestDTO> transmitir(Specification<Movimiento> filtro);
+
+    /**
+     * Recorre en orden cronológico los movimientos del producto en [desde, hasta). Un movimiento
+     * desde inicio anulado antes de hasta se omite junto con su anulación. Los anteriores a inicio
+     * se devuelven siempre, y también sus anulaciones: la anulación cuenta en su propio periodo.
+     * Las anulaciones de movimientos anteriores a desde se devuelven, ya que el original está
+     * incluido en el saldo de partida. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    Stream<MovimientoCostoDTO> recorrerCostos(Long productoId, LocalDateTime desde, LocalDateTime inicio,
+                                              LocalDateTime hasta);
+}
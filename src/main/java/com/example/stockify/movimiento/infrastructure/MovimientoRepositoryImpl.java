@@ -0,0 +1,121 @@
+package com.example.stockify.movimiento.infrastructure;
+
+import com.example.stockify.movimiento.domain.Movimiento;
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import com.example.stockify.movimiento.dto.MovimientoCostoDTO;
+import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consultas de listado que proyectan directamente a DTO: no se cargan entidades
+ * ni sus relaciones, así el contexto de persistencia no crece con el resultado.
+ */
+public class MovimientoRepositoryImpl implements MovimientoRepositoryCustom {
+    private static final int TAMANO_FETCH = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<MovimientoRequestDTO> buscarPagina(Specification<Movimiento> filtro, LocalDateTime fechaCursor,
+                                                   Long idCursor, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MovimientoRequestDTO> query = cb.createQuery(MovimientoRequestDTO.class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+
+        List<Predicate> predicados = filtrar(filtro, root, query, cb);
+        if (fechaCursor != null && idCursor != null) {
+            predicados.add(cb.or(
+                    cb.lessThan(root.<LocalDateTime>get("fechaMovimiento"), fechaCursor),
+                    cb.and(cb.equal(root.get("fechaMovimiento"), fechaCursor),
+                            cb.lessThan(root.<Long>get("id"), idCursor))));
+        }
+        ordenar(query.select(proyeccion(root, cb)).where(predicados.toArray(new Predicate[0])), root, cb);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<MovimientoRequestDTO> transmitir(Specification<Movimiento> filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MovimientoRequestDTO> query = cb.createQuery(MovimientoRequestDTO.class);
+        Root<Movimiento> root = query.from(Movimiento.class);
+
+        List<Predicate> predicados = filtrar(filtro, root, query, cb);
+        ordenar(query.select(proyeccion(root, cb)).where(predicados.toArray(new Predicate[0])), root, cb);
+
+        // Hibernate respalda el Stream con ScrollableResults de solo avance;
+        // con fetch size y autocommit desactivado PostgreSQL entrega las filas por bloques
+        return entityManager.createQuery(query)
+                .setHint("org.hibernate.fetchSize", TAMANO_FETCH)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<MovimientoCostoDTO> recorrerCostos(Long productoId, LocalDateTime desde, LocalDateTime inicio,
+                                                     LocalDateTime hasta) {
+        return entityManager.createQuery("""
+                        SELECT new com.example.stockify.movimiento.dto.MovimientoCostoDTO(
+                               m.almacen.id, m.tipoMovimiento, m.cantidad, m.costoUnitario, m.variacion, m.fechaMovimiento,
+                               COALESCE(o.id, m.id))
+                        FROM Movimiento m LEFT JOIN m.movimientoAnulado o
+                        WHERE m.producto.id = :productoId
+                          AND m.fechaMovimiento >= :desde AND m.fechaMovimiento < :hasta
+                          AND ((m.tipoMovimiento <> :anulacion
+                                AND (m.fechaMovimiento < :inicio
+                                     OR NOT EXISTS (SELECT a.id FROM Movimiento a
+                                                    WHERE a.movimientoAnulado = m AND a.fechaMovimiento < :hasta)))
+                               OR (m.tipoMovimiento = :anulacion AND o.fechaMovimiento < :inicio))
+                        ORDER BY m.fechaMovimiento ASC, m.id ASC
+                        """, MovimientoCostoDTO.class)
+                .setParameter("productoId", productoId)
+                .setParameter("desde", desde)
+                .setParameter("inicio", inicio)
+                .setParameter("hasta", hasta)
+                .setParameter("anulacion", TipoMovimiento.ANULACION)
+                .setHint("org.hibernate.fetchSize", TAMANO_FETCH)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+    }
+
+    private List<Predicate> filtrar(Specification<Movimiento> filtro, Root<Movimiento> root,
+                                    CriteriaQuery<?> query, CriteriaBuilder cb) {
+        List<Predicate> predicados = new ArrayList<>();
+        Predicate predicado = filtro != null ? filtro.toPredicate(root, query, cb) : null;
+        if (predicado != null) {
+            predicados.add(predicado);
+        }
+        return predicados;
+    }
+
+    private void ordenar(CriteriaQuery<MovimientoRequestDTO> query, Root<Movimiento> root, CriteriaBuilder cb) {
+        query.orderBy(cb.desc(root.get("fechaMovimiento")), cb.desc(root.get("id")));
+    }
+
+    private CompoundSelection<MovimientoRequestDTO> proyeccion(Root<Movimiento> root, CriteriaBuilder cb) {
+        return cb.construct(MovimientoRequestDTO.class,
+                root.get("id"),
+                root.get("tipoMovimiento"),
+                root.get("cantidad"),
+                root.get("costoUnitario"),
+                root.get("costoTotal"),
+                root.get("fechaMovimiento"),
+                root.get("observacion"),
+                root.get("origen"));
+    }
+}
@@ -38,6 +38,9 @@ public class Producto {
     @Column(nullable = false)
     private Boolean activo = true;
 
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy = "producto")
     private List<Lote> lotes;
 
@@ -0,0 +1,44 @@
+package com.example.stockify.producto.domain;
+
+import com.example.stockify.producto.dto.ProductoNewDTO;
+import com.example.stockify.producto.dto.ProductoRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito entre Producto y sus DTO. Solo lee columnas propias del producto,
+ * nunca sus colecciones perezosas.
+ */
+@Component
+public class ProductoMapper {
+
+    public ProductoRequestDTO aDTO(Producto producto) {
+        ProductoRequestDTO dto = new ProductoRequestDTO();
+        dto.setId(producto.getId());
+        dto.setNombre(producto.getNombre());
+        dto.setDescripcion(producto.getDescripcion());
+        dto.setUnidadMedida(producto.getUnidadMedida());
+        dto.setCategoria(producto.getCategoria());
+        dto.setStockMinimo(producto.getStockMinimo());
+        dto.setStockActual(producto.getStockActual());
+        dto.setActivo(producto.getActivo());
+        dto.setFechaCreacion(producto.getFechaCreacion());
+        return dto;
+    }
+
+    public Producto aEntidad(ProductoNewDTO dto) {
+        Producto producto = new Producto();
+        copiar(dto, producto);
+        producto.setStockActual(0.0);
+        return producto;
+    }
+
+    /** Copia los datos editables. El stock solo cambia mediante movimientos, por eso no se copia. */
+    public void copiar(ProductoNewDTO dto, Producto producto) {
+        producto.setNombre(dto.getNombre());
+        producto.setDescripcion(dto.getDescripcion());
+        producto.setUnidadMedida(dto.getUnidadMedida());
+        producto.setCategoria(dto.getCategoria());
+        producto.setStockMinimo(dto.getStockMinimo());
+        producto.setActivo(dto.getActivo());
+    }
+}
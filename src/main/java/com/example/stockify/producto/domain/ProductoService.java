@@ -1,55 +1,67 @@
 package com.example.stockify.producto.domain;
 
 import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.excepciones.OperacionNoPermitidaException;
 import com.example.stockify.producto.infrastructure.ProductoRepository;
 import com.example.stockify.producto.dto.ProductoRequestDTO;
 import com.example.stockify.producto.dto.ProductoNewDTO;
 import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.excepciones.ValidacionException;
-import org.modelmapper.ModelMapper;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductoService {
 
     private final ProductoRepository productoRepository;
-    private final ModelMapper modelMapper;
+    private final ProductoMapper productoMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductoService(ModelMapper modelMapper, ProductoRepository productoRepository) {
-        this.modelMapper = modelMapper;
+    public ProductoService(ProductoMapper productoMapper, ProductoRepository productoRepository,
+                           ApplicationEventPublisher eventPublisher) {
+        this.productoMapper = productoMapper;
         this.productoRepository = productoRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<ProductoRequestDTO> findAll() {
         return productoRepository.findAll()
                 .stream()
-                .map(e -> modelMapper.map(e, ProductoRequestDTO.class))
+                .map(productoMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public ProductoRequestDTO findById(Long id) {
         Producto e = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
-        return modelMapper.map(e, ProductoRequestDTO.class);
+        return productoMapper.aDTO(e);
     }
 
     public ProductoRequestDTO create(ProductoNewDTO dto) {
         if (productoRepository.findByNombreContainingIgnoreCase(dto.getNombre()).size() > 0) {
             throw new ValidacionException("Ya existe un producto con este nombre.");
         }
-        Producto e = modelMapper.map(dto, Producto.class);
+        Producto e = productoMapper.aEntidad(dto);
         e = productoRepository.save(e);
-        return modelMapper.map(e, ProductoRequestDTO.class);
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.of(e.getId())));
+        return productoMapper.aDTO(e);
     }
 
+    @Transactional
     public ProductoRequestDTO update(Long id, ProductoNewDTO dto) {
         Producto existing = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
-        modelMapper.map(dto, existing);
+        String unidadAnterior = existing.getUnidadMedida();
+        productoMapper.copiar(dto, existing);
+        validarCambioUnidad(existing, unidadAnterior);
         existing = productoRepository.save(existing);
-        return modelMapper.map(existing, ProductoRequestDTO.class);
+        publicarCambios(existing, unidadAnterior);
+        return productoMapper.aDTO(existing);
     }
 
     public void deleteById(Long id) {
@@ -57,41 +69,68 @@ public class ProductoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
         producto.setActivo(false);
         productoRepository.save(producto);
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.of(producto.getId())));
     }
 
 
+    @Transactional
     public ProductoRequestDTO updateFull(Long id, ProductoNewDTO dto) {
         Producto existing = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
 
-        // Validar campos obligatorios
+        // Validar campos obligatorios (stockActual se ignora: solo lo modifican los movimientos)
         if (dto.getNombre() == null || dto.getDescripcion() == null || dto.getUnidadMedida() == null ||
-                dto.getCategoria() == null || dto.getStockMinimo() == null || dto.getStockActual() == null ||
-                dto.getActivo() == null) {
+                dto.getCategoria() == null || dto.getStockMinimo() == null || dto.getActivo() == null) {
             throw new BadRequestException("Todos los campos son obligatorios para una actualización completa (PUT)");
         }
 
-        modelMapper.map(dto, existing);
+        String unidadAnterior = existing.getUnidadMedida();
+        productoMapper.copiar(dto, existing);
+        validarCambioUnidad(existing, unidadAnterior);
         existing = productoRepository.save(existing);
-        return modelMapper.map(existing, ProductoRequestDTO.class);
+        publicarCambios(existing, unidadAnterior);
+        return productoMapper.aDTO(existing);
     }
 
 
 
+    @Transactional
     public ProductoRequestDTO updatePartial(Long id, ProductoNewDTO dto) {
         Producto existing = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
+        String unidadAnterior = existing.getUnidadMedida();
 
         if (dto.getNombre() != null) existing.setNombre(dto.getNombre());
         if (dto.getDescripcion() != null) existing.setDescripcion(dto.getDescripcion());
         if (dto.getUnidadMedida() != null) existing.setUnidadMedida(dto.getUnidadMedida());
         if (dto.getCategoria() != null) existing.setCategoria(dto.getCategoria());
         if (dto.getStockMinimo() != null) existing.setStockMinimo(dto.getStockMinimo());
-        if (dto.getStockActual() != null) existing.setStockActual(dto.getStockActual());
         if (dto.getActivo() != null) existing.setActivo(dto.getActivo());
 
+        validarCambioUnidad(existing, unidadAnterior);
         existing = productoRepository.save(existing);
-        return modelMapper.map(existing, ProductoRequestDTO.class);
+        publicarCambios(existing, unidadAnterior);
+        return productoMapper.aDTO(existing);
+    }
+
+    /*
+     * El stock, los lotes y sus costos están expresados en la unidad actual y no se convierten:
+     * la unidad solo puede cambiar mientras el producto no tiene existencias.
+     */
+    private void validarCambioUnidad(Producto producto, String unidadAnterior) {
+        if (!Objects.equals(unidadAnterior, producto.getUnidadMedida())
+                && producto.getStockActual() != null && Math.abs(producto.getStockActual()) > 1e-9) {
+            throw new OperacionNoPermitidaException("No se puede cambiar la unidad de '" + producto.getNombre()
+                    + "' mientras tenga stock (" + producto.getStockActual() + " " + unidadAnterior + ").");
+        }
+    }
+
+    /* Un cambio de unidad recalcula en la misma transacción el factor de las recetas que lo usan. */
+    private void publicarCambios(Producto producto, String unidadAnterior) {
+        if (!Objects.equals(unidadAnterior, producto.getUnidadMedida())) {
+            eventPublisher.publishEvent(new UnidadProductoModificadaEvent(producto.getId(), producto.getUnidadMedida()));
+        }
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.of(producto.getId())));
     }
 
 
@@ -110,7 +149,7 @@ public class ProductoService {
         }
 
         return productos.stream()
-                .map(p -> modelMapper.map(p, ProductoRequestDTO.class))
+                .map(productoMapper::aDTO)
                 .toList();
     }
 
@@ -120,7 +159,7 @@ public class ProductoService {
             throw new ResourceNotFoundException("No hay productos con el estado activo = " + activo);
         }
         return productos.stream()
-                .map(p -> modelMapper.map(p, ProductoRequestDTO.class))
+                .map(productoMapper::aDTO)
                 .toList();
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.stockify.producto.domain;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/* Evento que se publica cuando cambia el stock de uno o más productos. */
+@Getter
+public class StockModificadoEvent {
+    private final Set<Long> productoIds;
+
+    public StockModificadoEvent(Set<Long> productoIds) {
+        this.productoIds = productoIds;
+    }
+}
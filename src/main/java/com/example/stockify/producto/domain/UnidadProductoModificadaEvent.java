@@ -0,0 +1,15 @@
+package com.example.stockify.producto.domain;
+
+import lombok.Getter;
+
+/* Evento síncrono que se publica, dentro de la transacción, cuando cambia la unidad de stock de un producto. */
+@Getter
+public class UnidadProductoModificadaEvent {
+    private final Long productoId;
+    private final String unidadMedida;
+
+    public UnidadProductoModificadaEvent(Long productoId, String unidadMedida) {
+        this.productoId = productoId;
+        this.unidadMedida = unidadMedida;
+    }
+}
@@ -32,8 +32,7 @@ public class ProductoNewDTO {
     @PositiveOrZero(message = "El stock mínimo no puede ser negativo")
     private Double stockMinimo;
 
-    @NotNull(message = "El stock actual es obligatorio")
-    @PositiveOrZero(message = "El stock actual no puede ser negativo")
+    // Se ignora: el producto nace sin stock y solo lo modifican los movimientos
     private Double stockActual;
 
     @NotNull(message = "El estado activo es obligatorio")
@@ -2,6 +2,11 @@ package com.example.stockify.producto.infrastructure;
 
 import com.example.stockify.producto.domain.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
@@ -9,4 +14,18 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
     List<Producto> findByCategoriaIgnoreCaseAndActivo(String categoria, Boolean activo);
     List<Producto> findByCategoriaIgnoreCase(String categoria);
-}
\ No newline at end of file
+
+    @Query("SELECT p.id FROM Producto p ORDER BY p.id")
+    List<Long> listarIds();
+
+    /**
+     * Incremento atómico del stock. Vacía el contexto antes y lo limpia después para que
+     * ninguna instancia de Producto administrada quede con el stock o la versión anteriores.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stockActual = p.stockActual + :cantidad, p.version = p.version + 1, " +
+           "p.ultimoActualizado = :fecha WHERE p.id = :productoId")
+    int incrementarStock(@Param("productoId") Long productoId,
+                         @Param("cantidad") Double cantidad,
+                         @Param("fecha") LocalDateTime fecha);
+}
@@ -2,14 +2,24 @@ package com.example.stockify.recetaBase.application;
 
 import com.example.stockify.excepciones.ErrorResponseDTO;
 import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.recetaBase.domain.CostoRecetas;
+import com.example.stockify.recetaBase.domain.DisponibilidadRecetas;
+import com.example.stockify.recetaBase.domain.PlanProduccion;
 import com.example.stockify.recetaBase.domain.RecetaBaseService;
+import com.example.stockify.recetaBase.dto.CostoRecetaDTO;
+import com.example.stockify.recetaBase.dto.MenuImportDTO;
+import com.example.stockify.recetaBase.dto.PlanProduccionDTO;
+import com.example.stockify.recetaBase.dto.PlanProduccionNewDTO;
 import com.example.stockify.recetaBase.dto.RecetaBaseNewDTO;
+import com.example.stockify.recetaBase.dto.PorcionesDisponiblesDTO;
 import com.example.stockify.recetaBase.dto.RecetaBaseRequestDTO;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,9 +30,16 @@ import java.util.List;
 public class RecetaBaseController {
 
     private final RecetaBaseService recetaBaseService;
+    private final DisponibilidadRecetas disponibilidadRecetas;
+    private final CostoRecetas costoRecetas;
+    private final PlanProduccion planProduccion;
 
-    public RecetaBaseController(RecetaBaseService recetaBaseService) {
+    public RecetaBaseController(RecetaBaseService recetaBaseService, DisponibilidadRecetas disponibilidadRecetas,
+                                CostoRecetas costoRecetas, PlanProduccion planProduccion) {
         this.recetaBaseService = recetaBaseService;
+        this.disponibilidadRecetas = disponibilidadRecetas;
+        this.costoRecetas = costoRecetas;
+        this.planProduccion = planProduccion;
     }
 
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
@@ -31,12 +48,54 @@ public class RecetaBaseController {
         return ResponseEntity.ok(recetaBaseService.create(dto));
     }
 
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @PostMapping("/importar")
+    public ResponseEntity<List<RecetaBaseRequestDTO>> importarMenu(@Valid @RequestBody MenuImportDTO menu) {
+        return ResponseEntity.ok(recetaBaseService.importarMenu(menu));
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping
     public ResponseEntity<List<RecetaBaseRequestDTO>> listar() {
         return ResponseEntity.ok(recetaBaseService.findAll());
     }
 
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/porciones-disponibles")
+    public ResponseEntity<List<PorcionesDisponiblesDTO>> listarPorcionesDisponibles() {
+        return ResponseEntity.ok(disponibilidadRecetas.calcularPorcionesDisponibles());
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping(value = "/disponibilidad/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirDisponibilidad() {
+        return disponibilidadRecetas.suscribir();
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/costos")
+    public ResponseEntity<List<CostoRecetaDTO>> listarCostos() {
+        return ResponseEntity.ok(costoRecetas.calcularCostos());
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/{id}/costo")
+    public ResponseEntity<CostoRecetaDTO> obtenerCosto(@PathVariable Long id) {
+        return ResponseEntity.ok(costoRecetas.calcularCosto(id));
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'COCINERO')")
+    @PostMapping("/plan-produccion")
+    public ResponseEntity<PlanProduccionDTO> calcularPlanProduccion(@Valid @RequestBody PlanProduccionNewDTO plan) {
+        return ResponseEntity.ok(planProduccion.calcular(plan.getPronosticos()));
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}/porciones-disponibles")
+    public ResponseEntity<PorcionesDisponiblesDTO> obtenerPorcionesDisponibles(@PathVariable Long id) {
+        return ResponseEntity.ok(disponibilidadRecetas.calcularPorcionesDisponibles(id));
+    }
+
     @PreAuthorize("isAuthenticated()")
     @GetMapping("/{id}")
     public ResponseEntity<RecetaBaseRequestDTO> obtenerPorId(@PathVariable Long id) {
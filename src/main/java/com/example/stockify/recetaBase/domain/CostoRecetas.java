@@ -0,0 +1,173 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.domain.LotesModificadosEvent;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.producto.domain.StockModificadoEvent;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.IndiceRecetas;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import com.example.stockify.recetaBase.dto.CostoRecetaDTO;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Costo por porción de cada receta valorizado con las capas FIFO de los lotes que se
+ * consumirían hoy, a partir de las recetas ya explotadas. Se guarda en memoria y solo se
+ * invalidan las recetas que usan un producto cuyos lotes cambiaron, o cuya explosión cambió.
+ */
+@Component
+public class CostoRecetas {
+    private static final double TOLERANCIA = 1e-9;
+
+    private final ExplosionRecetas explosionRecetas;
+    private final LoteRepository loteRepository;
+    private final Map<Long, CostoRecetaDTO> costos = new ConcurrentHashMap<>();
+    // Cambia con cada invalidación: un cálculo iniciado antes no se guarda en caché
+    private final AtomicLong generacion = new AtomicLong();
+    // Explosión con la que se calcularon los costos guardados
+    private volatile IndiceRecetas indice;
+
+    public CostoRecetas(ExplosionRecetas explosionRecetas, LoteRepository loteRepository) {
+        this.explosionRecetas = explosionRecetas;
+        this.loteRepository = loteRepository;
+    }
+
+    public List<CostoRecetaDTO> calcularCostos() {
+        IndiceRecetas actual = indice();
+        completar(actual, actual.recetas().keySet());
+        List<CostoRecetaDTO> resultado = new ArrayList<>(actual.recetas().size());
+        for (Long recetaId : actual.recetas().keySet()) {
+            CostoRecetaDTO costo = costos.get(recetaId);
+            resultado.add(costo != null ? costo : calcularSinCache(actual.recetas().get(recetaId)));
+        }
+        return resultado;
+    }
+
+    public CostoRecetaDTO calcularCosto(Long recetaBaseId) {
+        IndiceRecetas actual = indice();
+        if (!actual.recetas().containsKey(recetaBaseId)) {
+            throw new ResourceNotFoundException("Receta base no encontrada con ID: " + recetaBaseId);
+        }
+        completar(actual, Set.of(recetaBaseId));
+        CostoRecetaDTO costo = costos.get(recetaBaseId);
+        return costo != null ? costo : calcularSinCache(actual.recetas().get(recetaBaseId));
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarStock(StockModificadoEvent event) {
+        invalidarProductos(event.getProductoIds());
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarLotes(LotesModificadosEvent event) {
+        invalidarProductos(event.getProductoIds());
+    }
+
+    private void invalidarProductos(Set<Long> productoIds) {
+        generacion.incrementAndGet();
+        IndiceRecetas actual = indice;
+        if (actual == null) {
+            return;
+        }
+        for (Long productoId : productoIds) {
+            actual.recetasPorProducto().getOrDefault(productoId, List.of()).forEach(costos::remove);
+        }
+    }
+
+    /* Calcula y guarda las recetas que faltan en caché con una sola lectura de lotes. */
+    private void completar(IndiceRecetas actual, Set<Long> recetaIds) {
+        List<RecetaExplotada> faltantes = recetaIds.stream()
+                .filter(id -> !costos.containsKey(id))
+                .map(actual.recetas()::get)
+                .collect(Collectors.toList());
+        if (faltantes.isEmpty()) {
+            return;
+        }
+
+        long generacionInicial = generacion.get();
+        Map<Long, List<Lote>> capas = cargarCapas(faltantes);
+        Map<Long, CostoRecetaDTO> calculados = new HashMap<>();
+        for (RecetaExplotada receta : faltantes) {
+            calculados.put(receta.id(), calcular(receta, capas));
+        }
+        if (generacion.get() == generacionInicial && indice == actual) {
+            costos.putAll(calculados);
+        }
+    }
+
+    private CostoRecetaDTO calcularSinCache(RecetaExplotada receta) {
+        return calcular(receta, cargarCapas(List.of(receta)));
+    }
+
+    private Map<Long, List<Lote>> cargarCapas(List<RecetaExplotada> recetas) {
+        Set<Long> productoIds = new TreeSet<>();
+        recetas.forEach(r -> productoIds.addAll(r.cantidadPorProducto().keySet()));
+        if (productoIds.isEmpty()) {
+            return Map.of();
+        }
+        return loteRepository.findDisponiblesFIFODeProductos(productoIds).stream()
+                .collect(Collectors.groupingBy(l -> l.getProducto().getId()));
+    }
+
+    private CostoRecetaDTO calcular(RecetaExplotada receta, Map<Long, List<Lote>> capas) {
+        double costo = 0.0;
+        boolean completo = true;
+        for (Map.Entry<Long, Double> ingrediente : receta.cantidadPorProducto().entrySet()) {
+            double restante = ingrediente.getValue();
+            Double ultimoCosto = null;
+            for (Lote lote : capas.getOrDefault(ingrediente.getKey(), List.of())) {
+                if (restante <= TOLERANCIA) {
+                    break;
+                }
+                double usada = Math.min(restante, lote.getCantidadDisponible());
+                costo += usada * lote.getCostoUnitario();
+                restante -= usada;
+                ultimoCosto = lote.getCostoUnitario();
+            }
+            if (restante > TOLERANCIA) {
+                // Lo que no cubren los lotes se valoriza al último costo conocido
+                completo = false;
+                if (ultimoCosto != null) {
+                    costo += restante * ultimoCosto;
+                }
+            }
+        }
+        return new CostoRecetaDTO(receta.id(), receta.nombrePlato(), costo, completo);
+    }
+
+    /* Si la explosión cambió, descarta solo los costos de recetas cuyo vector es distinto. */
+    private IndiceRecetas indice() {
+        IndiceRecetas actual = explosionRecetas.indice();
+        if (actual != indice) {
+            synchronized (this) {
+                IndiceRecetas anterior = indice;
+                if (actual != anterior) {
+                    generacion.incrementAndGet();
+                    if (anterior == null) {
+                        costos.clear();
+                    } else {
+                        costos.keySet().removeIf(id ->
+                                !Objects.equals(anterior.recetas().get(id), actual.recetas().get(id)));
+                    }
+                    indice = actual;
+                }
+            }
+        }
+        return actual;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.StockModificadoEvent;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.IndiceRecetas;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import com.example.stockify.recetaBase.dto.PorcionesDisponiblesDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stock vigente de cada producto en memoria para responder cuántas porciones de cada plato
+ * se pueden preparar sin consultar la base. Las recetas se leen ya explotadas de
+ * {@link ExplosionRecetas}; su índice inverso producto → recetas permite reevaluar solo los
+ * platos afectados por un cambio de stock y avisar a los suscriptores cuando su disponibilidad cambia.
+ */
+@Component
+@Slf4j
+public class DisponibilidadRecetas {
+    private final ExplosionRecetas explosionRecetas;
+    private final ProductoRepository productoRepository;
+    private final SuscriptoresDisponibilidad suscriptores;
+    private final Map<Long, StockProducto> stockPorProducto = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> ultimasPorciones = new HashMap<>();
+    private volatile boolean stockCargado;
+
+    public DisponibilidadRecetas(ExplosionRecetas explosionRecetas, ProductoRepository productoRepository,
+                                 SuscriptoresDisponibilidad suscriptores) {
+        this.explosionRecetas = explosionRecetas;
+        this.productoRepository = productoRepository;
+        this.suscriptores = suscriptores;
+    }
+
+    public List<PorcionesDisponiblesDTO> calcularPorcionesDisponibles() {
+        cargarStock();
+        Map<Long, RecetaExplotada> recetas = explosionRecetas.indice().recetas();
+        List<PorcionesDisponiblesDTO> resultado = new ArrayList<>(recetas.size());
+        for (RecetaExplotada receta : recetas.values()) {
+            resultado.add(calcular(receta));
+        }
+        return resultado;
+    }
+
+    public PorcionesDisponiblesDTO calcularPorcionesDisponibles(Long recetaBaseId) {
+        RecetaExplotada receta = explosionRecetas.indice().recetas().get(recetaBaseId);
+        if (receta == null) {
+            throw new ResourceNotFoundException("Receta base no encontrada con ID: " + recetaBaseId);
+        }
+        cargarStock();
+        return calcular(receta);
+    }
+
+    /* Se ejecuta después de confirmar, en otro hilo, para leer el stock ya comprometido. */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarStock(StockModificadoEvent event) {
+        productoRepository.findAllById(event.getProductoIds()).forEach(this::actualizarStock);
+
+        if (!stockCargado || !suscriptores.haySuscriptores()) {
+            return;
+        }
+        IndiceRecetas actual = explosionRecetas.indice();
+        Set<Long> afectadas = new TreeSet<>();
+        for (Long productoId : event.getProductoIds()) {
+            afectadas.addAll(actual.recetasPorProducto().getOrDefault(productoId, List.of()));
+        }
+        List<PorcionesDisponiblesDTO> cambios = new ArrayList<>();
+        synchronized (ultimasPorciones) {
+            for (Long recetaId : afectadas) {
+                PorcionesDisponiblesDTO porciones = calcular(actual.recetas().get(recetaId));
+                if (!Objects.equals(ultimasPorciones.put(recetaId, porciones.getPorcionesMaximas()),
+                        porciones.getPorcionesMaximas())) {
+                    cambios.add(porciones);
+                }
+            }
+        }
+        if (!cambios.isEmpty()) {
+            suscriptores.publicarCambios(cambios);
+        }
+    }
+
+    /*
+     * La explosión ya marcó las recetas modificadas; aquí solo se avisa a los suscriptores. Se envía
+     * el estado completo porque un delta no puede expresar las recetas eliminadas.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarRecetas(RecetasModificadasEvent event) {
+        if (suscriptores.haySuscriptores()) {
+            suscriptores.publicarInstantanea(instantanea());
+        }
+    }
+
+    public SseEmitter suscribir() {
+        return suscriptores.suscribir(this::instantanea);
+    }
+
+    /** Estado completo del menú; también fija la base contra la que se detectan los cambios. */
+    public List<PorcionesDisponiblesDTO> instantanea() {
+        List<PorcionesDisponiblesDTO> todas = calcularPorcionesDisponibles();
+        synchronized (ultimasPorciones) {
+            ultimasPorciones.clear();
+            todas.forEach(p -> ultimasPorciones.put(p.getRecetaBaseId(), p.getPorcionesMaximas()));
+        }
+        return todas;
+    }
+
+    private PorcionesDisponiblesDTO calcular(RecetaExplotada receta) {
+        Integer porciones = null;
+        Long limitante = null;
+        for (Map.Entry<Long, Double> ingrediente : receta.cantidadPorProducto().entrySet()) {
+            StockProducto stock = stockPorProducto.get(ingrediente.getKey());
+            double disponible = stock != null ? Math.max(stock.cantidad(), 0.0) : 0.0;
+            int posibles = (int) Math.floor(disponible / ingrediente.getValue());
+            if (porciones == null || posibles < porciones) {
+                porciones = posibles;
+                limitante = ingrediente.getKey();
+            }
+        }
+
+        StockProducto stockLimitante = limitante != null ? stockPorProducto.get(limitante) : null;
+        return new PorcionesDisponiblesDTO(receta.id(), receta.nombrePlato(), porciones, limitante,
+                stockLimitante != null ? stockLimitante.nombre() : null);
+    }
+
+    private void cargarStock() {
+        if (!stockCargado) {
+            synchronized (this) {
+                if (!stockCargado) {
+                    productoRepository.findAll().forEach(this::actualizarStock);
+                    stockCargado = true;
+                    log.info("Stock de disponibilidad cargado: {} productos", stockPorProducto.size());
+                }
+            }
+        }
+    }
+
+    /* Gana la lectura con mayor versión: los refrescos pueden llegar en cualquier orden. */
+    private void actualizarStock(Producto producto) {
+        long version = producto.getVersion() != null ? producto.getVersion() : 0L;
+        StockProducto nuevo = new StockProducto(
+                producto.getStockActual() != null ? producto.getStockActual() : 0.0, version, producto.getNombre());
+        stockPorProducto.merge(producto.getId(), nuevo, (previo, leido) -> leido.version() >= previo.version() ? leido : previo);
+    }
+
+    private record StockProducto(double cantidad, long version, String nombre) {
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
+import com.example.stockify.recetaDetalle.domain.RecetaDetalle;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Explosión memoizada de recetas con sub-recetas: cada receta se reduce a un vector de
+ * cantidad por producto (por porción) que consumo, disponibilidad y costeo leen sin
+ * recorrer el árbol. Al cambiar una receta solo se recalculan ella y las que la usan
+ * como componente.
+ */
+@Component
+@Slf4j
+public class ExplosionRecetas {
+    private final RecetaBaseRepository recetaBaseRepository;
+    // Estado protegido por el monitor de la instancia
+    private final Map<Long, RecetaCruda> crudas = new HashMap<>();
+    private final Map<Long, Map<Long, Double>> vectores = new HashMap<>();
+    private final Set<Long> pendientes = new HashSet<>();
+    private boolean cargado;
+    private volatile IndiceRecetas indice;
+
+    public ExplosionRecetas(RecetaBaseRepository recetaBaseRepository) {
+        this.recetaBaseRepository = recetaBaseRepository;
+    }
+
+    public IndiceRecetas indice() {
+        IndiceRecetas actual = indice;
+        if (actual != null) {
+            return actual;
+        }
+        synchronized (this) {
+            if (indice == null) {
+                if (!cargado) {
+                    cargarTodo();
+                } else {
+                    recargar(pendientes);
+                }
+                pendientes.clear();
+                indice = construirIndice();
+            }
+            return indice;
+        }
+    }
+
+    public RecetaExplotada obtener(Long recetaBaseId) {
+        RecetaExplotada receta = indice().recetas().get(recetaBaseId);
+        if (receta == null) {
+            throw new ResourceNotFoundException("Receta base no encontrada con ID: " + recetaBaseId);
+        }
+        return receta;
+    }
+
+    /**
+     * Indica si usar {@code componenteId} dentro de {@code recetaId} cerraría un ciclo. Mira solo
+     * el índice en memoria; RecetaDetalleService lo vuelve a comprobar en la base bajo lock.
+     */
+    public boolean formariaCiclo(Long recetaId, Long componenteId) {
+        return formariaCiclo(recetaId, componenteId, Map.of());
+    }
+
+    /** Igual que el anterior, considerando además componentes aún no guardados (receta → sub-recetas). */
+    public boolean formariaCiclo(Long recetaId, Long componenteId, Map<Long, Set<Long>> componentesNuevos) {
+        indice();
+        synchronized (this) {
+            Deque<Long> porVisitar = new ArrayDeque<>(List.of(componenteId));
+            Set<Long> visitadas = new HashSet<>();
+            while (!porVisitar.isEmpty()) {
+                Long actual = porVisitar.pop();
+                if (actual.equals(recetaId)) {
+                    return true;
+                }
+                if (!visitadas.add(actual)) {
+                    continue;
+                }
+                RecetaCruda cruda = crudas.get(actual);
+                if (cruda != null) {
+                    cruda.lineas().stream()
+                            .filter(l -> l.subRecetaId() != null)
+                            .forEach(l -> porVisitar.push(l.subRecetaId()));
+                }
+                componentesNuevos.getOrDefault(actual, Set.of()).forEach(porVisitar::push);
+            }
+            return false;
+        }
+    }
+
+    /** Recetas que usan directamente a la indicada como componente. */
+    public Set<Long> usadaEn(Long recetaId) {
+        indice();
+        synchronized (this) {
+            Set<Long> padres = new HashSet<>();
+            crudas.values().forEach(c -> c.lineas().forEach(l -> {
+                if (recetaId.equals(l.subRecetaId())) padres.add(c.id());
+            }));
+            return padres;
+        }
+    }
+
+    /* Solo marca las recetas; se releen en la próxima consulta. Corre antes que los demás oyentes. */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarRecetas(RecetasModificadasEvent event) {
+        synchronized (this) {
+            pendientes.addAll(event.getRecetaBaseIds());
+            indice = null;
+        }
+    }
+
+    private void cargarTodo() {
+        crudas.clear();
+        vectores.clear();
+        for (RecetaBase receta : recetaBaseRepository.buscarTodasConIngredientes()) {
+            crudas.put(receta.getId(), aCruda(receta));
+        }
+        crudas.keySet().forEach(id -> explotar(id, new HashSet<>()));
+        cargado = true;
+        log.info("Explosión de recetas cargada: {} recetas", crudas.size());
+    }
+
+    private void recargar(Collection<Long> recetaIds) {
+        if (recetaIds.isEmpty()) {
+            return;
+        }
+        Map<Long, RecetaBase> leidas = new HashMap<>();
+        recetaBaseRepository.buscarConIngredientes(recetaIds).forEach(r -> leidas.put(r.getId(), r));
+        for (Long id : recetaIds) {
+            RecetaBase receta = leidas.get(id);
+            if (receta != null) {
+                crudas.put(id, aCruda(receta));
+            } else {
+                crudas.remove(id);
+            }
+        }
+
+        Set<Long> afectadas = conAncestros(recetaIds);
+        vectores.keySet().removeAll(afectadas);
+        afectadas.stream().filter(crudas::containsKey).forEach(id -> explotar(id, new HashSet<>()));
+        log.debug("Recetas reexplotadas: {}", afectadas);
+    }
+
+    private Set<Long> conAncestros(Collection<Long> recetaIds) {
+        Map<Long, List<Long>> padres = new HashMap<>();
+        crudas.values().forEach(c -> c.lineas().forEach(l -> {
+            if (l.subRecetaId() != null) padres.computeIfAbsent(l.subRecetaId(), k -> new ArrayList<>()).add(c.id());
+        }));
+        Set<Long> afectadas = new HashSet<>();
+        Deque<Long> porVisitar = new ArrayDeque<>(recetaIds);
+        while (!porVisitar.isEmpty()) {
+            Long id = porVisitar.pop();
+            if (afectadas.add(id)) {
+                porVisitar.addAll(padres.getOrDefault(id, List.of()));
+            }
+        }
+        return afectadas;
+    }
+
+    private Map<Long, Double> explotar(Long recetaId, Set<Long> enCurso) {
+        Map<Long, Double> memo = vectores.get(recetaId);
+        if (memo != null) {
+            return memo;
+        }
+        RecetaCruda cruda = crudas.get(recetaId);
+        if (cruda == null) {
+            return Map.of();
+        }
+        if (!enCurso.add(recetaId)) {
+            log.error("Ciclo de sub-recetas en la receta {}; se ignora el componente", recetaId);
+            return Map.of();
+        }
+
+        Map<Long, Double> vector = new LinkedHashMap<>();
+        for (Linea linea : cruda.lineas()) {
+            if (linea.productoId() != null) {
+                vector.merge(linea.productoId(), linea.cantidad(), Double::sum);
+            } else {
+                explotar(linea.subRecetaId(), enCurso).forEach((productoId, cantidad) ->
+                        vector.merge(productoId, cantidad * linea.cantidad(), Double::sum));
+            }
+        }
+        enCurso.remove(recetaId);
+
+        Map<Long, Double> resultado = Collections.unmodifiableMap(vector);
+        vectores.put(recetaId, resultado);
+        return resultado;
+    }
+
+    private IndiceRecetas construirIndice() {
+        Map<Long, RecetaExplotada> recetas = new TreeMap<>();
+        Map<Long, List<Long>> recetasPorProducto = new HashMap<>();
+        for (RecetaCruda cruda : crudas.values()) {
+            Map<Long, Double> vector = vectores.getOrDefault(cruda.id(), Map.of());
+            recetas.put(cruda.id(), new RecetaExplotada(cruda.id(), cruda.nombrePlato(), vector));
+            vector.keySet().forEach(productoId ->
+                    recetasPorProducto.computeIfAbsent(productoId, id -> new ArrayList<>()).add(cruda.id()));
+        }
+        return new IndiceRecetas(Collections.unmodifiableMap(recetas), Collections.unmodifiableMap(recetasPorProducto));
+    }
+
+    private static RecetaCruda aCruda(RecetaBase receta) {
+        List<Linea> lineas = new ArrayList<>(receta.getDetalles().size());
+        for (RecetaDetalle detalle : receta.getDetalles()) {
+            if (detalle.getCantidadNecesaria() == null || detalle.getCantidadNecesaria() <= 0) {
+                continue;
+            }
+            // Las líneas de producto ya quedan en la unidad de stock; las de sub-receta, en porciones
+            double factor = detalle.getProducto() != null && detalle.getFactorConversion() != null
+                    ? detalle.getFactorConversion() : 1.0;
+            lineas.add(new Linea(detalle.getProducto() != null ? detalle.getProducto().getId() : null,
+                    detalle.getSubReceta() != null ? detalle.getSubReceta().getId() : null,
+                    detalle.getCantidadNecesaria() * factor));
+        }
+        return new RecetaCruda(receta.getId(), receta.getNombrePlato(), lineas);
+    }
+
+    /** Receta reducida a cantidad por producto para una porción. */
+    public record RecetaExplotada(Long id, String nombrePlato, Map<Long, Double> cantidadPorProducto) {
+    }
+
+    /** Instantánea inmutable de todas las recetas explotadas con el índice inverso producto → recetas. */
+    public record IndiceRecetas(Map<Long, RecetaExplotada> recetas, Map<Long, List<Long>> recetasPorProducto) {
+    }
+
+    private record RecetaCruda(Long id, String nombrePlato, List<Linea> lineas) {
+    }
+
+    private record Linea(Long productoId, Long subRecetaId, double cantidad) {
+    }
+}
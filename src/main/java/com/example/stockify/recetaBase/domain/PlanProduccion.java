@@ -0,0 +1,91 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.movimiento.dto.PlatoComandaDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import com.example.stockify.recetaBase.dto.PlanProduccionDTO;
+import com.example.stockify.recetaBase.dto.RequerimientoProductoDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Requerimiento de insumos para un pronóstico de porciones por plato. Los platos se suman como
+ * vectores dispersos producto → cantidad a partir de las recetas ya explotadas, sin leer los
+ * detalles de cada receta; la única consulta es el stock de los productos resultantes.
+ */
+@Component
+public class PlanProduccion {
+    private static final double TOLERANCIA = 1e-9;
+
+    private final ExplosionRecetas explosionRecetas;
+    private final ProductoRepository productoRepository;
+
+    public PlanProduccion(ExplosionRecetas explosionRecetas, ProductoRepository productoRepository) {
+        this.explosionRecetas = explosionRecetas;
+        this.productoRepository = productoRepository;
+    }
+
+    public PlanProduccionDTO calcular(List<PlatoComandaDTO> pronosticos) {
+        // Todas las recetas se leen de la misma instantánea de la explosión
+        Map<Long, RecetaExplotada> recetas = explosionRecetas.indice().recetas();
+        TreeSet<Long> inexistentes = new TreeSet<>();
+        Map<Long, Double> requerimientos = new HashMap<>();
+        int totalPorciones = 0;
+
+        for (PlatoComandaDTO pronostico : pronosticos) {
+            RecetaExplotada receta = recetas.get(pronostico.getRecetaBaseId());
+            if (receta == null) {
+                inexistentes.add(pronostico.getRecetaBaseId());
+                continue;
+            }
+            int porciones = pronostico.getPorciones();
+            totalPorciones += porciones;
+            receta.cantidadPorProducto().forEach((productoId, cantidad) ->
+                    requerimientos.merge(productoId, cantidad * porciones, Double::sum));
+        }
+        if (!inexistentes.isEmpty()) {
+            throw new ResourceNotFoundException("Recetas base no encontradas con ID: " + inexistentes);
+        }
+
+        Map<Long, Producto> productos = productoRepository.findAllById(requerimientos.keySet()).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        List<RequerimientoProductoDTO> resultado = new ArrayList<>(requerimientos.size());
+        int conFaltante = 0;
+        for (Long productoId : new TreeSet<>(requerimientos.keySet())) {
+            Producto producto = productos.get(productoId);
+            if (producto == null) {
+                throw new ResourceNotFoundException("Producto no encontrado con ID: " + productoId);
+            }
+            double requerida = requerimientos.get(productoId);
+            double stock = producto.getStockActual() != null ? producto.getStockActual() : 0.0;
+            double faltante = requerida - Math.max(stock, 0.0);
+            if (faltante > TOLERANCIA) {
+                conFaltante++;
+            }
+            resultado.add(RequerimientoProductoDTO.builder()
+                    .productoId(productoId)
+                    .nombreProducto(producto.getNombre())
+                    .unidadMedida(producto.getUnidadMedida())
+                    .cantidadRequerida(requerida)
+                    .stockActual(stock)
+                    .faltante(faltante > TOLERANCIA ? faltante : 0.0)
+                    .build());
+        }
+
+        return PlanProduccionDTO.builder()
+                .totalPorciones(totalPorciones)
+                .productosConFaltante(conFaltante)
+                .requerimientos(resultado)
+                .build();
+    }
+}
@@ -11,7 +11,8 @@ import java.util.List;
 @Table(name = "recetas_base")
 public class RecetaBase {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recetas_base_seq")
+    @SequenceGenerator(name = "recetas_base_seq", sequenceName = "recetas_base_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "nombre_plato", nullable = false, length = 100)
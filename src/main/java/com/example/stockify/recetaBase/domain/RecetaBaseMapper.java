@@ -0,0 +1,31 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.recetaBase.dto.RecetaBaseNewDTO;
+import com.example.stockify.recetaBase.dto.RecetaBaseRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito de recetas base, sin cargar sus detalles.
+ */
+@Component
+public class RecetaBaseMapper {
+
+    public RecetaBaseRequestDTO aDTO(RecetaBase receta) {
+        RecetaBaseRequestDTO dto = new RecetaBaseRequestDTO();
+        dto.setId(receta.getId());
+        dto.setNombrePlato(receta.getNombrePlato());
+        dto.setDescripcion(receta.getDescripcion());
+        dto.setPorcionesBase(receta.getPorcionesBase());
+        dto.setUnidadPorcion(receta.getUnidadPorcion());
+        return dto;
+    }
+
+    public RecetaBase aEntidad(RecetaBaseNewDTO dto) {
+        RecetaBase receta = new RecetaBase();
+        receta.setNombrePlato(dto.getNombrePlato());
+        receta.setDescripcion(dto.getDescripcion());
+        receta.setPorcionesBase(dto.getPorcionesBase());
+        receta.setUnidadPorcion(dto.getUnidadPorcion());
+        return receta;
+    }
+}
@@ -1,49 +1,135 @@
 package com.example.stockify.recetaBase.domain;
 
+import com.example.stockify.excepciones.ConflictException;
 import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.recetaBase.dto.IngredienteMenuDTO;
+import com.example.stockify.recetaBase.dto.MenuImportDTO;
+import com.example.stockify.recetaBase.dto.RecetaMenuDTO;
 import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
 import com.example.stockify.recetaBase.dto.RecetaBaseRequestDTO;
 import com.example.stockify.recetaBase.dto.RecetaBaseNewDTO;
-import org.modelmapper.ModelMapper;
+import com.example.stockify.recetaDetalle.domain.RecetaDetalle;
+import com.example.stockify.recetaDetalle.domain.RegistroUnidades;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class RecetaBaseService {
     private final RecetaBaseRepository recetaBaseRepository;
-    private final ModelMapper modelMapper;
+    private final RecetaBaseMapper recetaBaseMapper;
+    private final ProductoRepository productoRepository;
+    private final ExplosionRecetas explosionRecetas;
+    private final RegistroUnidades registroUnidades;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public RecetaBaseService(ModelMapper modelMapper, RecetaBaseRepository recetaBaseRepository) {
-        this.modelMapper = modelMapper;
+    public RecetaBaseService(RecetaBaseMapper recetaBaseMapper, RecetaBaseRepository recetaBaseRepository,
+                             ProductoRepository productoRepository, ExplosionRecetas explosionRecetas,
+                             RegistroUnidades registroUnidades, ApplicationEventPublisher eventPublisher) {
+        this.recetaBaseMapper = recetaBaseMapper;
         this.recetaBaseRepository = recetaBaseRepository;
+        this.productoRepository = productoRepository;
+        this.explosionRecetas = explosionRecetas;
+        this.registroUnidades = registroUnidades;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<RecetaBaseRequestDTO> findAll() {
         return recetaBaseRepository.findAll()
                 .stream()
-                .map(e -> modelMapper.map(e, RecetaBaseRequestDTO.class))
+                .map(recetaBaseMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public RecetaBaseRequestDTO findById(Long id) {
         RecetaBase receta = recetaBaseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Receta base no encontrada con ID: " + id));
-        return modelMapper.map(receta, RecetaBaseRequestDTO.class);
+        return recetaBaseMapper.aDTO(receta);
     }
 
     public RecetaBaseRequestDTO create(RecetaBaseNewDTO dto) {
-        RecetaBase receta = modelMapper.map(dto, RecetaBase.class);
+        RecetaBase receta = recetaBaseMapper.aEntidad(dto);
         receta.setFechaCreacion(java.time.LocalDateTime.now());
         receta = recetaBaseRepository.save(receta);
-        return modelMapper.map(receta, RecetaBaseRequestDTO.class);
+        eventPublisher.publishEvent(new RecetasModificadasEvent(Set.of(receta.getId())));
+        return recetaBaseMapper.aDTO(receta);
+    }
+
+    /**
+     * Importa un menú completo en una llamada: los productos de todas las recetas se
+     * resuelven con una sola consulta IN y recetas y detalles se insertan en lote.
+     * Si algún producto no existe no se importa ninguna receta.
+     */
+    @Transactional
+    public List<RecetaBaseRequestDTO> importarMenu(MenuImportDTO menu) {
+        Map<Long, Producto> productos = productoRepository.findAllById(menu.getRecetas().stream()
+                        .flatMap(r -> r.getIngredientes().stream())
+                        .map(IngredienteMenuDTO::getProductoId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        Set<Long> faltantes = new TreeSet<>();
+        menu.getRecetas().forEach(r -> r.getIngredientes().forEach(i -> {
+            if (!productos.containsKey(i.getProductoId())) faltantes.add(i.getProductoId());
+        }));
+        if (!faltantes.isEmpty()) {
+            throw new ResourceNotFoundException("Productos no encontrados con ID: " + faltantes);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<RecetaBase> recetas = new ArrayList<>(menu.getRecetas().size());
+        for (RecetaMenuDTO dto : menu.getRecetas()) {
+            RecetaBase receta = new RecetaBase();
+            receta.setNombrePlato(dto.getNombrePlato());
+            receta.setDescripcion(dto.getDescripcion());
+            receta.setPorcionesBase(dto.getPorcionesBase());
+            receta.setUnidadPorcion(dto.getUnidadPorcion());
+            receta.setFechaCreacion(ahora);
+            for (IngredienteMenuDTO ingrediente : dto.getIngredientes()) {
+                RecetaDetalle detalle = new RecetaDetalle();
+                detalle.setCantidadNecesaria(ingrediente.getCantidadNecesaria());
+                detalle.setUnidadMedida(ingrediente.getUnidadMedida());
+                detalle.setProducto(productos.get(ingrediente.getProductoId()));
+                detalle.setFactorConversion(registroUnidades.factor(
+                        ingrediente.getUnidadMedida(), detalle.getProducto().getUnidadMedida()));
+                detalle.setRecetaBase(receta);
+                receta.getDetalles().add(detalle);
+            }
+            recetas.add(receta);
+        }
+
+        // Los detalles se insertan por cascada en el mismo flush
+        recetaBaseRepository.saveAll(recetas);
+        eventPublisher.publishEvent(new RecetasModificadasEvent(
+                recetas.stream().map(RecetaBase::getId).collect(Collectors.toSet())));
+        return recetas.stream()
+                .map(recetaBaseMapper::aDTO)
+                .collect(Collectors.toList());
     }
 
     public void deleteById(Long id) {
         if (!recetaBaseRepository.existsById(id)) {
             throw new ResourceNotFoundException("No se puede eliminar. Receta base no encontrada con ID: " + id);
         }
+        Set<Long> usadaEn = explosionRecetas.usadaEn(id);
+        if (!usadaEn.isEmpty()) {
+            throw new ConflictException("No se puede eliminar. La receta base " + id
+                    + " se usa como componente de las recetas: " + new TreeSet<>(usadaEn));
+        }
         recetaBaseRepository.deleteById(id);
+        eventPublisher.publishEvent(new RecetasModificadasEvent(Set.of(id)));
     }
 
     public RecetaBaseRequestDTO patchUpdate(Long id, RecetaBaseNewDTO dto) {
@@ -64,6 +150,7 @@ public class RecetaBaseService {
         }
 
         receta = recetaBaseRepository.save(receta);
-        return modelMapper.map(receta, RecetaBaseRequestDTO.class);
+        eventPublisher.publishEvent(new RecetasModificadasEvent(Set.of(id)));
+        return recetaBaseMapper.aDTO(receta);
     }
 }
@@ -0,0 +1,15 @@
+package com.example.stockify.recetaBase.domain;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/* Evento que se publica cuando cambia una receta base o alguno de sus ingredientes. */
+@Getter
+public class RecetasModificadasEvent {
+    private final Set<Long> recetaBaseIds;
+
+    public RecetasModificadasEvent(Set<Long> recetaBaseIds) {
+        this.recetaBaseIds = recetaBaseIds;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.recetaBase.dto.PorcionesDisponiblesDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Clientes suscritos (pantallas del POS) a la disponibilidad del menú por Server-Sent Events.
+ * Al suscribirse reciben el estado completo ("instantanea") y luego solo los platos cuya
+ * cantidad de porciones cambió ("disponibilidad"). Si cambian las recetas se reenvía la
+ * instantánea, que reemplaza el menú del cliente y así quita los platos eliminados.
+ */
+@Component
+@Slf4j
+public class SuscriptoresDisponibilidad {
+    private final List<SseEmitter> emisores = new CopyOnWriteArrayList<>();
+    private final long timeoutMs;
+
+    public SuscriptoresDisponibilidad(@Value("${stockify.recetas.disponibilidad.sse-timeout-ms:1800000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    public SseEmitter suscribir(Supplier<List<PorcionesDisponiblesDTO>> instantanea) {
+        SseEmitter emisor = new SseEmitter(timeoutMs);
+        emisor.onCompletion(() -> emisores.remove(emisor));
+        emisor.onTimeout(() -> emisores.remove(emisor));
+        emisor.onError(e -> emisores.remove(emisor));
+        // Se registra antes de calcular la instantánea para no perder cambios intermedios
+        emisores.add(emisor);
+        enviar(emisor, "instantanea", instantanea.get());
+        return emisor;
+    }
+
+    public boolean haySuscriptores() {
+        return !emisores.isEmpty();
+    }
+
+    public void publicarCambios(List<PorcionesDisponiblesDTO> cambios) {
+        for (SseEmitter emisor : emisores) {
+            enviar(emisor, "disponibilidad", cambios);
+        }
+    }
+
+    public void publicarInstantanea(List<PorcionesDisponiblesDTO> todas) {
+        for (SseEmitter emisor : emisores) {
+            enviar(emisor, "instantanea", todas);
+        }
+    }
+
+    private void enviar(SseEmitter emisor, String evento, List<PorcionesDisponiblesDTO> datos) {
+        try {
+            emisor.send(SseEmitter.event().name(evento).data(datos, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Se descarta un suscriptor de disponibilidad: {}", e.getMessage());
+            emisores.remove(emisor);
+        }
+    }
+}
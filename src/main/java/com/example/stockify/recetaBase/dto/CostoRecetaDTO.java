@@ -0,0 +1,16 @@
+package com.example.stockify.recetaBase.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CostoRecetaDTO {
+    private Long recetaBaseId;
+    private String nombrePlato;
+    private Double costoPorPorcion;
+    // false si algún ingrediente no tiene lotes suficientes para cubrir una porción
+    private Boolean costoCompleto;
+}
@@ -0,0 +1,25 @@
+package com.example.stockify.recetaBase.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngredienteMenuDTO {
+    @NotNull(message = "El ID del producto es obligatorio")
+    private Long productoId;
+
+    @NotNull(message = "La cantidad necesaria es obligatoria")
+    @Positive(message = "La cantidad necesaria debe ser positiva")
+    private Double cantidadNecesaria;
+
+    @NotBlank(message = "La unidad de medida es obligatoria")
+    @Size(max = 20, message = "La unidad de medida no puede superar los 20 caracteres")
+    private String unidadMedida;
+}
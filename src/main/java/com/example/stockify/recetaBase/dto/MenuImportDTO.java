@@ -0,0 +1,18 @@
+package com.example.stockify.recetaBase.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MenuImportDTO {
+    @NotEmpty(message = "El menú debe tener al menos una receta")
+    @Valid
+    private List<RecetaMenuDTO> recetas;
+}
@@ -0,0 +1,16 @@
+package com.example.stockify.recetaBase.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanProduccionDTO {
+    private Integer totalPorciones;
+    private Integer productosConFaltante;
+    private List<RequerimientoProductoDTO> requerimientos;
+}
@@ -0,0 +1,19 @@
+package com.example.stockify.recetaBase.dto;
+
+import com.example.stockify.movimiento.dto.PlatoComandaDTO;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanProduccionNewDTO {
+    @NotEmpty(message = "El plan debe tener al menos un plato")
+    @Valid
+    private List<PlatoComandaDTO> pronosticos;
+}
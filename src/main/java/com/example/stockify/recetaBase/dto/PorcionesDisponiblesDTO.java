@@ -0,0 +1,16 @@
+package com.example.stockify.recetaBase.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PorcionesDisponiblesDTO {
+    private Long recetaBaseId;
+    private String nombrePlato;
+    private Integer porcionesMaximas;
+    private Long productoLimitanteId;
+    private String productoLimitanteNombre;
+}
@@ -0,0 +1,17 @@
+package com.example.stockify.recetaBase.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RequerimientoProductoDTO {
+    private Long productoId;
+    private String nombreProducto;
+    private String unidadMedida;
+    private Double cantidadRequerida;
+    private Double stockActual;
+    private Double faltante;
+}
@@ -2,6 +2,24 @@ package com.example.stockify.recetaBase.infrastructure;
 
 import com.example.stockify.recetaBase.domain.RecetaBase;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface RecetaBaseRepository extends JpaRepository<RecetaBase, Long> {
+
+    // Receta con sus detalles y productos en una sola consulta
+    @Query("SELECT DISTINCT r FROM RecetaBase r LEFT JOIN FETCH r.detalles d LEFT JOIN FETCH d.producto " +
+           "WHERE r.id = :id")
+    Optional<RecetaBase> buscarConIngredientes(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT r FROM RecetaBase r LEFT JOIN FETCH r.detalles d LEFT JOIN FETCH d.producto " +
+           "WHERE r.id IN :ids")
+    List<RecetaBase> buscarConIngredientes(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT r FROM RecetaBase r LEFT JOIN FETCH r.detalles")
+    List<RecetaBase> buscarTodasConIngredientes();
 }
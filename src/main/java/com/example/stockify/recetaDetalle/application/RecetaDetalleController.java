@@ -29,7 +29,7 @@ public class RecetaDetalleController {
 
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/bulk")
-    public ResponseEntity<List<RecetaDetalleRequestDTO>> crearVarios(@RequestBody RecetaDetalleBulkDTO dto) {
+    public ResponseEntity<List<RecetaDetalleRequestDTO>> crearVarios(@Valid @RequestBody RecetaDetalleBulkDTO dto) {
         List<RecetaDetalleRequestDTO> detalles = recetaDetalleService.createBulk(dto.getIngredientes());
         return ResponseEntity.ok(detalles);
     }
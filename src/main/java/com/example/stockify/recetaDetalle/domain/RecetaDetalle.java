@@ -10,7 +10,8 @@ import lombok.Data;
 @Table(name = "receta_detalles")
 public class RecetaDetalle {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "receta_detalles_seq")
+    @SequenceGenerator(name = "receta_detalles_seq", sequenceName = "receta_detalles_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "cantidad_necesaria", nullable = false)
@@ -19,11 +20,20 @@ public class RecetaDetalle {
     @Column(name = "unidad_medida", nullable = false, length = 20)
     private String unidadMedida;
 
+    // Convierte cantidadNecesaria a la unidad de stock del producto; se resuelve al guardar
+    @Column(name = "factor_conversion", nullable = false)
+    private Double factorConversion = 1.0;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "receta_base_id", nullable = false)
     private RecetaBase recetaBase;
 
-    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "producto_id", nullable = false)
+    // Cada línea apunta a un producto o a otra receta usada como componente (salsa, fondo, masa)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "producto_id")
     private Producto producto;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sub_receta_id")
+    private RecetaBase subReceta;
 }
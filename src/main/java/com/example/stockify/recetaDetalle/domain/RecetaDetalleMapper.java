@@ -0,0 +1,23 @@
+package com.example.stockify.recetaDetalle.domain;
+
+import com.example.stockify.recetaDetalle.dto.RecetaDetalleRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito de detalles de receta. Toma solo los IDs de producto y receta,
+ * que Hibernate expone sin inicializar el proxy.
+ */
+@Component
+public class RecetaDetalleMapper {
+
+    public RecetaDetalleRequestDTO aDTO(RecetaDetalle detalle) {
+        RecetaDetalleRequestDTO dto = new RecetaDetalleRequestDTO();
+        dto.setId(detalle.getId());
+        dto.setCantidadNecesaria(detalle.getCantidadNecesaria());
+        dto.setUnidadMedida(detalle.getUnidadMedida());
+        dto.setProductoId(detalle.getProducto() != null ? detalle.getProducto().getId() : null);
+        dto.setSubRecetaId(detalle.getSubReceta() != null ? detalle.getSubReceta().getId() : null);
+        dto.setRecetaBaseId(detalle.getRecetaBase() != null ? detalle.getRecetaBase().getId() : null);
+        return dto;
+    }
+}
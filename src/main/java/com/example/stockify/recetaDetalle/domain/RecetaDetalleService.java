@@ -1,102 +1,290 @@
 package com.example.stockify.recetaDetalle.domain;
 
+import com.example.stockify.excepciones.BadRequestException;
 import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.UnidadProductoModificadaEvent;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas;
 import com.example.stockify.recetaBase.domain.RecetaBase;
+import com.example.stockify.recetaBase.domain.RecetasModificadasEvent;
 import com.example.stockify.recetaDetalle.infrastructure.RecetaDetalleRepository;
 import com.example.stockify.recetaDetalle.dto.RecetaDetalleRequestDTO;
 import com.example.stockify.recetaDetalle.dto.RecetaDetalleNewDTO;
-import org.modelmapper.ModelMapper;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class RecetaDetalleService {
     private final RecetaDetalleRepository recetaDetalleRepository;
-    private final ModelMapper modelMapper;
+    private final RecetaDetalleMapper recetaDetalleMapper;
     private final com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository recetaBaseRepository;
     private final com.example.stockify.producto.infrastructure.ProductoRepository productoRepository;
+    private final ExplosionRecetas explosionRecetas;
+    private final RegistroUnidades registroUnidades;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RecetaDetalleService(
-            ModelMapper modelMapper,
+            RecetaDetalleMapper recetaDetalleMapper,
             RecetaDetalleRepository recetaDetalleRepository,
             com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository recetaBaseRepository,
-            com.example.stockify.producto.infrastructure.ProductoRepository productoRepository
+            com.example.stockify.producto.infrastructure.ProductoRepository productoRepository,
+            ExplosionRecetas explosionRecetas,
+            RegistroUnidades registroUnidades,
+            ApplicationEventPublisher eventPublisher
     ) {
-        this.modelMapper = modelMapper;
+        this.recetaDetalleMapper = recetaDetalleMapper;
         this.recetaDetalleRepository = recetaDetalleRepository;
         this.recetaBaseRepository = recetaBaseRepository;
         this.productoRepository = productoRepository;
+        this.explosionRecetas = explosionRecetas;
+        this.registroUnidades = registroUnidades;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<RecetaDetalleRequestDTO> findAll() {
         return recetaDetalleRepository.findAll()
                 .stream()
-                .map(e -> modelMapper.map(e, RecetaDetalleRequestDTO.class))
+                .map(recetaDetalleMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public RecetaDetalleRequestDTO findById(Long id) {
         RecetaDetalle e = recetaDetalleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Detalle no encontrado con ID: " + id));
-        return modelMapper.map(e, RecetaDetalleRequestDTO.class);
+        return recetaDetalleMapper.aDTO(e);
     }
 
+    @Transactional
     public RecetaDetalleRequestDTO create(RecetaDetalleNewDTO dto) {
         RecetaBase recetaBase = recetaBaseRepository.findById(dto.getRecetaBaseId())
                 .orElseThrow(() -> new ResourceNotFoundException("Receta base no encontrada con ID: " + dto.getRecetaBaseId()));
 
-        Producto producto = productoRepository.findById(dto.getProductoId())
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId()));
+        if (dto.getSubRecetaId() != null) {
+            recetaDetalleRepository.bloquearEdicionSubRecetas();
+        }
+        validarComponente(recetaBase.getId(), dto.getProductoId(), dto.getSubRecetaId(), Map.of());
 
         RecetaDetalle detalle = new RecetaDetalle();
         detalle.setCantidadNecesaria(dto.getCantidadNecesaria());
         detalle.setUnidadMedida(dto.getUnidadMedida());
         detalle.setRecetaBase(recetaBase);
-        detalle.setProducto(producto);
+        if (dto.getProductoId() != null) {
+            detalle.setProducto(productoRepository.findById(dto.getProductoId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId())));
+        } else {
+            detalle.setSubReceta(recetaBaseRepository.findById(dto.getSubRecetaId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Sub-receta no encontrada con ID: " + dto.getSubRecetaId())));
+        }
+        resolverFactor(detalle);
 
         detalle = recetaDetalleRepository.save(detalle);
-        return modelMapper.map(detalle, RecetaDetalleRequestDTO.class);
+        if (detalle.getSubReceta() != null) {
+            verificarSinCiclos(Map.of(recetaBase.getId(), Set.of(detalle.getSubReceta().getId())));
+        }
+        eventPublisher.publishEvent(new RecetasModificadasEvent(Set.of(recetaBase.getId())));
+        return recetaDetalleMapper.aDTO(detalle);
     }
 
     public void deleteById(Long id) {
-        if (!recetaDetalleRepository.existsById(id)) {
-            throw new ResourceNotFoundException("No se puede eliminar. Detalle no encontrado con ID: " + id);
-        }
-        recetaDetalleRepository.deleteById(id);
+        RecetaDetalle detalle = recetaDetalleRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No se puede eliminar. Detalle no encontrado con ID: " + id));
+        Long recetaBaseId = detalle.getRecetaBase().getId();
+        recetaDetalleRepository.delete(detalle);
+        eventPublisher.publishEvent(new RecetasModificadasEvent(Set.of(recetaBaseId)));
     }
 
+    /**
+     * Alta masiva: resuelve recetas y productos con una consulta IN cada uno, valida todo
+     * antes de escribir e inserta los detalles en lote (JDBC batch). Si falta alguna
+     * referencia no se inserta nada.
+     */
+    @Transactional
     public List<RecetaDetalleRequestDTO> createBulk(List<RecetaDetalleNewDTO> ingredientes) {
-        return ingredientes.stream()
-                .map(this::create)
+        if (ingredientes.isEmpty()) {
+            return List.of();
+        }
+
+        if (ingredientes.stream().anyMatch(dto -> dto.getSubRecetaId() != null)) {
+            recetaDetalleRepository.bloquearEdicionSubRecetas();
+        }
+        Set<Long> recetaIds = new HashSet<>();
+        ingredientes.forEach(dto -> {
+            recetaIds.add(dto.getRecetaBaseId());
+            if (dto.getSubRecetaId() != null) recetaIds.add(dto.getSubRecetaId());
+        });
+        Map<Long, RecetaBase> recetas = recetaBaseRepository.findAllById(recetaIds)
+                .stream()
+                .collect(Collectors.toMap(RecetaBase::getId, Function.identity()));
+        Map<Long, Producto> productos = productoRepository.findAllById(
+                        ingredientes.stream().map(RecetaDetalleNewDTO::getProductoId)
+                                .filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        Set<Long> recetasFaltantes = new TreeSet<>();
+        Set<Long> productosFaltantes = new TreeSet<>();
+        Map<Long, Set<Long>> componentesNuevos = new HashMap<>();
+        for (RecetaDetalleNewDTO dto : ingredientes) {
+            validarComponente(dto.getRecetaBaseId(), dto.getProductoId(), dto.getSubRecetaId(), componentesNuevos);
+            if (dto.getSubRecetaId() != null) {
+                componentesNuevos.computeIfAbsent(dto.getRecetaBaseId(), k -> new HashSet<>()).add(dto.getSubRecetaId());
+            }
+            if (!recetas.containsKey(dto.getRecetaBaseId())) recetasFaltantes.add(dto.getRecetaBaseId());
+            if (dto.getSubRecetaId() != null && !recetas.containsKey(dto.getSubRecetaId())) recetasFaltantes.add(dto.getSubRecetaId());
+            if (dto.getProductoId() != null && !productos.containsKey(dto.getProductoId())) productosFaltantes.add(dto.getProductoId());
+        }
+        if (!recetasFaltantes.isEmpty()) {
+            throw new ResourceNotFoundException("Recetas base no encontradas con ID: " + recetasFaltantes);
+        }
+        if (!productosFaltantes.isEmpty()) {
+            throw new ResourceNotFoundException("Productos no encontrados con ID: " + productosFaltantes);
+        }
+
+        List<RecetaDetalle> detalles = new ArrayList<>(ingredientes.size());
+        for (RecetaDetalleNewDTO dto : ingredientes) {
+            RecetaDetalle detalle = new RecetaDetalle();
+            detalle.setCantidadNecesaria(dto.getCantidadNecesaria());
+            detalle.setUnidadMedida(dto.getUnidadMedida());
+            detalle.setRecetaBase(recetas.get(dto.getRecetaBaseId()));
+            detalle.setProducto(dto.getProductoId() != null ? productos.get(dto.getProductoId()) : null);
+            detalle.setSubReceta(dto.getSubRecetaId() != null ? recetas.get(dto.getSubRecetaId()) : null);
+            resolverFactor(detalle);
+            detalles.add(detalle);
+        }
+
+        recetaDetalleRepository.saveAll(detalles);
+        verificarSinCiclos(componentesNuevos);
+        eventPublisher.publishEvent(new RecetasModificadasEvent(
+                ingredientes.stream().map(RecetaDetalleNewDTO::getRecetaBaseId).collect(Collectors.toSet())));
+        return detalles.stream()
+                .map(recetaDetalleMapper::aDTO)
                 .collect(Collectors.toList());
     }
+
+    @Transactional
     public RecetaDetalleRequestDTO patchUpdate(Long id, RecetaDetalleNewDTO dto) {
         RecetaDetalle detalle = recetaDetalleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Detalle no encontrado con ID: " + id));
 
+        if (dto.getProductoId() != null && dto.getSubRecetaId() != null) {
+            throw new BadRequestException("Cada ingrediente debe indicar un producto o una sub-receta, pero no ambos.");
+        }
+        if (dto.getSubRecetaId() != null || (dto.getRecetaBaseId() != null && detalle.getSubReceta() != null)) {
+            recetaDetalleRepository.bloquearEdicionSubRecetas();
+        }
+        Long recetaAnteriorId = detalle.getRecetaBase().getId();
+
         if (dto.getCantidadNecesaria() != null) detalle.setCantidadNecesaria(dto.getCantidadNecesaria());
         if (dto.getUnidadMedida() != null) detalle.setUnidadMedida(dto.getUnidadMedida());
+        if (dto.getRecetaBaseId() != null) {
+            RecetaBase recetaBase = recetaBaseRepository.findById(dto.getRecetaBaseId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Receta base no encontrada con ID: " + dto.getRecetaBaseId()));
+            detalle.setRecetaBase(recetaBase);
+        }
         if (dto.getProductoId() != null) {
             Producto producto = productoRepository.findById(dto.getProductoId())
                     .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + dto.getProductoId()));
             detalle.setProducto(producto);
+            detalle.setSubReceta(null);
         }
-        if (dto.getRecetaBaseId() != null) {
-            RecetaBase recetaBase = recetaBaseRepository.findById(dto.getRecetaBaseId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Receta base no encontrada con ID: " + dto.getRecetaBaseId()));
-            detalle.setRecetaBase(recetaBase);
+        if (dto.getSubRecetaId() != null) {
+            validarComponente(detalle.getRecetaBase().getId(), null, dto.getSubRecetaId(), Map.of());
+            RecetaBase subReceta = recetaBaseRepository.findById(dto.getSubRecetaId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Sub-receta no encontrada con ID: " + dto.getSubRecetaId()));
+            detalle.setSubReceta(subReceta);
+            detalle.setProducto(null);
+        } else if (dto.getRecetaBaseId() != null && detalle.getSubReceta() != null) {
+            validarComponente(detalle.getRecetaBase().getId(), null, detalle.getSubReceta().getId(), Map.of());
         }
+        resolverFactor(detalle);
 
         detalle = recetaDetalleRepository.save(detalle);
-        return modelMapper.map(detalle, RecetaDetalleRequestDTO.class);
+        if (detalle.getSubReceta() != null) {
+            verificarSinCiclos(Map.of(detalle.getRecetaBase().getId(), Set.of(detalle.getSubReceta().getId())));
+        }
+        eventPublisher.publishEvent(new RecetasModificadasEvent(new HashSet<>(List.of(recetaAnteriorId, detalle.getRecetaBase().getId()))));
+        return recetaDetalleMapper.aDTO(detalle);
+    }
+
+    /**
+     * Recalcula el factor de las líneas del producto cuando cambia su unidad de stock. Corre
+     * dentro de la transacción del cambio: si alguna línea queda sin conversión posible, no
+     * se guarda ninguno de los dos.
+     */
+    @EventListener
+    public void alModificarUnidadProducto(UnidadProductoModificadaEvent event) {
+        List<RecetaDetalle> detalles = recetaDetalleRepository.findByProducto_Id(event.getProductoId());
+        if (detalles.isEmpty()) {
+            return;
+        }
+        for (RecetaDetalle detalle : detalles) {
+            detalle.setFactorConversion(registroUnidades.factor(detalle.getUnidadMedida(), event.getUnidadMedida()));
+        }
+        recetaDetalleRepository.saveAll(detalles);
+        eventPublisher.publishEvent(new RecetasModificadasEvent(
+                detalles.stream().map(d -> d.getRecetaBase().getId()).collect(Collectors.toSet())));
+    }
+
+    /*
+     * El consumo solo multiplica: la conversión a la unidad de stock se resuelve aquí, una vez.
+     * En una línea de sub-receta la cantidad son porciones de la sub-receta (factor 1).
+     */
+    private void resolverFactor(RecetaDetalle detalle) {
+        if (detalle.getProducto() == null && !registroUnidades.esPorcion(detalle.getUnidadMedida())) {
+            throw new BadRequestException("Una sub-receta se indica en porciones, no en '" + detalle.getUnidadMedida() + "'.");
+        }
+        detalle.setFactorConversion(detalle.getProducto() != null
+                ? registroUnidades.factor(detalle.getUnidadMedida(), detalle.getProducto().getUnidadMedida())
+                : 1.0);
+    }
+
+    /*
+     * Segunda verificación contra la base, con el lock de sub-recetas tomado y las líneas nuevas ya
+     * escritas: el índice en memoria puede no reflejar todavía una edición confirmada por otra
+     * transacción. Si se formó un ciclo la excepción deshace la transacción.
+     */
+    private void verificarSinCiclos(Map<Long, Set<Long>> componentesNuevos) {
+        if (componentesNuevos.isEmpty()) {
+            return;
+        }
+        recetaDetalleRepository.flush();
+        componentesNuevos.forEach((recetaId, subRecetas) -> subRecetas.forEach(subRecetaId -> {
+            if (recetaDetalleRepository.alcanzaReceta(subRecetaId, recetaId)) {
+                throw new BadRequestException("La receta " + subRecetaId + " no puede ser componente de la receta "
+                        + recetaId + ": se formaría un ciclo.");
+            }
+        }));
+    }
+
+    /* Un ingrediente es un producto o una sub-receta, y la sub-receta no puede contener a la receta. */
+    private void validarComponente(Long recetaBaseId, Long productoId, Long subRecetaId,
+                                   Map<Long, Set<Long>> componentesNuevos) {
+        if ((productoId == null) == (subRecetaId == null)) {
+            throw new BadRequestException("Cada ingrediente debe indicar un producto o una sub-receta, pero no ambos.");
+        }
+        if (subRecetaId != null && explosionRecetas.formariaCiclo(recetaBaseId, subRecetaId, componentesNuevos)) {
+            throw new BadRequestException("La receta " + subRecetaId + " no puede ser componente de la receta "
+                    + recetaBaseId + ": se formaría un ciclo.");
+        }
     }
 
     public List<RecetaDetalleRequestDTO> findByRecetaBaseId(Long recetaBaseId) {
         return recetaDetalleRepository.findByRecetaBase_Id(recetaBaseId)
                 .stream()
-                .map(d -> modelMapper.map(d, RecetaDetalleRequestDTO.class))
+                .map(recetaDetalleMapper::aDTO)
                 .collect(Collectors.toList());
     }
 }
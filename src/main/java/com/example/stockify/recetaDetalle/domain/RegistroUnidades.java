@@ -0,0 +1,91 @@
+package com.example.stockify.recetaDetalle.domain;
+
+import com.example.stockify.excepciones.BadRequestException;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Unidades de medida conocidas con su factor respecto a la unidad base de su magnitud
+ * (gramo, mililitro o unidad). La tabla de alias se arma una sola vez; el factor entre
+ * dos unidades se resuelve al guardar la receta y se guarda en cada línea.
+ */
+@Component
+public class RegistroUnidades {
+    private final Map<String, Unidad> unidades = new HashMap<>();
+
+    public RegistroUnidades() {
+        registrar(Magnitud.MASA, 0.001, "mg", "miligramo", "miligramos");
+        registrar(Magnitud.MASA, 1.0, "g", "gr", "grs", "gramo", "gramos");
+        registrar(Magnitud.MASA, 1000.0, "kg", "kgs", "kilo", "kilos", "kilogramo", "kilogramos");
+        registrar(Magnitud.MASA, 453.59237, "lb", "lbs", "libra", "libras");
+        registrar(Magnitud.MASA, 28.349523125, "oz", "onza", "onzas");
+
+        registrar(Magnitud.VOLUMEN, 1.0, "ml", "cc", "mililitro", "mililitros");
+        registrar(Magnitud.VOLUMEN, 10.0, "cl", "centilitro", "centilitros");
+        registrar(Magnitud.VOLUMEN, 100.0, "dl", "decilitro", "decilitros");
+        registrar(Magnitud.VOLUMEN, 1000.0, "l", "lt", "lts", "litro", "litros");
+        registrar(Magnitud.VOLUMEN, 5.0, "cdta", "cucharadita", "cucharaditas");
+        registrar(Magnitud.VOLUMEN, 15.0, "cda", "cucharada", "cucharadas");
+        registrar(Magnitud.VOLUMEN, 240.0, "taza", "tazas");
+
+        registrar(Magnitud.CONTEO, 1.0, "u", "un", "und", "unid", "unidad", "unidades", "pza", "pieza", "piezas");
+        registrar(Magnitud.CONTEO, 12.0, "docena", "docenas");
+    }
+
+    /**
+     * Factor por el que se multiplica una cantidad en {@code unidadOrigen} para expresarla
+     * en {@code unidadDestino}. Dos unidades desconocidas pero escritas igual valen 1.
+     */
+    public double factor(String unidadOrigen, String unidadDestino) {
+        String origen = normalizar(unidadOrigen);
+        String destino = normalizar(unidadDestino);
+        if (origen.equals(destino)) {
+            return 1.0;
+        }
+
+        Unidad desde = unidades.get(origen);
+        Unidad hacia = unidades.get(destino);
+        if (desde == null || hacia == null) {
+            throw new BadRequestException("No se conoce la conversión de '" + unidadOrigen + "' a '" + unidadDestino + "'.");
+        }
+        if (desde.magnitud() != hacia.magnitud()) {
+            throw new BadRequestException("No se puede convertir '" + unidadOrigen + "' (" + desde.magnitud()
+                    + ") a '" + unidadDestino + "' (" + hacia.magnitud() + ").");
+        }
+        return desde.factorBase() / hacia.factorBase();
+    }
+
+    /** Las líneas de sub-receta se cuentan en porciones de la sub-receta, no en una unidad física. */
+    public boolean esPorcion(String unidad) {
+        return switch (normalizar(unidad)) {
+            case "porcion", "porciones", "racion", "raciones" -> true;
+            default -> false;
+        };
+    }
+
+    private void registrar(Magnitud magnitud, double factorBase, String... alias) {
+        for (String nombre : alias) {
+            unidades.put(nombre, new Unidad(magnitud, factorBase));
+        }
+    }
+
+    private static String normalizar(String unidad) {
+        if (unidad == null) {
+            return "";
+        }
+        String sinTildes = Normalizer.normalize(unidad.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return sinTildes.endsWith(".") ? sinTildes.substring(0, sinTildes.length() - 1) : sinTildes;
+    }
+
+    private enum Magnitud {
+        MASA, VOLUMEN, CONTEO
+    }
+
+    private record Unidad(Magnitud magnitud, double factorBase) {
+    }
+}
@@ -16,9 +16,11 @@ public class RecetaDetalleNewDTO {
     @NotNull(message = "El ID de la receta base es obligatorio")
     private Long recetaBaseId;
 
-    @NotNull(message = "El ID del producto es obligatorio")
+    // Se indica el producto o la sub-receta usada como componente, no ambos
     private Long productoId;
 
+    private Long subRecetaId;
+
     @NotNull(message = "La cantidad necesaria es obligatoria")
     @Positive(message = "La cantidad necesaria debe ser positiva")
     private Double cantidadNecesaria;
@@ -21,5 +21,6 @@ public class RecetaDetalleRequestDTO {
     private String unidadMedida;
 
     private Long productoId;
+    private Long subRecetaId;
     private Long recetaBaseId;
 }
@@ -2,9 +2,30 @@ package com.example.stockify.recetaDetalle.infrastructure;
 
 import com.example.stockify.recetaDetalle.domain.RecetaDetalle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
 
 public interface RecetaDetalleRepository extends JpaRepository<RecetaDetalle, Long> {
     List<RecetaDetalle> findByRecetaBase_Id(Long recetaBaseId);
 
+    List<RecetaDetalle> findByProducto_Id(Long productoId);
+
+    /**
+     * Serializa las ediciones de sub-recetas con un advisory lock de PostgreSQL que se libera
+     * al terminar la transacción. Dos aristas nuevas pueden cerrar un ciclo sin compartir
+     * ninguna receta, por eso el bloqueo es uno solo y no por fila.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(7301)", nativeQuery = true)
+    Integer bloquearEdicionSubRecetas();
+
+    /** Indica si desde la receta {@code desde} se llega a {@code hasta} siguiendo sus sub-recetas. */
+    @Query(value = "WITH RECURSIVE alcanzables(id) AS ( " +
+                   "    SELECT CAST(:desde AS BIGINT) " +
+                   "    UNION " +
+                   "    SELECT d.sub_receta_id FROM receta_detalles d JOIN alcanzables a ON d.receta_base_id = a.id " +
+                   "    WHERE d.sub_receta_id IS NOT NULL) " +
+                   "SELECT EXISTS (SELECT 1 FROM alcanzables WHERE id = :hasta)", nativeQuery = true)
+    boolean alcanzaReceta(@Param("desde") Long desde, @Param("hasta") Long hasta);
 }
@@ -0,0 +1,88 @@
+package com.example.stockify.stock.application;
+
+import com.example.stockify.movimiento.domain.ReintentoConcurrencia;
+import com.example.stockify.stock.domain.LibroStockService;
+import com.example.stockify.stock.domain.SaldoAlmacenService;
+import com.example.stockify.stock.dto.AuditoriaStockDTO;
+import com.example.stockify.stock.dto.CheckpointStockDTO;
+import com.example.stockify.stock.dto.InventarioAFechaDTO;
+import com.example.stockify.stock.dto.SaldoAlmacenDTO;
+import com.example.stockify.stock.dto.SaldoLibroDTO;
+import com.example.stockify.stock.dto.StockProductoDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stock")
+@CrossOrigin(origins = "*")
+public class StockController {
+
+    private final LibroStockService libroStockService;
+    private final SaldoAlmacenService saldoAlmacenService;
+    private final ReintentoConcurrencia reintentoConcurrencia;
+
+    public StockController(LibroStockService libroStockService, SaldoAlmacenService saldoAlmacenService,
+                           ReintentoConcurrencia reintentoConcurrencia) {
+        this.libroStockService = libroStockService;
+        this.saldoAlmacenService = saldoAlmacenService;
+        this.reintentoConcurrencia = reintentoConcurrencia;
+    }
+
+    @PreAuthorize("hasAnyRole('COCINERO', 'SUPERVISOR', 'ADMIN')")
+    @GetMapping("/productos")
+    public ResponseEntity<List<StockProductoDTO>> listarStockConsolidado() {
+        return ResponseEntity.ok(saldoAlmacenService.listarConsolidado());
+    }
+
+    @PreAuthorize("hasAnyRole('COCINERO', 'SUPERVISOR', 'ADMIN')")
+    @GetMapping("/productos/{productoId}")
+    public ResponseEntity<StockProductoDTO> obtenerStockProducto(@PathVariable Long productoId) {
+        return ResponseEntity.ok(saldoAlmacenService.obtenerPorProducto(productoId));
+    }
+
+    @PreAuthorize("hasAnyRole('COCINERO', 'SUPERVISOR', 'ADMIN')")
+    @GetMapping("/almacenes/{almacenId}")
+    public ResponseEntity<List<SaldoAlmacenDTO>> listarStockAlmacen(@PathVariable Long almacenId) {
+        return ResponseEntity.ok(saldoAlmacenService.listarPorAlmacen(almacenId));
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/libro/productos/{productoId}")
+    public ResponseEntity<SaldoLibroDTO> obtenerSaldoLibro(@PathVariable Long productoId) {
+        return ResponseEntity.ok(libroStockService.calcularSaldo(productoId));
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/a-fecha")
+    public ResponseEntity<InventarioAFechaDTO> obtenerInventarioAFecha(@RequestParam String fecha) {
+        return ResponseEntity.ok(libroStockService.calcularInventarioAFecha(fecha));
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/auditoria/productos/{productoId}")
+    public ResponseEntity<AuditoriaStockDTO> auditarProducto(@PathVariable Long productoId) {
+        return ResponseEntity.ok(libroStockService.auditar(productoId));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/reconstruccion/productos/{productoId}")
+    public ResponseEntity<AuditoriaStockDTO> reconstruirProducto(@PathVariable Long productoId) {
+        return ResponseEntity.ok(reintentoConcurrencia.ejecutar(productoId,
+                () -> libroStockService.reconstruir(productoId)));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/checkpoints")
+    public ResponseEntity<CheckpointStockDTO> crearCheckpoint() {
+        return ResponseEntity.ok(libroStockService.crearCheckpoint());
+    }
+
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/checkpoints/ultimo")
+    public ResponseEntity<CheckpointStockDTO> obtenerUltimoCheckpoint() {
+        return ResponseEntity.ok(libroStockService.obtenerUltimoCheckpoint());
+    }
+}
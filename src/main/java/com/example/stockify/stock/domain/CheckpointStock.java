@@ -0,0 +1,42 @@
+package com.example.stockify.stock.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Punto de control del libro de movimientos: sus saldos resumen todos los movimientos
+ * con fecha menor o igual al corte.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "checkpoints_stock", indexes = {
+        @Index(name = "idx_checkpoints_stock_corte", columnList = "corte")
+})
+public class CheckpointStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime corte;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    /** Movimientos incorporados desde el checkpoint anterior. */
+    @Column(name = "eventos_aplicados", nullable = false)
+    private Long eventosAplicados;
+
+    /** Generado por el proceso nocturno; se conserva como base de las consultas a una fecha. */
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean diario = false;
+}
@@ -0,0 +1,38 @@
+package com.example.stockify.stock.domain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Genera periódicamente checkpoints del libro de stock para acotar lo que se reproduce
+ * en cada consulta, auditoría o reconstrucción. El de cada noche se conserva como base
+ * de las consultas del inventario a una fecha.
+ */
+@Component
+@Slf4j
+public class CheckpointStockProgramado {
+    private final LibroStockService libroStockService;
+
+    public CheckpointStockProgramado(LibroStockService libroStockService) {
+        this.libroStockService = libroStockService;
+    }
+
+    @Scheduled(cron = "${stockify.stock.checkpoint.cron:0 0 * * * *}")
+    public void generar() {
+        try {
+            libroStockService.crearCheckpoint();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo generar el checkpoint de stock: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${stockify.stock.checkpoint.diario.cron:0 30 0 * * *}")
+    public void generarDiario() {
+        try {
+            libroStockService.crearCheckpointDiario();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo generar el checkpoint diario de stock: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.stockify.stock.domain;
+
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.excepciones.ConflictException;
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.StockModificadoEvent;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.stock.dto.AuditoriaStockDTO;
+import com.example.stockify.stock.dto.CheckpointStockDTO;
+import com.example.stockify.stock.dto.DiferenciaLoteDTO;
+import com.example.stockify.stock.dto.InventarioAFechaDTO;
+import com.example.stockify.stock.dto.SaldoAFechaDTO;
+import com.example.stockify.stock.dto.SaldoLibroDTO;
+import com.example.stockify.stock.infrastructure.CheckpointStockRepository;
+import com.example.stockify.stock.infrastructure.SaldoCheckpointRepository;
+import com.example.stockify.stock.infrastructure.SaldoCheckpointRepository.SaldoAFecha;
+import com.example.stockify.stock.infrastructure.SaldoCheckpointRepository.SaldoLibro;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * El libro de movimientos es la fuente de verdad del stock; Producto.stockActual y
+ * Lote.cantidadDisponible son proyecciones. Los saldos del libro se obtienen del último
+ * checkpoint más los movimientos posteriores a su corte, sin reproducir todo el historial.
+ */
+@Service
+@Slf4j
+public class LibroStockService {
+    static final LocalDateTime ORIGEN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final double TOLERANCIA = 1e-6;
+
+    private final CheckpointStockRepository checkpointStockRepository;
+    private final SaldoCheckpointRepository saldoCheckpointRepository;
+    private final ProductoRepository productoRepository;
+    private final LoteRepository loteRepository;
+    private final SaldoAlmacenService saldoAlmacenService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration margen;
+    private final Duration retencionHorarios;
+
+    public LibroStockService(CheckpointStockRepository checkpointStockRepository,
+                             SaldoCheckpointRepository saldoCheckpointRepository,
+                             ProductoRepository productoRepository,
+                             LoteRepository loteRepository,
+                             SaldoAlmacenService saldoAlmacenService,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${stockify.stock.checkpoint.margen-minutos:10}") long margenMinutos,
+                             @Value("${stockify.stock.checkpoint.retencion-horas:48}") long retencionHoras) {
+        this.checkpointStockRepository = checkpointStockRepository;
+        this.saldoCheckpointRepository = saldoCheckpointRepository;
+        this.productoRepository = productoRepository;
+        this.loteRepository = loteRepository;
+        this.saldoAlmacenService = saldoAlmacenService;
+        this.eventPublisher = eventPublisher;
+        this.margen = Duration.ofMinutes(margenMinutos);
+        this.retencionHorarios = Duration.ofHours(retencionHoras);
+    }
+
+    /**
+     * Genera un checkpoint con corte en ahora - margen. El margen debe superar la duración
+     * máxima de una transacción para que ningún movimiento sin confirmar quede antes del corte.
+     */
+    @Transactional
+    public CheckpointStockDTO crearCheckpoint() {
+        return aDTO(generarCheckpoint());
+    }
+
+    /**
+     * Checkpoint del proceso nocturno: se marca como diario y se purgan los horarios anteriores
+     * a la retención. Entre dos checkpoints conservados queda a lo sumo un día de movimientos.
+     */
+    @Transactional
+    public CheckpointStockDTO crearCheckpointDiario() {
+        CheckpointStock checkpoint = generarCheckpoint();
+        checkpoint.setDiario(true);
+        checkpointStockRepository.save(checkpoint);
+
+        LocalDateTime antesDe = checkpoint.getCorte().minus(retencionHorarios);
+        saldoCheckpointRepository.eliminarDeCheckpointsHorarios(antesDe);
+        int purgados = checkpointStockRepository.eliminarHorariosAnterioresA(antesDe);
+        log.info("Checkpoint diario de stock {} con corte {}: {} checkpoints horarios purgados",
+                checkpoint.getId(), checkpoint.getCorte(), purgados);
+        return aDTO(checkpoint);
+    }
+
+    private CheckpointStock generarCheckpoint() {
+        if (!checkpointStockRepository.intentarBloquearGeneracion()) {
+            throw new ConflictException("Ya se está generando un checkpoint de stock.");
+        }
+        Optional<CheckpointStock> anterior = checkpointStockRepository.findTopByOrderByCorteDesc();
+        LocalDateTime corte = LocalDateTime.now().minus(margen);
+        if (anterior.isPresent() && !anterior.get().getCorte().isBefore(corte)) {
+            return anterior.get();
+        }
+
+        LocalDateTime desde = anterior.map(CheckpointStock::getCorte).orElse(ORIGEN);
+        CheckpointStock nuevo = checkpointStockRepository.save(CheckpointStock.builder()
+                .corte(corte)
+                .fechaCreacion(LocalDateTime.now())
+                .eventosAplicados(saldoCheckpointRepository.contarEventos(desde, corte))
+                .build());
+        int filas = saldoCheckpointRepository.acumular(
+                nuevo.getId(), anterior.map(CheckpointStock::getId).orElse(-1L), desde, corte);
+
+        log.info("Checkpoint de stock {} con corte {}: {} movimientos aplicados, {} saldos",
+                nuevo.getId(), corte, nuevo.getEventosAplicados(), filas);
+        return nuevo;
+    }
+
+    public CheckpointStockDTO obtenerUltimoCheckpoint() {
+        return checkpointStockRepository.findTopByOrderByCorteDesc()
+                .map(this::aDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Aún no hay checkpoints de stock."));
+    }
+
+    public SaldoLibroDTO calcularSaldo(Long productoId) {
+        if (!productoRepository.existsById(productoId)) {
+            throw new ResourceNotFoundException("Producto no encontrado con ID: " + productoId);
+        }
+        return saldoDelLibro(productoId);
+    }
+
+    /**
+     * Cantidad y valor de cada (producto, almacén) a la fecha indicada, al costo de los movimientos
+     * (el de sus lotes). Parte del checkpoint más cercano anterior y reproduce solo lo posterior.
+     */
+    public InventarioAFechaDTO calcularInventarioAFecha(String fecha) {
+        LocalDateTime corteConsulta;
+        try {
+            corteConsulta = LocalDateTime.parse(fecha);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Fecha inválida: " + fecha + " (formato: yyyy-MM-ddTHH:mm:ss)");
+        }
+        Optional<CheckpointStock> checkpoint = checkpointStockRepository.findTopByCorteLessThanEqualOrderByCorteDesc(corteConsulta);
+        List<SaldoAFecha> filas = saldoCheckpointRepository.saldosAFecha(
+                checkpoint.map(CheckpointStock::getId).orElse(-1L),
+                checkpoint.map(CheckpointStock::getCorte).orElse(ORIGEN),
+                corteConsulta);
+
+        double valorTotal = 0.0;
+        long eventos = 0;
+        List<SaldoAFechaDTO> saldos = new ArrayList<>();
+        for (SaldoAFecha fila : filas) {
+            eventos += fila.getEventos();
+            if (Math.abs(fila.getCantidad()) <= TOLERANCIA && Math.abs(fila.getValor()) <= TOLERANCIA) {
+                continue;
+            }
+            valorTotal += fila.getValor();
+            saldos.add(new SaldoAFechaDTO(fila.getProductoId(), fila.getAlmacenId(), fila.getCantidad(), fila.getValor()));
+        }
+
+        return InventarioAFechaDTO.builder()
+                .fecha(corteConsulta)
+                .corteCheckpoint(checkpoint.map(CheckpointStock::getCorte).orElse(null))
+                .eventosReproducidos(eventos)
+                .valorTotal(valorTotal)
+                .saldos(saldos)
+                .build();
+    }
+
+    /** Compara las proyecciones del producto y sus lotes contra el libro. */
+    public AuditoriaStockDTO auditar(Long productoId) {
+        Producto producto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + productoId));
+        return comparar(producto, saldoDelLibro(productoId), loteRepository.findByProductoIdOrderByFechaCompraAsc(productoId));
+    }
+
+    /**
+     * Reescribe las proyecciones del producto, de todos sus lotes y de sus saldos por almacén
+     * con los saldos del libro.
+     * Devuelve la auditoría previa, es decir, las diferencias que se corrigieron.
+     */
+    @Transactional
+    public AuditoriaStockDTO reconstruir(Long productoId) {
+        Producto producto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + productoId));
+        SaldoLibroDTO saldo = saldoDelLibro(productoId);
+        List<Lote> lotes = loteRepository.findByProductoIdOrderByFechaCompraAsc(productoId);
+        AuditoriaStockDTO auditoria = comparar(producto, saldo, lotes);
+
+        producto.setStockActual(saldo.getCantidad());
+        for (Lote lote : lotes) {
+            lote.setCantidadDisponible(saldo.getPorLote().getOrDefault(lote.getId(), 0.0));
+        }
+        productoRepository.save(producto);
+        loteRepository.saveAll(lotes);
+        saldoAlmacenService.reemplazarProducto(productoId, saldo.getPorAlmacen());
+        eventPublisher.publishEvent(new StockModificadoEvent(Set.of(productoId)));
+
+        if (!auditoria.getConsistente()) {
+            log.warn("Stock del producto {} reconstruido desde el libro: diferencia {} y {} lotes corregidos",
+                    productoId, auditoria.getDiferencia(), auditoria.getLotesConDiferencia().size());
+        }
+        return auditoria;
+    }
+
+    private SaldoLibroDTO saldoDelLibro(Long productoId) {
+        Optional<CheckpointStock> checkpoint = checkpointStockRepository.findTopByOrderByCorteDesc();
+        List<SaldoLibro> filas = saldoCheckpointRepository.saldosDeProducto(productoId,
+                checkpoint.map(CheckpointStock::getId).orElse(-1L),
+                checkpoint.map(CheckpointStock::getCorte).orElse(ORIGEN));
+
+        double total = 0.0;
+        long eventos = 0;
+        Map<Long, Double> porAlmacen = new TreeMap<>();
+        Map<Long, Double> porLote = new TreeMap<>();
+        for (SaldoLibro fila : filas) {
+            total += fila.getCantidad();
+            eventos += fila.getEventos();
+            porAlmacen.merge(fila.getAlmacenId(), fila.getCantidad(), Double::sum);
+            if (fila.getLoteId() != null) {
+                porLote.merge(fila.getLoteId(), fila.getCantidad(), Double::sum);
+            }
+        }
+
+        return SaldoLibroDTO.builder()
+                .productoId(productoId)
+                .cantidad(total)
+                .corteCheckpoint(checkpoint.map(CheckpointStock::getCorte).orElse(null))
+                .eventosReproducidos(eventos)
+                .porAlmacen(porAlmacen)
+                .porLote(porLote)
+                .build();
+    }
+
+    private AuditoriaStockDTO comparar(Producto producto, SaldoLibroDTO saldo, List<Lote> lotes) {
+        List<DiferenciaLoteDTO> diferencias = new ArrayList<>();
+        for (Lote lote : lotes) {
+            double proyectado = lote.getCantidadDisponible() != null ? lote.getCantidadDisponible() : 0.0;
+            double libro = saldo.getPorLote().getOrDefault(lote.getId(), 0.0);
+            if (Math.abs(proyectado - libro) > TOLERANCIA) {
+                diferencias.add(new DiferenciaLoteDTO(lote.getId(), lote.getCodigoLote(), proyectado, libro));
+            }
+        }
+
+        double stockProyectado = producto.getStockActual() != null ? producto.getStockActual() : 0.0;
+        double diferencia = stockProyectado - saldo.getCantidad();
+        return AuditoriaStockDTO.builder()
+                .productoId(producto.getId())
+                .stockProyectado(stockProyectado)
+                .stockLibro(saldo.getCantidad())
+                .diferencia(diferencia)
+                .consistente(Math.abs(diferencia) <= TOLERANCIA && diferencias.isEmpty())
+                .lotesConDiferencia(diferencias)
+                .build();
+    }
+
+    private CheckpointStockDTO aDTO(CheckpointStock checkpoint) {
+        return new CheckpointStockDTO(checkpoint.getId(), checkpoint.getCorte(),
+                checkpoint.getFechaCreacion(), checkpoint.getEventosAplicados(), checkpoint.getDiario());
+    }
+}
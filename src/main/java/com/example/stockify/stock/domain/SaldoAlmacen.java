@@ -0,0 +1,40 @@
+package com.example.stockify.stock.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock vigente de un producto en un almacén. Se actualiza con un upsert en la misma
+ * transacción que cada entrada, salida y anulación.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "saldos_almacen",
+        uniqueConstraints = @UniqueConstraint(name = "uk_saldos_almacen_producto_almacen",
+                columnNames = {"producto_id", "almacen_id"}),
+        indexes = @Index(name = "idx_saldos_almacen_almacen", columnList = "almacen_id"))
+public class SaldoAlmacen {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "almacen_id", nullable = false)
+    private Long almacenId;
+
+    @Column(nullable = false)
+    private Double cantidad;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
@@ -0,0 +1,118 @@
+package com.example.stockify.stock.domain;
+
+import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.movimiento.domain.Movimiento;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.stock.dto.SaldoAlmacenDTO;
+import com.example.stockify.stock.dto.StockProductoDTO;
+import com.example.stockify.stock.infrastructure.SaldoAlmacenRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Saldos por (producto, almacén) mantenidos de forma incremental. Los métodos de escritura
+ * deben invocarse dentro de la transacción que registra los movimientos.
+ */
+@Service
+public class SaldoAlmacenService {
+    private static final Comparator<ClaveSaldo> ORDEN_CLAVES = Comparator
+            .comparing(ClaveSaldo::productoId)
+            .thenComparing(ClaveSaldo::almacenId);
+
+    private final SaldoAlmacenRepository saldoAlmacenRepository;
+    private final ProductoRepository productoRepository;
+    private final AlmacenRepository almacenRepository;
+
+    public SaldoAlmacenService(SaldoAlmacenRepository saldoAlmacenRepository,
+                               ProductoRepository productoRepository,
+                               AlmacenRepository almacenRepository) {
+        this.saldoAlmacenRepository = saldoAlmacenRepository;
+        this.productoRepository = productoRepository;
+        this.almacenRepository = almacenRepository;
+    }
+
+    /**
+     * Aplica la variación de los movimientos ya persistidos, con un upsert por par
+     * (producto, almacén). Los pares se actualizan siempre en el mismo orden para que dos
+     * transacciones concurrentes no se bloqueen mutuamente.
+     */
+    public void registrar(Collection<Movimiento> movimientos) {
+        Map<ClaveSaldo, Double> variaciones = new TreeMap<>(ORDEN_CLAVES);
+        for (Movimiento movimiento : movimientos) {
+            if (movimiento.getAlmacen() == null) {
+                continue;
+            }
+            variaciones.merge(new ClaveSaldo(movimiento.getProducto().getId(), movimiento.getAlmacen().getId()),
+                    movimiento.getVariacion(), Double::sum);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        variaciones.forEach((clave, variacion) -> {
+            if (variacion != 0.0) {
+                saldoAlmacenRepository.aplicarVariacion(clave.productoId(), clave.almacenId(), variacion, ahora);
+            }
+        });
+    }
+
+    /** Reemplaza todos los saldos del producto, por ejemplo tras reconstruirlo desde el libro. */
+    public void reemplazarProducto(Long productoId, Map<Long, Double> porAlmacen) {
+        saldoAlmacenRepository.eliminarDeProducto(productoId);
+        LocalDateTime ahora = LocalDateTime.now();
+        new TreeMap<>(porAlmacen).forEach((almacenId, cantidad) ->
+                saldoAlmacenRepository.aplicarVariacion(productoId, almacenId, cantidad, ahora));
+    }
+
+    public StockProductoDTO obtenerPorProducto(Long productoId) {
+        if (!productoRepository.existsById(productoId)) {
+            throw new ResourceNotFoundException("Producto no encontrado con ID: " + productoId);
+        }
+        return aStockProducto(productoId, saldoAlmacenRepository.findByProductoIdOrderByAlmacenIdAsc(productoId));
+    }
+
+    public List<SaldoAlmacenDTO> listarPorAlmacen(Long almacenId) {
+        if (!almacenRepository.existsById(almacenId)) {
+            throw new ResourceNotFoundException("Almacén no encontrado con ID: " + almacenId);
+        }
+        return saldoAlmacenRepository.findByAlmacenIdOrderByProductoIdAsc(almacenId).stream()
+                .map(this::aDTO)
+                .collect(Collectors.toList());
+    }
+
+    /** Stock total de cada producto sumando todos los almacenes, con su desglose. */
+    public List<StockProductoDTO> listarConsolidado() {
+        Map<Long, List<SaldoAlmacen>> porProducto = saldoAlmacenRepository.findAllByOrderByProductoIdAscAlmacenIdAsc()
+                .stream()
+                .collect(Collectors.groupingBy(SaldoAlmacen::getProductoId, LinkedHashMap::new, Collectors.toList()));
+        List<StockProductoDTO> resultado = new ArrayList<>(porProducto.size());
+        porProducto.forEach((productoId, saldos) -> resultado.add(aStockProducto(productoId, saldos)));
+        return resultado;
+    }
+
+    private StockProductoDTO aStockProducto(Long productoId, List<SaldoAlmacen> saldos) {
+        double total = 0.0;
+        List<SaldoAlmacenDTO> porAlmacen = new ArrayList<>(saldos.size());
+        for (SaldoAlmacen saldo : saldos) {
+            total += saldo.getCantidad();
+            porAlmacen.add(aDTO(saldo));
+        }
+        return new StockProductoDTO(productoId, total, porAlmacen);
+    }
+
+    private SaldoAlmacenDTO aDTO(SaldoAlmacen saldo) {
+        return new SaldoAlmacenDTO(saldo.getProductoId(), saldo.getAlmacenId(),
+                saldo.getCantidad(), saldo.getFechaActualizacion());
+    }
+
+    private record ClaveSaldo(Long productoId, Long almacenId) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.stockify.stock.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saldo por (producto, almacén, lote) en un checkpoint. Las filas se generan por SQL
+ * a partir del checkpoint anterior más los movimientos posteriores.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "saldos_checkpoint", indexes = {
+        @Index(name = "idx_saldos_checkpoint_producto", columnList = "checkpoint_id, producto_id")
+})
+public class SaldoCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "checkpoint_id", nullable = false)
+    private Long checkpointId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "almacen_id", nullable = false)
+    private Long almacenId;
+
+    @Column(name = "lote_id")
+    private Long loteId;
+
+    @Column(nullable = false)
+    private Double cantidad;
+
+    /** Suma de variación × costo unitario de los movimientos que componen el saldo. */
+    @Column(nullable = false)
+    private Double valor;
+}
@@ -0,0 +1,19 @@
+package com.example.stockify.stock.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditoriaStockDTO {
+    private Long productoId;
+    private Double stockProyectado;
+    private Double stockLibro;
+    private Double diferencia;
+    private Boolean consistente;
+    private List<DiferenciaLoteDTO> lotesConDiferencia;
+}
@@ -0,0 +1,15 @@
+package com.example.stockify.stock.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DiferenciaLoteDTO {
+    private Long loteId;
+    private String codigoLote;
+    private Double proyectado;
+    private Double libro;
+}
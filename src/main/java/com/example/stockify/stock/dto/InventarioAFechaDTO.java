@@ -0,0 +1,27 @@
+package com.example.stockify.stock.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventarioAFechaDTO {
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fecha;
+
+    /** Corte del checkpoint usado como base; null si se reprodujo todo el historial. */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime corteCheckpoint;
+
+    /** Movimientos entre el checkpoint y la fecha que hubo que reproducir. */
+    private Long eventosReproducidos;
+
+    private Double valorTotal;
+    private List<SaldoAFechaDTO> saldos;
+}
@@ -0,0 +1,15 @@
+package com.example.stockify.stock.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaldoAFechaDTO {
+    private Long productoId;
+    private Long almacenId;
+    private Double cantidad;
+    private Double valor;
+}
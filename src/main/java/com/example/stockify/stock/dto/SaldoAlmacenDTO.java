@@ -0,0 +1,17 @@
+package com.example.stockify.stock.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaldoAlmacenDTO {
+    private Long productoId;
+    private Long almacenId;
+    private Double cantidad;
+    private LocalDateTime fechaActualizacion;
+}
@@ -0,0 +1,27 @@
+package com.example.stockify.stock.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SaldoLibroDTO {
+    private Long productoId;
+    private Double cantidad;
+
+    /** Corte del checkpoint usado como base; null si se reprodujo todo el historial. */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime corteCheckpoint;
+
+    /** Movimientos posteriores al checkpoint que hubo que reproducir. */
+    private Long eventosReproducidos;
+
+    private Map<Long, Double> porAlmacen;
+    private Map<Long, Double> porLote;
+}
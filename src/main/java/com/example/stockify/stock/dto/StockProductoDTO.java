@@ -0,0 +1,16 @@
+package com.example.stockify.stock.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockProductoDTO {
+    private Long productoId;
+    private Double total;
+    private List<SaldoAlmacenDTO> porAlmacen;
+}
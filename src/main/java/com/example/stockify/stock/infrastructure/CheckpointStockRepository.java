@@ -0,0 +1,26 @@
+package com.example.stockify.stock.infrastructure;
+
+import com.example.stockify.stock.domain.CheckpointStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CheckpointStockRepository extends JpaRepository<CheckpointStock, Long> {
+    Optional<CheckpointStock> findTopByOrderByCorteDesc();
+
+    Optional<CheckpointStock> findTopByCorteLessThanEqualOrderByCorteDesc(LocalDateTime fecha);
+
+    @Modifying
+    @Query("DELETE FROM CheckpointStock c WHERE c.diario = false AND c.corte < :antesDe")
+    int eliminarHorariosAnterioresA(@Param("antesDe") LocalDateTime antesDe);
+
+    /** Evita que dos instancias generen el mismo checkpoint a la vez; se libera al terminar la transacción. */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(8008)", nativeQuery = true)
+    boolean intentarBloquearGeneracion();
+}
@@ -0,0 +1,37 @@
+package com.example.stockify.stock.infrastructure;
+
+import com.example.stockify.stock.domain.SaldoAlmacen;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SaldoAlmacenRepository extends JpaRepository<SaldoAlmacen, Long> {
+
+    List<SaldoAlmacen> findByProductoIdOrderByAlmacenIdAsc(Long productoId);
+
+    List<SaldoAlmacen> findByAlmacenIdOrderByProductoIdAsc(Long almacenId);
+
+    List<SaldoAlmacen> findAllByOrderByProductoIdAscAlmacenIdAsc();
+
+    /** Suma la variación al saldo del par (producto, almacén), creándolo si no existe. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO saldos_almacen (producto_id, almacen_id, cantidad, fecha_actualizacion)
+            VALUES (:productoId, :almacenId, :variacion, :fecha)
+            ON CONFLICT (producto_id, almacen_id) DO UPDATE
+            SET cantidad = saldos_almacen.cantidad + EXCLUDED.cantidad,
+                fecha_actualizacion = EXCLUDED.fecha_actualizacion
+            """, nativeQuery = true)
+    int aplicarVariacion(@Param("productoId") Long productoId, @Param("almacenId") Long almacenId,
+                         @Param("variacion") Double variacion, @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query(value = "DELETE FROM saldos_almacen WHERE producto_id = :productoId", nativeQuery = true)
+    int eliminarDeProducto(@Param("productoId") Long productoId);
+}
@@ -0,0 +1,103 @@
+package com.example.stockify.stock.infrastructure;
+
+import com.example.stockify.stock.domain.SaldoCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SaldoCheckpointRepository extends JpaRepository<SaldoCheckpoint, Long> {
+
+    interface SaldoLibro {
+        Long getAlmacenId();
+        Long getLoteId();
+        Double getCantidad();
+        Long getEventos();
+    }
+
+    interface SaldoAFecha {
+        Long getProductoId();
+        Long getAlmacenId();
+        Double getCantidad();
+        Double getValor();
+        Long getEventos();
+    }
+
+    /** Nuevo checkpoint = saldos del anterior + movimientos en (desde, corte]. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO saldos_checkpoint (checkpoint_id, producto_id, almacen_id, lote_id, cantidad, valor)
+            SELECT :nuevoId, t.producto_id, t.almacen_id, t.lote_id, SUM(t.cantidad), SUM(t.valor)
+            FROM (
+                SELECT s.producto_id, s.almacen_id, s.lote_id, s.cantidad, s.valor
+                FROM saldos_checkpoint s
+                WHERE s.checkpoint_id = :anteriorId
+                UNION ALL
+                SELECT m.producto_id, m.almacen_id, m.lote_id, m.variacion, m.variacion * m.costo_unitario
+                FROM movimientos m
+                WHERE m.fecha_movimiento > :desde AND m.fecha_movimiento <= :corte
+            ) t
+            GROUP BY t.producto_id, t.almacen_id, t.lote_id
+            HAVING SUM(t.cantidad) <> 0
+            """, nativeQuery = true)
+    int acumular(@Param("nuevoId") Long nuevoId, @Param("anteriorId") Long anteriorId,
+                 @Param("desde") LocalDateTime desde, @Param("corte") LocalDateTime corte);
+
+    @Query(value = """
+            SELECT COUNT(*) FROM movimientos m
+            WHERE m.fecha_movimiento > :desde AND m.fecha_movimiento <= :corte
+            """, nativeQuery = true)
+    long contarEventos(@Param("desde") LocalDateTime desde, @Param("corte") LocalDateTime corte);
+
+    /** Saldos de un producto por almacén y lote: checkpoint + movimientos posteriores al corte. */
+    @Query(value = """
+            SELECT t.almacen_id AS "almacenId", t.lote_id AS "loteId",
+                   SUM(t.cantidad) AS "cantidad", SUM(t.evento) AS "eventos"
+            FROM (
+                SELECT s.almacen_id, s.lote_id, s.cantidad, 0 AS evento
+                FROM saldos_checkpoint s
+                WHERE s.checkpoint_id = :checkpointId AND s.producto_id = :productoId
+                UNION ALL
+                SELECT m.almacen_id, m.lote_id, m.variacion, 1
+                FROM movimientos m
+                WHERE m.producto_id = :productoId AND m.fecha_movimiento > :corte
+            ) t
+            GROUP BY t.almacen_id, t.lote_id
+            """, nativeQuery = true)
+    List<SaldoLibro> saldosDeProducto(@Param("productoId") Long productoId,
+                                      @Param("checkpointId") Long checkpointId,
+                                      @Param("corte") LocalDateTime corte);
+
+    /** Cantidad y valor por producto y almacén a la fecha: checkpoint + movimientos en (corte, fecha]. */
+    @Query(value = """
+            SELECT t.producto_id AS "productoId", t.almacen_id AS "almacenId",
+                   SUM(t.cantidad) AS "cantidad", SUM(t.valor) AS "valor", SUM(t.evento) AS "eventos"
+            FROM (
+                SELECT s.producto_id, s.almacen_id, s.cantidad, s.valor, 0 AS evento
+                FROM saldos_checkpoint s
+                WHERE s.checkpoint_id = :checkpointId
+                UNION ALL
+                SELECT m.producto_id, m.almacen_id, m.variacion, m.variacion * m.costo_unitario, 1
+                FROM movimientos m
+                WHERE m.fecha_movimiento > :corte AND m.fecha_movimiento <= :fecha
+            ) t
+            GROUP BY t.producto_id, t.almacen_id
+            ORDER BY t.producto_id, t.almacen_id
+            """, nativeQuery = true)
+    List<SaldoAFecha> saldosAFecha(@Param("checkpointId") Long checkpointId,
+                                   @Param("corte") LocalDateTime corte,
+                                   @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM saldos_checkpoint s
+            USING checkpoints_stock c
+            WHERE s.checkpoint_id = c.id AND c.diario = false AND c.corte < :antesDe
+            """, nativeQuery = true)
+    int eliminarDeCheckpointsHorarios(@Param("antesDe") LocalDateTime antesDe);
+}
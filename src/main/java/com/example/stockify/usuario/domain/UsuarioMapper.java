@@ -0,0 +1,36 @@
+package com.example.stockify.usuario.domain;
+
+import com.example.stockify.usuario.dto.UsuarioNewDTO;
+import com.example.stockify.usuario.dto.UsuarioRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito de usuarios. La contraseña nunca se copia desde el DTO:
+ * el servicio la codifica antes de asignarla.
+ */
+@Component
+public class UsuarioMapper {
+
+    public UsuarioRequestDTO aDTO(Usuario usuario) {
+        UsuarioRequestDTO dto = new UsuarioRequestDTO();
+        dto.setNombre(usuario.getNombre());
+        dto.setApellido(usuario.getApellido());
+        dto.setEmail(usuario.getEmail());
+        dto.setTelefono(usuario.getTelefono());
+        dto.setRol(usuario.getRol());
+        dto.setSede(usuario.getSede());
+        dto.setFechaRegistro(usuario.getFechaRegistro() != null ? usuario.getFechaRegistro().toLocalDateTime() : null);
+        dto.setActivo(usuario.getActivo());
+        return dto;
+    }
+
+    public void copiar(UsuarioNewDTO dto, Usuario usuario) {
+        usuario.setNombre(dto.getNombre());
+        usuario.setApellido(dto.getApellido());
+        usuario.setEmail(dto.getEmail());
+        usuario.setRol(dto.getRol());
+        usuario.setTelefono(dto.getTelefono());
+        usuario.setSede(dto.getSede());
+        usuario.setActivo(dto.getActivo());
+    }
+}
@@ -6,7 +6,6 @@ import com.example.stockify.usuario.dto.UsuarioNewDTO;
 import com.example.stockify.usuario.dto.UsuarioRequestDTO;
 import com.example.stockify.usuario.infrastructure.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -22,30 +21,30 @@ import java.util.stream.Collectors;
 public class UsuarioService implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
-    private final ModelMapper modelMapper;
+    private final UsuarioMapper usuarioMapper;
     private final PasswordEncoder passwordEncoder;
 
 
     public UsuarioService(
             UsuarioRepository usuarioRepository,
-            ModelMapper modelMapper,
+            UsuarioMapper usuarioMapper,
             @Lazy PasswordEncoder passwordEncoder
     ) {
         this.usuarioRepository = usuarioRepository;
-        this.modelMapper = modelMapper;
+        this.usuarioMapper = usuarioMapper;
         this.passwordEncoder = passwordEncoder;
     }
 
     public List<UsuarioRequestDTO> findAll() {
         return usuarioRepository.findAll()
                 .stream()
-                .map(e -> modelMapper.map(e, UsuarioRequestDTO.class))
+                .map(usuarioMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public UsuarioRequestDTO findById(Long id) {
         Usuario e = usuarioRepository.findById(id).orElseThrow();
-        return modelMapper.map(e, UsuarioRequestDTO.class);
+        return usuarioMapper.aDTO(e);
     }
 
 //    public UsuarioResponseDTO create(UsuarioNewDTO dto) {
@@ -59,9 +58,12 @@ public class UsuarioService implements UserDetailsService {
         Usuario existing = usuarioRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        modelMapper.map(dto, existing);
+        usuarioMapper.copiar(dto, existing);
+        if (dto.getPassword() != null) {
+            existing.setPassword(passwordEncoder.encode(dto.getPassword()));
+        }
         existing = usuarioRepository.save(existing);
-        return modelMapper.map(existing, UsuarioRequestDTO.class);
+        return usuarioMapper.aDTO(existing);
     }
 
     public UsuarioRequestDTO updateFull(Long id, UsuarioNewDTO dto) {
@@ -74,14 +76,14 @@ public class UsuarioService implements UserDetailsService {
             throw new BadRequestException("Todos los campos son obligatorios para una actualización completa (PUT)");
         }
 
-        modelMapper.map(dto, existing);
+        usuarioMapper.copiar(dto, existing);
 
         if (dto.getPassword() != null) {
             existing.setPassword(passwordEncoder.encode(dto.getPassword()));
         }
 
         existing = usuarioRepository.save(existing);
-        return modelMapper.map(existing, UsuarioRequestDTO.class);
+        return usuarioMapper.aDTO(existing);
     }
 
 
@@ -99,7 +101,7 @@ public class UsuarioService implements UserDetailsService {
         if (dto.getActivo() != null) existing.setActivo(dto.getActivo());
 
         existing = usuarioRepository.save(existing);
-        return modelMapper.map(existing, UsuarioRequestDTO.class);
+        return usuarioMapper.aDTO(existing);
     }
     public void deleteById(Long id) {
         usuarioRepository.deleteById(id);
@@ -1,6 +1,8 @@
 package com.example.stockify.valorizacionPeriodo.application;
 
+import com.example.stockify.valorizacionPeriodo.domain.ContadoresValorizacionService;
 import com.example.stockify.valorizacionPeriodo.domain.ValorizacionPeriodoService;
+import com.example.stockify.valorizacionPeriodo.dto.ValorizacionEnCursoDTO;
 import com.example.stockify.valorizacionPeriodo.dto.ValorizacionPeriodoNewDTO;
 import com.example.stockify.valorizacionPeriodo.dto.ValorizacionPeriodoRequestDTO;
 import jakarta.validation.Valid;
@@ -16,9 +18,12 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class ValorizacionPeriodoController {
     private final ValorizacionPeriodoService valorizacionPeriodoService;
+    private final ContadoresValorizacionService contadoresValorizacionService;
 
-    public ValorizacionPeriodoController(ValorizacionPeriodoService valorizacionPeriodoService) {
+    public ValorizacionPeriodoController(ValorizacionPeriodoService valorizacionPeriodoService,
+                                         ContadoresValorizacionService contadoresValorizacionService) {
         this.valorizacionPeriodoService = valorizacionPeriodoService;
+        this.contadoresValorizacionService = contadoresValorizacionService;
     }
 
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
@@ -47,6 +52,12 @@ public class ValorizacionPeriodoController {
         return ResponseEntity.ok(valorizacionPeriodoService.findActual());
     }
 
+    @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
+    @GetMapping("/en-curso")
+    public ResponseEntity<ValorizacionEnCursoDTO> obtenerEnCurso(@RequestParam(required = false) String periodo) {
+        return ResponseEntity.ok(contadoresValorizacionService.obtener(periodo));
+    }
+
     @PreAuthorize("hasAnyRole('SUPERVISOR', 'ADMIN')")
     @GetMapping("/metodos")
     public ResponseEntity<List<String>> listarMetodos() {
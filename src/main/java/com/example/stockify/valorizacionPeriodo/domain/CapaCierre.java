@@ -0,0 +1,23 @@
+package com.example.stockify.valorizacionPeriodo.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CapaCierre {
+    @Column(nullable = false)
+    private Double cantidad;
+
+    @Column(name = "costo_unitario", nullable = false)
+    private Double costoUnitario;
+
+    // Entrada que abrió la capa, para retirarla si se anula; nula en promedios y cierres antiguos
+    @Column(name = "movimiento_id")
+    private Long movimientoId;
+}
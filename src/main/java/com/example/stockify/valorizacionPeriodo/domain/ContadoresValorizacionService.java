@@ -0,0 +1,134 @@
+package com.example.stockify.valorizacionPeriodo.domain;
+
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.movimiento.domain.Movimiento;
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import com.example.stockify.valorizacionPeriodo.dto.CostoVentasDTO;
+import com.example.stockify.valorizacionPeriodo.dto.ValorizacionEnCursoDTO;
+import com.example.stockify.valorizacionPeriodo.infrastructure.CostoVentasPeriodoRepository;
+import com.example.stockify.valorizacionPeriodo.infrastructure.ValorInventarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Valor vigente del inventario y costo de ventas por periodo, producto y almacén, mantenidos
+ * de forma incremental al costo de los lotes. Los métodos de escritura deben invocarse dentro
+ * de la transacción que registra los movimientos; la lectura no agrega movimientos.
+ */
+@Service
+public class ContadoresValorizacionService {
+    private static final Comparator<ClaveCosto> ORDEN_CLAVES = Comparator
+            .comparing(ClaveCosto::periodo)
+            .thenComparing(ClaveCosto::productoId)
+            .thenComparing(ClaveCosto::almacenId);
+
+    private final ValorInventarioRepository valorInventarioRepository;
+    private final CostoVentasPeriodoRepository costoVentasPeriodoRepository;
+    private final int ranuras;
+
+    public ContadoresValorizacionService(ValorInventarioRepository valorInventarioRepository,
+                                         CostoVentasPeriodoRepository costoVentasPeriodoRepository,
+                                         @Value("${stockify.valorizacion.contadores.ranuras:16}") int ranuras) {
+        this.valorInventarioRepository = valorInventarioRepository;
+        this.costoVentasPeriodoRepository = costoVentasPeriodoRepository;
+        this.ranuras = ranuras;
+    }
+
+    /**
+     * Aplica los movimientos ya persistidos. Las filas se actualizan siempre en el mismo orden
+     * para que dos transacciones concurrentes no se bloqueen mutuamente. Anular una salida
+     * descuenta su costo del periodo de la anulación, no del de la salida, que puede estar cerrado;
+     * MotorValorizacion aplica la misma regla.
+     */
+    public void registrar(Collection<Movimiento> movimientos) {
+        Map<Integer, Double> valorPorRanura = new TreeMap<>();
+        Map<ClaveCosto, Double> costos = new TreeMap<>(ORDEN_CLAVES);
+        for (Movimiento movimiento : movimientos) {
+            Long productoId = movimiento.getProducto().getId();
+            valorPorRanura.merge(ranura(productoId), movimiento.getVariacion() * movimiento.getCostoUnitario(), Double::sum);
+
+            if (movimiento.getAlmacen() == null) {
+                continue;
+            }
+            if (movimiento.getTipoMovimiento() == TipoMovimiento.SALIDA) {
+                costos.merge(new ClaveCosto(periodo(movimiento.getFechaMovimiento()), productoId,
+                        movimiento.getAlmacen().getId()), movimiento.getCostoTotal(), Double::sum);
+            } else if (movimiento.getTipoMovimiento() == TipoMovimiento.ANULACION && movimiento.getVariacion() > 0) {
+                costos.merge(new ClaveCosto(periodo(movimiento.getFechaMovimiento()), productoId,
+                        movimiento.getAlmacen().getId()), -movimiento.getCostoTotal(), Double::sum);
+            }
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        valorPorRanura.forEach((ranura, variacion) -> {
+            if (variacion != 0.0) {
+                valorInventarioRepository.aplicarVariacion(ranura, variacion, ahora);
+            }
+        });
+        costos.forEach((clave, costo) -> {
+            if (costo != 0.0) {
+                costoVentasPeriodoRepository.aplicarCosto(clave.periodo(), clave.productoId(), clave.almacenId(), costo, ahora);
+            }
+        });
+    }
+
+    /** Lee los contadores tal como están; sin periodo, el mes en curso. */
+    public ValorizacionEnCursoDTO obtener(String periodo) {
+        String periodoConsultado;
+        try {
+            periodoConsultado = periodo != null && !periodo.isBlank()
+                    ? YearMonth.parse(periodo).toString()
+                    : YearMonth.now().toString();
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Periodo inválido: " + periodo + " (formato: YYYY-MM)");
+        }
+
+        double valorInventario = 0.0;
+        LocalDateTime fechaActualizacion = null;
+        for (ValorInventario ranura : valorInventarioRepository.findAll()) {
+            valorInventario += ranura.getValor();
+            fechaActualizacion = masReciente(fechaActualizacion, ranura.getFechaActualizacion());
+        }
+
+        double costoVentas = 0.0;
+        List<CostoVentasDTO> detalle = new ArrayList<>();
+        for (CostoVentasPeriodo fila : costoVentasPeriodoRepository.findByPeriodoOrderByProductoIdAscAlmacenIdAsc(periodoConsultado)) {
+            costoVentas += fila.getCostoVentas();
+            detalle.add(new CostoVentasDTO(fila.getProductoId(), fila.getAlmacenId(), fila.getCostoVentas()));
+            fechaActualizacion = masReciente(fechaActualizacion, fila.getFechaActualizacion());
+        }
+
+        return ValorizacionEnCursoDTO.builder()
+                .valorInventario(valorInventario)
+                .periodo(periodoConsultado)
+                .costoVentas(costoVentas)
+                .costoVentasPorProducto(detalle)
+                .fechaActualizacion(fechaActualizacion)
+                .build();
+    }
+
+    private int ranura(Long productoId) {
+        return (int) Math.floorMod(productoId, (long) ranuras);
+    }
+
+    private static String periodo(LocalDateTime fecha) {
+        return YearMonth.from(fecha).toString();
+    }
+
+    private static LocalDateTime masReciente(LocalDateTime actual, LocalDateTime otra) {
+        return actual == null || otra.isAfter(actual) ? otra : actual;
+    }
+
+    private record ClaveCosto(String periodo, Long productoId, Long almacenId) {
+    }
+}
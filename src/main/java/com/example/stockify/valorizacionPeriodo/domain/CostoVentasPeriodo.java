@@ -0,0 +1,42 @@
+package com.example.stockify.valorizacionPeriodo.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Costo de ventas acumulado de un producto en un almacén durante un periodo (YYYY-MM).
+ * Se actualiza con un upsert en la misma transacción que cada salida y anulación.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "costo_ventas_periodo",
+        uniqueConstraints = @UniqueConstraint(name = "uk_costo_ventas_periodo",
+                columnNames = {"periodo", "producto_id", "almacen_id"}))
+public class CostoVentasPeriodo {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 7)
+    private String periodo;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "almacen_id", nullable = false)
+    private Long almacenId;
+
+    @Column(name = "costo_ventas", nullable = false)
+    private Double costoVentas;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
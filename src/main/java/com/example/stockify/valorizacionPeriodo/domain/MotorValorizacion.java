@@ -0,0 +1,327 @@
+package com.example.stockify.valorizacionPeriodo.domain;
+
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import com.example.stockify.movimiento.dto.MovimientoCostoDTO;
+import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Motor de valorización: recorre una sola vez, en orden cronológico y sin cargarlos en memoria,
+ * los movimientos de cada producto y mantiene por almacén su costo según el método elegido
+ * (cola de capas FIFO o promedio ponderado móvil). El estado de un producto ocupa lo que sus
+ * capas abiertas; los productos se valorizan en paralelo en un ForkJoinPool propio, cada uno
+ * en su propia transacción de solo lectura. El costo de una valorización es proporcional a
+ * los movimientos recorridos: solo es constante si se parte de un cierre (ver
+ * ValorizacionPeriodoService); sin cierres se recorre todo el historial desde ORIGEN.
+ */
+@Component
+public class MotorValorizacion {
+    static final LocalDateTime ORIGEN = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final double TOLERANCIA = 1e-9;
+
+    private final MovimientoRepository movimientoRepository;
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate lectura;
+    private final ForkJoinPool pool;
+
+    public MotorValorizacion(MovimientoRepository movimientoRepository, ProductoRepository productoRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${stockify.valorizacion.paralelismo:4}") int paralelismo) {
+        this.movimientoRepository = movimientoRepository;
+        this.productoRepository = productoRepository;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.pool = new ForkJoinPool(paralelismo);
+    }
+
+    /**
+     * Saldo valorizado al corte fin de cada (producto, almacén) con movimientos, y el costo
+     * de las salidas registradas en [inicio, fin). Recorre el historial completo desde ORIGEN,
+     * así que su tiempo crece con la cantidad de movimientos.
+     */
+    public List<SaldoValorizado> valorizar(MetodoValorizacion metodo, LocalDateTime inicio, LocalDateTime fin) {
+        return valorizar(metodo, ORIGEN, productoId -> List.of(), inicio, fin);
+    }
+
+    /**
+     * Igual que la anterior, pero parte de los saldos de cada producto al corte desde (p. ej. el
+     * cierre del periodo anterior) y solo recorre los movimientos de [desde, fin). saldosIniciales
+     * se invoca una vez por producto, dentro de su transacción.
+     */
+    public List<SaldoValorizado> valorizar(MetodoValorizacion metodo, LocalDateTime desde,
+                                           Function<Long, List<SaldoValorizado>> saldosIniciales,
+                                           LocalDateTime inicio, LocalDateTime fin) {
+        List<Long> productoIds = productoRepository.listarIds();
+        return pool.submit(() -> productoIds.parallelStream()
+                        .flatMap(productoId -> valorizarProducto(productoId, metodo, desde, saldosIniciales,
+                                inicio, fin).stream())
+                        .toList())
+                .join();
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdown();
+    }
+
+    private List<SaldoValorizado> valorizarProducto(Long productoId, MetodoValorizacion metodo, LocalDateTime desde,
+                                                    Function<Long, List<SaldoValorizado>> saldosIniciales,
+                                                    LocalDateTime inicio, LocalDateTime fin) {
+        Map<Long, Costeo> porAlmacen = new TreeMap<>();
+        lectura.executeWithoutResult(estado -> {
+            for (SaldoValorizado saldo : saldosIniciales.apply(productoId)) {
+                porAlmacen.put(saldo.almacenId(), Costeo.desde(metodo, saldo));
+            }
+            try (Stream<MovimientoCostoDTO> movimientos = movimientoRepository.recorrerCostos(productoId, desde, inicio, fin)) {
+                movimientos.forEach(m -> porAlmacen
+                        .computeIfAbsent(m.getAlmacenId(), id -> Costeo.nuevo(metodo))
+                        .aplicar(m, !m.getFechaMovimiento().isBefore(inicio)));
+            }
+        });
+
+        List<SaldoValorizado> saldos = new ArrayList<>(porAlmacen.size());
+        porAlmacen.forEach((almacenId, costeo) -> saldos.add(new SaldoValorizado(productoId, almacenId,
+                costeo.cantidad(), costeo.valor(), costeo.costoVentas, costeo.ultimoCosto, costeo.capas())));
+        return saldos;
+    }
+
+    public record SaldoValorizado(Long productoId, Long almacenId, double cantidad, double valor,
+                                  double costoVentas, double ultimoCosto, List<CapaCosto> capas) {
+    }
+
+    /* movimientoId es la entrada que abrió la capa; nulo en devoluciones, promedios y cierres antiguos. */
+    public record CapaCosto(double cantidad, double costoUnitario, Long movimientoId) {
+    }
+
+    /*
+     * Costo de un producto en un almacén. La anulación de una entrada retira la capa de esa entrada;
+     * la de una salida devuelve la mercadería al frente y descuenta el costo de ventas del periodo de
+     * la anulación, la misma regla que ContadoresValorizacionService: un periodo cerrado no cambia.
+     */
+    private abstract static class Costeo {
+        double costoVentas;
+        double ultimoCosto;
+
+        static Costeo nuevo(MetodoValorizacion metodo) {
+            return metodo == MetodoValorizacion.FIFO ? new CapasFifo() : new PromedioPonderado();
+        }
+
+        /* Reconstruye el costeo a partir de sus capas abiertas; el costo de ventas empieza en cero. */
+        static Costeo desde(MetodoValorizacion metodo, SaldoValorizado saldo) {
+            Costeo costeo = nuevo(metodo);
+            for (CapaCosto capa : saldo.capas()) {
+                costeo.entrada(capa.cantidad(), capa.costoUnitario(), capa.movimientoId());
+            }
+            costeo.ultimoCosto = saldo.ultimoCosto();
+            return costeo;
+        }
+
+        void aplicar(MovimientoCostoDTO m, boolean enPeriodo) {
+            double cantidad = m.getCantidad();
+            if (m.getTipoMovimiento() == TipoMovimiento.ENTRADA) {
+                ultimoCosto = m.getCostoUnitario();
+                entrada(cantidad, m.getCostoUnitario(), m.getMovimientoOrigenId());
+            } else if (m.getTipoMovimiento() == TipoMovimiento.SALIDA) {
+                double costo = salida(cantidad);
+                if (enPeriodo) {
+                    costoVentas += costo;
+                }
+            } else if (m.getVariacion() > 0) {
+                // Anulación de una salida: la mercadería vuelve con el costo con que salió
+                devolucion(cantidad, m.getCostoUnitario());
+                if (enPeriodo) {
+                    costoVentas -= cantidad * m.getCostoUnitario();
+                }
+            } else {
+                retiro(cantidad, m.getCostoUnitario(), m.getMovimientoOrigenId());
+            }
+        }
+
+        abstract void entrada(double cantidad, double costoUnitario, Long movimientoId);
+
+        /* Devuelve el costo de lo que sale. */
+        abstract double salida(double cantidad);
+
+        abstract void devolucion(double cantidad, double costoUnitario);
+
+        /* Anulación de la entrada movimientoId. */
+        abstract void retiro(double cantidad, double costoUnitario, Long movimientoId);
+
+        abstract double cantidad();
+
+        abstract double valor();
+
+        abstract List<CapaCosto> capas();
+    }
+
+    private static final class CapasFifo extends Costeo {
+        private final Deque<Capa> capas = new ArrayDeque<>();
+
+        @Override
+        void entrada(double cantidad, double costoUnitario, Long movimientoId) {
+            capas.addLast(new Capa(cantidad, costoUnitario, movimientoId));
+        }
+
+        @Override
+        double salida(double cantidad) {
+            double restante = cantidad;
+            double costo = 0.0;
+            while (restante > TOLERANCIA && !capas.isEmpty()) {
+                Capa capa = capas.peekFirst();
+                double usada = Math.min(restante, capa.cantidad);
+                costo += usada * capa.costoUnitario;
+                capa.cantidad -= usada;
+                restante -= usada;
+                if (capa.cantidad <= TOLERANCIA) {
+                    capas.pollFirst();
+                }
+            }
+            // Sin capas que cubran la salida (historial incompleto): se costea al último costo conocido
+            return costo + Math.max(restante, 0.0) * ultimoCosto;
+        }
+
+        @Override
+        void devolucion(double cantidad, double costoUnitario) {
+            capas.addFirst(new Capa(cantidad, costoUnitario, null));
+        }
+
+        /*
+         * Retira primero de la capa que abrió la entrada anulada. Lo que de ella ya salió, o todo si
+         * la capa no se identifica (cierres anteriores a guardar su entrada), sale de las más nuevas.
+         */
+        @Override
+        void retiro(double cantidad, double costoUnitario, Long movimientoId) {
+            double restante = cantidad;
+            Iterator<Capa> iterador = capas.iterator();
+            while (movimientoId != null && iterador.hasNext()) {
+                Capa capa = iterador.next();
+                if (movimientoId.equals(capa.movimientoId)) {
+                    double usada = Math.min(restante, capa.cantidad);
+                    capa.cantidad -= usada;
+                    restante -= usada;
+                    if (capa.cantidad <= TOLERANCIA) {
+                        iterador.remove();
+                    }
+                    break;
+                }
+            }
+            while (restante > TOLERANCIA && !capas.isEmpty()) {
+                Capa capa = capas.peekLast();
+                double usada = Math.min(restante, capa.cantidad);
+                capa.cantidad -= usada;
+                restante -= usada;
+                if (capa.cantidad <= TOLERANCIA) {
+                    capas.pollLast();
+                }
+            }
+        }
+
+        @Override
+        double cantidad() {
+            double total = 0.0;
+            for (Capa capa : capas) {
+                total += capa.cantidad;
+            }
+            return total;
+        }
+
+        @Override
+        double valor() {
+            double total = 0.0;
+            for (Capa capa : capas) {
+                total += capa.cantidad * capa.costoUnitario;
+            }
+            return total;
+        }
+
+        @Override
+        List<CapaCosto> capas() {
+            return capas.stream().map(c -> new CapaCosto(c.cantidad, c.costoUnitario, c.movimientoId)).toList();
+        }
+
+        private static final class Capa {
+            private double cantidad;
+            private final double costoUnitario;
+            private final Long movimientoId;
+
+            Capa(double cantidad, double costoUnitario, Long movimientoId) {
+                this.cantidad = cantidad;
+                this.costoUnitario = costoUnitario;
+                this.movimientoId = movimientoId;
+            }
+        }
+    }
+
+    private static final class PromedioPonderado extends Costeo {
+        private double cantidad;
+        private double valor;
+
+        @Override
+        void entrada(double cantidad, double costoUnitario, Long movimientoId) {
+            this.cantidad += cantidad;
+            this.valor += cantidad * costoUnitario;
+        }
+
+        @Override
+        double salida(double cantidad) {
+            double costo = cantidad * costoPromedio();
+            quitar(cantidad, costo);
+            return costo;
+        }
+
+        @Override
+        void devolucion(double cantidad, double costoUnitario) {
+            entrada(cantidad, costoUnitario, null);
+        }
+
+        @Override
+        void retiro(double cantidad, double costoUnitario, Long movimientoId) {
+            quitar(cantidad, cantidad * costoUnitario);
+        }
+
+        @Override
+        double cantidad() {
+            return cantidad;
+        }
+
+        @Override
+        double valor() {
+            return valor;
+        }
+
+        @Override
+        List<CapaCosto> capas() {
+            return cantidad > TOLERANCIA ? List.of(new CapaCosto(cantidad, costoPromedio(), null)) : List.of();
+        }
+
+        private double costoPromedio() {
+            return cantidad > TOLERANCIA ? valor / cantidad : ultimoCosto;
+        }
+
+        private void quitar(double cantidad, double costo) {
+            this.cantidad -= cantidad;
+            this.valor -= costo;
+            if (this.cantidad <= TOLERANCIA) {
+                this.cantidad = 0.0;
+                this.valor = 0.0;
+            }
+        }
+    }
+}
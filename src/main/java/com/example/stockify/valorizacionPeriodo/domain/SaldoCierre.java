@@ -0,0 +1,54 @@
+package com.example.stockify.valorizacionPeriodo.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saldo por (producto, almacén) guardado al cerrar una valorización, con sus capas de costo
+ * abiertas y el último costo de entrada (también con saldo cero). La valorización siguiente
+ * del mismo método parte de estos saldos y solo recorre los movimientos posteriores al corte.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "saldos_cierre", indexes = {
+        @Index(name = "idx_saldos_cierre_producto", columnList = "valorizacion_id, producto_id")
+})
+public class SaldoCierre {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "saldos_cierre_seq")
+    @SequenceGenerator(name = "saldos_cierre_seq", sequenceName = "saldos_cierre_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "valorizacion_id", nullable = false)
+    private Long valorizacionId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "almacen_id", nullable = false)
+    private Long almacenId;
+
+    @Column(nullable = false)
+    private Double cantidad;
+
+    @Column(nullable = false)
+    private Double valor;
+
+    @Column(name = "ultimo_costo", nullable = false)
+    private Double ultimoCosto;
+
+    @ElementCollection
+    @CollectionTable(name = "capas_cierre", joinColumns = @JoinColumn(name = "saldo_cierre_id"))
+    @OrderColumn(name = "orden")
+    @Builder.Default
+    private List<CapaCierre> capas = new ArrayList<>();
+}
@@ -0,0 +1,30 @@
+package com.example.stockify.valorizacionPeriodo.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parte del valor vigente del inventario. Cada producto suma siempre en la misma ranura;
+ * el valor total es la suma de todas.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "valor_inventario")
+public class ValorInventario {
+    @Id
+    private Integer ranura;
+
+    @Column(nullable = false)
+    private Double valor;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
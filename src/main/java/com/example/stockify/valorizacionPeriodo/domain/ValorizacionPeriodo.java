@@ -43,6 +43,10 @@ public class ValorizacionPeriodo {
     @Column(name = "cerrado")
     private Boolean cerrado = false;
 
+    /* Corte de los saldos guardados al cerrar; la valorización siguiente parte de ellos. */
+    @Column(name = "corte_cierre")
+    private LocalDateTime corteCierre;
+
 
     @PrePersist
     public void prePersist() {
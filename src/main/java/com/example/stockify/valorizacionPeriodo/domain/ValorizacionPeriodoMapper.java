@@ -0,0 +1,26 @@
+package com.example.stockify.valorizacionPeriodo.domain;
+
+import com.example.stockify.valorizacionPeriodo.dto.ValorizacionPeriodoRequestDTO;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mapeo explícito de valorizaciones; del usuario solo se toma el ID.
+ */
+@Component
+public class ValorizacionPeriodoMapper {
+
+    public ValorizacionPeriodoRequestDTO aDTO(ValorizacionPeriodo valorizacion) {
+        ValorizacionPeriodoRequestDTO dto = new ValorizacionPeriodoRequestDTO();
+        dto.setId(valorizacion.getId());
+        dto.setPeriodo(valorizacion.getPeriodo());
+        dto.setMetodoValorizacion(valorizacion.getMetodoValorizacion());
+        dto.setValorInventario(valorizacion.getValorInventario());
+        dto.setCostoVentas(valorizacion.getCostoVentas());
+        dto.setObservaciones(valorizacion.getObservaciones());
+        dto.setFechaValorizacion(valorizacion.getFechaValorizacion());
+        dto.setUsuarioId(valorizacion.getUsuario() != null ? valorizacion.getUsuario().getId() : null);
+        dto.setCerrado(valorizacion.getCerrado());
+        dto.setCorteCierre(valorizacion.getCorteCierre());
+        return dto;
+    }
+}
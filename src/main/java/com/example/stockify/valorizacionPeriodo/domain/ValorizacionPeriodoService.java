@@ -1,74 +1,73 @@
 package com.example.stockify.valorizacionPeriodo.domain;
 
+import com.example.stockify.excepciones.OperacionNoPermitidaException;
 import com.example.stockify.excepciones.ResourceNotFoundException;
-import com.example.stockify.lote.infrastructure.LoteRepository;
-import com.example.stockify.movimiento.domain.Movimiento;
-import com.example.stockify.movimiento.domain.TipoMovimiento;
-import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.usuario.domain.Usuario;
 import com.example.stockify.usuario.infrastructure.UsuarioRepository;
+import com.example.stockify.valorizacionPeriodo.infrastructure.SaldoCierreRepository;
 import com.example.stockify.valorizacionPeriodo.infrastructure.ValorizacionPeriodoRepository;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion.CapaCosto;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion.SaldoValorizado;
 import com.example.stockify.valorizacionPeriodo.dto.ValorizacionPeriodoRequestDTO;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class ValorizacionPeriodoService {
 
     private final ValorizacionPeriodoRepository valorizacionPeriodoRepository;
-    private final LoteRepository loteRepository;
-    private final MovimientoRepository movimientoRepository;
+    private final SaldoCierreRepository saldoCierreRepository;
+    private final MotorValorizacion motorValorizacion;
     private final UsuarioRepository usuarioRepository;
-    private final ModelMapper modelMapper;
+    private final ValorizacionPeriodoMapper valorizacionPeriodoMapper;
 
     public ValorizacionPeriodoService(ValorizacionPeriodoRepository valorizacionPeriodoRepository,
-                                      LoteRepository loteRepository,
-                                      MovimientoRepository movimientoRepository,
+                                      SaldoCierreRepository saldoCierreRepository,
+                                      MotorValorizacion motorValorizacion,
                                       UsuarioRepository usuarioRepository,
-                                      ModelMapper modelMapper) {
+                                      ValorizacionPeriodoMapper valorizacionPeriodoMapper) {
         this.valorizacionPeriodoRepository = valorizacionPeriodoRepository;
-        this.loteRepository = loteRepository;
-        this.movimientoRepository = movimientoRepository;
+        this.saldoCierreRepository = saldoCierreRepository;
+        this.motorValorizacion = motorValorizacion;
         this.usuarioRepository = usuarioRepository;
-        this.modelMapper = modelMapper;
+        this.valorizacionPeriodoMapper = valorizacionPeriodoMapper;
     }
 
     public List<ValorizacionPeriodoRequestDTO> findAll() {
         return valorizacionPeriodoRepository.findAll()
                 .stream()
-                .map(e -> modelMapper.map(e, ValorizacionPeriodoRequestDTO.class))
+                .map(valorizacionPeriodoMapper::aDTO)
                 .collect(Collectors.toList());
     }
 
     public ValorizacionPeriodoRequestDTO findById(Long id) {
         ValorizacionPeriodo e = valorizacionPeriodoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Valorización no encontrada con ID: " + id));
-        return modelMapper.map(e, ValorizacionPeriodoRequestDTO.class);
+        return valorizacionPeriodoMapper.aDTO(e);
     }
 
     @Transactional
     public ValorizacionPeriodoRequestDTO ejecutarValorizacion(String periodo, MetodoValorizacion metodo, Long usuarioId) {
         YearMonth ym = YearMonth.parse(periodo);
         LocalDateTime inicio = ym.atDay(1).atStartOfDay();
-        LocalDateTime fin = ym.atEndOfMonth().atTime(23, 59, 59);
-
-        double valorInventario = loteRepository.findAll().stream()
-                .mapToDouble(l -> l.getCantidadDisponible() * l.getCostoUnitario())
-                .sum();
-
-        double costoVentas = movimientoRepository.findAll().stream()
-                .filter(m -> m.getTipoMovimiento() == TipoMovimiento.SALIDA)
-                .filter(m -> m.getFechaMovimiento() != null &&
-                        m.getFechaMovimiento().isAfter(inicio) &&
-                        m.getFechaMovimiento().isBefore(fin))
-                .mapToDouble(Movimiento::getCostoTotal)
-                .sum();
+        LocalDateTime fin = finDePeriodo(periodo);
+        Usuario usuario = usuarioRepository.findById(usuarioId)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con ID: " + usuarioId));
+
+        double valorInventario = 0.0;
+        double costoVentas = 0.0;
+        for (SaldoValorizado saldo : valorizarDesdeUltimoCierre(metodo, inicio, fin)) {
+            valorInventario += saldo.valor();
+            costoVentas += saldo.costoVentas();
+        }
 
         valorInventario = valorInventario < 0 ? 0.0 : valorInventario;
         costoVentas = costoVentas < 0 ? 0.0 : costoVentas;
@@ -81,18 +80,17 @@ public class ValorizacionPeriodoService {
         valorizacion.setObservaciones("Valorización automática - Periodo: " + periodo +
                                       " | Inventario: $" + String.format("%.2f", valorInventario) +
                                       " | Ventas: $" + String.format("%.2f", costoVentas));
-        valorizacion.setUsuario(usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con ID: " + usuarioId)));
+        valorizacion.setUsuario(usuario);
         valorizacion.setFechaValorizacion(LocalDateTime.now());
         valorizacion.setCerrado(false);
 
         valorizacionPeriodoRepository.save(valorizacion);
-        return modelMapper.map(valorizacion, ValorizacionPeriodoRequestDTO.class);
+        return valorizacionPeriodoMapper.aDTO(valorizacion);
     }
 
     public ValorizacionPeriodoRequestDTO findActual() {
         return valorizacionPeriodoRepository.findTopByOrderByFechaValorizacionDesc()
-                .map(e -> modelMapper.map(e, ValorizacionPeriodoRequestDTO.class))
+                .map(valorizacionPeriodoMapper::aDTO)
                 .orElseThrow(() -> new ResourceNotFoundException("No hay valorizaciones registradas."));
     }
 
@@ -106,21 +104,53 @@ public class ValorizacionPeriodoService {
         ValorizacionPeriodo valorizacion = valorizacionPeriodoRepository
                 .findByProductoId(productoId)
                 .orElseThrow(() -> new ResourceNotFoundException("No se encontró valorización para el producto ID: " + productoId));
-        return modelMapper.map(valorizacion, ValorizacionPeriodoRequestDTO.class);
+        return valorizacionPeriodoMapper.aDTO(valorizacion);
     }
 
+    /**
+     * Cierra la valorización guardando el saldo valorizado de cada (producto, almacén) y sus
+     * capas abiertas al fin del periodo; las valorizaciones siguientes del mismo método parten
+     * de ese saldo. Los importes se recalculan con los movimientos vigentes al cerrar. No se puede
+     * volver a cerrar un periodo si ya hay un cierre posterior del mismo método: ese cierre
+     * partió de los saldos anteriores y quedaría desactualizado.
+     */
     @Transactional
     public ValorizacionPeriodoRequestDTO cerrarPeriodo(Long id, String observaciones) {
         ValorizacionPeriodo periodo = valorizacionPeriodoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Periodo no encontrado con ID: " + id));
+        LocalDateTime inicio = YearMonth.parse(periodo.getPeriodo()).atDay(1).atStartOfDay();
+        LocalDateTime fin = finDePeriodo(periodo.getPeriodo());
+        if (fin.isAfter(LocalDateTime.now())) {
+            throw new OperacionNoPermitidaException("El periodo " + periodo.getPeriodo() + " aún no termina; no se puede cerrar.");
+        }
+        if (valorizacionPeriodoRepository.existsByMetodoValorizacionAndCorteCierreGreaterThan(periodo.getMetodoValorizacion(), fin)) {
+            throw new OperacionNoPermitidaException("Ya existe un cierre " + periodo.getMetodoValorizacion()
+                    + " posterior a " + periodo.getPeriodo() + "; no se puede volver a cerrar este periodo.");
+        }
+
+        List<SaldoValorizado> saldos = valorizarDesdeUltimoCierre(periodo.getMetodoValorizacion(), inicio, fin);
+        double valorInventario = 0.0;
+        double costoVentas = 0.0;
+        List<SaldoCierre> saldosCierre = new ArrayList<>();
+        for (SaldoValorizado saldo : saldos) {
+            valorInventario += saldo.valor();
+            costoVentas += saldo.costoVentas();
+            // También los saldos en cero, para conservar su último costo
+            saldosCierre.add(aSaldoCierre(periodo.getId(), saldo));
+        }
+        saldoCierreRepository.eliminarDeValorizaciones(List.of(periodo.getId()));
+        saldoCierreRepository.saveAll(saldosCierre);
 
+        periodo.setValorInventario(Math.max(valorInventario, 0.0));
+        periodo.setCostoVentas(Math.max(costoVentas, 0.0));
+        periodo.setCorteCierre(fin);
         periodo.setCerrado(true);
         if (observaciones != null && !observaciones.isBlank()) {
             periodo.setObservaciones(observaciones);
         }
 
         valorizacionPeriodoRepository.save(periodo);
-        return modelMapper.map(periodo, ValorizacionPeriodoRequestDTO.class);
+        return valorizacionPeriodoMapper.aDTO(periodo);
     }
 
     @Transactional
@@ -135,6 +165,51 @@ public class ValorizacionPeriodoService {
 
     @Transactional
     public void limpiarAntiguas() {
+        saldoCierreRepository.eliminarDeValorizaciones(valorizacionPeriodoRepository.listarIdsCerradas());
         valorizacionPeriodoRepository.deleteAllByCerradoTrue();
     }
+
+    /*
+     * Parte del último cierre del mismo método anterior al periodo. Sin cierres recorre todo el
+     * historial, y la latencia crece con él hasta que se cierre el primer periodo.
+     */
+    private List<SaldoValorizado> valorizarDesdeUltimoCierre(MetodoValorizacion metodo, LocalDateTime inicio,
+                                                             LocalDateTime fin) {
+        Optional<ValorizacionPeriodo> cierre = valorizacionPeriodoRepository
+                .findTopByMetodoValorizacionAndCorteCierreLessThanEqualOrderByCorteCierreDescIdDesc(metodo, inicio);
+        if (cierre.isEmpty()) {
+            return motorValorizacion.valorizar(metodo, inicio, fin);
+        }
+        Long cierreId = cierre.get().getId();
+        return motorValorizacion.valorizar(metodo, cierre.get().getCorteCierre(),
+                productoId -> saldoCierreRepository.findByValorizacionIdAndProductoId(cierreId, productoId).stream()
+                        .map(this::aSaldoValorizado)
+                        .toList(),
+                inicio, fin);
+    }
+
+    private LocalDateTime finDePeriodo(String periodo) {
+        return YearMonth.parse(periodo).plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    private SaldoCierre aSaldoCierre(Long valorizacionId, SaldoValorizado saldo) {
+        return SaldoCierre.builder()
+                .valorizacionId(valorizacionId)
+                .productoId(saldo.productoId())
+                .almacenId(saldo.almacenId())
+                .cantidad(saldo.cantidad())
+                .valor(saldo.valor())
+                .ultimoCosto(saldo.ultimoCosto())
+                .capas(saldo.capas().stream()
+                        .map(c -> new CapaCierre(c.cantidad(), c.costoUnitario(), c.movimientoId()))
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .build();
+    }
+
+    private SaldoValorizado aSaldoValorizado(SaldoCierre saldo) {
+        return new SaldoValorizado(saldo.getProductoId(), saldo.getAlmacenId(), saldo.getCantidad(), saldo.getValor(),
+                0.0, saldo.getUltimoCosto(), saldo.getCapas().stream()
+                        .map(c -> new CapaCosto(c.getCantidad(), c.getCostoUnitario(), c.getMovimientoId()))
+                        .toList());
+    }
 }
@@ -0,0 +1,14 @@
+package com.example.stockify.valorizacionPeriodo.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CostoVentasDTO {
+    private Long productoId;
+    private Long almacenId;
+    private Double costoVentas;
+}
@@ -0,0 +1,24 @@
+package com.example.stockify.valorizacionPeriodo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ValorizacionEnCursoDTO {
+    /** Valor vigente del inventario al costo de sus lotes. */
+    private Double valorInventario;
+
+    private String periodo;
+    private Double costoVentas;
+    private List<CostoVentasDTO> costoVentasPorProducto;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime fechaActualizacion;
+}
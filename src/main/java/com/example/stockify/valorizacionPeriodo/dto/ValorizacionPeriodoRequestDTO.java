@@ -23,4 +23,9 @@ public class ValorizacionPeriodoRequestDTO {
     private LocalDateTime fechaValorizacion;
 
     private Long usuarioId;
+
+    private Boolean cerrado;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime corteCierre;
 }
@@ -0,0 +1,30 @@
+package com.example.stockify.valorizacionPeriodo.infrastructure;
+
+import com.example.stockify.valorizacionPeriodo.domain.CostoVentasPeriodo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CostoVentasPeriodoRepository extends JpaRepository<CostoVentasPeriodo, Long> {
+
+    List<CostoVentasPeriodo> findByPeriodoOrderByProductoIdAscAlmacenIdAsc(String periodo);
+
+    /** Suma el costo al acumulado del periodo para el par (producto, almacén), creándolo si no existe. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO costo_ventas_periodo (periodo, producto_id, almacen_id, costo_ventas, fecha_actualizacion)
+            VALUES (:periodo, :productoId, :almacenId, :costo, :fecha)
+            ON CONFLICT (periodo, producto_id, almacen_id) DO UPDATE
+            SET costo_ventas = costo_ventas_periodo.costo_ventas + EXCLUDED.costo_ventas,
+                fecha_actualizacion = EXCLUDED.fecha_actualizacion
+            """, nativeQuery = true)
+    int aplicarCosto(@Param("periodo") String periodo, @Param("productoId") Long productoId,
+                     @Param("almacenId") Long almacenId, @Param("costo") Double costo,
+                     @Param("fecha") LocalDateTime fecha);
+}
@@ -0,0 +1,39 @@
+package com.example.stockify.valorizacionPeriodo.infrastructure;
+
+import com.example.stockify.valorizacionPeriodo.domain.SaldoCierre;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SaldoCierreRepository extends JpaRepository<SaldoCierre, Long> {
+
+    @EntityGraph(attributePaths = "capas")
+    List<SaldoCierre> findByValorizacionIdAndProductoId(Long valorizacionId, Long productoId);
+
+    /** Borra por SQL los saldos y capas de las valorizaciones indicadas, sin cargarlos. */
+    default void eliminarDeValorizaciones(Collection<Long> valorizacionIds) {
+        if (!valorizacionIds.isEmpty()) {
+            eliminarCapas(valorizacionIds);
+            eliminarSaldos(valorizacionIds);
+        }
+    }
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM capas_cierre c
+            USING saldos_cierre s
+            WHERE c.saldo_cierre_id = s.id AND s.valorizacion_id IN (:valorizacionIds)
+            """, nativeQuery = true)
+    int eliminarCapas(@Param("valorizacionIds") Collection<Long> valorizacionIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM saldos_cierre WHERE valorizacion_id IN (:valorizacionIds)", nativeQuery = true)
+    int eliminarSaldos(@Param("valorizacionIds") Collection<Long> valorizacionIds);
+}
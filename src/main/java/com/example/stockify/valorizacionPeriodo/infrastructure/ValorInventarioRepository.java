@@ -0,0 +1,26 @@
+package com.example.stockify.valorizacionPeriodo.infrastructure;
+
+import com.example.stockify.valorizacionPeriodo.domain.ValorInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ValorInventarioRepository extends JpaRepository<ValorInventario, Integer> {
+
+    /** Suma la variación de valor a la ranura, creándola si no existe. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO valor_inventario (ranura, valor, fecha_actualizacion)
+            VALUES (:ranura, :variacion, :fecha)
+            ON CONFLICT (ranura) DO UPDATE
+            SET valor = valor_inventario.valor + EXCLUDED.valor,
+                fecha_actualizacion = EXCLUDED.fecha_actualizacion
+            """, nativeQuery = true)
+    int aplicarVariacion(@Param("ranura") Integer ranura, @Param("variacion") Double variacion,
+                         @Param("fecha") LocalDateTime fecha);
+}
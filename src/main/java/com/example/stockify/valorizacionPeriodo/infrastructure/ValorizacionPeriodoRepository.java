@@ -1,9 +1,12 @@
 package com.example.stockify.valorizacionPeriodo.infrastructure;
 
+import com.example.stockify.valorizacionPeriodo.domain.MetodoValorizacion;
 import com.example.stockify.valorizacionPeriodo.domain.ValorizacionPeriodo;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface ValorizacionPeriodoRepository extends JpaRepository<ValorizacionPeriodo, Long> {
@@ -12,4 +15,13 @@ public interface ValorizacionPeriodoRepository extends JpaRepository<Valorizacio
     @Query("SELECT v FROM ValorizacionPeriodo v JOIN v.usuario u JOIN Lote l ON l.producto.id = :productoId WHERE v.id IS NOT NULL")
     Optional<ValorizacionPeriodo> findByProductoId(Long productoId);
     void deleteAllByCerradoTrue();
+
+    @Query("SELECT v.id FROM ValorizacionPeriodo v WHERE v.cerrado = true")
+    List<Long> listarIdsCerradas();
+
+    /** Último cierre del método con saldos guardados hasta el corte indicado. */
+    Optional<ValorizacionPeriodo> findTopByMetodoValorizacionAndCorteCierreLessThanEqualOrderByCorteCierreDescIdDesc(
+            MetodoValorizacion metodoValorizacion, LocalDateTime corte);
+
+    boolean existsByMetodoValorizacionAndCorteCierreGreaterThan(MetodoValorizacion metodoValorizacion, LocalDateTime corte);
 }
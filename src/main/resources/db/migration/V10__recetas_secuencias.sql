@@ -0,0 +1,6 @@
+-- Secuencias con optimizador pooled para insertar recetas y sus detalles en lote (JDBC batch)
+CREATE SEQUENCE IF NOT EXISTS recetas_base_seq INCREMENT BY 50;
+SELECT setval('recetas_base_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM recetas_base), false);
+
+CREATE SEQUENCE IF NOT EXISTS receta_detalles_seq INCREMENT BY 50;
+SELECT setval('receta_detalles_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM receta_detalles), false);
@@ -0,0 +1,7 @@
+-- Una línea de receta puede usar otra receta como componente en lugar de un producto
+ALTER TABLE receta_detalles ADD COLUMN IF NOT EXISTS sub_receta_id BIGINT REFERENCES recetas_base (id);
+ALTER TABLE receta_detalles ALTER COLUMN producto_id DROP NOT NULL;
+ALTER TABLE receta_detalles ADD CONSTRAINT ck_receta_detalles_producto_o_sub_receta
+    CHECK ((producto_id IS NULL) <> (sub_receta_id IS NULL));
+
+CREATE INDEX IF NOT EXISTS idx_receta_detalles_sub_receta ON receta_detalles (sub_receta_id);
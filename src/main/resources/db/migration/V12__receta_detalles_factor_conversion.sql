@@ -0,0 +1,18 @@
+-- Factor para expresar la cantidad de cada línea en la unidad de stock del producto
+ALTER TABLE receta_detalles ADD COLUMN IF NOT EXISTS factor_conversion DOUBLE PRECISION NOT NULL DEFAULT 1;
+
+-- Pares más frecuentes en recetas existentes; el resto se recalcula al volver a guardar la línea
+UPDATE receta_detalles d
+SET factor_conversion = CASE
+        WHEN lower(trim(d.unidad_medida)) IN ('g', 'gr', 'gramo', 'gramos')
+             AND lower(trim(p.unidad_medida)) IN ('kg', 'kilo', 'kilos', 'kilogramo', 'kilogramos') THEN 0.001
+        WHEN lower(trim(d.unidad_medida)) IN ('kg', 'kilo', 'kilos', 'kilogramo', 'kilogramos')
+             AND lower(trim(p.unidad_medida)) IN ('g', 'gr', 'gramo', 'gramos') THEN 1000
+        WHEN lower(trim(d.unidad_medida)) IN ('ml', 'mililitro', 'mililitros')
+             AND lower(trim(p.unidad_medida)) IN ('l', 'lt', 'litro', 'litros') THEN 0.001
+        WHEN lower(trim(d.unidad_medida)) IN ('l', 'lt', 'litro', 'litros')
+             AND lower(trim(p.unidad_medida)) IN ('ml', 'mililitro', 'mililitros') THEN 1000
+        ELSE 1
+    END
+FROM productos p
+WHERE p.id = d.producto_id;
@@ -0,0 +1,24 @@
+-- Corte del saldo guardado al cerrar el periodo; nulo en cierres anteriores a este cambio
+ALTER TABLE valorizacion_periodo ADD COLUMN IF NOT EXISTS corte_cierre TIMESTAMP;
+
+CREATE SEQUENCE IF NOT EXISTS saldos_cierre_seq INCREMENT BY 50;
+
+-- Saldo valorizado por (producto, almacén) al cierre de una valorización
+CREATE TABLE IF NOT EXISTS saldos_cierre (
+    id              BIGINT PRIMARY KEY,
+    valorizacion_id BIGINT           NOT NULL,
+    producto_id     BIGINT           NOT NULL,
+    almacen_id      BIGINT           NOT NULL,
+    cantidad        DOUBLE PRECISION NOT NULL,
+    valor           DOUBLE PRECISION NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_saldos_cierre_producto ON saldos_cierre (valorizacion_id, producto_id);
+
+-- Capas abiertas de cada saldo en orden de consumo (una sola al costo promedio en PROMEDIO_PONDERADO)
+CREATE TABLE IF NOT EXISTS capas_cierre (
+    saldo_cierre_id BIGINT           NOT NULL REFERENCES saldos_cierre (id),
+    orden           INTEGER          NOT NULL,
+    cantidad        DOUBLE PRECISION NOT NULL,
+    costo_unitario  DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (saldo_cierre_id, orden)
+);
@@ -0,0 +1,24 @@
+-- Valor de cada saldo del libro al costo de sus movimientos, para consultar el inventario a una fecha
+ALTER TABLE saldos_checkpoint ADD COLUMN IF NOT EXISTS valor DOUBLE PRECISION;
+
+-- Los movimientos de un lote llevan su costo unitario: basta el costo del lote
+UPDATE saldos_checkpoint s
+SET valor = s.cantidad * l.costo_unitario
+FROM lotes l
+WHERE l.id = s.lote_id AND s.valor IS NULL;
+
+UPDATE saldos_checkpoint s
+SET valor = (SELECT COALESCE(SUM(m.variacion * m.costo_unitario), 0)
+             FROM movimientos m, checkpoints_stock c
+             WHERE c.id = s.checkpoint_id
+               AND m.producto_id = s.producto_id
+               AND m.almacen_id = s.almacen_id
+               AND m.lote_id IS NOT DISTINCT FROM s.lote_id
+               AND m.fecha_movimiento <= c.corte)
+WHERE s.valor IS NULL;
+
+ALTER TABLE saldos_checkpoint ALTER COLUMN valor SET NOT NULL;
+
+-- Checkpoints diarios: se conservan; los horarios se purgan pasada la retención
+ALTER TABLE checkpoints_stock ADD COLUMN IF NOT EXISTS diario BOOLEAN NOT NULL DEFAULT false;
+CREATE INDEX IF NOT EXISTS idx_checkpoints_stock_corte ON checkpoints_stock (corte);
@@ -0,0 +1,34 @@
+-- Valor del inventario repartido en ranuras por producto, para no serializar todas las
+-- escrituras en una sola fila; el total es la suma de las ranuras
+CREATE TABLE IF NOT EXISTS valor_inventario (
+    ranura              INTEGER PRIMARY KEY,
+    valor               DOUBLE PRECISION NOT NULL,
+    fecha_actualizacion TIMESTAMP        NOT NULL
+);
+
+-- Costo de ventas acumulado por periodo (YYYY-MM), producto y almacén
+CREATE TABLE IF NOT EXISTS costo_ventas_periodo (
+    id                  BIGSERIAL PRIMARY KEY,
+    periodo             VARCHAR(7)       NOT NULL,
+    producto_id         BIGINT           NOT NULL,
+    almacen_id          BIGINT           NOT NULL,
+    costo_ventas        DOUBLE PRECISION NOT NULL,
+    fecha_actualizacion TIMESTAMP        NOT NULL,
+    CONSTRAINT uk_costo_ventas_periodo UNIQUE (periodo, producto_id, almacen_id)
+);
+
+-- Carga inicial desde el libro de movimientos
+INSERT INTO valor_inventario (ranura, valor, fecha_actualizacion)
+SELECT 0, COALESCE(SUM(m.variacion * m.costo_unitario), 0), now()
+FROM movimientos m
+ON CONFLICT (ranura) DO NOTHING;
+
+-- La anulación de una salida descuenta su costo en el periodo de la anulación
+INSERT INTO costo_ventas_periodo (periodo, producto_id, almacen_id, costo_ventas, fecha_actualizacion)
+SELECT to_char(m.fecha_movimiento, 'YYYY-MM'), m.producto_id, m.almacen_id,
+       SUM(CASE WHEN m.tipo_movimiento = 'SALIDA' THEN m.costo_total ELSE -m.costo_total END), now()
+FROM movimientos m
+WHERE (m.tipo_movimiento = 'SALIDA' OR (m.tipo_movimiento = 'ANULACION' AND m.variacion > 0))
+  AND m.almacen_id IS NOT NULL
+GROUP BY to_char(m.fecha_movimiento, 'YYYY-MM'), m.producto_id, m.almacen_id
+ON CONFLICT (periodo, producto_id, almacen_id) DO NOTHING;
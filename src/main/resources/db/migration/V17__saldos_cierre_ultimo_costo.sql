@@ -0,0 +1,10 @@
+-- Último costo de entrada por (producto, almacén) al cierre. Se guarda aunque el saldo sea cero:
+-- una salida sin capas que la cubran se costea a ese valor
+ALTER TABLE saldos_cierre ADD COLUMN IF NOT EXISTS ultimo_costo DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+-- Saldos anteriores a este cambio: la capa más nueva es la mejor aproximación disponible
+UPDATE saldos_cierre s
+SET ultimo_costo = c.costo_unitario
+FROM capas_cierre c
+WHERE c.saldo_cierre_id = s.id
+  AND c.orden = (SELECT MAX(c2.orden) FROM capas_cierre c2 WHERE c2.saldo_cierre_id = s.id);
@@ -0,0 +1,3 @@
+-- Entrada que abrió cada capa FIFO del cierre: anular esa entrada más tarde retira su propia capa.
+-- Nula en capas de promedio ponderado y en cierres anteriores a este cambio, que retiran de las más nuevas
+ALTER TABLE capas_cierre ADD COLUMN IF NOT EXISTS movimiento_id BIGINT;
@@ -0,0 +1,8 @@
+-- Secuencia con optimizador pooled para insertar movimientos en lote (JDBC batch)
+CREATE SEQUENCE IF NOT EXISTS movimientos_seq INCREMENT BY 50;
+SELECT setval('movimientos_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM movimientos), false);
+
+-- Índice parcial para recorrer en orden FIFO solo los lotes con saldo
+CREATE INDEX IF NOT EXISTS idx_lotes_fifo_disponibles
+    ON lotes (producto_id, fecha_compra, id)
+    WHERE cantidad_disponible > 0;
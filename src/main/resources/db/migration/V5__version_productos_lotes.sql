@@ -0,0 +1,3 @@
+-- Control de concurrencia optimista sobre stock de productos y lotes
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE lotes ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Secuencia con optimizador pooled para insertar lotes en lote (JDBC batch)
+CREATE SEQUENCE IF NOT EXISTS lotes_seq INCREMENT BY 50;
+SELECT setval('lotes_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM lotes), false);
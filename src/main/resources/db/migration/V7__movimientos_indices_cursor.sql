@@ -0,0 +1,5 @@
+-- Índices para la paginación por cursor (fecha_movimiento, id) y el filtro por producto
+CREATE INDEX IF NOT EXISTS idx_movimientos_fecha_id
+    ON movimientos (fecha_movimiento, id);
+CREATE INDEX IF NOT EXISTS idx_movimientos_producto_fecha_id
+    ON movimientos (producto_id, fecha_movimiento, id);
@@ -0,0 +1,44 @@
+-- Libro de movimientos de solo inserción: cada fila guarda su efecto con signo sobre el stock
+ALTER TABLE movimientos ADD COLUMN IF NOT EXISTS variacion DOUBLE PRECISION;
+ALTER TABLE movimientos ADD COLUMN IF NOT EXISTS movimiento_anulado_id BIGINT REFERENCES movimientos (id);
+
+UPDATE movimientos
+SET variacion = CASE WHEN tipo_movimiento = 'ENTRADA' THEN cantidad ELSE -cantidad END
+WHERE variacion IS NULL;
+
+ALTER TABLE movimientos DROP CONSTRAINT IF EXISTS movimientos_tipo_movimiento_check;
+ALTER TABLE movimientos ADD CONSTRAINT movimientos_tipo_movimiento_check
+    CHECK (tipo_movimiento IN ('ENTRADA', 'SALIDA', 'ANULACION'));
+
+-- Las anulaciones históricas solo marcaban el original: se agrega su movimiento de reverso
+INSERT INTO movimientos (id, tipo_movimiento, cantidad, costo_unitario, costo_total, fecha_movimiento,
+                         observacion, origen, producto_id, lote_id, usuario_id, almacen_id,
+                         anulado, variacion, movimiento_anulado_id)
+SELECT nextval('movimientos_seq'), 'ANULACION', m.cantidad, m.costo_unitario, m.costo_total, now(),
+       'Anulación del movimiento ' || m.id, m.origen, m.producto_id, m.lote_id, m.usuario_id, m.almacen_id,
+       false, -m.variacion, m.id
+FROM movimientos m
+WHERE m.anulado = true
+  AND NOT EXISTS (SELECT 1 FROM movimientos a WHERE a.movimiento_anulado_id = m.id);
+
+ALTER TABLE movimientos ALTER COLUMN variacion SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_movimientos_movimiento_anulado ON movimientos (movimiento_anulado_id);
+
+-- Checkpoints: saldos por (producto, almacén, lote) hasta un corte
+CREATE TABLE IF NOT EXISTS checkpoints_stock (
+    id                BIGSERIAL PRIMARY KEY,
+    corte             TIMESTAMP NOT NULL,
+    fecha_creacion    TIMESTAMP NOT NULL,
+    eventos_aplicados BIGINT    NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS saldos_checkpoint (
+    id            BIGSERIAL PRIMARY KEY,
+    checkpoint_id BIGINT           NOT NULL,
+    producto_id   BIGINT           NOT NULL,
+    almacen_id    BIGINT           NOT NULL,
+    lote_id       BIGINT,
+    cantidad      DOUBLE PRECISION NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_saldos_checkpoint_producto ON saldos_checkpoint (checkpoint_id, producto_id);
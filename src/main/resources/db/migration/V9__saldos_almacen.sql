@@ -0,0 +1,19 @@
+-- Saldos por (producto, almacén) mantenidos en la misma transacción que cada movimiento
+CREATE TABLE IF NOT EXISTS saldos_almacen (
+    id                  BIGSERIAL PRIMARY KEY,
+    producto_id         BIGINT           NOT NULL,
+    almacen_id          BIGINT           NOT NULL,
+    cantidad            DOUBLE PRECISION NOT NULL,
+    fecha_actualizacion TIMESTAMP        NOT NULL,
+    CONSTRAINT uk_saldos_almacen_producto_almacen UNIQUE (producto_id, almacen_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_saldos_almacen_almacen ON saldos_almacen (almacen_id);
+
+-- Carga inicial desde lo disponible en los lotes
+INSERT INTO saldos_almacen (producto_id, almacen_id, cantidad, fecha_actualizacion)
+SELECT l.producto_id, l.almacen_id, SUM(l.cantidad_disponible), now()
+FROM lotes l
+WHERE l.almacen_id IS NOT NULL
+GROUP BY l.producto_id, l.almacen_id
+ON CONFLICT (producto_id, almacen_id) DO NOTHING;
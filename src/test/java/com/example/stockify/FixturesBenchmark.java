@@ -0,0 +1,52 @@
+package com.example.stockify;
+
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.usuario.domain.Rol;
+import com.example.stockify.usuario.domain.Usuario;
+import com.example.stockify.usuario.infrastructure.UsuarioRepository;
+
+/**
+ * Datos comunes de los benchmarks.
+ */
+public final class FixturesBenchmark {
+
+    private FixturesBenchmark() {
+    }
+
+    public static Usuario obtenerUsuario(UsuarioRepository usuarioRepository) {
+        return usuarioRepository.findByEmail("benchmark@stockify.com").orElseGet(() -> {
+            Usuario usuario = new Usuario();
+            usuario.setNombre("Benchmark");
+            usuario.setEmail("benchmark@stockify.com");
+            usuario.setPassword("benchmark");
+            usuario.setRol(Rol.ADMIN);
+            usuario.setActivo(true);
+            return usuarioRepository.save(usuario);
+        });
+    }
+
+    public static Producto crearProducto(ProductoRepository productoRepository, String nombre, double stockActual) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setDescripcion("Producto para benchmark");
+        producto.setUnidadMedida("kg");
+        producto.setCategoria("Granos");
+        producto.setStockMinimo(0.0);
+        producto.setStockActual(stockActual);
+        producto.setActivo(true);
+        return productoRepository.save(producto);
+    }
+
+    public static Almacen crearAlmacen(AlmacenRepository almacenRepository, String nombre) {
+        Almacen almacen = new Almacen();
+        almacen.setNombre(nombre);
+        almacen.setUbicacion("Cocina");
+        almacen.setResponsable("Benchmark");
+        almacen.setCapacidadMaxima(1_000_000.0);
+        almacen.setActivo(true);
+        return almacenRepository.save(almacen);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.stockify;
+
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.domain.LoteMapper;
+import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.dto.LoteRequestDTO;
+import com.example.stockify.movimiento.domain.Movimiento;
+import com.example.stockify.movimiento.domain.MovimientoMapper;
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.ProductoMapper;
+import com.example.stockify.producto.dto.ProductoRequestDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el ModelMapper reflexivo que usaban los servicios con los mappers explícitos,
+ * mapeando listas de 1000 filas como lo hacen los endpoints de listado.
+ * Se ejecuta con: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapeoDTOBenchmarkTest {
+
+    private static final int FILAS = 1000;
+
+    private ModelMapper modelMapper;
+    private MovimientoMapper movimientoMapper;
+    private LoteMapper loteMapper;
+    private ProductoMapper productoMapper;
+
+    private List<Movimiento> movimientos;
+    private List<Lote> lotes;
+    private List<Producto> productos;
+
+    @Setup
+    public void preparar() {
+        modelMapper = new ModelMapper();
+        movimientoMapper = new MovimientoMapper();
+        loteMapper = new LoteMapper();
+        productoMapper = new ProductoMapper();
+
+        Almacen almacen = new Almacen();
+        almacen.setId(1L);
+        almacen.setNombre("Almacén Central");
+
+        movimientos = new ArrayList<>(FILAS);
+        lotes = new ArrayList<>(FILAS);
+        productos = new ArrayList<>(FILAS);
+        for (long i = 1; i <= FILAS; i++) {
+            Producto producto = new Producto();
+            producto.setId(i);
+            producto.setNombre("Producto " + i);
+            producto.setDescripcion("Descripción " + i);
+            producto.setUnidadMedida("kg");
+            producto.setCategoria("Granos");
+            producto.setFechaCreacion(LocalDateTime.now());
+            productos.add(producto);
+
+            Lote lote = Lote.builder()
+                    .id(i)
+                    .codigoLote("L-" + i)
+                    .costoUnitario(2.5)
+                    .costoTotal(25.0)
+                    .cantidadInicial(10.0)
+                    .cantidadDisponible(10.0)
+                    .fechaCompra(LocalDateTime.now())
+                    .estado(Estado.ACTIVO)
+                    .producto(producto)
+                    .almacen(almacen)
+                    .build();
+            lotes.add(lote);
+
+            movimientos.add(Movimiento.builder()
+                    .id(i)
+                    .tipoMovimiento(TipoMovimiento.SALIDA)
+                    .cantidad(1.0)
+                    .costoUnitario(2.5)
+                    .costoTotal(2.5)
+                    .fechaMovimiento(LocalDateTime.now())
+                    .observacion("Salida " + i)
+                    .origen("Cocina")
+                    .producto(producto)
+                    .lote(lote)
+                    .almacen(almacen)
+                    .anulado(false)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<MovimientoRequestDTO> movimientosModelMapper() {
+        return movimientos.stream().map(m -> modelMapper.map(m, MovimientoRequestDTO.class)).toList();
+    }
+
+    @Benchmark
+    public List<MovimientoRequestDTO> movimientosMapper() {
+        return movimientos.stream().map(movimientoMapper::aDTO).toList();
+    }
+
+    @Benchmark
+    public List<LoteRequestDTO> lotesModelMapper() {
+        return lotes.stream().map(l -> modelMapper.map(l, LoteRequestDTO.class)).toList();
+    }
+
+    @Benchmark
+    public List<LoteRequestDTO> lotesMapper() {
+        return lotes.stream().map(loteMapper::aDTO).toList();
+    }
+
+    @Benchmark
+    public List<ProductoRequestDTO> productosModelMapper() {
+        return productos.stream().map(p -> modelMapper.map(p, ProductoRequestDTO.class)).toList();
+    }
+
+    @Benchmark
+    public List<ProductoRequestDTO> productosMapper() {
+        return productos.stream().map(productoMapper::aDTO).toList();
+    }
+
+    @Test
+    void compararModelMapperConMappersExplicitos() throws RunnerException {
+        // Sin fork: el classpath de surefire no siempre se reconstruye bien en una JVM hija
+        Options opciones = new OptionsBuilder()
+                .include(MapeoDTOBenchmarkTest.class.getName() + ".*")
+                .forks(0)
+                .build();
+        new Runner(opciones).run();
+    }
+}
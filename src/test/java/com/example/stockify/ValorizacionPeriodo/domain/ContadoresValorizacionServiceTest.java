@@ -0,0 +1,143 @@
+package com.example.stockify.ValorizacionPeriodo.domain;
+
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.movimiento.domain.Movimiento;
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.valorizacionPeriodo.domain.ContadoresValorizacionService;
+import com.example.stockify.valorizacionPeriodo.domain.CostoVentasPeriodo;
+import com.example.stockify.valorizacionPeriodo.domain.ValorInventario;
+import com.example.stockify.valorizacionPeriodo.dto.ValorizacionEnCursoDTO;
+import com.example.stockify.valorizacionPeriodo.infrastructure.CostoVentasPeriodoRepository;
+import com.example.stockify.valorizacionPeriodo.infrastructure.ValorInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContadoresValorizacionServiceTest {
+
+    private static final LocalDateTime SEPTIEMBRE = LocalDateTime.of(2025, 9, 15, 8, 0);
+    private static final LocalDateTime OCTUBRE = LocalDateTime.of(2025, 10, 2, 8, 0);
+
+    @Mock private ValorInventarioRepository valorInventarioRepository;
+    @Mock private CostoVentasPeriodoRepository costoVentasPeriodoRepository;
+
+    private ContadoresValorizacionService contadoresValorizacionService;
+
+    @BeforeEach
+    void setUp() {
+        contadoresValorizacionService = new ContadoresValorizacionService(valorInventarioRepository,
+                costoVentasPeriodoRepository, 16);
+    }
+
+    @Test
+    void shouldUpdateValueSlotsAndCostOfSalesInStableOrder() {
+        Almacen camara = almacen(7L);
+        Almacen despensa = almacen(3L);
+        List<Movimiento> movimientos = List.of(
+                movimiento(TipoMovimiento.SALIDA, producto(18L), camara, 2.0, 4.0, -2.0, SEPTIEMBRE),
+                movimiento(TipoMovimiento.SALIDA, producto(2L), despensa, 1.0, 3.0, -1.0, SEPTIEMBRE),
+                movimiento(TipoMovimiento.SALIDA, producto(18L), camara, 1.0, 5.0, -1.0, SEPTIEMBRE),
+                movimiento(TipoMovimiento.ENTRADA, producto(2L), despensa, 10.0, 3.0, 10.0, SEPTIEMBRE));
+
+        contadoresValorizacionService.registrar(movimientos);
+
+        InOrder orden = inOrder(valorInventarioRepository, costoVentasPeriodoRepository);
+        // Productos 2 y 18 caen en la misma ranura: 30 - 3 - 8 - 5
+        orden.verify(valorInventarioRepository).aplicarVariacion(eq(2), eq(14.0), any());
+        orden.verify(costoVentasPeriodoRepository).aplicarCosto(eq("2025-09"), eq(2L), eq(3L), eq(3.0), any());
+        orden.verify(costoVentasPeriodoRepository).aplicarCosto(eq("2025-09"), eq(18L), eq(7L), eq(13.0), any());
+        verifyNoMoreInteractions(valorInventarioRepository, costoVentasPeriodoRepository);
+    }
+
+    @Test
+    void shouldBookVoidedExitReversalInTheVoidsPeriodWhenTheExitsPeriodIsClosed() {
+        // La salida es de septiembre (ya cerrado); la anulación de octubre no toca septiembre
+        Producto harina = producto(4L);
+        Almacen camara = almacen(7L);
+        Movimiento salida = movimiento(TipoMovimiento.SALIDA, harina, camara, 2.0, 4.0, -2.0, SEPTIEMBRE);
+        Movimiento anulacion = movimiento(TipoMovimiento.ANULACION, harina, camara, 2.0, 4.0, 2.0, OCTUBRE);
+        anulacion.setMovimientoAnulado(salida);
+
+        contadoresValorizacionService.registrar(List.of(anulacion));
+
+        verify(valorInventarioRepository).aplicarVariacion(eq(4), eq(8.0), any());
+        verify(costoVentasPeriodoRepository).aplicarCosto(eq("2025-10"), eq(4L), eq(7L), eq(-8.0), any());
+        verify(costoVentasPeriodoRepository, never()).aplicarCosto(eq("2025-09"), any(), any(), anyDouble(), any());
+    }
+
+    @Test
+    void shouldNotTouchCostOfSalesWhenAnEntryIsVoided() {
+        Producto harina = producto(4L);
+        Movimiento entrada = movimiento(TipoMovimiento.ENTRADA, harina, almacen(7L), 5.0, 2.0, 5.0, SEPTIEMBRE);
+        Movimiento anulacion = movimiento(TipoMovimiento.ANULACION, harina, almacen(7L), 5.0, 2.0, -5.0, OCTUBRE);
+        anulacion.setMovimientoAnulado(entrada);
+
+        contadoresValorizacionService.registrar(List.of(anulacion));
+
+        verify(valorInventarioRepository).aplicarVariacion(eq(4), eq(-10.0), any());
+        verifyNoInteractions(costoVentasPeriodoRepository);
+    }
+
+    @Test
+    void shouldReadCountersWithoutAggregatingMovements() {
+        LocalDateTime ahora = LocalDateTime.now();
+        when(valorInventarioRepository.findAll()).thenReturn(List.of(
+                new ValorInventario(0, 100.0, ahora.minusMinutes(5)),
+                new ValorInventario(3, 50.0, ahora)));
+        when(costoVentasPeriodoRepository.findByPeriodoOrderByProductoIdAscAlmacenIdAsc("2025-09")).thenReturn(List.of(
+                new CostoVentasPeriodo(1L, "2025-09", 1L, 3L, 12.0, ahora.minusMinutes(1)),
+                new CostoVentasPeriodo(2L, "2025-09", 18L, 7L, 8.0, ahora.minusMinutes(2))));
+
+        ValorizacionEnCursoDTO enCurso = contadoresValorizacionService.obtener("2025-09");
+
+        assertThat(enCurso.getValorInventario()).isEqualTo(150.0);
+        assertThat(enCurso.getCostoVentas()).isEqualTo(20.0);
+        assertThat(enCurso.getCostoVentasPorProducto()).extracting(c -> c.getProductoId()).containsExactly(1L, 18L);
+        assertThat(enCurso.getFechaActualizacion()).isEqualTo(ahora);
+    }
+
+    @Test
+    void shouldRejectInvalidPeriodo() {
+        assertThatThrownBy(() -> contadoresValorizacionService.obtener("09-2025"))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private Movimiento movimiento(TipoMovimiento tipo, Producto producto, Almacen almacen, double cantidad,
+                                  double costoUnitario, double variacion, LocalDateTime fecha) {
+        return Movimiento.builder()
+                .tipoMovimiento(tipo)
+                .cantidad(cantidad)
+                .costoUnitario(costoUnitario)
+                .costoTotal(cantidad * costoUnitario)
+                .variacion(variacion)
+                .fechaMovimiento(fecha)
+                .producto(producto)
+                .almacen(almacen)
+                .build();
+    }
+
+    private Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        return producto;
+    }
+
+    private Almacen almacen(Long id) {
+        Almacen almacen = new Almacen();
+        almacen.setId(id);
+        return almacen;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.stockify.ValorizacionPeriodo.domain;
+
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import com.example.stockify.movimiento.dto.MovimientoCostoDTO;
+import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.valorizacionPeriodo.domain.MetodoValorizacion;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion.CapaCosto;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion.SaldoValorizado;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MotorValorizacionTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 9, 1, 0, 0);
+    private static final LocalDateTime FIN = LocalDateTime.of(2025, 10, 1, 0, 0);
+
+    @Mock private MovimientoRepository movimientoRepository;
+    @Mock private ProductoRepository productoRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private MotorValorizacion motorValorizacion;
+
+    @BeforeEach
+    void setUp() {
+        motorValorizacion = new MotorValorizacion(movimientoRepository, productoRepository, transactionManager, 2);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    void tearDown() {
+        motorValorizacion.detener();
+    }
+
+    @Test
+    void shouldConsumeOldestLayersFirstWithFifo() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L));
+        when(movimientoRepository.recorrerCostos(eq(1L), any(), eq(INICIO), eq(FIN))).thenReturn(historialConCompraEnPeriodo());
+
+        SaldoValorizado saldo = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO, FIN).get(0);
+
+        assertThat(saldo.costoVentas()).isEqualTo(30.0);
+        assertThat(saldo.cantidad()).isEqualTo(5.0);
+        assertThat(saldo.valor()).isEqualTo(20.0);
+        assertThat(saldo.capas()).containsExactly(new CapaCosto(5.0, 4.0, 3L));
+    }
+
+    @Test
+    void shouldCostExitsAtRunningAverageWithWeightedAverage() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L));
+        when(movimientoRepository.recorrerCostos(eq(1L), any(), eq(INICIO), eq(FIN))).thenReturn(historialConCompraEnPeriodo());
+
+        SaldoValorizado saldo = motorValorizacion.valorizar(MetodoValorizacion.PROMEDIO_PONDERADO, INICIO, FIN).get(0);
+
+        assertThat(saldo.costoVentas()).isCloseTo(100.0 / 3, within(1e-9));
+        assertThat(saldo.cantidad()).isEqualTo(5.0);
+        assertThat(saldo.valor()).isCloseTo(50.0 / 3, within(1e-9));
+        assertThat(saldo.capas()).hasSize(1);
+    }
+
+    @Test
+    void shouldReturnGoodsToTheHeadWhenAnExitIsVoided() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L));
+        when(movimientoRepository.recorrerCostos(eq(1L), any(), eq(INICIO), eq(FIN))).thenReturn(Stream.of(
+                movimiento(1L, 1L, TipoMovimiento.ENTRADA, 10.0, 2.0, 10.0, 1),
+                movimiento(2L, 1L, TipoMovimiento.ENTRADA, 10.0, 3.0, 10.0, 2),
+                movimiento(3L, 1L, TipoMovimiento.SALIDA, 4.0, 2.0, -4.0, 3),
+                movimiento(3L, 1L, TipoMovimiento.ANULACION, 4.0, 2.0, 4.0, 4)));
+
+        SaldoValorizado saldo = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO, FIN).get(0);
+
+        assertThat(saldo.costoVentas()).isEqualTo(0.0);
+        assertThat(saldo.capas()).containsExactly(new CapaCosto(4.0, 2.0, null), new CapaCosto(6.0, 2.0, 1L),
+                new CapaCosto(10.0, 3.0, 2L));
+        assertThat(saldo.valor()).isEqualTo(50.0);
+    }
+
+    @Test
+    void shouldRemoveTheVoidedEntrysOwnLayerWithFifo() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L));
+        // Compra 10 a 5, compra 10 a 8 y se anula la primera: quedan 10 a 8
+        when(movimientoRepository.recorrerCostos(eq(1L), any(), eq(INICIO), eq(FIN))).thenReturn(Stream.of(
+                movimiento(1L, 1L, TipoMovimiento.ENTRADA, 10.0, 5.0, 10.0, 1),
+                movimiento(2L, 1L, TipoMovimiento.ENTRADA, 10.0, 8.0, 10.0, 2),
+                movimiento(1L, 1L, TipoMovimiento.ANULACION, 10.0, 5.0, -10.0, 3)));
+
+        SaldoValorizado saldo = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO, FIN).get(0);
+
+        assertThat(saldo.cantidad()).isEqualTo(10.0);
+        assertThat(saldo.valor()).isEqualTo(80.0);
+        assertThat(saldo.capas()).containsExactly(new CapaCosto(10.0, 8.0, 2L));
+    }
+
+    @Test
+    void shouldRemoveTheVoidedEntrysLayerCarriedInClosingBalance() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L));
+        when(movimientoRepository.recorrerCostos(eq(1L), eq(INICIO), eq(INICIO), eq(FIN))).thenReturn(Stream.of(
+                movimiento(1L, 1L, TipoMovimiento.ANULACION, 10.0, 5.0, -10.0, 3)));
+        List<SaldoValorizado> cierre = List.of(new SaldoValorizado(1L, 1L, 20.0, 130.0, 0.0, 8.0,
+                List.of(new CapaCosto(10.0, 5.0, 1L), new CapaCosto(10.0, 8.0, 2L))));
+
+        SaldoValorizado saldo = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO,
+                productoId -> cierre, INICIO, FIN).get(0);
+
+        assertThat(saldo.valor()).isEqualTo(80.0);
+        assertThat(saldo.capas()).containsExactly(new CapaCosto(10.0, 8.0, 2L));
+    }
+
+    @Test
+    void shouldKeepSeparateLayersPerWarehouseAndValueProductsIndependently() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L, 2L));
+        when(movimientoRepository.recorrerCostos(eq(1L), any(), eq(INICIO), eq(FIN))).thenReturn(Stream.of(
+                movimiento(1L, 1L, TipoMovimiento.ENTRADA, 10.0, 2.0, 10.0, 1),
+                movimiento(2L, 2L, TipoMovimiento.ENTRADA, 10.0, 5.0, 10.0, 2),
+                movimiento(3L, 2L, TipoMovimiento.SALIDA, 3.0, 5.0, -3.0, 3)));
+        when(movimientoRepository.recorrerCostos(eq(2L), any(), eq(INICIO), eq(FIN))).thenReturn(Stream.empty());
+
+        List<SaldoValorizado> saldos = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO, FIN);
+
+        assertThat(saldos).extracting(SaldoValorizado::almacenId).containsExactly(1L, 2L);
+        assertThat(saldos).extracting(SaldoValorizado::valor).containsExactly(20.0, 35.0);
+        assertThat(saldos).extracting(SaldoValorizado::costoVentas).containsExactly(0.0, 15.0);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void shouldStartFromClosingBalancesAndReadOnlyLaterMovements() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L, 2L));
+        when(movimientoRepository.recorrerCostos(eq(1L), eq(INICIO), eq(INICIO), eq(FIN))).thenReturn(Stream.of(
+                movimiento(3L, 1L, TipoMovimiento.ENTRADA, 10.0, 4.0, 10.0, 2),
+                movimiento(4L, 1L, TipoMovimiento.SALIDA, 10.0, 2.0, -10.0, 3)));
+        when(movimientoRepository.recorrerCostos(eq(2L), eq(INICIO), eq(INICIO), eq(FIN))).thenReturn(Stream.empty());
+        // Cierre de agosto equivalente a historialConCompraEnPeriodo(): quedan 5 a 2; el producto 2 no se movió
+        List<SaldoValorizado> cierre1 = List.of(new SaldoValorizado(1L, 1L, 5.0, 10.0, 7.0, 2.0, List.of(new CapaCosto(5.0, 2.0, 1L))));
+        List<SaldoValorizado> cierre2 = List.of(new SaldoValorizado(2L, 3L, 1.0, 9.0, 0.0, 9.0, List.of(new CapaCosto(1.0, 9.0, 7L))));
+
+        List<SaldoValorizado> saldos = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO,
+                productoId -> productoId == 1L ? cierre1 : cierre2, INICIO, FIN);
+
+        assertThat(saldos).hasSize(2);
+        assertThat(saldos.get(0).costoVentas()).isEqualTo(30.0);
+        assertThat(saldos.get(0).capas()).containsExactly(new CapaCosto(5.0, 4.0, 3L));
+        assertThat(saldos.get(1)).isEqualTo(new SaldoValorizado(2L, 3L, 1.0, 9.0, 0.0, 9.0, List.of(new CapaCosto(1.0, 9.0, 7L))));
+    }
+
+    @Test
+    void shouldBookVoidOfPreviousPeriodExitInTheVoidsPeriod() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L));
+        // Agosto: compra 10 a 2 y sale 4. Septiembre: se anula esa salida
+        when(movimientoRepository.recorrerCostos(eq(1L), any(), eq(INICIO), eq(FIN))).thenReturn(Stream.of(
+                new MovimientoCostoDTO(1L, TipoMovimiento.ENTRADA, 10.0, 2.0, 10.0, LocalDateTime.of(2025, 8, 1, 8, 0), 1L),
+                new MovimientoCostoDTO(1L, TipoMovimiento.SALIDA, 4.0, 2.0, -4.0, LocalDateTime.of(2025, 8, 20, 8, 0), 2L),
+                movimiento(2L, 1L, TipoMovimiento.ANULACION, 4.0, 2.0, 4.0, 5)));
+
+        SaldoValorizado saldo = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO, FIN).get(0);
+
+        assertThat(saldo.costoVentas()).isEqualTo(-8.0);
+        assertThat(saldo.cantidad()).isEqualTo(10.0);
+        assertThat(saldo.valor()).isEqualTo(20.0);
+    }
+
+    @Test
+    void shouldCostUncoveredExitAtLastCostOfZeroClosingBalance() {
+        when(productoRepository.listarIds()).thenReturn(List.of(1L));
+        when(movimientoRepository.recorrerCostos(eq(1L), eq(INICIO), eq(INICIO), eq(FIN))).thenReturn(Stream.of(
+                movimiento(5L, 1L, TipoMovimiento.SALIDA, 2.0, 0.0, -2.0, 3)));
+        List<SaldoValorizado> cierre = List.of(new SaldoValorizado(1L, 1L, 0.0, 0.0, 0.0, 6.0, List.of()));
+
+        SaldoValorizado saldo = motorValorizacion.valorizar(MetodoValorizacion.FIFO, INICIO,
+                productoId -> cierre, INICIO, FIN).get(0);
+
+        assertThat(saldo.costoVentas()).isEqualTo(12.0);
+        assertThat(saldo.ultimoCosto()).isEqualTo(6.0);
+    }
+
+    /* Agosto: compra 10 a 2 y salen 5. Septiembre: compra 10 a 4 y salen 10. */
+    private Stream<MovimientoCostoDTO> historialConCompraEnPeriodo() {
+        return Stream.of(
+                new MovimientoCostoDTO(1L, TipoMovimiento.ENTRADA, 10.0, 2.0, 10.0, LocalDateTime.of(2025, 8, 1, 8, 0), 1L),
+                new MovimientoCostoDTO(1L, TipoMovimiento.SALIDA, 5.0, 2.0, -5.0, LocalDateTime.of(2025, 8, 20, 8, 0), 2L),
+                movimiento(3L, 1L, TipoMovimiento.ENTRADA, 10.0, 4.0, 10.0, 2),
+                movimiento(4L, 1L, TipoMovimiento.SALIDA, 10.0, 2.0, -10.0, 3));
+    }
+
+    /* origenId es el propio movimiento o, en una anulación, el anulado. */
+    private MovimientoCostoDTO movimiento(Long origenId, Long almacenId, TipoMovimiento tipo, double cantidad,
+                                          double costoUnitario, double variacion, int diaDeSeptiembre) {
+        return new MovimientoCostoDTO(almacenId, tipo, cantidad, costoUnitario, variacion,
+                LocalDateTime.of(2025, 9, diaDeSeptiembre, 8, 0), origenId);
+    }
+}
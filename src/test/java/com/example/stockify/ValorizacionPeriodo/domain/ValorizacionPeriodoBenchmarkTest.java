@@ -0,0 +1,168 @@
+package com.example.stockify.ValorizacionPeriodo.domain;
+
+import com.example.stockify.AbstractContainerBaseTest;
+import com.example.stockify.FixturesBenchmark;
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.usuario.domain.Usuario;
+import com.example.stockify.usuario.infrastructure.UsuarioRepository;
+import com.example.stockify.valorizacionPeriodo.domain.MetodoValorizacion;
+import com.example.stockify.valorizacionPeriodo.domain.ValorizacionPeriodoService;
+import com.example.stockify.valorizacionPeriodo.dto.ValorizacionPeriodoRequestDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de la valorización de un periodo según el tamaño del historial de movimientos.
+ * El mes valorizado tiene siempre los mismos movimientos; lo que crece son los meses anteriores,
+ * que quedan detrás del cierre del mes previo: la latencia no debería depender del historial.
+ * El mes incluye salidas anuladas como en producción (fila ANULACION), que no deben costearse.
+ * Se ejecuta con: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Slf4j
+class ValorizacionPeriodoBenchmarkTest extends AbstractContainerBaseTest {
+
+    private static final String PERIODO = "2025-09";
+    private static final String PERIODO_ANTERIOR = "2025-08";
+    private static final int SALIDAS_DEL_PERIODO = 10_000;
+    private static final int SALIDAS_ANULADAS = 200;
+    // Entrada inicial, salidas vigentes y cada salida anulada con su anulación
+    private static final int MOVIMIENTOS_DEL_PERIODO = 1 + SALIDAS_DEL_PERIODO + 2 * SALIDAS_ANULADAS;
+    private static final int PARES_POR_BLOQUE = 500_000;
+    private static final int VALORIZACIONES_CALENTAMIENTO = 2;
+    private static final int VALORIZACIONES_MEDIDAS = 5;
+
+    // El contexto (y la base) se comparte entre invocaciones: el historial solo se completa
+    private static Producto producto;
+    private static Almacen almacen;
+
+    @Autowired private ValorizacionPeriodoService valorizacionPeriodoService;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private AlmacenRepository almacenRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 1_000_000, 10_000_000})
+    void medirValorizacionSegunMovimientosHistoricos(int totalMovimientos) {
+        Usuario usuario = FixturesBenchmark.obtenerUsuario(usuarioRepository);
+        if (producto == null) {
+            producto = FixturesBenchmark.crearProducto(productoRepository, "Arroz benchmark valorización", 0.0);
+            almacen = FixturesBenchmark.crearAlmacen(almacenRepository, "Almacén benchmark valorización");
+            insertarPeriodoValorizado();
+            insertarSalidasAnuladas();
+        }
+        insertarHistorialHasta(totalMovimientos);
+        jdbcTemplate.execute("VACUUM ANALYZE movimientos");
+
+        for (MetodoValorizacion metodo : MetodoValorizacion.values()) {
+            // El historial se insertó antes del último cierre: se vuelve a cerrar el mes anterior
+            Long anteriorId = valorizacionPeriodoService
+                    .ejecutarValorizacion(PERIODO_ANTERIOR, metodo, usuario.getId()).getId();
+            valorizacionPeriodoService.cerrarPeriodo(anteriorId, "Cierre benchmark");
+
+            for (int i = 0; i < VALORIZACIONES_CALENTAMIENTO; i++) {
+                valorizacionPeriodoService.ejecutarValorizacion(PERIODO, metodo, usuario.getId());
+            }
+
+            ValorizacionPeriodoRequestDTO resultado = null;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < VALORIZACIONES_MEDIDAS; i++) {
+                resultado = valorizacionPeriodoService.ejecutarValorizacion(PERIODO, metodo, usuario.getId());
+            }
+            double promedioMs = (System.nanoTime() - inicio) / 1_000_000.0 / VALORIZACIONES_MEDIDAS;
+
+            log.info("[benchmark] movimientos={}, método={} -> latencia promedio de valorización={} ms",
+                    contarMovimientos(), metodo, String.format("%.3f", promedioMs));
+            assertThat(resultado.getCostoVentas()).isEqualTo(SALIDAS_DEL_PERIODO * 2.5);
+        }
+    }
+
+    /* Una compra al abrir el mes y salidas unitarias durante el mes, todas con costo 2.5. */
+    private void insertarPeriodoValorizado() {
+        jdbcTemplate.update("""
+                INSERT INTO movimientos (id, tipo_movimiento, cantidad, costo_unitario, costo_total, fecha_movimiento,
+                                         observacion, origen, producto_id, almacen_id, anulado, variacion)
+                VALUES (nextval('movimientos_seq'), 'ENTRADA', ?, 2.5, ?, timestamp '2025-09-01',
+                        'Benchmark', 'Benchmark', ?, ?, false, ?)
+                """, (double) SALIDAS_DEL_PERIODO, SALIDAS_DEL_PERIODO * 2.5, producto.getId(), almacen.getId(),
+                (double) SALIDAS_DEL_PERIODO);
+        jdbcTemplate.update("""
+                INSERT INTO movimientos (id, tipo_movimiento, cantidad, costo_unitario, costo_total, fecha_movimiento,
+                                         observacion, origen, producto_id, almacen_id, anulado, variacion)
+                SELECT nextval('movimientos_seq'), 'SALIDA', 1.0, 2.5, 2.5,
+                       timestamp '2025-09-01' + make_interval(secs => g * 200),
+                       'Benchmark', 'Benchmark', ?, ?, false, -1.0
+                FROM generate_series(1, ?) g
+                """, producto.getId(), almacen.getId(), SALIDAS_DEL_PERIODO);
+    }
+
+    /*
+     * Salidas del mes anuladas como lo hace anularMovimiento: cada una queda vigente en el libro y
+     * una fila ANULACION la referencia; la marca anulado sigue en false. Llevan un costo distinto
+     * para que se note si alguna se costea.
+     */
+    private void insertarSalidasAnuladas() {
+        jdbcTemplate.update("""
+                WITH salidas AS (
+                    INSERT INTO movimientos (id, tipo_movimiento, cantidad, costo_unitario, costo_total, fecha_movimiento,
+                                             observacion, origen, producto_id, almacen_id, anulado, variacion)
+                    SELECT nextval('movimientos_seq'), 'SALIDA', 1.0, 9.0, 9.0,
+                           timestamp '2025-09-15' + make_interval(mins => g),
+                           'Benchmark', 'Benchmark', ?, ?, false, -1.0
+                    FROM generate_series(1, ?) g
+                    RETURNING id, fecha_movimiento
+                )
+                INSERT INTO movimientos (id, tipo_movimiento, cantidad, costo_unitario, costo_total, fecha_movimiento,
+                                         observacion, origen, producto_id, almacen_id, anulado, variacion,
+                                         movimiento_anulado_id)
+                SELECT nextval('movimientos_seq'), 'ANULACION', 1.0, 9.0, 9.0, s.fecha_movimiento + interval '30 seconds',
+                       'Anulación del movimiento ' || s.id, 'Benchmark', ?, ?, false, 1.0, s.id
+                FROM salidas s
+                """, producto.getId(), almacen.getId(), SALIDAS_ANULADAS, producto.getId(), almacen.getId());
+
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM movimientos a JOIN movimientos s ON s.id = a.movimiento_anulado_id
+                WHERE a.tipo_movimiento = 'ANULACION' AND s.tipo_movimiento = 'SALIDA'
+                  AND s.producto_id = ? AND s.anulado = false
+                """, Long.class, producto.getId())).isEqualTo((long) SALIDAS_ANULADAS);
+    }
+
+    /*
+     * Historial anterior al periodo: pares compra-salida de una unidad, un minuto entre movimientos.
+     * Cada salida agota la compra previa, así el saldo al abrir el mes es cero.
+     */
+    private void insertarHistorialHasta(int totalMovimientos) {
+        long pares = (contarMovimientos() - MOVIMIENTOS_DEL_PERIODO) / 2;
+        long objetivo = (totalMovimientos - MOVIMIENTOS_DEL_PERIODO) / 2;
+        while (pares < objetivo) {
+            long desde = pares + 1;
+            long hasta = Math.min(objetivo, pares + PARES_POR_BLOQUE);
+            jdbcTemplate.update("""
+                    INSERT INTO movimientos (id, tipo_movimiento, cantidad, costo_unitario, costo_total, fecha_movimiento,
+                                             observacion, origen, producto_id, almacen_id, anulado, variacion)
+                    SELECT nextval('movimientos_seq'), CASE WHEN t.salida THEN 'SALIDA' ELSE 'ENTRADA' END,
+                           1.0, 2.0, 2.0,
+                           timestamp '2025-09-01' - make_interval(mins => (2 * g - CASE WHEN t.salida THEN 1 ELSE 0 END)::int),
+                           'Historial', 'Benchmark', ?, ?, false, CASE WHEN t.salida THEN -1.0 ELSE 1.0 END
+                    FROM generate_series(?::bigint, ?::bigint) g CROSS JOIN (VALUES (false), (true)) AS t(salida)
+                    """, producto.getId(), almacen.getId(), desde, hasta);
+            pares = hasta;
+        }
+    }
+
+    private long contarMovimientos() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimientos", Long.class);
+    }
+}
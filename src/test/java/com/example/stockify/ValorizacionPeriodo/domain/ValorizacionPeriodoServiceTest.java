@@ -1,29 +1,34 @@
 package com.example.stockify.ValorizacionPeriodo.domain;
 
+import com.example.stockify.excepciones.OperacionNoPermitidaException;
 import com.example.stockify.excepciones.ResourceNotFoundException;
-import com.example.stockify.lote.domain.Lote;
-import com.example.stockify.lote.infrastructure.LoteRepository;
-import com.example.stockify.movimiento.domain.Movimiento;
-import com.example.stockify.movimiento.domain.TipoMovimiento;
-import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
 import com.example.stockify.usuario.domain.Usuario;
 import com.example.stockify.usuario.infrastructure.UsuarioRepository;
+import com.example.stockify.valorizacionPeriodo.domain.CapaCierre;
 import com.example.stockify.valorizacionPeriodo.domain.MetodoValorizacion;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion.CapaCosto;
+import com.example.stockify.valorizacionPeriodo.domain.MotorValorizacion.SaldoValorizado;
+import com.example.stockify.valorizacionPeriodo.domain.SaldoCierre;
 import com.example.stockify.valorizacionPeriodo.domain.ValorizacionPeriodo;
 import com.example.stockify.valorizacionPeriodo.domain.ValorizacionPeriodoService;
 import com.example.stockify.valorizacionPeriodo.dto.ValorizacionPeriodoRequestDTO;
+import com.example.stockify.valorizacionPeriodo.infrastructure.SaldoCierreRepository;
 import com.example.stockify.valorizacionPeriodo.infrastructure.ValorizacionPeriodoRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import com.example.stockify.valorizacionPeriodo.domain.ValorizacionPeriodoMapper;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,10 +38,10 @@ import static org.mockito.Mockito.*;
 class ValorizacionPeriodoServiceTest {
 
     @Mock private ValorizacionPeriodoRepository valorizacionPeriodoRepository;
-    @Mock private LoteRepository loteRepository;
-    @Mock private MovimientoRepository movimientoRepository;
+    @Mock private SaldoCierreRepository saldoCierreRepository;
+    @Mock private MotorValorizacion motorValorizacion;
     @Mock private UsuarioRepository usuarioRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private ValorizacionPeriodoMapper valorizacionPeriodoMapper;
 
     @InjectMocks
     private ValorizacionPeriodoService valorizacionPeriodoService;
@@ -44,8 +49,6 @@ class ValorizacionPeriodoServiceTest {
     private ValorizacionPeriodo valorizacion;
     private ValorizacionPeriodoRequestDTO dto;
     private Usuario usuario;
-    private Lote lote;
-    private Movimiento movimiento;
 
     @BeforeEach
     void setUp() {
@@ -53,17 +56,6 @@ class ValorizacionPeriodoServiceTest {
         usuario.setId(1L);
         usuario.setNombre("Admin");
 
-        lote = new Lote();
-        lote.setId(1L);
-        lote.setCantidadDisponible(5.0);
-        lote.setCostoUnitario(10.0);
-
-        movimiento = new Movimiento();
-        movimiento.setId(1L);
-        movimiento.setTipoMovimiento(TipoMovimiento.SALIDA);
-        movimiento.setCostoTotal(100.0);
-        movimiento.setFechaMovimiento(LocalDateTime.of(2025, 9, 10, 10, 0));
-
         valorizacion = new ValorizacionPeriodo();
         valorizacion.setId(1L);
         valorizacion.setPeriodo("2025-09");
@@ -85,7 +77,7 @@ class ValorizacionPeriodoServiceTest {
     @Test
     void shouldReturnAllValorizacionesWhenFindAll() {
         when(valorizacionPeriodoRepository.findAll()).thenReturn(List.of(valorizacion));
-        when(modelMapper.map(any(ValorizacionPeriodo.class), eq(ValorizacionPeriodoRequestDTO.class)))
+        when(valorizacionPeriodoMapper.aDTO(any(ValorizacionPeriodo.class)))
                 .thenReturn(dto);
 
         var result = valorizacionPeriodoService.findAll();
@@ -98,20 +90,22 @@ class ValorizacionPeriodoServiceTest {
 
     @Test
     void shouldExecuteValorizacionWhenValidData() {
-        when(loteRepository.findAll()).thenReturn(List.of(lote));
-        when(movimientoRepository.findAll()).thenReturn(List.of(movimiento));
+        when(motorValorizacion.valorizar(any(), any(), any())).thenReturn(List.of(
+                new SaldoValorizado(1L, 1L, 5.0, 30.0, 60.0, 6.0, List.of(new CapaCosto(5.0, 6.0, null))),
+                new SaldoValorizado(1L, 2L, 2.0, 20.0, 40.0, 10.0, List.of(new CapaCosto(2.0, 10.0, null)))));
         when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
         when(valorizacionPeriodoRepository.save(any())).thenReturn(valorizacion);
-        when(modelMapper.map(any(ValorizacionPeriodo.class), eq(ValorizacionPeriodoRequestDTO.class)))
+        when(valorizacionPeriodoMapper.aDTO(any(ValorizacionPeriodo.class)))
                 .thenReturn(dto);
 
         var result = valorizacionPeriodoService.ejecutarValorizacion("2025-09", MetodoValorizacion.FIFO, 1L);
 
         assertThat(result).isNotNull();
         assertThat(result.getPeriodo()).isEqualTo("2025-09");
-        verify(valorizacionPeriodoRepository).save(any());
-        verify(loteRepository).findAll();
-        verify(movimientoRepository).findAll();
+        verify(valorizacionPeriodoRepository).save(argThat(v ->
+                v.getValorInventario() == 50.0 && v.getCostoVentas() == 100.0));
+        verify(motorValorizacion).valorizar(MetodoValorizacion.FIFO,
+                LocalDateTime.of(2025, 9, 1, 0, 0), LocalDateTime.of(2025, 10, 1, 0, 0));
     }
 
 
@@ -129,7 +123,7 @@ class ValorizacionPeriodoServiceTest {
     void shouldClosePeriodoWhenExists() {
         when(valorizacionPeriodoRepository.findById(1L)).thenReturn(Optional.of(valorizacion));
         when(valorizacionPeriodoRepository.save(any())).thenReturn(valorizacion);
-        when(modelMapper.map(any(ValorizacionPeriodo.class), eq(ValorizacionPeriodoRequestDTO.class)))
+        when(valorizacionPeriodoMapper.aDTO(any(ValorizacionPeriodo.class)))
                 .thenReturn(dto);
 
         var result = valorizacionPeriodoService.cerrarPeriodo(1L, "Cierre finalizado");
@@ -138,4 +132,93 @@ class ValorizacionPeriodoServiceTest {
         verify(valorizacionPeriodoRepository).findById(1L);
         verify(valorizacionPeriodoRepository).save(any());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldPersistClosingBalancesWhenClosingPeriodo() {
+        when(valorizacionPeriodoRepository.findById(1L)).thenReturn(Optional.of(valorizacion));
+        when(motorValorizacion.valorizar(any(), any(), any())).thenReturn(List.of(
+                new SaldoValorizado(1L, 1L, 5.0, 35.0, 60.0, 8.0, List.of(new CapaCosto(2.0, 5.0, 11L), new CapaCosto(3.0, 8.0, 12L))),
+                new SaldoValorizado(1L, 2L, 0.0, 0.0, 40.0, 9.0, List.of())));
+        when(valorizacionPeriodoMapper.aDTO(any(ValorizacionPeriodo.class))).thenReturn(dto);
+
+        valorizacionPeriodoService.cerrarPeriodo(1L, null);
+
+        ArgumentCaptor<List<SaldoCierre>> saldos = ArgumentCaptor.forClass(List.class);
+        verify(saldoCierreRepository).eliminarDeValorizaciones(List.of(1L));
+        verify(saldoCierreRepository).saveAll(saldos.capture());
+        assertThat(saldos.getValue()).hasSize(2);
+        assertThat(saldos.getValue().get(0)).satisfies(saldo -> {
+            assertThat(saldo.getValorizacionId()).isEqualTo(1L);
+            assertThat(saldo.getAlmacenId()).isEqualTo(1L);
+            assertThat(saldo.getValor()).isEqualTo(35.0);
+            assertThat(saldo.getUltimoCosto()).isEqualTo(8.0);
+            assertThat(saldo.getCapas()).containsExactly(new CapaCierre(2.0, 5.0, 11L), new CapaCierre(3.0, 8.0, 12L));
+        });
+        // El saldo en cero se guarda igual para conservar su último costo
+        assertThat(saldos.getValue().get(1)).satisfies(saldo -> {
+            assertThat(saldo.getCantidad()).isZero();
+            assertThat(saldo.getUltimoCosto()).isEqualTo(9.0);
+            assertThat(saldo.getCapas()).isEmpty();
+        });
+        assertThat(valorizacion.getCerrado()).isTrue();
+        assertThat(valorizacion.getCorteCierre()).isEqualTo(LocalDateTime.of(2025, 10, 1, 0, 0));
+        assertThat(valorizacion.getValorInventario()).isEqualTo(35.0);
+        assertThat(valorizacion.getCostoVentas()).isEqualTo(100.0);
+    }
+
+    @Test
+    void shouldRejectClosingPeriodoNotFinished() {
+        valorizacion.setPeriodo(YearMonth.now().toString());
+        when(valorizacionPeriodoRepository.findById(1L)).thenReturn(Optional.of(valorizacion));
+
+        assertThatThrownBy(() -> valorizacionPeriodoService.cerrarPeriodo(1L, null))
+                .isInstanceOf(OperacionNoPermitidaException.class);
+        verifyNoInteractions(motorValorizacion, saldoCierreRepository);
+        assertThat(valorizacion.getCerrado()).isFalse();
+    }
+
+    @Test
+    void shouldRejectReclosingWhenLaterClosingExists() {
+        valorizacion.setPeriodo("2025-08");
+        when(valorizacionPeriodoRepository.findById(1L)).thenReturn(Optional.of(valorizacion));
+        when(valorizacionPeriodoRepository.existsByMetodoValorizacionAndCorteCierreGreaterThan(
+                MetodoValorizacion.FIFO, LocalDateTime.of(2025, 9, 1, 0, 0))).thenReturn(true);
+
+        assertThatThrownBy(() -> valorizacionPeriodoService.cerrarPeriodo(1L, null))
+                .isInstanceOf(OperacionNoPermitidaException.class)
+                .hasMessageContaining("posterior");
+        verifyNoInteractions(motorValorizacion, saldoCierreRepository);
+        assertThat(valorizacion.getCerrado()).isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStartFromPreviousClosingWhenAvailable() {
+        ValorizacionPeriodo cierreAnterior = new ValorizacionPeriodo();
+        cierreAnterior.setId(7L);
+        cierreAnterior.setCorteCierre(LocalDateTime.of(2025, 9, 1, 0, 0));
+        SaldoCierre saldoCierre = SaldoCierre.builder()
+                .valorizacionId(7L).productoId(3L).almacenId(1L).cantidad(4.0).valor(20.0).ultimoCosto(5.0)
+                .capas(List.of(new CapaCierre(4.0, 5.0, 9L)))
+                .build();
+        when(valorizacionPeriodoRepository
+                .findTopByMetodoValorizacionAndCorteCierreLessThanEqualOrderByCorteCierreDescIdDesc(
+                        MetodoValorizacion.FIFO, LocalDateTime.of(2025, 9, 1, 0, 0)))
+                .thenReturn(Optional.of(cierreAnterior));
+        when(saldoCierreRepository.findByValorizacionIdAndProductoId(7L, 3L)).thenReturn(List.of(saldoCierre));
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(motorValorizacion.valorizar(any(), any(), any(Function.class), any(), any())).thenReturn(List.of(
+                new SaldoValorizado(3L, 1L, 4.0, 20.0, 0.0, 5.0, List.of(new CapaCosto(4.0, 5.0, null)))));
+        when(valorizacionPeriodoMapper.aDTO(any(ValorizacionPeriodo.class))).thenReturn(dto);
+
+        valorizacionPeriodoService.ejecutarValorizacion("2025-09", MetodoValorizacion.FIFO, 1L);
+
+        ArgumentCaptor<Function<Long, List<SaldoValorizado>>> saldosIniciales = ArgumentCaptor.forClass(Function.class);
+        verify(motorValorizacion).valorizar(eq(MetodoValorizacion.FIFO), eq(LocalDateTime.of(2025, 9, 1, 0, 0)),
+                saldosIniciales.capture(), eq(LocalDateTime.of(2025, 9, 1, 0, 0)), eq(LocalDateTime.of(2025, 10, 1, 0, 0)));
+        verify(motorValorizacion, never()).valorizar(any(), any(), any());
+        assertThat(saldosIniciales.getValue().apply(3L)).containsExactly(
+                new SaldoValorizado(3L, 1L, 4.0, 20.0, 0.0, 5.0, List.of(new CapaCosto(4.0, 5.0, 9L))));
+    }
 }
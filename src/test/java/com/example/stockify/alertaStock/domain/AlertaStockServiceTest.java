@@ -12,7 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -26,7 +26,8 @@ class AlertaStockServiceTest {
 
     @Mock private AlertaStockRepository alertaStockRepository;
     @Mock private ProductoRepository productoRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private AlertaStockMapper alertaStockMapper;
+    @Mock private ApplicationEventPublisher applicationEventPublisher;
 
     @InjectMocks
     private AlertaStockService alertaStockService;
@@ -70,9 +71,9 @@ class AlertaStockServiceTest {
     @Test
     void shouldCreateAlertaWhenProductoExists() {
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
-        when(modelMapper.map(any(AlertaStockNewDTO.class), eq(AlertaStock.class))).thenReturn(alerta);
+        when(alertaStockMapper.aEntidad(any(AlertaStockNewDTO.class))).thenReturn(alerta);
         when(alertaStockRepository.save(any(AlertaStock.class))).thenReturn(alerta);
-        when(modelMapper.map(any(AlertaStock.class), eq(AlertaStockRequestDTO.class))).thenReturn(requestDTO);
+        when(alertaStockMapper.aDTO(any(AlertaStock.class))).thenReturn(requestDTO);
 
         var result = alertaStockService.crear(newDTO);
 
@@ -85,7 +86,7 @@ class AlertaStockServiceTest {
     @Test
     void shouldThrowExceptionWhenProductoNotFoundOnCreate() {
         when(productoRepository.findById(1L)).thenReturn(Optional.empty());
-        when(modelMapper.map(any(AlertaStockNewDTO.class), eq(AlertaStock.class)))
+        when(alertaStockMapper.aEntidad(any(AlertaStockNewDTO.class)))
                 .thenReturn(new AlertaStock());
 
         assertThatThrownBy(() -> alertaStockService.crear(newDTO))
@@ -100,7 +101,7 @@ class AlertaStockServiceTest {
         when(alertaStockRepository.findById(1L)).thenReturn(Optional.of(alerta));
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
         when(alertaStockRepository.save(any())).thenReturn(alerta);
-        when(modelMapper.map(any(AlertaStock.class), eq(AlertaStockRequestDTO.class))).thenReturn(requestDTO);
+        when(alertaStockMapper.aDTO(any(AlertaStock.class))).thenReturn(requestDTO);
 
         var result = alertaStockService.editar(1L, newDTO);
 
@@ -124,7 +125,7 @@ class AlertaStockServiceTest {
     void shouldMarkAlertaAsAtendidaWhenExists() {
         when(alertaStockRepository.findById(1L)).thenReturn(Optional.of(alerta));
         when(alertaStockRepository.save(any())).thenReturn(alerta);
-        when(modelMapper.map(any(AlertaStock.class), eq(AlertaStockRequestDTO.class))).thenReturn(requestDTO);
+        when(alertaStockMapper.aDTO(any(AlertaStock.class))).thenReturn(requestDTO);
 
         var result = alertaStockService.marcarComoAtendida(1L);
 
@@ -12,7 +12,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,7 +24,7 @@ import static org.mockito.Mockito.*;
 class AlmacenServiceTest {
 
     @Mock private AlmacenRepository almacenRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private AlmacenMapper almacenMapper;
 
     @InjectMocks
     private AlmacenService almacenService;
@@ -62,9 +61,9 @@ class AlmacenServiceTest {
 
     @Test
     void shouldCreateAlmacenWhenValidData() {
-        when(modelMapper.map(any(AlmacenNewDTO.class), eq(Almacen.class))).thenReturn(almacen);
+        when(almacenMapper.aEntidad(any(AlmacenNewDTO.class))).thenReturn(almacen);
         when(almacenRepository.save(any(Almacen.class))).thenReturn(almacen);
-        when(modelMapper.map(any(Almacen.class), eq(AlmacenRequestDTO.class))).thenReturn(requestDTO);
+        when(almacenMapper.aDTO(any(Almacen.class))).thenReturn(requestDTO);
 
         var result = almacenService.create(newDTO);
 
@@ -87,7 +86,7 @@ class AlmacenServiceTest {
     void shouldUpdatePartialAlmacenWhenExists() {
         when(almacenRepository.findById(1L)).thenReturn(Optional.of(almacen));
         when(almacenRepository.save(any(Almacen.class))).thenReturn(almacen);
-        when(modelMapper.map(any(Almacen.class), eq(AlmacenRequestDTO.class))).thenReturn(requestDTO);
+        when(almacenMapper.aDTO(any(Almacen.class))).thenReturn(requestDTO);
 
         var result = almacenService.updatePartial(1L, newDTO);
 
@@ -120,7 +119,7 @@ class AlmacenServiceTest {
     @Test
     void shouldFindActivosWhenExist() {
         when(almacenRepository.findByActivo(true)).thenReturn(List.of(almacen));
-        when(modelMapper.map(any(Almacen.class), eq(AlmacenRequestDTO.class))).thenReturn(requestDTO);
+        when(almacenMapper.aDTO(any(Almacen.class))).thenReturn(requestDTO);
 
         var result = almacenService.listarActivos();
 
@@ -144,7 +143,7 @@ class AlmacenServiceTest {
     void shouldChangeEstadoWhenValid() {
         when(almacenRepository.findById(1L)).thenReturn(Optional.of(almacen));
         when(almacenRepository.save(any(Almacen.class))).thenReturn(almacen);
-        when(modelMapper.map(any(Almacen.class), eq(AlmacenRequestDTO.class))).thenReturn(requestDTO);
+        when(almacenMapper.aDTO(any(Almacen.class))).thenReturn(requestDTO);
 
         var result = almacenService.actualizarEstado(1L, false);
 
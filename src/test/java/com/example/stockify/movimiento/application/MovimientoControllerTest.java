@@ -1,8 +1,16 @@
 package com.example.stockify.movimiento.application;
 
+import com.example.stockify.movimiento.domain.ContencionStockRegistro;
+import com.example.stockify.movimiento.domain.MovimientoCoordinador;
 import com.example.stockify.movimiento.domain.MovimientoService;
+import com.example.stockify.movimiento.domain.PlanificadorSalidas;
+import com.example.stockify.movimiento.dto.AsignacionSalidaDTO;
+import com.example.stockify.movimiento.dto.ComandaDTO;
+import com.example.stockify.movimiento.dto.PlatoComandaDTO;
 import com.example.stockify.movimiento.dto.MovimientoNewDTO;
 import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
+import com.example.stockify.movimiento.dto.PaginaMovimientosDTO;
+import com.example.stockify.movimiento.dto.PlanSalidaDTO;
 import com.example.stockify.movimiento.domain.TipoMovimiento;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +31,7 @@ import java.util.List;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,6 +57,15 @@ class MovimientoControllerTest {
     @MockBean
     private MovimientoService movimientoService;
 
+    @MockBean
+    private MovimientoCoordinador movimientoCoordinador;
+
+    @MockBean
+    private ContencionStockRegistro contencionStockRegistro;
+
+    @MockBean
+    private PlanificadorSalidas planificadorSalidas;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -76,7 +94,7 @@ class MovimientoControllerTest {
 
     @Test
     void shouldRegisterEntradaWhenValidData() throws Exception {
-        when(movimientoService.registrarEntrada(any(MovimientoNewDTO.class))).thenReturn(requestDTO);
+        when(movimientoCoordinador.registrarEntrada(any(MovimientoNewDTO.class), isNull())).thenReturn(requestDTO);
 
         mockMvc.perform(post("/movimientos/entrada")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -87,16 +105,77 @@ class MovimientoControllerTest {
     }
 
 
+    @Test
+    void shouldForwardIdempotencyKeyToCoordinator() throws Exception {
+        when(movimientoCoordinador.registrarEntrada(any(MovimientoNewDTO.class), eq("tablet-7-0001"))).thenReturn(requestDTO);
+
+        mockMvc.perform(post("/movimientos/entrada")
+                        .header("Idempotency-Key", "tablet-7-0001")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newDTO)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)));
+    }
+
+
+    @Test
+    void shouldRegisterSalidaPorComandaWhenValidData() throws Exception {
+        ComandaDTO comanda = new ComandaDTO("Mesa 4", List.of(new PlatoComandaDTO(1L, 2), new PlatoComandaDTO(2L, 1)));
+        when(movimientoCoordinador.registrarSalidaPorComanda(any(ComandaDTO.class), isNull())).thenReturn(List.of(requestDTO));
+
+        mockMvc.perform(post("/movimientos/salida-comanda")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(comanda)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void shouldRejectEmptyComanda() throws Exception {
+        mockMvc.perform(post("/movimientos/salida-comanda")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ComandaDTO("Mesa 4", List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
+
+    @Test
+    void shouldReturnPlanForRecipeExit() throws Exception {
+        PlanSalidaDTO plan = PlanSalidaDTO.builder()
+                .origen("RecetaBase - Arroz con pollo")
+                .suficiente(false)
+                .costoTotal(12.0)
+                .productos(List.of())
+                .build();
+        when(planificadorSalidas.planificarSalidaPorReceta(1L, 40)).thenReturn(plan);
+
+        mockMvc.perform(get("/movimientos/salida-receta/1/plan").param("porciones", "40"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.suficiente", is(false)))
+                .andExpect(jsonPath("$.costoTotal", is(12.0)));
+    }
+
+
     @Test
     void shouldRegisterSalidaManualWhenValidData() throws Exception {
         requestDTO.setTipoMovimiento(TipoMovimiento.SALIDA);
-        when(movimientoService.registrarSalidaManual(any(MovimientoNewDTO.class))).thenReturn(requestDTO);
+        requestDTO.setCostoTotal(25.0);
+        AsignacionSalidaDTO asignacion = AsignacionSalidaDTO.builder()
+                .productoId(1L)
+                .cantidadTotal(10.0)
+                .costoTotal(25.0)
+                .costoUnitarioPromedio(2.5)
+                .movimientos(List.of(requestDTO))
+                .build();
+        when(movimientoCoordinador.registrarSalidaManual(any(MovimientoNewDTO.class), isNull())).thenReturn(asignacion);
 
         mockMvc.perform(post("/movimientos/salida-manual")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(newDTO)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.tipoMovimiento", is("SALIDA_MANUAL")));
+                .andExpect(jsonPath("$.costoUnitarioPromedio", is(2.5)))
+                .andExpect(jsonPath("$.movimientos", hasSize(1)))
+                .andExpect(jsonPath("$.movimientos[0].tipoMovimiento", is("SALIDA")));
     }
 
 
@@ -113,8 +192,8 @@ class MovimientoControllerTest {
 
     @Test
     void shouldFilterMovimientosByParams() throws Exception {
-        when(movimientoService.filtrarMovimientos(eq("ENTRADA"), eq(1L), eq(1L), eq("2025-01-01"), eq("2025-12-31")))
-                .thenReturn(List.of(requestDTO));
+        when(movimientoService.filtrarPagina(eq("ENTRADA"), eq(1L), eq(1L), eq("2025-01-01"), eq("2025-12-31"), isNull(), isNull()))
+                .thenReturn(new PaginaMovimientosDTO(List.of(requestDTO), null));
 
         mockMvc.perform(get("/movimientos/filtrar")
                         .param("tipo", "ENTRADA")
@@ -123,14 +202,14 @@ class MovimientoControllerTest {
                         .param("desde", "2025-01-01")
                         .param("hasta", "2025-12-31"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].tipoMovimiento", is("ENTRADA")));
+                .andExpect(jsonPath("$.contenido", hasSize(1)))
+                .andExpect(jsonPath("$.contenido[0].tipoMovimiento", is("ENTRADA")));
     }
 
 
     @Test
     void shouldAnularMovimientoWhenValidId() throws Exception {
-        when(movimientoService.anularMovimiento(1L)).thenReturn(requestDTO);
+        when(movimientoCoordinador.anularMovimiento(1L)).thenReturn(requestDTO);
 
         mockMvc.perform(put("/movimientos/anular/{id}", 1L))
                 .andExpect(status().isOk())
@@ -141,11 +220,13 @@ class MovimientoControllerTest {
 
     @Test
     void shouldReturnAllMovimientosWhenGetAll() throws Exception {
-        when(movimientoService.findAll()).thenReturn(List.of(requestDTO));
+        when(movimientoService.listarPagina(isNull(), eq(50)))
+                .thenReturn(new PaginaMovimientosDTO(List.of(requestDTO), "c2lndWllbnRl"));
 
-        mockMvc.perform(get("/movimientos"))
+        mockMvc.perform(get("/movimientos").param("limite", "50"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].cantidad", is(10.0)));
+                .andExpect(jsonPath("$.contenido", hasSize(1)))
+                .andExpect(jsonPath("$.contenido[0].cantidad", is(10.0)))
+                .andExpect(jsonPath("$.siguienteCursor", is("c2lndWllbnRl")));
     }
 }
@@ -0,0 +1,114 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.excepciones.StockInsuficienteException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.producto.domain.Producto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MotorConsumoRecetaTest {
+
+    @Mock private LoteRepository loteRepository;
+    @Mock private MovimientoRepository movimientoRepository;
+
+    @InjectMocks
+    private MotorConsumoReceta motorConsumoReceta;
+
+    private Producto arroz;
+    private Producto aceite;
+    private Almacen almacen;
+
+    @BeforeEach
+    void setUp() {
+        arroz = crearProducto(1L, "Arroz", 20.0);
+        aceite = crearProducto(2L, "Aceite", 5.0);
+        almacen = new Almacen();
+        almacen.setId(1L);
+    }
+
+    @Test
+    void shouldLoadLotsOfAllIngredientsInOneQueryAndConsumeFifo() {
+        Lote arrozAntiguo = crearLote(10L, arroz, 3.0, 1.0, LocalDateTime.now().minusDays(2));
+        Lote arrozReciente = crearLote(11L, arroz, 17.0, 2.0, LocalDateTime.now().minusDays(1));
+        Lote aceiteUnico = crearLote(20L, aceite, 5.0, 4.0, LocalDateTime.now());
+        when(loteRepository.bloquearDisponiblesFIFODeProductos(anyCollection()))
+                .thenReturn(List.of(arrozAntiguo, arrozReciente, aceiteUnico));
+
+        List<List<Movimiento>> resultado = motorConsumoReceta.consumir(List.of(
+                new ConsumoIngrediente(arroz, 5.0, "kg"),
+                new ConsumoIngrediente(aceite, 1.0, "l")), "Salida", "Receta");
+
+        assertThat(resultado).hasSize(2);
+        assertThat(resultado.get(0)).extracting(Movimiento::getCantidad).containsExactly(3.0, 2.0);
+        assertThat(resultado.get(1)).extracting(Movimiento::getCostoTotal).containsExactly(4.0);
+        assertThat(arrozAntiguo.getCantidadDisponible()).isEqualTo(0.0);
+        assertThat(arrozReciente.getCantidadDisponible()).isEqualTo(15.0);
+        verify(loteRepository, times(1)).bloquearDisponiblesFIFODeProductos(anyCollection());
+        verify(loteRepository, times(1)).saveAll(anyList());
+        verify(movimientoRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void shouldRejectWholeRecipeBeforeWritingWhenAnyIngredientIsShort() {
+        Lote arrozLote = crearLote(10L, arroz, 20.0, 1.0, LocalDateTime.now());
+        Lote aceiteLote = crearLote(20L, aceite, 5.0, 4.0, LocalDateTime.now());
+        when(loteRepository.bloquearDisponiblesFIFODeProductos(anyCollection())).thenReturn(List.of(arrozLote, aceiteLote));
+
+        assertThatThrownBy(() -> motorConsumoReceta.consumir(List.of(
+                new ConsumoIngrediente(arroz, 5.0, "kg"),
+                new ConsumoIngrediente(aceite, 8.0, "l")), "Salida", "Receta"))
+                .isInstanceOf(StockInsuficienteException.class)
+                .hasMessageContaining("Aceite");
+
+        assertThat(arrozLote.getCantidadDisponible()).isEqualTo(20.0);
+        verify(movimientoRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldAskForRetryWhenShortfallIsInLockedLots() {
+        when(loteRepository.bloquearDisponiblesFIFODeProductos(anyCollection())).thenReturn(List.of());
+        when(loteRepository.sumarDisponible(1L)).thenReturn(20.0);
+
+        assertThatThrownBy(() -> motorConsumoReceta.consumir(
+                List.of(new ConsumoIngrediente(arroz, 5.0, "kg")), "Salida", "Receta"))
+                .isInstanceOf(CannotAcquireLockException.class);
+    }
+
+    private Producto crearProducto(Long id, String nombre, double stock) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setStockActual(stock);
+        return producto;
+    }
+
+    private Lote crearLote(Long id, Producto producto, double disponible, double costoUnitario, LocalDateTime fechaCompra) {
+        return Lote.builder()
+                .id(id)
+                .producto(producto)
+                .almacen(almacen)
+                .cantidadInicial(disponible)
+                .cantidadDisponible(disponible)
+                .costoUnitario(costoUnitario)
+                .estado(Estado.ACTIVO)
+                .fechaCompra(fechaCompra)
+                .build();
+    }
+}
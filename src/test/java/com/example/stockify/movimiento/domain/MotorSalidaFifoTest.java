@@ -0,0 +1,115 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.excepciones.StockInsuficienteException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
+import com.example.stockify.producto.domain.Producto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MotorSalidaFifoTest {
+
+    @Mock private LoteRepository loteRepository;
+    @Mock private MovimientoRepository movimientoRepository;
+
+    @InjectMocks
+    private MotorSalidaFifo motorSalidaFifo;
+
+    private Producto producto;
+    private Almacen almacen;
+
+    @BeforeEach
+    void setUp() {
+        producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Aceite");
+
+        almacen = new Almacen();
+        almacen.setId(1L);
+    }
+
+    @Test
+    void shouldConsumeOldestLotsFirstWhenStockIsEnough() {
+        Lote antiguo = crearLote(1L, 4.0, 2.0, LocalDateTime.now().minusDays(2));
+        Lote reciente = crearLote(2L, 10.0, 3.0, LocalDateTime.now().minusDays(1));
+        when(loteRepository.bloquearDisponiblesFIFO(eq(1L), any())).thenReturn(List.of(antiguo, reciente));
+
+        List<Movimiento> movimientos = motorSalidaFifo.consumir(producto, 6.0, "Salida", "Cocina");
+
+        assertThat(movimientos).hasSize(2);
+        assertThat(movimientos.get(0).getLote()).isEqualTo(antiguo);
+        assertThat(movimientos.get(0).getCostoTotal()).isEqualTo(8.0);
+        assertThat(movimientos.get(1).getCantidad()).isEqualTo(2.0);
+        assertThat(antiguo.getCantidadDisponible()).isEqualTo(0.0);
+        assertThat(reciente.getCantidadDisponible()).isEqualTo(8.0);
+        verify(movimientoRepository).saveAll(movimientos);
+        verify(loteRepository, never()).bloquearDisponiblesFIFODespuesDe(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldFetchNextBlockWhenFirstBlockIsNotEnough() {
+        List<Lote> primerBloque = new ArrayList<>();
+        for (long i = 1; i <= MotorSalidaFifo.TAMANO_BLOQUE; i++) {
+            primerBloque.add(crearLote(i, 1.0, 1.0, LocalDateTime.now().minusDays(100 - i)));
+        }
+        Lote siguiente = crearLote(100L, 5.0, 1.0, LocalDateTime.now());
+        when(loteRepository.bloquearDisponiblesFIFO(eq(1L), any())).thenReturn(primerBloque);
+        when(loteRepository.bloquearDisponiblesFIFODespuesDe(eq(1L), any(), eq((long) MotorSalidaFifo.TAMANO_BLOQUE), any()))
+                .thenReturn(List.of(siguiente));
+
+        List<Movimiento> movimientos = motorSalidaFifo.consumir(producto, MotorSalidaFifo.TAMANO_BLOQUE + 2.0, "Salida", "Cocina");
+
+        assertThat(movimientos).hasSize(MotorSalidaFifo.TAMANO_BLOQUE + 1);
+        assertThat(siguiente.getCantidadDisponible()).isEqualTo(3.0);
+    }
+
+    @Test
+    void shouldThrowStockInsuficienteWhenLotsAreNotEnough() {
+        when(loteRepository.bloquearDisponiblesFIFO(eq(1L), any()))
+                .thenReturn(List.of(crearLote(1L, 2.0, 1.0, LocalDateTime.now())));
+        when(loteRepository.sumarDisponible(1L)).thenReturn(0.0);
+
+        assertThatThrownBy(() -> motorSalidaFifo.consumir(producto, 5.0, "Salida", "Cocina"))
+                .isInstanceOf(StockInsuficienteException.class);
+        verify(movimientoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldThrowRetryableLockExceptionWhenMissingStockIsLockedByAnotherExit() {
+        when(loteRepository.bloquearDisponiblesFIFO(eq(1L), any())).thenReturn(List.of());
+        when(loteRepository.sumarDisponible(1L)).thenReturn(10.0);
+
+        assertThatThrownBy(() -> motorSalidaFifo.consumir(producto, 5.0, "Salida", "Cocina"))
+                .isInstanceOf(CannotAcquireLockException.class);
+    }
+
+    private Lote crearLote(Long id, double disponible, double costoUnitario, LocalDateTime fechaCompra) {
+        return Lote.builder()
+                .id(id)
+                .producto(producto)
+                .almacen(almacen)
+                .cantidadInicial(disponible)
+                .cantidadDisponible(disponible)
+                .costoUnitario(costoUnitario)
+                .estado(Estado.ACTIVO)
+                .fechaCompra(fechaCompra)
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.AbstractContainerBaseTest;
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 64 salidas concurrentes sobre el mismo producto no deben perder actualizaciones de stock.
+ */
+@SpringBootTest(properties = "stockify.movimientos.reintentos.max-intentos=200")
+class MovimientoConcurrenciaStressTest extends AbstractContainerBaseTest {
+
+    private static final int SALIDAS_CONCURRENTES = 64;
+
+    @Autowired private MovimientoCoordinador movimientoCoordinador;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private AlmacenRepository almacenRepository;
+    @Autowired private LoteRepository loteRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldNotLoseStockWhen64ExitsRunConcurrently() throws Exception {
+        Almacen almacen = crearAlmacen();
+        Producto producto = crearProducto(100.0);
+        for (int i = 0; i < 4; i++) {
+            crearLote(producto, almacen, "L-STRESS-" + i, 25.0, LocalDateTime.now().minusHours(4 - i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(SALIDAS_CONCURRENTES);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+        for (int i = 0; i < SALIDAS_CONCURRENTES; i++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                return movimientoCoordinador.registrarSalidaManual(salida(producto, almacen), null);
+            }));
+        }
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        double esperado = 100.0 - SALIDAS_CONCURRENTES;
+        assertThat(productoRepository.findById(producto.getId()).orElseThrow().getStockActual()).isEqualTo(esperado);
+        assertThat(loteRepository.sumarDisponible(producto.getId())).isEqualTo(esperado);
+        Double salidas = jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimientos WHERE producto_id = ? AND tipo_movimiento = 'SALIDA'",
+                Double.class, producto.getId());
+        assertThat(salidas).isEqualTo((double) SALIDAS_CONCURRENTES);
+    }
+
+    private MovimientoNewDTO salida(Producto producto, Almacen almacen) {
+        MovimientoNewDTO dto = new MovimientoNewDTO();
+        dto.setTipoMovimiento(TipoMovimiento.SALIDA);
+        dto.setCantidad(1.0);
+        dto.setObservacion("Salida concurrente");
+        dto.setOrigen("Servicio");
+        dto.setProductoId(producto.getId());
+        dto.setAlmacenId(almacen.getId());
+        return dto;
+    }
+
+    private Producto crearProducto(double stock) {
+        Producto producto = new Producto();
+        producto.setNombre("Aceite vegetal");
+        producto.setDescripcion("Aceite para freír");
+        producto.setUnidadMedida("l");
+        producto.setCategoria("Aceites");
+        producto.setStockMinimo(0.0);
+        producto.setStockActual(stock);
+        producto.setActivo(true);
+        return productoRepository.save(producto);
+    }
+
+    private Almacen crearAlmacen() {
+        Almacen almacen = new Almacen();
+        almacen.setNombre("Almacén Cocina");
+        almacen.setUbicacion("Cocina caliente");
+        almacen.setResponsable("Chef");
+        almacen.setCapacidadMaxima(1000.0);
+        almacen.setActivo(true);
+        return almacenRepository.save(almacen);
+    }
+
+    private void crearLote(Producto producto, Almacen almacen, String codigo, double cantidad, LocalDateTime fechaCompra) {
+        loteRepository.save(Lote.builder()
+                .codigoLote(codigo)
+                .producto(producto)
+                .almacen(almacen)
+                .cantidadInicial(cantidad)
+                .cantidadDisponible(cantidad)
+                .costoUnitario(3.0)
+                .costoTotal(cantidad * 3.0)
+                .estado(Estado.ACTIVO)
+                .fechaCompra(fechaCompra)
+                .build());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.producto.domain.Producto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class MovimientoMapperTest {
+
+    private final MovimientoMapper movimientoMapper = new MovimientoMapper();
+
+    @Test
+    void shouldCopyOwnColumnsWithoutTouchingAssociations() {
+        Producto producto = mock(Producto.class);
+        LocalDateTime fecha = LocalDateTime.of(2025, 5, 10, 12, 0);
+        Movimiento movimiento = Movimiento.builder()
+                .id(7L)
+                .tipoMovimiento(TipoMovimiento.SALIDA)
+                .cantidad(3.0)
+                .costoUnitario(2.0)
+                .costoTotal(6.0)
+                .fechaMovimiento(fecha)
+                .observacion("Salida manual")
+                .origen("Cocina")
+                .producto(producto)
+                .anulado(false)
+                .build();
+
+        var dto = movimientoMapper.aDTO(movimiento);
+
+        assertThat(dto.getId()).isEqualTo(7L);
+        assertThat(dto.getTipoMovimiento()).isEqualTo(TipoMovimiento.SALIDA);
+        assertThat(dto.getCantidad()).isEqualTo(3.0);
+        assertThat(dto.getCostoUnitario()).isEqualTo(2.0);
+        assertThat(dto.getCostoTotal()).isEqualTo(6.0);
+        assertThat(dto.getFechaMovimiento()).isEqualTo(fecha);
+        assertThat(dto.getObservacion()).isEqualTo("Salida manual");
+        assertThat(dto.getOrigen()).isEqualTo("Cocina");
+        verifyNoInteractions(producto);
+    }
+
+    @Test
+    void shouldNotCarryIdsIntoNewEntity() {
+        MovimientoNewDTO dto = new MovimientoNewDTO();
+        dto.setTipoMovimiento(TipoMovimiento.ENTRADA);
+        dto.setCantidad(5.0);
+        dto.setCostoUnitario(1.5);
+        dto.setObservacion("Compra");
+        dto.setOrigen("Proveedor");
+        dto.setProductoId(9L);
+        dto.setAlmacenId(4L);
+
+        Movimiento movimiento = movimientoMapper.aEntidad(dto);
+
+        assertThat(movimiento.getId()).isNull();
+        assertThat(movimiento.getCantidad()).isEqualTo(5.0);
+        assertThat(movimiento.getProducto()).isNull();
+        assertThat(movimiento.getAlmacen()).isNull();
+    }
+}
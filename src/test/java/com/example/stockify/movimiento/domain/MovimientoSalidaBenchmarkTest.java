@@ -0,0 +1,96 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.AbstractContainerBaseTest;
+import com.example.stockify.FixturesBenchmark;
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de latencia de salidas manuales según la cantidad de lotes históricos del producto.
+ * Las pruebas crean el esquema con Hibernate y sin Flyway: el índice parcial FIFO de la
+ * migración V4 se crea aquí para medir con el mismo índice que en producción.
+ * Se ejecuta con: mvn -Pbenchmark test
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Slf4j
+class MovimientoSalidaBenchmarkTest extends AbstractContainerBaseTest {
+
+    private static final int SALIDAS_CALENTAMIENTO = 20;
+    private static final int SALIDAS_MEDIDAS = 200;
+
+    @Autowired private MovimientoService movimientoService;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private AlmacenRepository almacenRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void crearIndiceFifo() {
+        jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_lotes_fifo_disponibles
+                    ON lotes (producto_id, fecha_compra, id)
+                    WHERE cantidad_disponible > 0
+                """);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000, 100_000})
+    void medirLatenciaDeSalidaSegunLotesHistoricos(int lotesHistoricos) {
+        Almacen almacen = FixturesBenchmark.crearAlmacen(almacenRepository, "Almacén benchmark");
+        Producto producto = FixturesBenchmark.crearProducto(productoRepository, "Arroz benchmark " + lotesHistoricos, 10000.0);
+
+        // Lotes históricos ya consumidos + un lote vigente al final de la cola FIFO
+        jdbcTemplate.update("""
+                INSERT INTO lotes (id, codigo_lote, costo_unitario, costo_total, cantidad_inicial, cantidad_disponible,
+                                   fecha_compra, estado, version, producto_id, almacen_id)
+                SELECT nextval('lotes_seq'), 'BENCH-' || ? || '-' || g, 2.0, 20.0, 10.0, 0.0,
+                       now() - make_interval(mins => ? - g + 1), 'CONSUMIDO', 0, ?, ?
+                FROM generate_series(1, ?) g
+                """, producto.getId(), lotesHistoricos, producto.getId(), almacen.getId(), lotesHistoricos);
+        jdbcTemplate.update("""
+                INSERT INTO lotes (id, codigo_lote, costo_unitario, costo_total, cantidad_inicial, cantidad_disponible,
+                                   fecha_compra, estado, version, producto_id, almacen_id)
+                VALUES (nextval('lotes_seq'), ?, 2.0, 20000.0, 10000.0, 10000.0, now(), 'ACTIVO', 0, ?, ?)
+                """, "BENCH-" + producto.getId() + "-VIGENTE", producto.getId(), almacen.getId());
+        jdbcTemplate.execute("ANALYZE lotes");
+
+        for (int i = 0; i < SALIDAS_CALENTAMIENTO; i++) {
+            movimientoService.registrarSalidaManual(salida(producto, almacen));
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < SALIDAS_MEDIDAS; i++) {
+            movimientoService.registrarSalidaManual(salida(producto, almacen));
+        }
+        double promedioMs = (System.nanoTime() - inicio) / 1_000_000.0 / SALIDAS_MEDIDAS;
+
+        log.info("[benchmark] lotes históricos={} -> latencia promedio de salida={} ms",
+                lotesHistoricos, String.format("%.3f", promedioMs));
+        assertThat(productoRepository.findById(producto.getId()).orElseThrow().getStockActual())
+                .isEqualTo(10000.0 - SALIDAS_CALENTAMIENTO - SALIDAS_MEDIDAS);
+    }
+
+    private MovimientoNewDTO salida(Producto producto, Almacen almacen) {
+        MovimientoNewDTO dto = new MovimientoNewDTO();
+        dto.setTipoMovimiento(TipoMovimiento.SALIDA);
+        dto.setCantidad(1.0);
+        dto.setObservacion("Benchmark de salida");
+        dto.setOrigen("Benchmark");
+        dto.setProductoId(producto.getId());
+        dto.setAlmacenId(almacen.getId());
+        return dto;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.AbstractContainerBaseTest;
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.dto.AsignacionSalidaDTO;
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que una salida manual ejecuta la misma cantidad de consultas
+ * sin importar el tamaño de la tabla de movimientos.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MovimientoSalidaConsultasTest extends AbstractContainerBaseTest {
+
+    @Autowired private MovimientoService movimientoService;
+    @Autowired private ProductoRepository productoRepository;
+    @Autowired private AlmacenRepository almacenRepository;
+    @Autowired private LoteRepository loteRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void shouldExecuteConstantQueriesRegardlessOfMovimientosTableSize() {
+        Almacen almacen = crearAlmacen();
+        Producto producto = crearProducto();
+        crearLote(producto, almacen);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long[] tablaPequena = medirSalida(statistics, producto, almacen);
+
+        jdbcTemplate.update("""
+                INSERT INTO movimientos (id, tipo_movimiento, cantidad, costo_unitario, costo_total, fecha_movimiento,
+                                         observacion, origen, producto_id, almacen_id, anulado, variacion)
+                SELECT nextval('movimientos_seq'), 'SALIDA', 1.0, 1.0, 1.0, now(), 'Histórico', 'Histórico', ?, ?, false, -1.0
+                FROM generate_series(1, 5000)
+                """, producto.getId(), almacen.getId());
+
+        long[] tablaGrande = medirSalida(statistics, producto, almacen);
+
+        assertThat(tablaGrande).containsExactly(tablaPequena);
+    }
+
+    private long[] medirSalida(Statistics statistics, Producto producto, Almacen almacen) {
+        statistics.clear();
+        AsignacionSalidaDTO asignacion = movimientoService.registrarSalidaManual(salida(producto, almacen));
+        assertThat(asignacion.getMovimientos()).hasSize(1);
+        assertThat(asignacion.getCostoUnitarioPromedio()).isEqualTo(2.0);
+        return new long[]{
+                statistics.getQueryExecutionCount(),
+                statistics.getEntityLoadCount(),
+                statistics.getCollectionFetchCount()
+        };
+    }
+
+    private MovimientoNewDTO salida(Producto producto, Almacen almacen) {
+        MovimientoNewDTO dto = new MovimientoNewDTO();
+        dto.setTipoMovimiento(TipoMovimiento.SALIDA);
+        dto.setCantidad(1.0);
+        dto.setObservacion("Salida de prueba");
+        dto.setOrigen("Cocina");
+        dto.setProductoId(producto.getId());
+        dto.setAlmacenId(almacen.getId());
+        return dto;
+    }
+
+    private Producto crearProducto() {
+        Producto producto = new Producto();
+        producto.setNombre("Sal de cocina");
+        producto.setDescripcion("Sal refinada");
+        producto.setUnidadMedida("kg");
+        producto.setCategoria("Condimentos");
+        producto.setStockMinimo(0.0);
+        producto.setStockActual(100.0);
+        producto.setActivo(true);
+        return productoRepository.save(producto);
+    }
+
+    private Almacen crearAlmacen() {
+        Almacen almacen = new Almacen();
+        almacen.setNombre("Almacén Central");
+        almacen.setUbicacion("Cocina");
+        almacen.setResponsable("Chef");
+        almacen.setCapacidadMaxima(1000.0);
+        almacen.setActivo(true);
+        return almacenRepository.save(almacen);
+    }
+
+    private void crearLote(Producto producto, Almacen almacen) {
+        loteRepository.save(Lote.builder()
+                .codigoLote("L-CONSULTAS-" + producto.getId())
+                .producto(producto)
+                .almacen(almacen)
+                .cantidadInicial(100.0)
+                .cantidadDisponible(100.0)
+                .costoUnitario(2.0)
+                .costoTotal(200.0)
+                .estado(Estado.ACTIVO)
+                .fechaCompra(LocalDateTime.now())
+                .build());
+    }
+}
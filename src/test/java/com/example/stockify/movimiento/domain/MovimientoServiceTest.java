@@ -3,27 +3,41 @@ package com.example.stockify.movimiento.domain;
 import com.example.stockify.alertaStock.infrastructure.AlertaStockRepository;
 import com.example.stockify.almacen.domain.Almacen;
 import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.excepciones.OperacionNoPermitidaException;
+import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.excepciones.StockInsuficienteException;
 import com.example.stockify.lote.domain.Lote;
 import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.dto.LoteNewDTO;
 import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.dto.ComandaDTO;
 import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.movimiento.dto.PlatoComandaDTO;
 import com.example.stockify.movimiento.dto.MovimientoRequestDTO;
 import com.example.stockify.movimiento.infrastructure.MovimientoRepository;
 import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.StockModificadoEvent;
 import com.example.stockify.producto.infrastructure.ProductoRepository;
-import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import com.example.stockify.stock.domain.SaldoAlmacenService;
+import com.example.stockify.valorizacionPeriodo.domain.ContadoresValorizacionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -36,9 +50,14 @@ class MovimientoServiceTest {
     @Mock private LoteRepository loteRepository;
     @Mock private AlmacenRepository almacenRepository;
     @Mock private MovimientoRepository movimientoRepository;
-    @Mock private RecetaBaseRepository recetaBaseRepository;
+    @Mock private ExplosionRecetas explosionRecetas;
     @Mock private AlertaStockRepository alertaStockRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private MotorSalidaFifo motorSalidaFifo;
+    @Mock private MotorConsumoReceta motorConsumoReceta;
+    @Mock private MovimientoMapper movimientoMapper;
+    @Mock private SaldoAlmacenService saldoAlmacenService;
+    @Mock private ContadoresValorizacionService contadoresValorizacionService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private MovimientoService movimientoService;
@@ -101,16 +120,34 @@ class MovimientoServiceTest {
 
 
     @Test
-    void shouldReturnAllMovimientosWhenFindAll() {
-        when(movimientoRepository.findAll()).thenReturn(List.of(movimiento));
-        when(modelMapper.map(any(Movimiento.class), eq(MovimientoRequestDTO.class))).thenReturn(requestDTO);
+    void shouldReturnPageWithCursorThatContinuesAfterLastRow() {
+        MovimientoRequestDTO anterior = MovimientoRequestDTO.builder()
+                .id(2L).fechaMovimiento(LocalDateTime.of(2025, 3, 1, 10, 0)).build();
+        MovimientoRequestDTO ultimo = MovimientoRequestDTO.builder()
+                .id(1L).fechaMovimiento(LocalDateTime.of(2025, 3, 1, 9, 30)).build();
+        when(movimientoRepository.buscarPagina(any(), isNull(), isNull(), eq(2)))
+                .thenReturn(List.of(anterior, ultimo));
 
-        var result = movimientoService.findAll();
+        var primera = movimientoService.listarPagina(null, 1);
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getId()).isEqualTo(1L);
-        assertThat(result.get(0).getCantidad()).isEqualTo(10.0);
-        verify(movimientoRepository).findAll();
+        assertThat(primera.getContenido()).extracting(MovimientoRequestDTO::getId).containsExactly(2L);
+        assertThat(primera.getSiguienteCursor()).isNotNull();
+
+        when(movimientoRepository.buscarPagina(any(), eq(LocalDateTime.of(2025, 3, 1, 10, 0)), eq(2L), eq(2)))
+                .thenReturn(List.of(ultimo));
+
+        var segunda = movimientoService.listarPagina(primera.getSiguienteCursor(), 1);
+
+        assertThat(segunda.getContenido()).extracting(MovimientoRequestDTO::getId).containsExactly(1L);
+        assertThat(segunda.getSiguienteCursor()).isNull();
+        verify(movimientoRepository, never()).findAll();
+    }
+
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        assertThatThrownBy(() -> movimientoService.listarPagina("no-es-un-cursor", 10))
+                .isInstanceOf(BadRequestException.class);
     }
 
 
@@ -121,7 +158,7 @@ class MovimientoServiceTest {
         when(loteRepository.save(any())).thenReturn(lote);
         when(productoRepository.save(any())).thenReturn(producto);
         when(movimientoRepository.save(any())).thenReturn(movimiento);
-        when(modelMapper.map(any(Movimiento.class), eq(MovimientoRequestDTO.class))).thenReturn(requestDTO);
+        when(movimientoMapper.aDTO(any(Movimiento.class))).thenReturn(requestDTO);
 
         var result = movimientoService.registrarEntrada(newDTO);
 
@@ -130,6 +167,65 @@ class MovimientoServiceTest {
         verify(productoRepository).save(any());
         verify(loteRepository).save(any());
         verify(movimientoRepository).save(any());
+        verify(saldoAlmacenService).registrar(List.of(movimiento));
+        verify(contadoresValorizacionService).registrar(List.of(movimiento));
+        verify(eventPublisher).publishEvent(any(StockModificadoEvent.class));
+    }
+
+
+    @Test
+    void shouldRegisterLoteAsEntradaInLedgerAndCounters() {
+        LoteNewDTO loteDTO = LoteNewDTO.builder()
+                .codigoLote("L-PROV-01")
+                .costoUnitario(4.0)
+                .cantidadInicial(8.0)
+                .cantidadDisponible(3.0)
+                .costoTotal(1.0)
+                .fechaVencimiento(LocalDateTime.of(2030, 1, 1, 0, 0))
+                .producto(producto)
+                .almacen(almacen)
+                .estado(Estado.ACTIVO)
+                .build();
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(almacenRepository.findById(1L)).thenReturn(Optional.of(almacen));
+        when(movimientoRepository.save(any())).thenReturn(movimiento);
+
+        Lote creado = movimientoService.registrarLote(loteDTO);
+
+        assertThat(creado.getCodigoLote()).isEqualTo("L-PROV-01");
+        assertThat(creado.getCantidadDisponible()).isEqualTo(8.0);
+        assertThat(creado.getCostoTotal()).isEqualTo(32.0);
+        assertThat(producto.getStockActual()).isEqualTo(58.0);
+        ArgumentCaptor<Movimiento> guardado = ArgumentCaptor.forClass(Movimiento.class);
+        verify(movimientoRepository).save(guardado.capture());
+        assertThat(guardado.getValue().getTipoMovimiento()).isEqualTo(TipoMovimiento.ENTRADA);
+        assertThat(guardado.getValue().getLote()).isSameAs(creado);
+        verify(saldoAlmacenService).registrar(List.of(movimiento));
+        verify(contadoresValorizacionService).registrar(List.of(movimiento));
+    }
+
+    @Test
+    void shouldRegisterEntradaMasivaWithOneLookupPerEntityAndOneStockUpdatePerProducto() {
+        MovimientoNewDTO segundaLinea = new MovimientoNewDTO();
+        segundaLinea.setProductoId(1L);
+        segundaLinea.setAlmacenId(1L);
+        segundaLinea.setCantidad(5.0);
+        segundaLinea.setCostoUnitario(4.0);
+        segundaLinea.setOrigen("Compra Proveedor");
+        segundaLinea.setObservacion("Ingreso por compra");
+        when(productoRepository.findAllById(anySet())).thenReturn(List.of(producto));
+        when(almacenRepository.findAllById(anySet())).thenReturn(List.of(almacen));
+        when(movimientoMapper.aDTO(any(Movimiento.class))).thenReturn(requestDTO);
+
+        var result = movimientoService.registrarEntradaMasiva(List.of(newDTO, segundaLinea));
+
+        assertThat(result).hasSize(2);
+        verify(productoRepository, times(1)).findAllById(anySet());
+        verify(almacenRepository, times(1)).findAllById(anySet());
+        verify(loteRepository, times(1)).saveAll(anyList());
+        verify(movimientoRepository, times(1)).saveAll(anyList());
+        verify(productoRepository, times(1)).incrementarStock(eq(1L), eq(15.0), any());
+        verify(productoRepository, never()).findById(any());
     }
 
 
@@ -147,23 +243,156 @@ class MovimientoServiceTest {
 
 
     @Test
-    void shouldAnularMovimientoWhenExists() {
+    void shouldReturnAllocationWhenSalidaManualSucceeds() {
+        Movimiento primero = Movimiento.builder().id(2L).tipoMovimiento(TipoMovimiento.SALIDA)
+                .cantidad(4.0).costoUnitario(2.0).costoTotal(8.0).producto(producto).lote(lote).build();
+        Movimiento segundo = Movimiento.builder().id(3L).tipoMovimiento(TipoMovimiento.SALIDA)
+                .cantidad(6.0).costoUnitario(3.0).costoTotal(18.0).producto(producto).lote(lote).build();
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(motorSalidaFifo.consumir(producto, 10.0, newDTO.getObservacion(), newDTO.getOrigen()))
+                .thenReturn(List.of(primero, segundo));
+        when(movimientoMapper.aDTO(any(Movimiento.class))).thenReturn(requestDTO);
+
+        var result = movimientoService.registrarSalidaManual(newDTO);
+
+        assertThat(result.getCantidadTotal()).isEqualTo(10.0);
+        assertThat(result.getCostoTotal()).isEqualTo(26.0);
+        assertThat(result.getCostoUnitarioPromedio()).isEqualTo(2.6);
+        assertThat(result.getMovimientos()).hasSize(2);
+        assertThat(producto.getStockActual()).isEqualTo(40.0);
+        verify(movimientoRepository, never()).findAll();
+        verify(saldoAlmacenService).registrar(List.of(primero, segundo));
+    }
+
+
+    @Test
+    void shouldAllocateGroupedSalidasInOnePassAndRejectOnlyThoseExceedingStock() {
+        MovimientoNewDTO excedida = new MovimientoNewDTO();
+        excedida.setProductoId(1L);
+        excedida.setCantidad(45.0);
+        excedida.setObservacion("Salida grande");
+        excedida.setOrigen("Cocina");
+        Movimiento asignado = Movimiento.builder().id(5L).tipoMovimiento(TipoMovimiento.SALIDA)
+                .cantidad(10.0).costoUnitario(1.0).costoTotal(10.0).producto(producto).lote(lote).build();
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(motorSalidaFifo.consumirAgrupado(eq(producto), anyList()))
+                .thenReturn(List.of(List.of(asignado), List.of(asignado)));
+        when(movimientoMapper.aDTO(any(Movimiento.class))).thenReturn(requestDTO);
+
+        List<ResultadoSalida> resultados = movimientoService.registrarSalidasAgrupadas(1L, List.of(newDTO, excedida, newDTO));
+
+        assertThat(resultados).hasSize(3);
+        assertThat(resultados.get(0).getAsignacion().getCantidadTotal()).isEqualTo(10.0);
+        assertThat(resultados.get(1).getError()).isInstanceOf(StockInsuficienteException.class);
+        assertThat(resultados.get(2).getAsignacion()).isNotNull();
+        assertThat(producto.getStockActual()).isEqualTo(30.0);
+        verify(motorSalidaFifo, times(1)).consumirAgrupado(eq(producto), anyList());
+        verify(productoRepository, times(1)).save(producto);
+    }
+
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldConsumeExplodedRecipeWithOneProductFetchAndOneEngineCall() {
+        Movimiento salida = Movimiento.builder().id(9L).tipoMovimiento(TipoMovimiento.SALIDA)
+                .cantidad(6.0).costoUnitario(1.0).costoTotal(6.0).producto(producto).lote(lote).almacen(almacen).build();
+        when(explosionRecetas.obtener(3L)).thenReturn(new RecetaExplotada(3L, "Pan", Map.of(1L, 3.0)));
+        when(productoRepository.findAllById(Set.of(1L))).thenReturn(List.of(producto));
+        when(motorConsumoReceta.consumir(anyList(), anyString(), anyString())).thenReturn(List.of(List.of(salida)));
+        when(movimientoMapper.aDTO(any(Movimiento.class))).thenReturn(requestDTO);
+
+        var result = movimientoService.registrarSalidaPorReceta(3L, 2);
+
+        assertThat(result).hasSize(1);
+        ArgumentCaptor<List<ConsumoIngrediente>> captor = ArgumentCaptor.forClass((Class) List.class);
+        verify(motorConsumoReceta).consumir(captor.capture(), anyString(), anyString());
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat(captor.getValue().get(0).getCantidad()).isEqualTo(6.0);
+        assertThat(producto.getStockActual()).isEqualTo(44.0);
+        verify(productoRepository).saveAll(List.of(producto));
+        verify(saldoAlmacenService).registrar(List.of(salida));
+        verify(contadoresValorizacionService).registrar(List.of(salida));
+        verify(productoRepository, never()).findById(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldAggregateIngredientsAcrossDishesOfAComanda() {
+        Producto aceite = new Producto();
+        aceite.setId(2L);
+        aceite.setNombre("Aceite");
+        aceite.setStockMinimo(0.0);
+        aceite.setStockActual(10.0);
+        when(explosionRecetas.obtener(3L)).thenReturn(new RecetaExplotada(3L, "Pan", Map.of(1L, 1.0)));
+        when(explosionRecetas.obtener(4L)).thenReturn(new RecetaExplotada(4L, "Pizza", linkedMap(1L, 2.0, 2L, 0.5)));
+        when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto, aceite));
+        when(motorConsumoReceta.consumir(anyList(), anyString(), anyString())).thenReturn(List.of(List.of(), List.of()));
+
+        movimientoService.registrarSalidaPorComanda(new ComandaDTO("Mesa 4", List.of(
+                new PlatoComandaDTO(3L, 4), new PlatoComandaDTO(4L, 2), new PlatoComandaDTO(3L, 1))));
+
+        ArgumentCaptor<List<ConsumoIngrediente>> captor = ArgumentCaptor.forClass((Class) List.class);
+        verify(motorConsumoReceta, times(1)).consumir(captor.capture(), anyString(), anyString());
+        assertThat(captor.getValue()).extracting(ConsumoIngrediente::getCantidad).containsExactly(9.0, 1.0);
+        assertThat(producto.getStockActual()).isEqualTo(41.0);
+        assertThat(aceite.getStockActual()).isEqualTo(9.0);
+        verify(productoRepository, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    void shouldRejectComandaWithUnknownRecipe() {
+        when(explosionRecetas.obtener(99L)).thenThrow(new ResourceNotFoundException("Receta base no encontrada con ID: 99"));
+
+        assertThatThrownBy(() -> movimientoService.registrarSalidaPorComanda(
+                new ComandaDTO(null, List.of(new PlatoComandaDTO(99L, 1)))))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verifyNoInteractions(motorConsumoReceta);
+    }
+
+    private static Map<Long, Double> linkedMap(Long k1, Double v1, Long k2, Double v2) {
+        Map<Long, Double> mapa = new LinkedHashMap<>();
+        mapa.put(k1, v1);
+        mapa.put(k2, v2);
+        return mapa;
+    }
+
+
+    @Test
+    void shouldAppendReversalInsteadOfUpdatingOriginalWhenAnular() {
         movimiento.setTipoMovimiento(TipoMovimiento.ENTRADA);
         movimiento.setCantidad(5.0);
+        movimiento.setVariacion(5.0);
         movimiento.setLote(lote);
 
         when(movimientoRepository.findById(1L)).thenReturn(Optional.of(movimiento));
-        when(movimientoRepository.save(any())).thenReturn(movimiento);
-        when(productoRepository.save(any())).thenReturn(producto);
-        when(loteRepository.save(any())).thenReturn(lote);
-        when(modelMapper.map(any(Movimiento.class), eq(MovimientoRequestDTO.class))).thenReturn(requestDTO);
+        when(movimientoRepository.existsByMovimientoAnuladoId(1L)).thenReturn(false);
+        when(movimientoRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(movimientoMapper.aDTO(any(Movimiento.class))).thenReturn(requestDTO);
 
         var result = movimientoService.anularMovimiento(1L);
 
         assertThat(result).isNotNull();
-        assertThat(movimiento.getAnulado()).isTrue();
-        verify(movimientoRepository).save(any());
-        verify(productoRepository).save(any());
-        verify(loteRepository).save(any());
+        ArgumentCaptor<Movimiento> captor = ArgumentCaptor.forClass(Movimiento.class);
+        verify(movimientoRepository).save(captor.capture());
+        Movimiento anulacion = captor.getValue();
+        assertThat(anulacion).isNotSameAs(movimiento);
+        assertThat(anulacion.getTipoMovimiento()).isEqualTo(TipoMovimiento.ANULACION);
+        assertThat(anulacion.getVariacion()).isEqualTo(-5.0);
+        assertThat(anulacion.getMovimientoAnulado()).isSameAs(movimiento);
+        assertThat(movimiento.getAnulado()).isFalse();
+        assertThat(producto.getStockActual()).isEqualTo(45.0);
+        assertThat(lote.getCantidadDisponible()).isEqualTo(5.0);
+    }
+
+
+    @Test
+    void shouldRejectSecondAnulacion() {
+        movimiento.setVariacion(10.0);
+        when(movimientoRepository.findById(1L)).thenReturn(Optional.of(movimiento));
+        when(movimientoRepository.existsByMovimientoAnuladoId(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> movimientoService.anularMovimiento(1L))
+                .isInstanceOf(OperacionNoPermitidaException.class);
+        verify(movimientoRepository, never()).save(any());
     }
 }
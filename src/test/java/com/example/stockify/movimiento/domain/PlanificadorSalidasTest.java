@@ -0,0 +1,137 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.dto.Estado;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.movimiento.dto.MovimientoNewDTO;
+import com.example.stockify.movimiento.dto.PlanLoteDTO;
+import com.example.stockify.movimiento.dto.PlanProductoDTO;
+import com.example.stockify.movimiento.dto.PlanSalidaDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanificadorSalidasTest {
+
+    @Mock private ProductoRepository productoRepository;
+    @Mock private LoteRepository loteRepository;
+    @Mock private ExplosionRecetas explosionRecetas;
+
+    @InjectMocks
+    private PlanificadorSalidas planificadorSalidas;
+
+    private Producto arroz;
+    private Producto aceite;
+    private Almacen almacen;
+
+    @BeforeEach
+    void setUp() {
+        arroz = crearProducto(1L, "Arroz", 20.0);
+        aceite = crearProducto(2L, "Aceite", 5.0);
+        almacen = new Almacen();
+        almacen.setId(1L);
+    }
+
+    @Test
+    void shouldPlanManualExitFifoWithoutLockingOrModifyingLots() {
+        Lote antiguo = crearLote(10L, arroz, 3.0, 1.0, LocalDateTime.now().minusDays(2));
+        Lote reciente = crearLote(11L, arroz, 17.0, 2.0, LocalDateTime.now().minusDays(1));
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(arroz));
+        when(loteRepository.findDisponiblesFIFODeProductos(anyCollection())).thenReturn(List.of(antiguo, reciente));
+
+        MovimientoNewDTO dto = MovimientoNewDTO.builder().productoId(1L).cantidad(5.0).build();
+        PlanSalidaDTO plan = planificadorSalidas.planificarSalidaManual(dto);
+
+        assertThat(plan.getSuficiente()).isTrue();
+        assertThat(plan.getCostoTotal()).isEqualTo(7.0);
+        PlanProductoDTO producto = plan.getProductos().get(0);
+        assertThat(producto.getLotes()).extracting(PlanLoteDTO::getLoteId).containsExactly(10L, 11L);
+        assertThat(producto.getLotes()).extracting(PlanLoteDTO::getCantidad).containsExactly(3.0, 2.0);
+        assertThat(antiguo.getCantidadDisponible()).isEqualTo(3.0);
+        assertThat(reciente.getCantidadDisponible()).isEqualTo(17.0);
+        verify(loteRepository, never()).bloquearDisponiblesFIFO(anyLong(), any());
+        verify(loteRepository, never()).bloquearDisponiblesFIFODeProductos(anyCollection());
+        verify(loteRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void shouldReportShortfallOfRecipeInsteadOfRejectingIt() {
+        Map<Long, Double> porPorcion = new LinkedHashMap<>();
+        porPorcion.put(1L, 0.5);
+        porPorcion.put(2L, 0.25);
+        when(explosionRecetas.obtener(7L)).thenReturn(new RecetaExplotada(7L, "Arroz frito", porPorcion));
+        when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(arroz, aceite));
+        when(loteRepository.findDisponiblesFIFODeProductos(anyCollection())).thenReturn(List.of(
+                crearLote(10L, arroz, 20.0, 1.0, LocalDateTime.now()),
+                crearLote(20L, aceite, 5.0, 4.0, LocalDateTime.now())));
+
+        PlanSalidaDTO plan = planificadorSalidas.planificarSalidaPorReceta(7L, 24);
+
+        assertThat(plan.getSuficiente()).isFalse();
+        assertThat(plan.getProductos()).extracting(PlanProductoDTO::getFaltante).containsExactly(0.0, 1.0);
+        assertThat(plan.getProductos().get(1).getCantidadAsignada()).isEqualTo(5.0);
+        assertThat(plan.getCostoTotal()).isEqualTo(12.0 + 20.0);
+    }
+
+    @Test
+    void shouldLimitPlanToProductStockWhenLotsExceedIt() {
+        arroz.setStockActual(2.0);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(arroz));
+        when(loteRepository.findDisponiblesFIFODeProductos(anyCollection()))
+                .thenReturn(List.of(crearLote(10L, arroz, 10.0, 1.0, LocalDateTime.now())));
+
+        PlanSalidaDTO plan = planificadorSalidas.planificarSalidaManual(
+                MovimientoNewDTO.builder().productoId(1L).cantidad(5.0).build());
+
+        assertThat(plan.getSuficiente()).isFalse();
+        assertThat(plan.getProductos().get(0).getFaltante()).isEqualTo(3.0);
+    }
+
+    @Test
+    void shouldRejectNonPositivePortions() {
+        assertThatThrownBy(() -> planificadorSalidas.planificarSalidaPorReceta(7L, 0))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(loteRepository);
+    }
+
+    private Producto crearProducto(Long id, String nombre, double stock) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setStockActual(stock);
+        return producto;
+    }
+
+    private Lote crearLote(Long id, Producto producto, double disponible, double costoUnitario, LocalDateTime fechaCompra) {
+        return Lote.builder()
+                .id(id)
+                .producto(producto)
+                .almacen(almacen)
+                .cantidadInicial(disponible)
+                .cantidadDisponible(disponible)
+                .costoUnitario(costoUnitario)
+                .estado(Estado.ACTIVO)
+                .fechaCompra(fechaCompra)
+                .build();
+    }
+}
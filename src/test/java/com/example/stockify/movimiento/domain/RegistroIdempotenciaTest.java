@@ -0,0 +1,98 @@
+package com.example.stockify.movimiento.domain;
+
+import com.example.stockify.excepciones.ConflictException;
+import com.example.stockify.excepciones.StockInsuficienteException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RegistroIdempotenciaTest {
+
+    private final RegistroIdempotencia registro = new RegistroIdempotencia(2, 60);
+
+    @AfterEach
+    void limpiarContexto() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldReturnStoredResponseWithoutRunningTwice() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        String primera = registro.ejecutar("entrada", "k1", "h", () -> "mov-" + ejecuciones.incrementAndGet());
+        String repetida = registro.ejecutar("entrada", "k1", "h", () -> "mov-" + ejecuciones.incrementAndGet());
+
+        assertThat(repetida).isEqualTo(primera).isEqualTo("mov-1");
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void shouldRejectSameKeyWithDifferentRequest() {
+        registro.ejecutar("entrada", "k1", "h1", () -> "mov-1");
+
+        assertThatThrownBy(() -> registro.ejecutar("entrada", "k1", "h2", () -> "mov-2"))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void shouldNotRememberFailedRequests() {
+        assertThatThrownBy(() -> registro.ejecutar("salida-manual", "k1", "h", () -> {
+            throw new StockInsuficienteException("Stock insuficiente");
+        })).isInstanceOf(StockInsuficienteException.class);
+
+        assertThat(registro.ejecutar("salida-manual", "k1", "h", () -> "mov-1")).isEqualTo("mov-1");
+    }
+
+    @Test
+    void shouldEvictOldestKeysWhenCapacityIsExceeded() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        registro.ejecutar("entrada", "k1", "h", ejecuciones::incrementAndGet);
+        registro.ejecutar("entrada", "k2", "h", ejecuciones::incrementAndGet);
+        registro.ejecutar("entrada", "k3", "h", ejecuciones::incrementAndGet);
+
+        assertThat(registro.tamano()).isEqualTo(2);
+        registro.ejecutar("entrada", "k1", "h", ejecuciones::incrementAndGet);
+        assertThat(ejecuciones).hasValue(4);
+    }
+
+    @Test
+    void shouldRunEveryTimeWithoutKey() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        registro.ejecutar("entrada", null, "h", ejecuciones::incrementAndGet);
+        registro.ejecutar("entrada", " ", "h", ejecuciones::incrementAndGet);
+
+        assertThat(ejecuciones).hasValue(2);
+    }
+
+    @Test
+    void shouldForgetKeyWhenActionThrowsError() {
+        assertThatThrownBy(() -> registro.ejecutar("entrada", "k1", "h", () -> {
+            throw new OutOfMemoryError("sin memoria");
+        })).isInstanceOf(OutOfMemoryError.class);
+
+        assertThat(registro.tamano()).isZero();
+        assertThat(registro.ejecutar("entrada", "k1", "h", () -> "mov-1")).isEqualTo("mov-1");
+    }
+
+    @Test
+    void shouldKeepKeysSeparatePerUser() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        autenticar("cocinero1");
+        registro.ejecutar("entrada", "k1", "h", ejecuciones::incrementAndGet);
+        autenticar("cocinero2");
+        registro.ejecutar("entrada", "k1", "otra", ejecuciones::incrementAndGet);
+
+        assertThat(ejecuciones).hasValue(2);
+    }
+
+    private static void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario, null, List.of()));
+    }
+}
@@ -30,5 +30,6 @@ class ProductoServiceIntegrationTest extends AbstractContainerBaseTest {
 
         assertThat(result.getId()).isNotNull();
         assertThat(result.getNombre()).isEqualTo("Café Molido");
+        assertThat(result.getStockActual()).isZero();
     }
 }
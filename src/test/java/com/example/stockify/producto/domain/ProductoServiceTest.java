@@ -1,6 +1,7 @@
 package com.example.stockify.producto.domain;
 
 import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.excepciones.OperacionNoPermitidaException;
 import com.example.stockify.excepciones.ResourceNotFoundException;
 import com.example.stockify.excepciones.ValidacionException;
 import com.example.stockify.producto.dto.ProductoNewDTO;
@@ -12,7 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.List;
 import java.util.Optional;
@@ -28,7 +29,10 @@ class ProductoServiceTest {
     private ProductoRepository productoRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private ProductoMapper productoMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private ProductoService productoService;
@@ -69,7 +73,7 @@ class ProductoServiceTest {
     @Test
     void shouldReturnAllProductsWhenFindAll() {
         when(productoRepository.findAll()).thenReturn(List.of(producto));
-        when(modelMapper.map(any(), eq(ProductoRequestDTO.class))).thenReturn(requestDto);
+        when(productoMapper.aDTO(any())).thenReturn(requestDto);
 
         var result = productoService.findAll();
 
@@ -81,7 +85,7 @@ class ProductoServiceTest {
     @Test
     void shouldReturnProductWhenFindByIdExists() {
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
-        when(modelMapper.map(any(), eq(ProductoRequestDTO.class))).thenReturn(requestDto);
+        when(productoMapper.aDTO(any())).thenReturn(requestDto);
 
         var result = productoService.findById(1L);
 
@@ -102,9 +106,9 @@ class ProductoServiceTest {
     @Test
     void shouldCreateProductWhenValidData() {
         when(productoRepository.findByNombreContainingIgnoreCase(anyString())).thenReturn(List.of());
-        when(modelMapper.map(newDto, Producto.class)).thenReturn(producto);
+        when(productoMapper.aEntidad(newDto)).thenReturn(producto);
         when(productoRepository.save(producto)).thenReturn(producto);
-        when(modelMapper.map(producto, ProductoRequestDTO.class)).thenReturn(requestDto);
+        when(productoMapper.aDTO(producto)).thenReturn(requestDto);
 
         var result = productoService.create(newDto);
 
@@ -128,7 +132,7 @@ class ProductoServiceTest {
         // Given
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
         when(productoRepository.save(any())).thenReturn(producto);
-        doReturn(requestDto).when(modelMapper).map(any(Producto.class), eq(ProductoRequestDTO.class));
+        doReturn(requestDto).when(productoMapper).aDTO(any(Producto.class));
 
         // When
         var result = productoService.update(1L, newDto);
@@ -173,7 +177,7 @@ class ProductoServiceTest {
         // Given
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
         when(productoRepository.save(any())).thenReturn(producto);
-        doReturn(requestDto).when(modelMapper).map(any(Producto.class), eq(ProductoRequestDTO.class));
+        doReturn(requestDto).when(productoMapper).aDTO(any(Producto.class));
 
         // When
         var result = productoService.updateFull(1L, newDto);
@@ -200,7 +204,7 @@ class ProductoServiceTest {
     void shouldUpdatePartialWhenValidFieldsProvided() {
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
         when(productoRepository.save(any())).thenReturn(producto);
-        when(modelMapper.map(producto, ProductoRequestDTO.class)).thenReturn(requestDto);
+        when(productoMapper.aDTO(producto)).thenReturn(requestDto);
 
         newDto.setDescripcion("Actualizada");
         var result = productoService.updatePartial(1L, newDto);
@@ -209,12 +213,36 @@ class ProductoServiceTest {
         verify(productoRepository).save(any());
     }
 
+    @Test
+    void shouldRejectUnitChangeWhileProductHasStock() {
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        newDto.setUnidadMedida("lb");
+
+        assertThatThrownBy(() -> productoService.updatePartial(1L, newDto))
+                .isInstanceOf(OperacionNoPermitidaException.class);
+        verify(productoRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void shouldIgnoreStockActualWhenUpdatePartial() {
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.save(any())).thenReturn(producto);
+        when(productoMapper.aDTO(producto)).thenReturn(requestDto);
+
+        newDto.setStockActual(999.0);
+        productoService.updatePartial(1L, newDto);
+
+        assertThat(producto.getStockActual()).isEqualTo(50.0);
+    }
+
 
     @Test
     void shouldFilterProductsByCategoriaAndActivo() {
         when(productoRepository.findByCategoriaIgnoreCaseAndActivo("Granos", true))
                 .thenReturn(List.of(producto));
-        when(modelMapper.map(any(), eq(ProductoRequestDTO.class))).thenReturn(requestDto);
+        when(productoMapper.aDTO(any())).thenReturn(requestDto);
 
         var result = productoService.filtrar("Granos", true);
 
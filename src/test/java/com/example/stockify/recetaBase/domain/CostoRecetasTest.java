@@ -0,0 +1,136 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.domain.LotesModificadosEvent;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.StockModificadoEvent;
+import com.example.stockify.recetaBase.dto.CostoRecetaDTO;
+import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
+import com.example.stockify.recetaDetalle.domain.RecetaDetalle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CostoRecetasTest {
+
+    @Mock private RecetaBaseRepository recetaBaseRepository;
+    @Mock private LoteRepository loteRepository;
+
+    private CostoRecetas costoRecetas;
+
+    private Producto arroz;
+    private Producto pollo;
+    private Producto lechuga;
+    private RecetaBase arrozConPollo;
+    private RecetaBase ensalada;
+
+    @BeforeEach
+    void setUp() {
+        costoRecetas = new CostoRecetas(new ExplosionRecetas(recetaBaseRepository), loteRepository);
+        arroz = producto(1L);
+        pollo = producto(2L);
+        lechuga = producto(3L);
+        arrozConPollo = receta(7L, "Arroz con pollo");
+        agregarDetalle(arrozConPollo, arroz, 0.2);
+        agregarDetalle(arrozConPollo, pollo, 0.25);
+        ensalada = receta(8L, "Ensalada");
+        agregarDetalle(ensalada, lechuga, 0.5);
+    }
+
+    @Test
+    void shouldCostEachIngredientWithTheLotsFifoWouldConsume() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo));
+        when(loteRepository.findDisponiblesFIFODeProductos(Set.of(1L, 2L))).thenReturn(List.of(
+                lote(arroz, 0.1, 2.0), lote(arroz, 5.0, 3.0), lote(pollo, 4.0, 10.0)));
+
+        CostoRecetaDTO costo = costoRecetas.calcularCosto(7L);
+
+        assertThat(costo.getCostoPorPorcion()).isCloseTo(0.1 * 2.0 + 0.1 * 3.0 + 0.25 * 10.0, within(1e-9));
+        assertThat(costo.getCostoCompleto()).isTrue();
+    }
+
+    @Test
+    void shouldServeFromCacheAndRecostOnlyRecipesOfChangedProducts() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo, ensalada));
+        when(loteRepository.findDisponiblesFIFODeProductos(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                lote(arroz, 5.0, 3.0), lote(pollo, 4.0, 10.0), lote(lechuga, 2.0, 4.0)));
+        costoRecetas.calcularCostos();
+        costoRecetas.calcularCostos();
+
+        when(loteRepository.findDisponiblesFIFODeProductos(Set.of(3L))).thenReturn(List.of(lote(lechuga, 2.0, 6.0)));
+        costoRecetas.alModificarLotes(new LotesModificadosEvent(Set.of(3L)));
+        List<CostoRecetaDTO> costos = costoRecetas.calcularCostos();
+
+        assertThat(costos).extracting(CostoRecetaDTO::getCostoPorPorcion)
+                .containsExactly(0.2 * 3.0 + 0.25 * 10.0, 0.5 * 6.0);
+        verify(loteRepository, times(1)).findDisponiblesFIFODeProductos(Set.of(1L, 2L, 3L));
+        verify(loteRepository, times(1)).findDisponiblesFIFODeProductos(Set.of(3L));
+        verify(recetaBaseRepository, times(1)).buscarTodasConIngredientes();
+    }
+
+    @Test
+    void shouldFlagIncompleteCostWhenLotsDoNotCoverAPortion() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(ensalada));
+        when(loteRepository.findDisponiblesFIFODeProductos(Set.of(3L))).thenReturn(List.of(lote(lechuga, 0.2, 4.0)));
+
+        CostoRecetaDTO costo = costoRecetas.calcularCosto(8L);
+
+        assertThat(costo.getCostoCompleto()).isFalse();
+        assertThat(costo.getCostoPorPorcion()).isCloseTo(0.5 * 4.0, within(1e-9));
+    }
+
+    @Test
+    void shouldIgnoreStockChangesOfProductsNotUsedByCachedRecipes() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(ensalada));
+        when(loteRepository.findDisponiblesFIFODeProductos(Set.of(3L))).thenReturn(List.of(lote(lechuga, 2.0, 4.0)));
+        costoRecetas.calcularCostos();
+
+        costoRecetas.alModificarStock(new StockModificadoEvent(Set.of(1L)));
+        costoRecetas.calcularCostos();
+
+        verify(loteRepository, times(1)).findDisponiblesFIFODeProductos(anyCollection());
+    }
+
+    private static Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        return producto;
+    }
+
+    private static Lote lote(Producto producto, double disponible, double costoUnitario) {
+        Lote lote = new Lote();
+        lote.setProducto(producto);
+        lote.setCantidadDisponible(disponible);
+        lote.setCostoUnitario(costoUnitario);
+        return lote;
+    }
+
+    private static RecetaBase receta(Long id, String nombre) {
+        RecetaBase receta = new RecetaBase();
+        receta.setId(id);
+        receta.setNombrePlato(nombre);
+        receta.setDetalles(new ArrayList<>());
+        return receta;
+    }
+
+    private static void agregarDetalle(RecetaBase receta, Producto producto, double cantidad) {
+        RecetaDetalle detalle = new RecetaDetalle();
+        detalle.setRecetaBase(receta);
+        detalle.setProducto(producto);
+        detalle.setCantidadNecesaria(cantidad);
+        detalle.setUnidadMedida("kg");
+        receta.getDetalles().add(detalle);
+    }
+}
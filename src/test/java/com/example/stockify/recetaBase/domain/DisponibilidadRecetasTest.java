@@ -0,0 +1,177 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.StockModificadoEvent;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.recetaBase.dto.PorcionesDisponiblesDTO;
+import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
+import com.example.stockify.recetaDetalle.domain.RecetaDetalle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DisponibilidadRecetasTest {
+
+    @Mock private RecetaBaseRepository recetaBaseRepository;
+    @Mock private ProductoRepository productoRepository;
+    @Mock private SuscriptoresDisponibilidad suscriptores;
+
+    private ExplosionRecetas explosionRecetas;
+    private DisponibilidadRecetas disponibilidadRecetas;
+
+    private Producto arroz;
+    private Producto pollo;
+    private RecetaBase arrozConPollo;
+
+    @BeforeEach
+    void setUp() {
+        explosionRecetas = new ExplosionRecetas(recetaBaseRepository);
+        disponibilidadRecetas = new DisponibilidadRecetas(explosionRecetas, productoRepository, suscriptores);
+        arroz = producto(1L, "Arroz", 10.0, 3L);
+        pollo = producto(2L, "Pollo", 3.0, 5L);
+        arrozConPollo = receta(7L, "Arroz con pollo");
+        agregarDetalle(arrozConPollo, arroz, 0.2);
+        agregarDetalle(arrozConPollo, pollo, 0.25);
+        agregarDetalle(arrozConPollo, pollo, 0.25);
+    }
+
+    @Test
+    void shouldComputeMaxPortionsFromLimitingIngredient() {
+        when(productoRepository.findAll()).thenReturn(List.of(arroz, pollo));
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo));
+
+        List<PorcionesDisponiblesDTO> porciones = disponibilidadRecetas.calcularPorcionesDisponibles();
+
+        assertThat(porciones).hasSize(1);
+        assertThat(porciones.get(0).getPorcionesMaximas()).isEqualTo(6);
+        assertThat(porciones.get(0).getProductoLimitanteNombre()).isEqualTo("Pollo");
+    }
+
+    @Test
+    void shouldAnswerRepeatedQueriesFromMemoryAndRefreshOnlyChangedProducts() {
+        when(productoRepository.findAll()).thenReturn(List.of(arroz, pollo));
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo));
+        disponibilidadRecetas.calcularPorcionesDisponibles();
+
+        when(productoRepository.findAllById(Set.of(2L))).thenReturn(List.of(producto(2L, "Pollo", 10.0, 6L)));
+        disponibilidadRecetas.alModificarStock(new StockModificadoEvent(Set.of(2L)));
+
+        assertThat(disponibilidadRecetas.calcularPorcionesDisponibles(7L).getPorcionesMaximas()).isEqualTo(20);
+        verify(productoRepository, times(1)).findAll();
+        verify(recetaBaseRepository, times(1)).buscarTodasConIngredientes();
+    }
+
+    @Test
+    void shouldIgnoreOlderStockReadsArrivingLate() {
+        when(productoRepository.findAll()).thenReturn(List.of(arroz, pollo));
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo));
+        disponibilidadRecetas.calcularPorcionesDisponibles();
+
+        when(productoRepository.findAllById(Set.of(2L))).thenReturn(List.of(producto(2L, "Pollo", 100.0, 4L)));
+        disponibilidadRecetas.alModificarStock(new StockModificadoEvent(Set.of(2L)));
+
+        assertThat(disponibilidadRecetas.calcularPorcionesDisponibles(7L).getPorcionesMaximas()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldReloadOnlyChangedRecipesAfterTheyChange() {
+        when(productoRepository.findAll()).thenReturn(List.of(arroz, pollo));
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo));
+        disponibilidadRecetas.calcularPorcionesDisponibles();
+
+        RecetaBase soloArroz = receta(7L, "Arroz con pollo");
+        agregarDetalle(soloArroz, arroz, 0.2);
+        when(recetaBaseRepository.buscarConIngredientes(Set.of(7L))).thenReturn(List.of(soloArroz));
+        RecetasModificadasEvent evento = new RecetasModificadasEvent(Set.of(7L));
+        explosionRecetas.alModificarRecetas(evento);
+        disponibilidadRecetas.alModificarRecetas(evento);
+
+        assertThat(disponibilidadRecetas.calcularPorcionesDisponibles(7L).getPorcionesMaximas()).isEqualTo(50);
+        verify(recetaBaseRepository, times(1)).buscarTodasConIngredientes();
+        verify(productoRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldPushFullSnapshotWhenRecipeIsDeleted() {
+        when(productoRepository.findAll()).thenReturn(List.of(arroz, pollo));
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo));
+        when(suscriptores.haySuscriptores()).thenReturn(true);
+        disponibilidadRecetas.instantanea();
+
+        when(recetaBaseRepository.buscarConIngredientes(Set.of(7L))).thenReturn(List.of());
+        RecetasModificadasEvent evento = new RecetasModificadasEvent(Set.of(7L));
+        explosionRecetas.alModificarRecetas(evento);
+        disponibilidadRecetas.alModificarRecetas(evento);
+
+        verify(suscriptores).publicarInstantanea(argThat(List::isEmpty));
+        verify(suscriptores, never()).publicarCambios(any());
+    }
+
+    @Test
+    void shouldPushOnlyAffectedRecipesWhosePortionsChanged() {
+        Producto lechuga = producto(3L, "Lechuga", 5.0, 1L);
+        RecetaBase ensalada = receta(8L, "Ensalada");
+        agregarDetalle(ensalada, lechuga, 0.5);
+        when(productoRepository.findAll()).thenReturn(List.of(arroz, pollo, lechuga));
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(arrozConPollo, ensalada));
+        when(suscriptores.haySuscriptores()).thenReturn(true);
+        disponibilidadRecetas.instantanea();
+
+        when(productoRepository.findAllById(Set.of(2L))).thenReturn(List.of(producto(2L, "Pollo", 3.2, 6L)));
+        disponibilidadRecetas.alModificarStock(new StockModificadoEvent(Set.of(2L)));
+        verify(suscriptores, never()).publicarCambios(any());
+
+        when(productoRepository.findAllById(Set.of(2L))).thenReturn(List.of(producto(2L, "Pollo", 1.0, 7L)));
+        disponibilidadRecetas.alModificarStock(new StockModificadoEvent(Set.of(2L)));
+
+        verify(suscriptores).publicarCambios(argThat(cambios -> cambios.size() == 1
+                && cambios.get(0).getRecetaBaseId().equals(7L)
+                && cambios.get(0).getPorcionesMaximas() == 2));
+    }
+
+    @Test
+    void shouldThrowWhenRecipeIsUnknown() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of());
+
+        assertThatThrownBy(() -> disponibilidadRecetas.calcularPorcionesDisponibles(99L))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private static Producto producto(Long id, String nombre, double stock, long version) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setStockActual(stock);
+        producto.setVersion(version);
+        return producto;
+    }
+
+    private static RecetaBase receta(Long id, String nombre) {
+        RecetaBase receta = new RecetaBase();
+        receta.setId(id);
+        receta.setNombrePlato(nombre);
+        receta.setDetalles(new ArrayList<>());
+        return receta;
+    }
+
+    private static void agregarDetalle(RecetaBase receta, Producto producto, double cantidad) {
+        RecetaDetalle detalle = new RecetaDetalle();
+        detalle.setRecetaBase(receta);
+        detalle.setProducto(producto);
+        detalle.setCantidadNecesaria(cantidad);
+        detalle.setUnidadMedida("kg");
+        receta.getDetalles().add(detalle);
+    }
+}
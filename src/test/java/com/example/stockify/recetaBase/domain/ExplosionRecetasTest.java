@@ -0,0 +1,142 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
+import com.example.stockify.recetaDetalle.domain.RecetaDetalle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExplosionRecetasTest {
+
+    @Mock private RecetaBaseRepository recetaBaseRepository;
+
+    @InjectMocks
+    private ExplosionRecetas explosionRecetas;
+
+    private Producto tomate;
+    private Producto pasta;
+    private RecetaBase salsa;
+    private RecetaBase tallarines;
+    private RecetaBase ensalada;
+
+    @BeforeEach
+    void setUp() {
+        tomate = producto(1L);
+        pasta = producto(2L);
+        salsa = receta(10L, "Salsa de tomate");
+        agregarProducto(salsa, tomate, 0.4);
+        tallarines = receta(11L, "Tallarines rojos");
+        agregarProducto(tallarines, pasta, 0.15);
+        agregarProducto(tallarines, tomate, 0.05);
+        agregarSubReceta(tallarines, salsa, 0.5);
+        ensalada = receta(12L, "Ensalada");
+        agregarProducto(ensalada, tomate, 0.2);
+    }
+
+    @Test
+    void shouldFlattenSubRecipesIntoRawIngredients() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(salsa, tallarines, ensalada));
+
+        Map<Long, Double> vector = explosionRecetas.obtener(11L).cantidadPorProducto();
+
+        assertThat(vector.get(2L)).isEqualTo(0.15);
+        assertThat(vector.get(1L)).isCloseTo(0.05 + 0.5 * 0.4, within(1e-9));
+        assertThat(explosionRecetas.indice().recetasPorProducto().get(1L)).containsExactlyInAnyOrder(10L, 11L, 12L);
+    }
+
+    @Test
+    void shouldReexplodeOnlyTheChangedRecipeAndItsParents() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(salsa, tallarines, ensalada));
+        ExplosionRecetas.IndiceRecetas anterior = explosionRecetas.indice();
+
+        RecetaBase salsaNueva = receta(10L, "Salsa de tomate");
+        agregarProducto(salsaNueva, tomate, 0.6);
+        when(recetaBaseRepository.buscarConIngredientes(Set.of(10L))).thenReturn(List.of(salsaNueva));
+        explosionRecetas.alModificarRecetas(new RecetasModificadasEvent(Set.of(10L)));
+        ExplosionRecetas.IndiceRecetas actual = explosionRecetas.indice();
+
+        assertThat(actual.recetas().get(11L).cantidadPorProducto().get(1L)).isCloseTo(0.05 + 0.5 * 0.6, within(1e-9));
+        assertThat(actual.recetas().get(12L)).isEqualTo(anterior.recetas().get(12L));
+        verify(recetaBaseRepository, times(1)).buscarTodasConIngredientes();
+    }
+
+    @Test
+    void shouldDetectCyclesThroughNestedComponents() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(salsa, tallarines, ensalada));
+
+        assertThat(explosionRecetas.formariaCiclo(10L, 11L)).isTrue();
+        assertThat(explosionRecetas.formariaCiclo(10L, 10L)).isTrue();
+        assertThat(explosionRecetas.formariaCiclo(12L, 11L)).isFalse();
+        assertThat(explosionRecetas.formariaCiclo(12L, 10L, Map.of(10L, Set.of(12L)))).isTrue();
+        assertThat(explosionRecetas.usadaEn(10L)).containsExactly(11L);
+    }
+
+    @Test
+    void shouldApplyStoredConversionFactorOfProductLines() {
+        RecetaBase pure = receta(13L, "Puré");
+        agregarProducto(pure, tomate, 300.0);
+        pure.getDetalles().get(0).setUnidadMedida("g");
+        pure.getDetalles().get(0).setFactorConversion(0.001);
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(pure));
+
+        assertThat(explosionRecetas.obtener(13L).cantidadPorProducto().get(1L)).isCloseTo(0.3, within(1e-9));
+    }
+
+    @Test
+    void shouldDropDeletedRecipes() {
+        when(recetaBaseRepository.buscarTodasConIngredientes()).thenReturn(List.of(ensalada));
+        explosionRecetas.indice();
+        when(recetaBaseRepository.buscarConIngredientes(Set.of(12L))).thenReturn(List.of());
+
+        explosionRecetas.alModificarRecetas(new RecetasModificadasEvent(Set.of(12L)));
+
+        assertThatThrownBy(() -> explosionRecetas.obtener(12L)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private static Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        return producto;
+    }
+
+    private static RecetaBase receta(Long id, String nombre) {
+        RecetaBase receta = new RecetaBase();
+        receta.setId(id);
+        receta.setNombrePlato(nombre);
+        receta.setDetalles(new ArrayList<>());
+        return receta;
+    }
+
+    private static void agregarProducto(RecetaBase receta, Producto producto, double cantidad) {
+        RecetaDetalle detalle = new RecetaDetalle();
+        detalle.setRecetaBase(receta);
+        detalle.setProducto(producto);
+        detalle.setCantidadNecesaria(cantidad);
+        detalle.setUnidadMedida("kg");
+        receta.getDetalles().add(detalle);
+    }
+
+    private static void agregarSubReceta(RecetaBase receta, RecetaBase subReceta, double cantidad) {
+        RecetaDetalle detalle = new RecetaDetalle();
+        detalle.setRecetaBase(receta);
+        detalle.setSubReceta(subReceta);
+        detalle.setCantidadNecesaria(cantidad);
+        detalle.setUnidadMedida("porción");
+        receta.getDetalles().add(detalle);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.stockify.recetaBase.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.movimiento.dto.PlatoComandaDTO;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.IndiceRecetas;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas.RecetaExplotada;
+import com.example.stockify.recetaBase.dto.PlanProduccionDTO;
+import com.example.stockify.recetaBase.dto.RequerimientoProductoDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlanProduccionTest {
+
+    @Mock private ExplosionRecetas explosionRecetas;
+    @Mock private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private PlanProduccion planProduccion;
+
+    @BeforeEach
+    void setUp() {
+        RecetaExplotada arrozConPollo = new RecetaExplotada(7L, "Arroz con pollo", Map.of(1L, 0.25, 2L, 0.25));
+        RecetaExplotada arrozChaufa = new RecetaExplotada(8L, "Arroz chaufa", Map.of(1L, 0.125, 3L, 0.5));
+        when(explosionRecetas.indice()).thenReturn(new IndiceRecetas(
+                Map.of(7L, arrozConPollo, 8L, arrozChaufa),
+                Map.of(1L, List.of(7L, 8L), 2L, List.of(7L), 3L, List.of(8L))));
+    }
+
+    @Test
+    void shouldSumCachedVectorsAndReportShortfalls() {
+        when(productoRepository.findAllById(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                producto(1L, "Arroz", 20.0), producto(2L, "Pollo", 5.0), producto(3L, "Sillao", 40.0)));
+
+        PlanProduccionDTO plan = planProduccion.calcular(List.of(
+                new PlatoComandaDTO(7L, 40), new PlatoComandaDTO(8L, 60), new PlatoComandaDTO(7L, 10)));
+
+        assertThat(plan.getTotalPorciones()).isEqualTo(110);
+        assertThat(plan.getProductosConFaltante()).isEqualTo(1);
+        assertThat(plan.getRequerimientos()).extracting(RequerimientoProductoDTO::getProductoId).containsExactly(1L, 2L, 3L);
+        assertThat(plan.getRequerimientos()).extracting(RequerimientoProductoDTO::getCantidadRequerida)
+                .containsExactly(20.0, 12.5, 30.0);
+        assertThat(plan.getRequerimientos()).extracting(RequerimientoProductoDTO::getFaltante)
+                .containsExactly(0.0, 7.5, 0.0);
+        verify(productoRepository, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    void shouldListEveryUnknownRecipe() {
+        assertThatThrownBy(() -> planProduccion.calcular(List.of(
+                new PlatoComandaDTO(7L, 1), new PlatoComandaDTO(99L, 1), new PlatoComandaDTO(98L, 1))))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("[98, 99]");
+        verifyNoInteractions(productoRepository);
+    }
+
+    private Producto producto(Long id, String nombre, double stock) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setStockActual(stock);
+        producto.setUnidadMedida("kg");
+        return producto;
+    }
+}
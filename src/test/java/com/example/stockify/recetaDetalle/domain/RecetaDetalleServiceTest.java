@@ -0,0 +1,188 @@
+package com.example.stockify.recetaDetalle.domain;
+
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.domain.UnidadProductoModificadaEvent;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.recetaBase.domain.ExplosionRecetas;
+import com.example.stockify.recetaBase.domain.RecetaBase;
+import com.example.stockify.recetaBase.domain.RecetasModificadasEvent;
+import com.example.stockify.recetaBase.infrastructure.RecetaBaseRepository;
+import com.example.stockify.recetaDetalle.dto.RecetaDetalleNewDTO;
+import com.example.stockify.recetaDetalle.dto.RecetaDetalleRequestDTO;
+import com.example.stockify.recetaDetalle.infrastructure.RecetaDetalleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecetaDetalleServiceTest {
+
+    @Mock private RecetaDetalleRepository recetaDetalleRepository;
+    @Mock private RecetaBaseRepository recetaBaseRepository;
+    @Mock private ProductoRepository productoRepository;
+    @Mock private ExplosionRecetas explosionRecetas;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Spy private RecetaDetalleMapper recetaDetalleMapper = new RecetaDetalleMapper();
+    @Spy private RegistroUnidades registroUnidades = new RegistroUnidades();
+
+    @InjectMocks
+    private RecetaDetalleService recetaDetalleService;
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void shouldResolveReferencesOnceAndSaveAllDetailsTogether() {
+        when(recetaBaseRepository.findAllById(Set.of(7L))).thenReturn(List.of(receta(7L)));
+        when(productoRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(producto(1L), producto(2L)));
+
+        List<RecetaDetalleRequestDTO> resultado = recetaDetalleService.createBulk(List.of(
+                ingrediente(7L, 1L, 0.2), ingrediente(7L, 2L, 0.5), ingrediente(7L, 1L, 0.1)));
+
+        ArgumentCaptor<List<RecetaDetalle>> guardados = ArgumentCaptor.forClass((Class) List.class);
+        verify(recetaDetalleRepository).saveAll(guardados.capture());
+        assertThat(guardados.getValue()).hasSize(3);
+        assertThat(resultado).extracting(RecetaDetalleRequestDTO::getProductoId).containsExactly(1L, 2L, 1L);
+        verify(recetaBaseRepository, never()).findById(any());
+        verify(productoRepository, never()).findById(any());
+        verify(recetaDetalleRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(RecetasModificadasEvent.class));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void shouldStoreConversionToProductStockUnitOnSave() {
+        when(recetaBaseRepository.findAllById(Set.of(7L))).thenReturn(List.of(receta(7L)));
+        when(productoRepository.findAllById(Set.of(1L))).thenReturn(List.of(producto(1L)));
+        RecetaDetalleNewDTO enGramos = RecetaDetalleNewDTO.builder()
+                .recetaBaseId(7L).productoId(1L).cantidadNecesaria(250.0).unidadMedida("g").build();
+
+        recetaDetalleService.createBulk(List.of(enGramos));
+
+        ArgumentCaptor<List<RecetaDetalle>> guardados = ArgumentCaptor.forClass((Class) List.class);
+        verify(recetaDetalleRepository).saveAll(guardados.capture());
+        assertThat(guardados.getValue().get(0).getFactorConversion()).isEqualTo(0.001);
+    }
+
+    @Test
+    void shouldRecomputeFactorsWhenProductStockUnitChanges() {
+        RecetaDetalle detalle = new RecetaDetalle();
+        detalle.setRecetaBase(receta(7L));
+        detalle.setProducto(producto(1L));
+        detalle.setUnidadMedida("g");
+        detalle.setFactorConversion(0.001);
+        when(recetaDetalleRepository.findByProducto_Id(1L)).thenReturn(List.of(detalle));
+
+        recetaDetalleService.alModificarUnidadProducto(new UnidadProductoModificadaEvent(1L, "lb"));
+
+        assertThat(detalle.getFactorConversion()).isCloseTo(1 / 453.59237, within(1e-12));
+        verify(recetaDetalleRepository).saveAll(List.of(detalle));
+        verify(eventPublisher).publishEvent(any(RecetasModificadasEvent.class));
+    }
+
+    @Test
+    void shouldRejectWholeBatchWhenAnyProductIsMissing() {
+        when(recetaBaseRepository.findAllById(Set.of(7L))).thenReturn(List.of(receta(7L)));
+        when(productoRepository.findAllById(Set.of(1L, 9L))).thenReturn(List.of(producto(1L)));
+
+        assertThatThrownBy(() -> recetaDetalleService.createBulk(List.of(
+                ingrediente(7L, 1L, 0.2), ingrediente(7L, 9L, 0.5))))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("[9]");
+
+        verify(recetaDetalleRepository, never()).saveAll(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void shouldRejectSubRecipesThatWouldFormACycleWithinTheSameBatch() {
+        when(recetaBaseRepository.findAllById(Set.of(7L, 8L))).thenReturn(List.of(receta(7L), receta(8L)));
+        when(explosionRecetas.formariaCiclo(eq(7L), eq(8L), anyMap())).thenReturn(false);
+        when(explosionRecetas.formariaCiclo(eq(8L), eq(7L), argThat(nuevos -> nuevos.containsKey(7L)))).thenReturn(true);
+
+        assertThatThrownBy(() -> recetaDetalleService.createBulk(List.of(
+                componente(7L, 8L, 1.0), componente(8L, 7L, 0.5))))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("ciclo");
+
+        verify(recetaDetalleRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldRecheckCyclesInDatabaseUnderLock() {
+        when(recetaBaseRepository.findAllById(Set.of(7L, 8L))).thenReturn(List.of(receta(7L), receta(8L)));
+        when(explosionRecetas.formariaCiclo(eq(7L), eq(8L), anyMap())).thenReturn(false);
+        when(recetaDetalleRepository.alcanzaReceta(8L, 7L)).thenReturn(true);
+
+        assertThatThrownBy(() -> recetaDetalleService.createBulk(List.of(componente(7L, 8L, 1.0))))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("ciclo");
+
+        InOrder orden = inOrder(recetaDetalleRepository);
+        orden.verify(recetaDetalleRepository).bloquearEdicionSubRecetas();
+        orden.verify(recetaDetalleRepository).saveAll(any());
+        orden.verify(recetaDetalleRepository).flush();
+        orden.verify(recetaDetalleRepository).alcanzaReceta(8L, 7L);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void shouldRejectSubRecipeLinesNotExpressedInPortions() {
+        when(recetaBaseRepository.findAllById(Set.of(7L, 8L))).thenReturn(List.of(receta(7L), receta(8L)));
+        when(explosionRecetas.formariaCiclo(eq(7L), eq(8L), anyMap())).thenReturn(false);
+        RecetaDetalleNewDTO enKilos = RecetaDetalleNewDTO.builder()
+                .recetaBaseId(7L).subRecetaId(8L).cantidadNecesaria(0.5).unidadMedida("kg").build();
+
+        assertThatThrownBy(() -> recetaDetalleService.createBulk(List.of(enKilos)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("porciones");
+
+        verify(recetaDetalleRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void shouldRejectLinesWithBothProductAndSubRecipe() {
+        RecetaDetalleNewDTO ambos = RecetaDetalleNewDTO.builder()
+                .recetaBaseId(7L).productoId(1L).subRecetaId(8L).cantidadNecesaria(1.0).unidadMedida("kg").build();
+        when(recetaBaseRepository.findAllById(anyCollection())).thenReturn(List.of(receta(7L), receta(8L)));
+
+        assertThatThrownBy(() -> recetaDetalleService.createBulk(List.of(ambos)))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static RecetaDetalleNewDTO ingrediente(Long recetaId, Long productoId, double cantidad) {
+        return RecetaDetalleNewDTO.builder()
+                .recetaBaseId(recetaId).productoId(productoId).cantidadNecesaria(cantidad).unidadMedida("kg").build();
+    }
+
+    private static RecetaDetalleNewDTO componente(Long recetaId, Long subRecetaId, double cantidad) {
+        return RecetaDetalleNewDTO.builder()
+                .recetaBaseId(recetaId).subRecetaId(subRecetaId).cantidadNecesaria(cantidad).unidadMedida("porción").build();
+    }
+
+    private static RecetaBase receta(Long id) {
+        RecetaBase receta = new RecetaBase();
+        receta.setId(id);
+        return receta;
+    }
+
+    private static Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setUnidadMedida("kg");
+        return producto;
+    }
+}
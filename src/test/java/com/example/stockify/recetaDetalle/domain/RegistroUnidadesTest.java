@@ -0,0 +1,35 @@
+package com.example.stockify.recetaDetalle.domain;
+
+import com.example.stockify.excepciones.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RegistroUnidadesTest {
+
+    private final RegistroUnidades registroUnidades = new RegistroUnidades();
+
+    @Test
+    void shouldConvertWithinTheSameMagnitude() {
+        assertThat(registroUnidades.factor("g", "kg")).isEqualTo(0.001);
+        assertThat(registroUnidades.factor("Litros", "ml")).isEqualTo(1000.0);
+        assertThat(registroUnidades.factor("docena", "unidades")).isEqualTo(12.0);
+    }
+
+    @Test
+    void shouldNormalizeCaseAccentsAndTrailingDot() {
+        assertThat(registroUnidades.factor(" Kg. ", "gramos")).isEqualTo(1000.0);
+        assertThat(registroUnidades.factor("cucharada", "MILILITROS")).isEqualTo(15.0);
+    }
+
+    @Test
+    void shouldTreatIdenticalUnknownUnitsAsSameUnit() {
+        assertThat(registroUnidades.factor("atado", "Atado")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldRejectIncompatibleOrUnknownUnits() {
+        assertThatThrownBy(() -> registroUnidades.factor("g", "l")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> registroUnidades.factor("atado", "kg")).isInstanceOf(BadRequestException.class);
+    }
+}
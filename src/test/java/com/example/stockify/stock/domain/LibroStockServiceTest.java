@@ -0,0 +1,209 @@
+package com.example.stockify.stock.domain;
+
+import com.example.stockify.excepciones.BadRequestException;
+import com.example.stockify.excepciones.ConflictException;
+import com.example.stockify.lote.domain.Lote;
+import com.example.stockify.lote.infrastructure.LoteRepository;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.stock.dto.AuditoriaStockDTO;
+import com.example.stockify.stock.dto.CheckpointStockDTO;
+import com.example.stockify.stock.dto.InventarioAFechaDTO;
+import com.example.stockify.stock.dto.SaldoLibroDTO;
+import com.example.stockify.stock.infrastructure.CheckpointStockRepository;
+import com.example.stockify.stock.infrastructure.SaldoCheckpointRepository;
+import com.example.stockify.stock.infrastructure.SaldoCheckpointRepository.SaldoAFecha;
+import com.example.stockify.stock.infrastructure.SaldoCheckpointRepository.SaldoLibro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LibroStockServiceTest {
+
+    @Mock private CheckpointStockRepository checkpointStockRepository;
+    @Mock private SaldoCheckpointRepository saldoCheckpointRepository;
+    @Mock private ProductoRepository productoRepository;
+    @Mock private LoteRepository loteRepository;
+    @Mock private SaldoAlmacenService saldoAlmacenService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private LibroStockService libroStockService;
+    private Producto producto;
+    private Lote lote1;
+    private Lote lote2;
+    private CheckpointStock checkpoint;
+
+    @BeforeEach
+    void setUp() {
+        libroStockService = new LibroStockService(checkpointStockRepository, saldoCheckpointRepository,
+                productoRepository, loteRepository, saldoAlmacenService, eventPublisher, 10, 48);
+
+        producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Harina");
+        producto.setStockActual(30.0);
+
+        lote1 = Lote.builder().id(10L).codigoLote("L-1").producto(producto).cantidadDisponible(12.0).build();
+        lote2 = Lote.builder().id(11L).codigoLote("L-2").producto(producto).cantidadDisponible(18.0).build();
+
+        checkpoint = CheckpointStock.builder()
+                .id(5L)
+                .corte(LocalDateTime.now().minusHours(1))
+                .fechaCreacion(LocalDateTime.now().minusHours(1))
+                .eventosAplicados(100L)
+                .build();
+    }
+
+    @Test
+    void shouldSumCheckpointAndLaterMovementsPerAlmacenAndLote() {
+        when(productoRepository.existsById(1L)).thenReturn(true);
+        when(checkpointStockRepository.findTopByOrderByCorteDesc()).thenReturn(Optional.of(checkpoint));
+        when(saldoCheckpointRepository.saldosDeProducto(1L, 5L, checkpoint.getCorte()))
+                .thenReturn(List.of(fila(1L, 10L, 12.0, 2L), fila(2L, 11L, 15.0, 1L)));
+
+        SaldoLibroDTO saldo = libroStockService.calcularSaldo(1L);
+
+        assertThat(saldo.getCantidad()).isEqualTo(27.0);
+        assertThat(saldo.getEventosReproducidos()).isEqualTo(3L);
+        assertThat(saldo.getCorteCheckpoint()).isEqualTo(checkpoint.getCorte());
+        assertThat(saldo.getPorAlmacen()).containsEntry(1L, 12.0).containsEntry(2L, 15.0);
+        assertThat(saldo.getPorLote()).containsEntry(10L, 12.0).containsEntry(11L, 15.0);
+    }
+
+    @Test
+    void shouldReportDifferenceBetweenProjectionAndLedger() {
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(checkpointStockRepository.findTopByOrderByCorteDesc()).thenReturn(Optional.of(checkpoint));
+        when(saldoCheckpointRepository.saldosDeProducto(anyLong(), anyLong(), any()))
+                .thenReturn(List.of(fila(1L, 10L, 12.0, 0L), fila(1L, 11L, 15.0, 1L)));
+        when(loteRepository.findByProductoIdOrderByFechaCompraAsc(1L)).thenReturn(List.of(lote1, lote2));
+
+        AuditoriaStockDTO auditoria = libroStockService.auditar(1L);
+
+        assertThat(auditoria.getConsistente()).isFalse();
+        assertThat(auditoria.getDiferencia()).isEqualTo(3.0);
+        assertThat(auditoria.getLotesConDiferencia()).hasSize(1);
+        assertThat(auditoria.getLotesConDiferencia().get(0).getLoteId()).isEqualTo(11L);
+    }
+
+    @Test
+    void shouldRebuildProjectionsFromLedger() {
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(checkpointStockRepository.findTopByOrderByCorteDesc()).thenReturn(Optional.empty());
+        when(saldoCheckpointRepository.saldosDeProducto(1L, -1L, LibroStockService.ORIGEN))
+                .thenReturn(List.of(fila(1L, 11L, 15.0, 4L)));
+        when(loteRepository.findByProductoIdOrderByFechaCompraAsc(1L)).thenReturn(List.of(lote1, lote2));
+
+        AuditoriaStockDTO auditoria = libroStockService.reconstruir(1L);
+
+        assertThat(auditoria.getConsistente()).isFalse();
+        assertThat(producto.getStockActual()).isEqualTo(15.0);
+        assertThat(lote1.getCantidadDisponible()).isEqualTo(0.0);
+        assertThat(lote2.getCantidadDisponible()).isEqualTo(15.0);
+        verify(productoRepository).save(producto);
+        verify(loteRepository).saveAll(List.of(lote1, lote2));
+        verify(saldoAlmacenService).reemplazarProducto(1L, Map.of(1L, 15.0));
+    }
+
+    @Test
+    void shouldRejectCheckpointWhenAnotherIsRunning() {
+        when(checkpointStockRepository.intentarBloquearGeneracion()).thenReturn(false);
+
+        assertThatThrownBy(() -> libroStockService.crearCheckpoint())
+                .isInstanceOf(ConflictException.class);
+        verify(saldoCheckpointRepository, never()).acumular(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldValueInventoryAsOfDateFromNearestCheckpoint() {
+        LocalDateTime fecha = LocalDateTime.of(2025, 9, 30, 18, 0);
+        CheckpointStock diario = CheckpointStock.builder()
+                .id(8L).corte(LocalDateTime.of(2025, 9, 30, 0, 20)).diario(true).build();
+        when(checkpointStockRepository.findTopByCorteLessThanEqualOrderByCorteDesc(fecha)).thenReturn(Optional.of(diario));
+        when(saldoCheckpointRepository.saldosAFecha(8L, diario.getCorte(), fecha)).thenReturn(List.of(
+                filaAFecha(1L, 1L, 10.0, 25.0, 3L),
+                filaAFecha(1L, 2L, 0.0, 0.0, 2L),
+                filaAFecha(2L, 1L, 4.0, 12.0, 0L)));
+
+        InventarioAFechaDTO inventario = libroStockService.calcularInventarioAFecha("2025-09-30T18:00:00");
+
+        assertThat(inventario.getCorteCheckpoint()).isEqualTo(diario.getCorte());
+        assertThat(inventario.getEventosReproducidos()).isEqualTo(5L);
+        assertThat(inventario.getValorTotal()).isEqualTo(37.0);
+        assertThat(inventario.getSaldos()).extracting(s -> s.getProductoId() + "/" + s.getAlmacenId())
+                .containsExactly("1/1", "2/1");
+    }
+
+    @Test
+    void shouldReplayFromOriginWhenNoCheckpointBeforeDate() {
+        LocalDateTime fecha = LocalDateTime.of(2020, 1, 1, 0, 0);
+        when(checkpointStockRepository.findTopByCorteLessThanEqualOrderByCorteDesc(fecha)).thenReturn(Optional.empty());
+
+        InventarioAFechaDTO inventario = libroStockService.calcularInventarioAFecha("2020-01-01T00:00");
+
+        assertThat(inventario.getCorteCheckpoint()).isNull();
+        assertThat(inventario.getSaldos()).isEmpty();
+        verify(saldoCheckpointRepository).saldosAFecha(-1L, LibroStockService.ORIGEN, fecha);
+    }
+
+    @Test
+    void shouldRejectInvalidAsOfDate() {
+        assertThatThrownBy(() -> libroStockService.calcularInventarioAFecha("30/09/2025"))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(saldoCheckpointRepository);
+    }
+
+    @Test
+    void shouldMarkNightlyCheckpointAndPurgeOldHourlyOnes() {
+        when(checkpointStockRepository.intentarBloquearGeneracion()).thenReturn(true);
+        when(checkpointStockRepository.findTopByOrderByCorteDesc()).thenReturn(Optional.of(checkpoint));
+        when(checkpointStockRepository.save(any())).thenAnswer(inv -> {
+            CheckpointStock nuevo = inv.getArgument(0);
+            if (nuevo.getId() == null) {
+                nuevo.setId(6L);
+            }
+            return nuevo;
+        });
+
+        CheckpointStockDTO diario = libroStockService.crearCheckpointDiario();
+
+        assertThat(diario.getId()).isEqualTo(6L);
+        assertThat(diario.getDiario()).isTrue();
+        LocalDateTime antesDe = diario.getCorte().minusHours(48);
+        verify(saldoCheckpointRepository).acumular(6L, 5L, checkpoint.getCorte(), diario.getCorte());
+        verify(saldoCheckpointRepository).eliminarDeCheckpointsHorarios(antesDe);
+        verify(checkpointStockRepository).eliminarHorariosAnterioresA(antesDe);
+    }
+
+    private static SaldoAFecha filaAFecha(Long productoId, Long almacenId, Double cantidad, Double valor, Long eventos) {
+        return new SaldoAFecha() {
+            @Override public Long getProductoId() { return productoId; }
+            @Override public Long getAlmacenId() { return almacenId; }
+            @Override public Double getCantidad() { return cantidad; }
+            @Override public Double getValor() { return valor; }
+            @Override public Long getEventos() { return eventos; }
+        };
+    }
+
+    private static SaldoLibro fila(Long almacenId, Long loteId, Double cantidad, Long eventos) {
+        return new SaldoLibro() {
+            @Override public Long getAlmacenId() { return almacenId; }
+            @Override public Long getLoteId() { return loteId; }
+            @Override public Double getCantidad() { return cantidad; }
+            @Override public Long getEventos() { return eventos; }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.stockify.stock.domain;
+
+import com.example.stockify.almacen.domain.Almacen;
+import com.example.stockify.almacen.infrastructure.AlmacenRepository;
+import com.example.stockify.excepciones.ResourceNotFoundException;
+import com.example.stockify.movimiento.domain.Movimiento;
+import com.example.stockify.movimiento.domain.TipoMovimiento;
+import com.example.stockify.producto.domain.Producto;
+import com.example.stockify.producto.infrastructure.ProductoRepository;
+import com.example.stockify.stock.dto.StockProductoDTO;
+import com.example.stockify.stock.infrastructure.SaldoAlmacenRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SaldoAlmacenServiceTest {
+
+    @Mock private SaldoAlmacenRepository saldoAlmacenRepository;
+    @Mock private ProductoRepository productoRepository;
+    @Mock private AlmacenRepository almacenRepository;
+
+    @InjectMocks
+    private SaldoAlmacenService saldoAlmacenService;
+
+    @Test
+    void shouldUpsertOneRowPerProductoAndAlmacenInStableOrder() {
+        Producto harina = producto(2L);
+        Producto arroz = producto(1L);
+        Almacen camara = almacen(7L);
+        Almacen seco = almacen(3L);
+
+        saldoAlmacenService.registrar(List.of(
+                movimiento(harina, seco, -4.0),
+                movimiento(arroz, camara, 10.0),
+                movimiento(harina, seco, -6.0),
+                movimiento(arroz, seco, 5.0),
+                movimiento(arroz, camara, -10.0)));
+
+        InOrder orden = inOrder(saldoAlmacenRepository);
+        orden.verify(saldoAlmacenRepository).aplicarVariacion(eq(1L), eq(3L), eq(5.0), any());
+        orden.verify(saldoAlmacenRepository).aplicarVariacion(eq(2L), eq(3L), eq(-10.0), any());
+        verify(saldoAlmacenRepository, never()).aplicarVariacion(eq(1L), eq(7L), anyDouble(), any());
+    }
+
+    @Test
+    void shouldAddWarehouseBalancesIntoProductTotal() {
+        LocalDateTime ahora = LocalDateTime.now();
+        when(productoRepository.existsById(1L)).thenReturn(true);
+        when(saldoAlmacenRepository.findByProductoIdOrderByAlmacenIdAsc(1L)).thenReturn(List.of(
+                new SaldoAlmacen(1L, 1L, 3L, 12.5, ahora),
+                new SaldoAlmacen(2L, 1L, 7L, 7.5, ahora)));
+
+        StockProductoDTO stock = saldoAlmacenService.obtenerPorProducto(1L);
+
+        assertThat(stock.getTotal()).isEqualTo(20.0);
+        assertThat(stock.getPorAlmacen()).extracting("almacenId").containsExactly(3L, 7L);
+    }
+
+    @Test
+    void shouldThrowWhenAlmacenDoesNotExist() {
+        when(almacenRepository.existsById(9L)).thenReturn(false);
+
+        assertThatThrownBy(() -> saldoAlmacenService.listarPorAlmacen(9L))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private static Movimiento movimiento(Producto producto, Almacen almacen, double variacion) {
+        return Movimiento.builder()
+                .tipoMovimiento(variacion >= 0 ? TipoMovimiento.ENTRADA : TipoMovimiento.SALIDA)
+                .cantidad(Math.abs(variacion))
+                .variacion(variacion)
+                .producto(producto)
+                .almacen(almacen)
+                .build();
+    }
+
+    private static Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        return producto;
+    }
+
+    private static Almacen almacen(Long id) {
+        Almacen almacen = new Almacen();
+        almacen.setId(id);
+        return almacen;
+    }
+}